@@ -23,8 +23,10 @@ import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.cli.CommandLine;
@@ -34,21 +36,32 @@ import dev.roanh.gmark.cli.CommandLineClient;
 import dev.roanh.gmark.cli.InputException;
 import dev.roanh.gmark.data.SourceTargetPair;
 import dev.roanh.gmark.eval.DatabaseGraph;
+import dev.roanh.gmark.eval.EdgeListReader;
 import dev.roanh.gmark.eval.PathQuery;
+import dev.roanh.gmark.eval.QueryCache;
 import dev.roanh.gmark.eval.ReachabilityQueryEvaluator;
 import dev.roanh.gmark.eval.ResultGraph;
+import dev.roanh.gmark.eval.WorkloadEvaluator;
+import dev.roanh.gmark.eval.WorkloadEvaluator.QueryResult;
 import dev.roanh.gmark.lang.QueryLanguage;
 import dev.roanh.gmark.lang.ReachabilityQueryLanguageSyntax;
 import dev.roanh.gmark.type.schema.Predicate;
 import dev.roanh.gmark.util.Util;
-import dev.roanh.gmark.util.graph.generic.IntGraph;
 
 /**
  * Command line client for query evaluation.
  * <p>
  * Example Usage:
  * <ul><li><code>gmark evaluate -l cpq -s 56 -q "a ◦ b" -t 5 -g ./graph.edge -o out.txt</code></li>
- * <li><code>gmark evaluate -l cpq -w ./queries.cpq -g ./graph.edge -o out.txt</code></li></ul>
+ * <li><code>gmark evaluate -l cpq -w ./queries.cpq -g ./graph.edge -o out.txt</code></li>
+ * <li><code>gmark evaluate -g ./graph.edge -b ./graph.slt</code></li>
+ * <li><code>gmark evaluate -l cpq -w ./queries.cpq -g ./graph.slt -o out.txt</code></li>
+ * <li><code>gmark evaluate -l cpq -w ./queries.cpq -g ./graph.edge -p 8 -o out.txt</code></li>
+ * <li><code>gmark evaluate -l cpq -q "a ◦ b" -g ./graph.edge -k 100 -o out.txt</code></li>
+ * <li><code>gmark evaluate -l cpq -s 56 -q "a ◦ b" -g ./graph.edge -e</code></li>
+ * <li><code>gmark evaluate -l cpq -w ./queries.cpq -g ./graph.edge -i -o out.txt</code></li>
+ * <li><code>gmark evaluate -l rpq -w ./queries.rpq -g ./graph.slt -x -o out.txt</code></li>
+ * <li><code>gmark evaluate -l cpq -w ./queries.cpq -g ./graph.slt -a -o out.txt</code></li></ul>
  * @author Roan
  */
 public final class EvaluatorClient extends CommandLineClient{
@@ -56,7 +69,12 @@ public final class EvaluatorClient extends CommandLineClient{
 	 * Instance of this client.
 	 */
 	public static final EvaluatorClient INSTANCE = new EvaluatorClient();
-
+	/**
+	 * The file extension used to recognise binary SLT database graph files.
+	 * @see DatabaseGraph#read(Path)
+	 */
+	private static final String BINARY_EXTENSION = ".slt";
+	
 	/**
 	 * Constructs a new evaluator client.
 	 */
@@ -64,18 +82,35 @@ public final class EvaluatorClient extends CommandLineClient{
 		super(
 			"evaluate",
 			Option.builder("l").longOpt("language").hasArg().argName("query language").desc("The query language for the queries to execute (cpq or rpq).").build(),
-			Option.builder("g").longOpt("graph").hasArg().argName("data").desc("The database graph file.").build(),
+			Option.builder("g").longOpt("graph").hasArg().argName("data").desc("The database graph file, either an edge list or a binary SLT file (.slt).").build(),
+			Option.builder("b").longOpt("binary").hasArg().argName("file").desc("Write the database graph to the given file in binary SLT format.").build(),
 			Option.builder("w").longOpt("workload").hasArg().argName("file").desc("The query workload to run, one query per line with format 'source, query, target'.").build(),
 			Option.builder("s").longOpt("source").hasArg().argName("source").desc("Optionally the bound source node for the query.").build(),
 			Option.builder("q").longOpt("query").hasArg().argName("query").desc("The query to evaluate.").build(),
 			Option.builder("t").longOpt("target").hasArg().argName("target").desc("Optionally the bound target node for the query.").build(),
+			Option.builder("p").longOpt("threads").hasArg().argName("count").desc("The number of threads to evaluate workload queries on concurrently (default 1).").build(),
+			Option.builder("c").longOpt("cache").hasArg().argName("megabytes").desc("Cache the results of sub queries shared between workload queries, using at most the given amount of memory.").build(),
+			Option.builder("k").longOpt("limit").hasArg().argName("count").desc("Stop evaluating a query once the given number of result paths was found.").build(),
+			Option.builder("e").longOpt("exists").desc("Only check whether each query has at least one result path.").build(),
+			Option.builder("a").longOpt("statistics").desc("Compute statistics for all paths of length 2 in the database graph before evaluation to improve query planning.").build(),
+			Option.builder("x").longOpt("partitions").desc("Build a label partitioned copy of the database graph to speed up selecting all edges with a label.").build(),
+			Option.builder("i").longOpt("pipelined").desc("Evaluate queries in a pipelined fashion, writing result paths to the output file as soon as they are found.").build(),
 			Option.builder("o").longOpt("output").hasArg().argName("file").desc("The file to write the query output to.").build(),
 			Option.builder("f").longOpt("force").desc("Overwrite the output file if present.").build()
 		);
 	}
-
+	
 	@Override
 	protected void handleInput(CommandLine cli) throws InputException{
+		DatabaseGraph graph = null;
+		if(cli.hasOption('b')){
+			graph = readDatabaseGraph(cli);
+			writeDatabaseGraph(graph, cli);
+			if(!hasQueryInput(cli)){
+				return;
+			}
+		}
+		
 		QueryLanguage language = QueryLanguage.fromName(cli.getOptionValue('l')).orElse(null);
 		if(language == null){
 			throw new InputException("No query language specified.");
@@ -83,9 +118,32 @@ public final class EvaluatorClient extends CommandLineClient{
 			throw new InputException("Only evaluation of reachability queries is supported currently.");
 		}
 		
-		DatabaseGraph graph = readDatabaseGraph(cli);
+		if(graph == null){
+			graph = readDatabaseGraph(cli);
+		}
+		
 		List<PathQuery> queries = readQueries(language, graph, cli);
-		executeQueries(graph, queries, resolveOutputPath(cli));
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(graph);
+		evaluator.setCache(resolveCache(cli));
+		evaluator.setLabelPartitioning(cli.hasOption('x'));
+		if(cli.hasOption('a')){
+			System.out.println("Computing path statistics...");
+			graph.computePathStatistics(ForkJoinPool.commonPool());
+			evaluator.setPathStatistics(true);
+		}
+		
+		int limit = resolveLimit(cli);
+		int threads = resolveThreadCount(cli);
+		Path output = resolveOutputPath(cli);
+		if(cli.hasOption('i')){
+			if(threads != 1){
+				throw new InputException("Pipelined evaluation cannot be combined with multiple evaluation threads.");
+			}
+			
+			streamQueries(evaluator, queries, limit, output);
+		}else{
+			executeQueries(evaluator, queries, limit, threads, output);
+		}
 	}
 	
 	/**
@@ -98,12 +156,12 @@ public final class EvaluatorClient extends CommandLineClient{
 	 */
 	private List<PathQuery> readQueries(QueryLanguage language, DatabaseGraph graph, CommandLine cli) throws InputException{
 		boolean hasSingleQuery = cli.hasOption('s') || cli.hasOption('q') || cli.hasOption('t');
-		if(!hasSingleQuery && !cli.hasOption('w')){
+		if(!hasQueryInput(cli)){
 			throw new InputException("No query input provided.");
 		}else if(hasSingleQuery && cli.hasOption('w')){
 			throw new InputException("Cannot provided both an input query and an input query workload.");
 		}
-
+		
 		if(hasSingleQuery){
 			return List.of(new PathQuery(
 				Optional.ofNullable(cli.getOptionValue('s')).map(Integer::parseInt),
@@ -135,18 +193,51 @@ public final class EvaluatorClient extends CommandLineClient{
 		
 		try{
 			System.out.println("Reading database graph...");
-			IntGraph data = Util.readGraph(Paths.get(cli.getOptionValue('g')));
-			if(data == null){
-				throw new InputException("Failed to parse the provided graph file.");
+			Path file = Paths.get(cli.getOptionValue('g'));
+			if(file.getFileName().toString().endsWith(BINARY_EXTENSION)){
+				return DatabaseGraph.read(file);
 			}
 			
-			return new DatabaseGraph(data);
+			return EdgeListReader.read(file);
+		}catch(IllegalArgumentException e){
+			throw new InputException("Failed to parse the provided graph file: " + e.getMessage());
 		}catch(IOException e){
 			e.printStackTrace();
 			throw new InputException("Failed to read the provided graph file.");
 		}
 	}
 	
+	/**
+	 * Writes the given database graph to the binary SLT file provided on the command line.
+	 * @param graph The database graph to write.
+	 * @param cli The command line arguments.
+	 * @throws InputException When the provided CLI input contains issues.
+	 * @see DatabaseGraph#write(Path)
+	 */
+	private void writeDatabaseGraph(DatabaseGraph graph, CommandLine cli) throws InputException{
+		Path file = Paths.get(cli.getOptionValue('b'));
+		if(!cli.hasOption('f') && Files.exists(file)){
+			throw new InputException("The given binary graph file already exists and overwriting is not requested.");
+		}
+		
+		try{
+			System.out.println("Writing binary database graph...");
+			graph.write(file);
+		}catch(IOException e){
+			e.printStackTrace();
+			throw new InputException("Failed to write the binary graph file.");
+		}
+	}
+	
+	/**
+	 * Checks if any query input was provided on the command line.
+	 * @param cli The command line arguments.
+	 * @return True if a single query or a query workload was provided.
+	 */
+	private static boolean hasQueryInput(CommandLine cli){
+		return cli.hasOption('s') || cli.hasOption('q') || cli.hasOption('t') || cli.hasOption('w');
+	}
+	
 	/**
 	 * Attempts to resolve the output path results should be written to.
 	 * @param cli The command line input.
@@ -163,17 +254,94 @@ public final class EvaluatorClient extends CommandLineClient{
 	}
 	
 	/**
-	 * Executes the given list of queries on the given graph and writes the results to the given file.
-	 * @param graph The graph to evaluate the queries on.
+	 * Attempts to resolve the number of threads queries should be evaluated on.
+	 * @param cli The command line input.
+	 * @return The number of threads to evaluate queries on.
+	 * @throws InputException When the provided CLI input contains issues.
+	 */
+	private int resolveThreadCount(CommandLine cli) throws InputException{
+		if(!cli.hasOption('p')){
+			return 1;
+		}
+		
+		try{
+			int threads = Integer.parseInt(cli.getOptionValue('p'));
+			if(threads > 0){
+				return threads;
+			}
+		}catch(NumberFormatException ignore){
+			//handled below
+		}
+		
+		throw new InputException("The number of threads has to be a positive integer.");
+	}
+	
+	/**
+	 * Attempts to resolve the maximum number of result paths to find for each query.
+	 * @param cli The command line input.
+	 * @return The maximum number of result paths per query.
+	 * @throws InputException When the provided CLI input contains issues.
+	 */
+	private int resolveLimit(CommandLine cli) throws InputException{
+		if(cli.hasOption('e')){
+			if(cli.hasOption('k')){
+				throw new InputException("Cannot provide both a result limit and request an existence check.");
+			}
+			
+			return 1;
+		}else if(!cli.hasOption('k')){
+			return Integer.MAX_VALUE;
+		}
+		
+		try{
+			int limit = Integer.parseInt(cli.getOptionValue('k'));
+			if(limit > 0){
+				return limit;
+			}
+		}catch(NumberFormatException ignore){
+			//handled below
+		}
+		
+		throw new InputException("The result limit has to be a positive integer.");
+	}
+	
+	/**
+	 * Attempts to resolve the cache to use for the results of sub queries.
+	 * @param cli The command line input.
+	 * @return The cache to use or null if caching is disabled.
+	 * @throws InputException When the provided CLI input contains issues.
+	 */
+	private QueryCache resolveCache(CommandLine cli) throws InputException{
+		if(!cli.hasOption('c')){
+			return null;
+		}
+		
+		try{
+			long megabytes = Long.parseLong(cli.getOptionValue('c'));
+			if(megabytes > 0L && megabytes <= Long.MAX_VALUE >> 20){
+				return new QueryCache(megabytes << 20);
+			}
+		}catch(NumberFormatException ignore){
+			//handled below
+		}
+		
+		throw new InputException("The cache size has to be a positive number of megabytes.");
+	}
+	
+	/**
+	 * Executes the given list of queries with the given evaluator and writes the results to the given file.
+	 * @param evaluator The evaluator to evaluate the queries with.
 	 * @param queries The queries to evaluate.
+	 * @param limit The maximum number of result paths to find for each query.
+	 * @param threads The number of threads to evaluate queries on concurrently.
 	 * @param outputFile The file to write the results to (or null to not write any results to disk).
 	 */
-	private void executeQueries(DatabaseGraph graph, List<PathQuery> queries, Path outputFile){
+	private void executeQueries(ReachabilityQueryEvaluator evaluator, List<PathQuery> queries, int limit, int threads, Path outputFile){
 		if(outputFile == null){
-			executeAndWriteQueries(graph, queries, null);
+			executeAndWriteQueries(evaluator, queries, limit, threads, null);
 		}else{
 			try(PrintWriter writer = new PrintWriter(Files.newBufferedWriter(outputFile))){
-				executeAndWriteQueries(graph, queries, writer);
+				executeAndWriteQueries(evaluator, queries, limit, threads, writer);
 			}catch(IOException e){
 				e.printStackTrace();
 			}
@@ -181,34 +349,131 @@ public final class EvaluatorClient extends CommandLineClient{
 	}
 	
 	/**
-	 * Executes the given list of queries on the given graph and writes the results to the given file.
-	 * @param graph The graph to evaluate the queries on.
+	 * Executes the given list of queries with the given evaluator and writes the results to the given file.
+	 * When more than one thread is used, queries are evaluated concurrently against the shared
+	 * database graph, but results are still reported and written in the order of the input queries.
+	 * @param evaluator The evaluator to evaluate the queries with.
 	 * @param queries The queries to evaluate.
+	 * @param limit The maximum number of result paths to find for each query.
+	 * @param threads The number of threads to evaluate queries on concurrently.
 	 * @param output The writer to write detailed query results to (or null to not write detailed results).
+	 * @see WorkloadEvaluator
 	 */
-	private void executeAndWriteQueries(DatabaseGraph graph, List<PathQuery> queries, PrintWriter output){
-		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(graph);
+	private void executeAndWriteQueries(ReachabilityQueryEvaluator evaluator, List<PathQuery> queries, int limit, int threads, PrintWriter output){
+		long start = System.nanoTime();
+		try{
+			new WorkloadEvaluator(evaluator, threads).evaluate(queries, limit, result->{
+				System.out.println("Evaluated query: " + result.query());
+				reportQueryResult(result, output);
+			});
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			System.out.println("Query evaluation was interrupted.");
+			return;
+		}
+		
+		System.out.println("Finished evaluating all input queries.");
+		System.out.println("Total evaluation time: " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
 		
+		QueryCache cache = evaluator.getCache();
+		if(cache != null){
+			System.out.println("Sub query cache hits: " + cache.getHitCount() + ", misses: " + cache.getMissCount());
+		}
+	}
+	
+	/**
+	 * Evaluates the given list of queries in a pipelined fashion with the given evaluator
+	 * and writes the result paths of each query to the given file as soon as they are found.
+	 * @param evaluator The evaluator to evaluate the queries with.
+	 * @param queries The queries to evaluate.
+	 * @param limit The maximum number of result paths to find for each query.
+	 * @param outputFile The file to write the results to (or null to not write any results to disk).
+	 * @see ReachabilityQueryEvaluator#iterate(PathQuery)
+	 */
+	private void streamQueries(ReachabilityQueryEvaluator evaluator, List<PathQuery> queries, int limit, Path outputFile){
+		if(outputFile == null){
+			streamAndWriteQueries(evaluator, queries, limit, null);
+		}else{
+			try(PrintWriter writer = new PrintWriter(Files.newBufferedWriter(outputFile))){
+				streamAndWriteQueries(evaluator, queries, limit, writer);
+			}catch(IOException e){
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Evaluates the given list of queries in a pipelined fashion with the given evaluator
+	 * and writes the result paths of each query to the given writer as soon as they are found.
+	 * Since the number of result paths is only known once all paths have been written, the
+	 * evaluation time and number of result paths are written after the result paths.
+	 * @param evaluator The evaluator to evaluate the queries with.
+	 * @param queries The queries to evaluate.
+	 * @param limit The maximum number of result paths to find for each query.
+	 * @param output The writer to write detailed query results to (or null to not write detailed results).
+	 */
+	private void streamAndWriteQueries(ReachabilityQueryEvaluator evaluator, List<PathQuery> queries, int limit, PrintWriter output){
+		long start = System.nanoTime();
 		for(PathQuery query : queries){
 			System.out.println("Evaluating query: " + query);
-			long start = System.nanoTime();
-			ResultGraph result = evaluator.evaluate(query);
-			long end = System.nanoTime();
-			System.out.println("Evaluation time: " + TimeUnit.NANOSECONDS.toMillis(end - start) + " ms");
-			System.out.println("Result cardinality: " + result.computeCardinality());
+			if(output != null){
+				output.println("Evaluated query: " + query);
+				output.println("===== Result Paths =====");
+			}
 			
+			long queryStart = System.nanoTime();
+			int count = 0;
+			Iterator<SourceTargetPair> paths = evaluator.iterate(query);
+			while(count < limit && paths.hasNext()){
+				SourceTargetPair path = paths.next();
+				count++;
+				if(output != null){
+					output.println(path);
+				}
+			}
+			
+			long timeNs = System.nanoTime() - queryStart;
+			System.out.println("Evaluation time: " + TimeUnit.NANOSECONDS.toMillis(timeNs) + " ms");
+			System.out.println("Result paths: " + count);
 			if(output != null){
-				printQueryResult(query, result, end - start, output);
+				output.println("Evaluation time: " + TimeUnit.NANOSECONDS.toMillis(timeNs) + " ms");
+				output.println("Result paths: " + count);
 				output.println();
 			}
 		}
 		
 		System.out.println("Finished evaluating all input queries.");
+		System.out.println("Total evaluation time: " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+	}
+	
+	/**
+	 * Reports the result of evaluating a query on the console and
+	 * writes the detailed query result to the given writer.
+	 * @param result The query result to report.
+	 * @param output The writer to write detailed query results to (or null to not write detailed results).
+	 */
+	private static void reportQueryResult(QueryResult result, PrintWriter output){
+		System.out.println("Evaluation time: " + TimeUnit.NANOSECONDS.toMillis(result.timeNs()) + " ms");
+		System.out.println("Result cardinality: " + result.result().computeCardinality());
+		
+		if(output != null){
+			printQueryResult(result.query(), result.result(), result.timeNs(), output);
+			output.println();
+		}
 	}
 	
 	@Override
 	public String getHelpFooter(){
-		return "note: the evaluator is intended to be used with either a single query to evaluate (-s/-q/-t) or with a complete workload of queries (-w).";
+		return "note: the evaluator is intended to be used with either a single query to evaluate (-s/-q/-t) or with a complete workload of queries (-w). "
+			+ "A database graph can also be converted to a binary SLT file (-b) that loads significantly faster, in which case query input is optional. "
+			+ "Note that a binary SLT file skips rebuilding the SLT but is still copied fully into memory, so it has the same memory requirements and size limits as an edge list. "
+			+ "Workload queries can be evaluated concurrently on multiple threads (-p), results are still written in workload order. "
+			+ "Results of sub queries shared between workload queries can be cached (-c) to avoid evaluating them again. "
+			+ "Evaluation of each query can be stopped once a number of result paths was found (-k) or once any result path was found (-e). "
+			+ "Statistics for all paths of length 2 can be computed up front (-a) to give the query planner exact estimates for the concatenation of two labels. "
+			+ "Scans of all edges with a label can read from a label partitioned copy of the database graph (-x), at the cost of additional memory. "
+			+ "Queries can also be evaluated in a pipelined fashion (-i), where result paths are written as soon as they are found instead of after evaluation, "
+			+ "this bounds memory usage but is not compatible with multiple threads and does not use the cache.";
 	}
 	
 	/**
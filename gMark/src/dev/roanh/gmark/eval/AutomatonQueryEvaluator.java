@@ -0,0 +1,439 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import dev.roanh.gmark.ast.OperationType;
+import dev.roanh.gmark.ast.QueryTree;
+import dev.roanh.gmark.type.schema.Predicate;
+import dev.roanh.gmark.util.RangeBitSet;
+
+/**
+ * Query evaluator for regular path queries that compiles a query into a finite automaton
+ * and then evaluates the query using a breadth first search over the product of the database
+ * graph and this automaton. Unlike the bottom up evaluation of {@link ReachabilityQueryEvaluator},
+ * this means that no intermediate results are ever materialised. Instead, the search directly
+ * reads the edges it needs from the SLT of the database graph and only visits the part of the
+ * database graph that is reachable from the source vertex of a path.
+ * <p>
+ * Automata are constructed using Glushkov's construction, resulting in an automaton without
+ * epsilon transitions with one state for each label in the query and a single initial state.
+ * Queries with a bound target and no bound source are evaluated using the automaton for the
+ * reverse query, starting the search at the bound target. Note that in line with the other
+ * evaluators, Kleene star is interpreted as one or more repetitions of its operand. Queries
+ * that contain intersection or join operations are not supported by this evaluator.
+ * @author Roan
+ * @see ReachabilityQueryEvaluator
+ * @see <a href="https://en.wikipedia.org/wiki/Glushkov%27s_construction_algorithm">Glushkov's construction algorithm</a>
+ */
+public class AutomatonQueryEvaluator{
+	/**
+	 * Constant used to indicate an unbound (free) query source and/or target vertex.
+	 */
+	private static final int UNBOUND = -1;
+	/**
+	 * First input operand/argument for an operation.
+	 */
+	private static final int FIRST = 0;
+	/**
+	 * Second input operand/argument for an operation.
+	 */
+	private static final int SECOND = 1;
+	/**
+	 * The automaton state that every search starts in.
+	 */
+	private static final int INITIAL = 0;
+	/**
+	 * The main database graph.
+	 */
+	private final DatabaseGraph graph;
+	
+	/**
+	 * Constructs a new automaton based query evaluator for the given database graph.
+	 * @param graph The database graph to evaluate queries on.
+	 */
+	public AutomatonQueryEvaluator(DatabaseGraph graph){
+		this.graph = graph;
+	}
+	
+	/**
+	 * Evaluates the given regular path query on the database graph for
+	 * this evaluator and returns the result graph.
+	 * @param query The path query to evaluate.
+	 * @return The query answer result graph containing the matched paths,
+	 *         by construction this result graph will be sorted.
+	 * @throws IllegalArgumentException When the given query is not supported
+	 *         by this evaluator.
+	 * @see #isSupported(QueryTree)
+	 * @see PathQuery
+	 */
+	public ResultGraph evaluate(PathQuery query) throws IllegalArgumentException{
+		return evaluate(
+			query.source().orElse(UNBOUND),
+			query.query().toAbstractSyntaxTree(),
+			query.target().orElse(UNBOUND)
+		);
+	}
+	
+	/**
+	 * Evaluates the given query tree (AST) by searching the product of the
+	 * database graph and the automaton for the query.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The path query tree (AST) to evaluate.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return The result of evaluating the given query tree, by construction
+	 *         this result graph will be sorted.
+	 * @throws IllegalArgumentException When the given query is not supported
+	 *         by this evaluator.
+	 * @see #isSupported(QueryTree)
+	 */
+	protected ResultGraph evaluate(int source, QueryTree path, int target) throws IllegalArgumentException{
+		if(!isSupported(path)){
+			throw new IllegalArgumentException("This evaluator only supports regular path queries.");
+		}
+		
+		final int vertexCount = graph.getVertexCount();
+		if(source == UNBOUND && target != UNBOUND){
+			Search search = new Search(new Automaton(path, true));
+			return ResultGraph.singleTarget(vertexCount, search.run(target, UNBOUND), target);
+		}
+		
+		Search search = new Search(new Automaton(path, false));
+		if(source != UNBOUND){
+			int[] targets = search.run(source, target);
+			return targets.length == 0 ? ResultGraph.empty(vertexCount) : ResultGraph.single(vertexCount, source, true, targets);
+		}
+		
+		ResultGraph out = new ResultGraph(vertexCount, vertexCount, true);
+		for(int vertex = 0; vertex < vertexCount; vertex++){
+			out.setActiveSource(vertex);
+			for(int reached : search.run(vertex, UNBOUND)){
+				out.addTarget(reached);
+			}
+		}
+		
+		out.endFinalSource();
+		return out;
+	}
+	
+	/**
+	 * Checks if the given query tree can be evaluated by this evaluator, this
+	 * is the case if it does not contain any intersection or join operations.
+	 * @param path The query tree (AST) to check.
+	 * @return True if the given query tree is supported by this evaluator.
+	 */
+	public static boolean isSupported(QueryTree path){
+		return path.stream().map(QueryTree::getOperation).noneMatch(op->op == OperationType.INTERSECTION || op == OperationType.JOIN);
+	}
+	
+	/**
+	 * Breadth first search over the product of the database graph and an automaton.
+	 * All buffers used by the search are reused between runs, making it efficient to
+	 * run the search for a large number of start vertices.
+	 * @author Roan
+	 */
+	private final class Search{
+		/**
+		 * The automaton to search with.
+		 */
+		private final Automaton automaton;
+		/**
+		 * For each automaton state the database graph vertices visited in that state.
+		 */
+		private final BitSet[] visited;
+		/**
+		 * The database graph vertices that were reached in an accepting state.
+		 */
+		private final RangeBitSet accepted;
+		/**
+		 * The database graph vertices in the search queue, with {@link #queueStates} holding the
+		 * associated automaton states. All visited pairs remain in the queue until the run ends.
+		 */
+		private int[] queueVertices;
+		/**
+		 * The automaton states in the search queue.
+		 * @see #queueVertices
+		 */
+		private int[] queueStates;
+		/**
+		 * The database graph vertices that were reached in an accepting state, in the order they were found.
+		 */
+		private int[] found;
+		
+		/**
+		 * Constructs a new search for the given automaton.
+		 * @param automaton The automaton to search with.
+		 */
+		private Search(Automaton automaton){
+			this.automaton = automaton;
+			
+			final int vertexCount = graph.getVertexCount();
+			visited = new BitSet[automaton.getStateCount()];
+			for(int state = 0; state < visited.length; state++){
+				visited[state] = new BitSet(vertexCount);
+			}
+			
+			accepted = new RangeBitSet(vertexCount);
+			queueVertices = new int[16];
+			queueStates = new int[16];
+			found = new int[16];
+		}
+		
+		/**
+		 * Runs the search from the given start vertex and returns all vertices that can be
+		 * reached by a path accepted by the automaton. If a goal vertex is given, then the
+		 * search terminates as soon as the goal vertex is found.
+		 * @param start The vertex to start the search at.
+		 * @param goal The only vertex to look for, or -1 to find all vertices.
+		 * @return The sorted IDs of all vertices reached, if a goal vertex is given then
+		 *         this is either only the goal vertex or no vertices at all.
+		 */
+		private int[] run(int start, int goal){
+			int size = 0;
+			queueVertices[size] = start;
+			queueStates[size++] = INITIAL;
+			
+			int count = 0;
+			if(automaton.isAccepting(INITIAL)){
+				accepted.rangeSet(start);
+				found[count++] = start;
+			}
+			
+			final int[] slt = graph.getData();
+			final int[] reverseSlt = graph.getReverseData();
+			search: for(int head = 0; head < size && (goal == UNBOUND || !accepted.get(goal)); head++){
+				final int vertex = queueVertices[head];
+				final int state = queueStates[head];
+				
+				for(int ti = automaton.transitionIndex[state]; ti < automaton.transitionIndex[state + 1]; ti++){
+					final int next = automaton.transitions[ti];
+					final int[] data = automaton.inverse[next] ? reverseSlt : slt;
+					final int offset = data[vertex];
+					if(offset == data[vertex + 1]){
+						continue;
+					}
+					
+					final int label = automaton.labels[next];
+					final int end = data[offset + label + 1];
+					for(int i = data[offset + label]; i < end; i++){
+						final int target = data[i];
+						if(visited[next].get(target)){
+							continue;
+						}
+						
+						visited[next].set(target);
+						if(size == queueVertices.length){
+							queueVertices = Arrays.copyOf(queueVertices, size * 2);
+							queueStates = Arrays.copyOf(queueStates, size * 2);
+						}
+						
+						queueVertices[size] = target;
+						queueStates[size++] = next;
+						
+						if(automaton.isAccepting(next) && !accepted.get(target)){
+							accepted.rangeSet(target);
+							if(count == found.length){
+								found = Arrays.copyOf(found, count * 2);
+							}
+							
+							found[count++] = target;
+							if(target == goal){
+								break search;
+							}
+						}
+					}
+				}
+			}
+			
+			int[] result;
+			if(goal == UNBOUND){
+				result = Arrays.copyOf(found, count);
+				Arrays.sort(result);
+			}else{
+				result = accepted.get(goal) ? new int[]{goal} : new int[0];
+			}
+			
+			for(int i = 1; i < size; i++){
+				visited[queueStates[i]].clear(queueVertices[i]);
+			}
+			
+			accepted.rangeClear();
+			return result;
+		}
+	}
+	
+	/**
+	 * Glushkov automaton for a regular path query. State 0 is the initial state and
+	 * every other state corresponds to a single label occurrence in the query, with all
+	 * transitions into a state being labelled with the label of that state. Transitions
+	 * are stored in a CSR like structure indexed by source state.
+	 * @author Roan
+	 */
+	private static final class Automaton{
+		/**
+		 * For each state the ID of the label on all transitions into that state.
+		 */
+		private final int[] labels;
+		/**
+		 * For each state whether the label on all transitions into that state is inverted.
+		 */
+		private final boolean[] inverse;
+		/**
+		 * For each state whether it is an accepting state.
+		 */
+		private final boolean[] accepting;
+		/**
+		 * Transition index, the transitions out of some state are stored in
+		 * {@link #transitions} starting at index {@code transitionIndex[state]}
+		 * (inclusive) until {@code transitionIndex[state + 1]} (exclusive).
+		 */
+		private final int[] transitionIndex;
+		/**
+		 * The target states for all transitions.
+		 * @see #transitionIndex
+		 */
+		private final int[] transitions;
+		/**
+		 * The number of states assigned so far during construction.
+		 */
+		private int states = 1;
+		
+		/**
+		 * Constructs a new automaton for the given query tree.
+		 * @param path The regular path query tree (AST) to construct an automaton for.
+		 * @param reverse True to construct an automaton for the reverse of the given
+		 *        query, which matches exactly all the paths of the given query but
+		 *        with their direction reversed.
+		 * @throws IllegalArgumentException When the given query contains unsupported operations.
+		 */
+		private Automaton(QueryTree path, boolean reverse) throws IllegalArgumentException{
+			final int stateCount = 1 + (int)path.stream().filter(node->node.getOperation() == OperationType.EDGE).count();
+			labels = new int[stateCount];
+			inverse = new boolean[stateCount];
+			accepting = new boolean[stateCount];
+			
+			BitSet[] follow = new BitSet[stateCount];
+			for(int state = 0; state < stateCount; state++){
+				follow[state] = new BitSet(stateCount);
+			}
+			
+			Fragment root = compile(path, reverse, follow);
+			follow[INITIAL] = root.first();
+			accepting[INITIAL] = root.nullable();
+			root.last().stream().forEach(state->accepting[state] = true);
+			
+			transitionIndex = new int[stateCount + 1];
+			for(int state = 0; state < stateCount; state++){
+				transitionIndex[state + 1] = transitionIndex[state] + follow[state].cardinality();
+			}
+			
+			transitions = new int[transitionIndex[stateCount]];
+			for(int state = 0; state < stateCount; state++){
+				int idx = transitionIndex[state];
+				for(int next = follow[state].nextSetBit(0); next >= 0; next = follow[state].nextSetBit(next + 1)){
+					transitions[idx++] = next;
+				}
+			}
+		}
+		
+		/**
+		 * Gets the total number of states in this automaton.
+		 * @return The number of states in this automaton.
+		 */
+		private int getStateCount(){
+			return labels.length;
+		}
+		
+		/**
+		 * Checks if the given state is an accepting state.
+		 * @param state The state to check.
+		 * @return True if the given state is an accepting state.
+		 */
+		private boolean isAccepting(int state){
+			return accepting[state];
+		}
+		
+		/**
+		 * Recursively computes the Glushkov fragment for the given query tree,
+		 * assigning states to all labels and recording follow transitions.
+		 * @param path The query tree (AST) to compile.
+		 * @param reverse True if the reverse of the query is being compiled.
+		 * @param follow For each state the states that can directly follow it.
+		 * @return The fragment for the given query tree.
+		 * @throws IllegalArgumentException When the given query contains unsupported operations.
+		 */
+		private Fragment compile(QueryTree path, boolean reverse, BitSet[] follow) throws IllegalArgumentException{
+			switch(path.getOperation()){
+			case CONCATENATION:
+				Fragment left = compile(path.getOperand(reverse ? SECOND : FIRST), reverse, follow);
+				Fragment right = compile(path.getOperand(reverse ? FIRST : SECOND), reverse, follow);
+				left.last().stream().forEach(state->follow[state].or(right.first()));
+				
+				BitSet first = (BitSet)left.first().clone();
+				if(left.nullable()){
+					first.or(right.first());
+				}
+				
+				BitSet last = (BitSet)right.last().clone();
+				if(right.nullable()){
+					last.or(left.last());
+				}
+				
+				return new Fragment(left.nullable() && right.nullable(), first, last);
+			case DISJUNCTION:
+				Fragment a = compile(path.getOperand(FIRST), reverse, follow);
+				Fragment b = compile(path.getOperand(SECOND), reverse, follow);
+				a.first().or(b.first());
+				a.last().or(b.last());
+				return new Fragment(a.nullable() || b.nullable(), a.first(), a.last());
+			case EDGE:
+				Predicate label = path.getEdgeAtom().getLabel();
+				labels[states] = label.getID();
+				inverse[states] = reverse ^ label.isInverse();
+				
+				BitSet single = new BitSet();
+				single.set(states++);
+				return new Fragment(false, single, (BitSet)single.clone());
+			case IDENTITY:
+				return new Fragment(true, new BitSet(), new BitSet());
+			case KLEENE:
+				Fragment base = compile(path.getOperand(FIRST), reverse, follow);
+				base.last().stream().forEach(state->follow[state].or(base.first()));
+				return base;
+			case INTERSECTION:
+			case JOIN:
+				throw new IllegalArgumentException("Intersection and join cannot be evaluated with an automaton.");
+			}
+			
+			throw new IllegalStateException("Unknown database operation.");
+		}
+		
+		/**
+		 * Glushkov fragment for a sub query.
+		 * @author Roan
+		 * @param nullable True if the sub query matches empty paths.
+		 * @param first The states that can start a path matched by the sub query.
+		 * @param last The states that can end a path matched by the sub query.
+		 */
+		private static record Fragment(boolean nullable, BitSet first, BitSet last){
+		}
+	}
+}
@@ -18,13 +18,22 @@
  */
 package dev.roanh.gmark.eval;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import dev.roanh.gmark.ast.OperationType;
-import dev.roanh.gmark.data.SourceLabelPair;
-import dev.roanh.gmark.data.TargetLabelPair;
+import dev.roanh.gmark.data.CardStat;
 import dev.roanh.gmark.type.schema.Predicate;
 import dev.roanh.gmark.util.Util;
 import dev.roanh.gmark.util.graph.generic.IntGraph;
@@ -53,6 +62,34 @@ import dev.roanh.gmark.util.graph.generic.IntGraph;
  * @see #slt SLT
  */
 public class DatabaseGraph{
+	/**
+	 * Magic number at the start of every binary SLT file, the ASCII string 'GSLT'.
+	 * @see #write(Path)
+	 */
+	private static final int MAGIC = 0x47534C54;
+	/**
+	 * The version of the binary SLT file format written by this class.
+	 * @see #write(Path)
+	 */
+	private static final int FORMAT_VERSION = 1;
+	/**
+	 * The number of integers in the header of a binary SLT file.
+	 * @see #write(Path)
+	 */
+	private static final int HEADER_SIZE = 6;
+	/**
+	 * The maximum number of integers to transfer between a file and memory at once.
+	 */
+	private static final int CHUNK_SIZE = 1 << 20;
+	/**
+	 * The minimum number of edges before the SLT is constructed in parallel when a pool is given.
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
+	/**
+	 * The number of partitions of source vertices to create for each thread when
+	 * constructing the SLT in parallel.
+	 */
+	private static final int PARTITION_FACTOR = 4;
 	/**
 	 * The total number of vertices in this database graph. Note that not all vertices
 	 * need to be associated with an edge. Furthermore, vertices are identified by all the
@@ -66,6 +103,44 @@ public class DatabaseGraph{
 	 * edges in the database graph with label <code>l</code>.
 	 */
 	private final int[] syn1;
+	/**
+	 * Synopsis of the number of distinct source vertices for each label. Concretely,
+	 * {@code sourceCounts[l]} contains the number of vertices in the database graph
+	 * with at least one outgoing edge with label <code>l</code>. Together with
+	 * {@link #syn1} this gives the average out degree of these vertices for the label.
+	 */
+	private final int[] sourceCounts;
+	/**
+	 * Synopsis of the number of distinct target vertices for each label. Concretely,
+	 * {@code targetCounts[l]} contains the number of vertices in the database graph
+	 * with at least one incoming edge with label <code>l</code>. Together with
+	 * {@link #syn1} this gives the average in degree of these vertices for the label.
+	 */
+	private final int[] targetCounts;
+	/**
+	 * Synopsis of paths of length 2 for each pair of labels, including inverse labels.
+	 * For a pair of labels with indices <code>a</code> and <code>b</code>, where inverse
+	 * labels are indexed after all regular labels, the statistics are stored starting
+	 * at {@code syn2[3 * (a * 2L + b)]} in the order: number of distinct sources, number
+	 * of distinct source target pairs and number of distinct targets. This synopsis is
+	 * computed on first request, as it requires a pass over all paths of length 2.
+	 * @see #getStatistics(Predicate, Predicate)
+	 * @see #computePathStatistics(ForkJoinPool)
+	 */
+	private volatile int[] syn2 = null;
+	/**
+	 * Label partitioned layout of the graph, with for each label, where inverse labels
+	 * are indexed after all regular labels, a separate CSR with only the edges with that
+	 * label. For a label with <code>n</code> distinct source vertices, the first <code>n</code>
+	 * entries of its array are these source vertices in ascending order, followed by
+	 * <code>n + 1</code> offsets into the same array. The targets of the source vertex at
+	 * index <code>i</code> are stored between the offsets at index <code>n + i</code> (inclusive)
+	 * and <code>n + i + 1</code> (exclusive). This layout is optional and only built on request,
+	 * once present scans of all edges with a single label can read only the data of that label.
+	 * @see #computeLabelPartitions()
+	 * @see #selectLabelPartitioned(Predicate)
+	 */
+	private volatile int[][] partitions = null;
 	/**
 	 * Source-Label-Target (SLT) is a data structure that encodes all edges in the complete
 	 * database graph. The general design for this data structure is heavily inspired
@@ -121,90 +196,83 @@ public class DatabaseGraph{
 	 * Constructs a new database graph (SLT) from the given source data. This procedure
 	 * will filter out duplicate edges and sort the target vertex lists.
 	 * @param graph The data for the database graph.
+	 * @see DatabaseGraphBuilder
 	 */
 	public DatabaseGraph(IntGraph graph){
-		final int labelCount = graph.getLabelCount();
-		this.vertexCount = graph.getVertexCount();
+		this(DatabaseGraphBuilder.of(graph), null);
+	}
+	
+	/**
+	 * Constructs a new database graph (SLT) from the edges in the given builder.
+	 * @param builder The builder with the edges for the database graph.
+	 * @param pool The pool to construct the SLT on in parallel, or
+	 *        null to construct the SLT sequentially.
+	 * @see DatabaseGraphBuilder#build(ForkJoinPool)
+	 */
+	protected DatabaseGraph(DatabaseGraphBuilder builder, ForkJoinPool pool){
+		this(builder.getVertexCount(), builder.getLabelCount(), builder.getEdgeCount(), builder.getSources(), builder.getTargets(), builder.getLabels(), pool);
+	}
+	
+	/**
+	 * Constructs a new database graph (SLT) from the given edge columns, where the
+	 * i-th edge goes from {@code sources[i]} to {@code targets[i]} and has label
+	 * {@code labels[i]}. The SLT is constructed using a counting sort on the
+	 * source vertex of the edges followed by a counting sort on the label of
+	 * the edges for each source vertex. This procedure will filter out duplicate
+	 * edges and sort the target vertex lists. The input columns are not modified.
+	 * @param vertexCount The number of vertices in the graph.
+	 * @param labelCount The number of labels in the graph.
+	 * @param edgeCount The number of edges in the given columns.
+	 * @param sources The source vertex of each edge.
+	 * @param targets The target vertex of each edge.
+	 * @param labels The label of each edge.
+	 * @param pool The pool to sort and deduplicate the edges of each source
+	 *        vertex on in parallel, or null to construct the SLT sequentially.
+	 */
+	protected DatabaseGraph(int vertexCount, int labelCount, int edgeCount, int[] sources, int[] targets, int[] labels, ForkJoinPool pool){
+		this.vertexCount = vertexCount;
 		syn1 = new int[labelCount];
-		
-		int nonEmptySources = 0;
-		for(int source = 0; source < vertexCount; source++){
-			if(!graph.getOutgoingEdges(source).isEmpty()){
-				nonEmptySources++;
-			}
-		}
-		
-		slt = new int[vertexCount + 1 + graph.getEdgeCount() + nonEmptySources * (labelCount + 1)];
-		int idx = vertexCount + 1;
-		slt[0] = idx;
-		for(int source = 0; source < vertexCount; source++){
-			List<TargetLabelPair> out = graph.getOutgoingEdges(source);
-			if(!out.isEmpty()){
-				out.sort(Comparator.comparing(TargetLabelPair::label).thenComparing(TargetLabelPair::target));
-				
-				int labIdx = idx;
-				idx += labelCount + 1;
-				slt[labIdx++] = idx;
-				
-				int outIdx = 0;
-				for(int label = 0; label < labelCount; label++){
-					int lastTarget = -1;
-					while(outIdx < out.size() && out.get(outIdx).label() == label){
-						int target = out.get(outIdx).target();
-						if(target != lastTarget){
-							slt[idx++] = target;
-							syn1[label]++;
-							lastTarget = target;
-						}
-						
-						outIdx++;
-					}
-					
-					slt[labIdx++] = idx;
-				}
-			}
-			
-			slt[source + 1] = idx;
-		}
-		
-		int nonEmptyTargets = 0;
-		for(int target = 0; target < vertexCount; target++){
-			if(!graph.getIncomingEdges(target).isEmpty()){
-				nonEmptyTargets++;
-			}
-		}
-		
-		reverseSlt = new int[vertexCount + 1 + graph.getEdgeCount() + nonEmptyTargets * (labelCount + 1)];
-		idx = vertexCount + 1;
-		reverseSlt[0] = idx;
-		for(int target = 0; target < vertexCount; target++){
-			List<SourceLabelPair> in = graph.getIncomingEdges(target);
-			if(!in.isEmpty()){
-				in.sort(Comparator.comparing(SourceLabelPair::label).thenComparing(SourceLabelPair::source));
-				
-				int labIdx = idx;
-				idx += labelCount + 1;
-				reverseSlt[labIdx++] = idx;
-				
-				int inIdx = 0;
-				for(int label = 0; label < labelCount; label++){
-					int lastSource = -1;
-					while(inIdx < in.size() && in.get(inIdx).label() == label){
-						int source = in.get(inIdx).source();
-						if(source != lastSource){
-							reverseSlt[idx++] = source;
-							lastSource = source;
-						}
-						
-						inIdx++;
-					}
-					
-					reverseSlt[labIdx++] = idx;
-				}
-			}
-			
-			reverseSlt[target + 1] = idx;
-		}
+		slt = buildIndex(vertexCount, labelCount, edgeCount, sources, targets, labels, syn1, pool);
+		reverseSlt = buildIndex(vertexCount, labelCount, edgeCount, targets, sources, labels, null, pool);
+		sourceCounts = countVertices(vertexCount, labelCount, slt);
+		targetCounts = countVertices(vertexCount, labelCount, reverseSlt);
+	}
+	
+	/**
+	 * Constructs a new database graph from the given raw data.
+	 * @param vertexCount The number of vertices in the graph.
+	 * @param syn1 The synopsis of paths of length 1 for each label.
+	 * @param slt The SLT data for the graph.
+	 * @param reverseSlt The reverse SLT data for the graph.
+	 * @see #syn1
+	 * @see #slt
+	 * @see #reverseSlt
+	 */
+	protected DatabaseGraph(int vertexCount, int[] syn1, int[] slt, int[] reverseSlt){
+		this.vertexCount = vertexCount;
+		this.syn1 = syn1;
+		this.slt = slt;
+		this.reverseSlt = reverseSlt;
+		sourceCounts = countVertices(vertexCount, syn1.length, slt);
+		targetCounts = countVertices(vertexCount, syn1.length, reverseSlt);
+	}
+	
+	/**
+	 * Constructs a new database graph that shares all its data with the given
+	 * database graph. No data is copied, which is possible because a database
+	 * graph is never modified after construction.
+	 * @param graph The database graph to share the data of.
+	 * @see DatabaseGraphSnapshot
+	 */
+	protected DatabaseGraph(DatabaseGraph graph){
+		vertexCount = graph.vertexCount;
+		syn1 = graph.syn1;
+		sourceCounts = graph.sourceCounts;
+		targetCounts = graph.targetCounts;
+		syn2 = graph.syn2;
+		partitions = graph.partitions;
+		slt = graph.slt;
+		reverseSlt = graph.reverseSlt;
 	}
 	
 	/**
@@ -238,6 +306,121 @@ public class DatabaseGraph{
 		return syn1[label.getID()];
 	}
 	
+	/**
+	 * Gets the number of distinct vertices in this database graph that are the
+	 * source of at least one edge with the given label. For an inverse label
+	 * this is the number of distinct target vertices of the label instead.
+	 * @param label The label/predicate for the edges (potentially inverted).
+	 * @return The number of distinct source vertices of edges with the given label.
+	 * @see #getTargetCount(Predicate)
+	 */
+	public int getSourceCount(Predicate label){
+		assert 0 <= label.getID() && label.getID() < syn1.length;
+		return label.isInverse() ? targetCounts[label.getID()] : sourceCounts[label.getID()];
+	}
+	
+	/**
+	 * Gets the number of distinct vertices in this database graph that are the
+	 * target of at least one edge with the given label. For an inverse label
+	 * this is the number of distinct source vertices of the label instead.
+	 * @param label The label/predicate for the edges (potentially inverted).
+	 * @return The number of distinct target vertices of edges with the given label.
+	 * @see #getSourceCount(Predicate)
+	 */
+	public int getTargetCount(Predicate label){
+		assert 0 <= label.getID() && label.getID() < syn1.length;
+		return label.isInverse() ? sourceCounts[label.getID()] : targetCounts[label.getID()];
+	}
+	
+	/**
+	 * Gets the statistics for paths of length 1 with the given label, this is, the number
+	 * of edges with the label together with their number of distinct source and target vertices.
+	 * @param label The label/predicate for the edges (potentially inverted).
+	 * @return The statistics for edges with the given label.
+	 * @see #getStatistics(Predicate, Predicate)
+	 */
+	public CardStat getStatistics(Predicate label){
+		return new CardStat(getSourceCount(label), getEdgeCount(label), getTargetCount(label));
+	}
+	
+	/**
+	 * Gets the statistics for paths of length 2 that first follow an edge with the given first
+	 * label and then an edge with the given second label. The statistics count the number of
+	 * distinct source target pairs connected by such a path, together with the number of distinct
+	 * source and target vertices of these paths. The statistics are exact and thus identical to
+	 * the cardinality of the result of evaluating the concatenation of the two labels. If the
+	 * statistics for paths of length 2 were not computed before, they are computed first on
+	 * the common pool, this requires a pass over all paths of length 2 in the graph.
+	 * @param first The label of the first edge on the paths (potentially inverted).
+	 * @param second The label of the second edge on the paths (potentially inverted).
+	 * @return The statistics for paths of length 2 with the given labels. Counts that
+	 *         exceed the range of an integer are capped at {@link Integer#MAX_VALUE}.
+	 * @see #getStatistics(Predicate)
+	 * @see #computePathStatistics(ForkJoinPool)
+	 * @see #syn2
+	 */
+	public CardStat getStatistics(Predicate first, Predicate second){
+		assert 0 <= first.getID() && first.getID() < syn1.length;
+		assert 0 <= second.getID() && second.getID() < syn1.length;
+		
+		int[] synopsis = syn2;
+		if(synopsis == null){
+			computePathStatistics(ForkJoinPool.commonPool());
+			synopsis = syn2;
+		}
+		
+		final int idx = 3 * (getLabelIndex(first) * 2 * syn1.length + getLabelIndex(second));
+		return new CardStat(synopsis[idx], synopsis[idx + 1], synopsis[idx + 2]);
+	}
+	
+	/**
+	 * Checks if the statistics for paths of length 2 have been computed already,
+	 * meaning they can be requested without a pass over the graph.
+	 * @return True if the statistics for paths of length 2 are available.
+	 * @see #getStatistics(Predicate, Predicate)
+	 */
+	public boolean hasPathStatistics(){
+		return syn2 != null;
+	}
+	
+	/**
+	 * Computes the statistics for paths of length 2 for all pairs of labels, if
+	 * they were not computed before. The paths starting at different ranges of
+	 * source vertices are counted in parallel if a pool is given.
+	 * @param pool The pool to compute the statistics on in parallel, or
+	 *        null to compute the statistics sequentially.
+	 * @see #getStatistics(Predicate, Predicate)
+	 */
+	public synchronized void computePathStatistics(ForkJoinPool pool){
+		if(syn2 == null){
+			syn2 = buildPathSynopsis(pool);
+		}
+	}
+	
+	/**
+	 * Checks if the label partitioned layout of this graph has been built.
+	 * @return True if the label partitioned layout is available.
+	 * @see #computeLabelPartitions()
+	 */
+	public boolean hasLabelPartitions(){
+		return partitions != null;
+	}
+	
+	/**
+	 * Builds the label partitioned layout of this graph next to the SLT, if it was
+	 * not built before. Once built, selecting all edges with a label from the layout
+	 * reads the edges of that label sequentially instead of going through the label
+	 * index of every source vertex in the SLT. All other selections keep using the SLT.
+	 * The layout requires about as much memory as the SLT itself.
+	 * @see #partitions
+	 * @see #selectLabelPartitioned(Predicate)
+	 */
+	public synchronized void computeLabelPartitions(){
+		if(partitions == null){
+			partitions = buildLabelPartitions();
+		}
+	}
+	
 	/**
 	 * Gets the number of labels in this graph.
 	 * @return The number of labels in this graph.
@@ -276,6 +459,31 @@ public class DatabaseGraph{
 		return out;
 	}
 	
+	/**
+	 * Selects all edges from this graph with the given label from the label partitioned
+	 * layout of this graph. Only the source vertices that have an edge with the given label
+	 * are visited and their targets are read sequentially, as such the cost of the selection
+	 * depends only on the number of edges with the label. The label partitioned layout is
+	 * built first if this was not done before.
+	 * @param label The label to find (potentially inverted).
+	 * @return A result graph containing all the edges with the requested label,
+	 *         by construction this result graph will be sorted.
+	 * @see OperationType#EDGE
+	 * @see #computeLabelPartitions()
+	 * @see #selectLabel(Predicate)
+	 */
+	public ResultGraph selectLabelPartitioned(Predicate label){
+		assert 0 <= label.getID() && label.getID() < syn1.length;
+		
+		int[][] layout = partitions;
+		if(layout == null){
+			computeLabelPartitions();
+			layout = partitions;
+		}
+		
+		return ResultGraph.ofSourceList(vertexCount, layout[getLabelIndex(label)], getSourceCount(label));
+	}
+	
 	/**
 	 * Selects all edges from this graph with the given label that
 	 * also end at the given target vertex.
@@ -292,29 +500,18 @@ public class DatabaseGraph{
 		
 		final int[] data = label.isInverse() ? slt : reverseSlt;
 		final int offset = data[target];
+		if(offset == data[target + 1]){
+			return ResultGraph.empty(vertexCount);
+		}
 		
-		int idx = data[offset + label.getID()];
+		final int idx = data[offset + label.getID()];
 		final int end = data[offset + label.getID() + 1];
 		
 		if(end - idx == 0){
 			return ResultGraph.empty(vertexCount);
 		}
 		
-		int vertex = data[idx];
-		ResultGraph out = new ResultGraph(vertexCount, end - idx, true);
-		for(int source = 0; source < vertexCount; source++){
-			out.setActiveSource(source);
-		
-			if(source == vertex){
-				out.addTarget(target);
-				if(++idx < end){
-					vertex = data[idx];
-				}
-			}
-		}
-		
-		out.endFinalSource();
-		return out;
+		return ResultGraph.singleTarget(vertexCount, Arrays.copyOfRange(data, idx, end), target);
 	}
 	
 	/**
@@ -333,6 +530,10 @@ public class DatabaseGraph{
 		
 		final int[] data = label.isInverse() ? reverseSlt : slt;
 		final int start = data[source];
+		if(start == data[source + 1]){
+			return ResultGraph.empty(vertexCount);
+		}
+		
 		return ResultGraph.single(vertexCount, source, true, data[start + label.getID()], data[start + label.getID() + 1], data);
 	}
 	
@@ -353,13 +554,96 @@ public class DatabaseGraph{
 		
 		final int[] data = label.isInverse() ? reverseSlt : slt;
 		final int start = data[source];
-		if(Arrays.binarySearch(data, data[start + label.getID()], data[start + label.getID() + 1], target) >= 0){
-			return ResultGraph.single(vertexCount, source, target);
-		}else{
-			return ResultGraph.empty(vertexCount);
+		if(start != data[source + 1]){
+			final int to = data[start + label.getID() + 1];
+			final int idx = Util.gallop(data, data[start + label.getID()], to, target);
+			if(idx != to && data[idx] == target){
+				return ResultGraph.single(vertexCount, source, target);
+			}
 		}
+		
+		return ResultGraph.empty(vertexCount);
 	}
 	
+	/**
+	 * Selects all vertices from this graph that are the target of an edge with
+	 * the given label that starts at one of the given source vertices. This is
+	 * equivalent to taking the union of the targets of {@link #selectLabel(int, Predicate)}
+	 * for each of the given sources, without materialising a result graph for each source.
+	 * @param sources The IDs of the vertices edges need to start at.
+	 * @param label The label to find (potentially inverted).
+	 * @return The IDs of all the vertices reached, by construction these are
+	 *         sorted and contain no duplicates.
+	 * @see #selectLabel(int, Predicate)
+	 * @see OperationType#EDGE
+	 */
+	public int[] selectTargets(int[] sources, Predicate label){
+		assert 0 <= label.getID() && label.getID() < syn1.length;
+		
+		final int[] data = label.isInverse() ? reverseSlt : slt;
+		int[] targets = new int[sources.length];
+		int size = 0;
+		for(int source : sources){
+			final int start = data[source];
+			if(start != data[source + 1]){
+				final int labelStart = data[start + label.getID()];
+				final int labelEnd = data[start + label.getID() + 1];
+				if(size + labelEnd - labelStart > targets.length){
+					targets = Arrays.copyOf(targets, Math.max(targets.length * 2, size + labelEnd - labelStart));
+				}
+				
+				System.arraycopy(data, labelStart, targets, size, labelEnd - labelStart);
+				size += labelEnd - labelStart;
+			}
+		}
+		
+		if(size == 0){
+			return new int[0];
+		}
+		
+		Arrays.sort(targets, 0, size);
+		int unique = 1;
+		for(int i = 1; i < size; i++){
+			if(targets[i] != targets[unique - 1]){
+				targets[unique++] = targets[i];
+			}
+		}
+		
+		return Arrays.copyOf(targets, unique);
+	}
+
+	/**
+	 * Selects for each of the given source vertices the vertices that are the target of
+	 * an edge with the given label that starts at that source vertex. This is a variant
+	 * of {@link #selectLabel(int, Predicate)} restricted to a frontier of source vertices,
+	 * which returns the target lists directly instead of materialising a result graph.
+	 * @param sources The IDs of the vertices edges need to start at.
+	 * @param label The label to find (potentially inverted).
+	 * @return For each given source vertex, at the same index, the IDs of the vertices
+	 *         reached from that source vertex. By construction these are sorted and
+	 *         contain no duplicates.
+	 * @see #selectLabel(int, Predicate)
+	 * @see #selectTargets(int[], Predicate)
+	 * @see OperationType#EDGE
+	 */
+	public int[][] selectTargetLists(int[] sources, Predicate label){
+		assert 0 <= label.getID() && label.getID() < syn1.length;
+
+		final int[] data = label.isInverse() ? reverseSlt : slt;
+		int[][] targets = new int[sources.length][];
+		for(int i = 0; i < sources.length; i++){
+			final int source = sources[i];
+			final int start = data[source];
+			if(start == data[source + 1]){
+				targets[i] = new int[0];
+			}else{
+				targets[i] = Arrays.copyOfRange(data, data[start + label.getID()], data[start + label.getID() + 1]);
+			}
+		}
+
+		return targets;
+	}
+
 	/**
 	 * Selects all the vertices from the this database graph. Note that vertices
 	 * are selected together with themselves to form a complete source target pair.
@@ -398,6 +682,505 @@ public class DatabaseGraph{
 		return Util.generateLabels(getLabelCount());
 	}
 	
+	/**
+	 * Writes this database graph to the given file in binary SLT format. The written
+	 * file can be read again using {@link #read(Path)}, which is significantly faster
+	 * than constructing the database graph from its edges again, though the read graph
+	 * is still fully copied into memory. A binary SLT file
+	 * consists of little endian integers and is laid out as follows:
+	 * <ol>
+	 * <li>A header with the magic number {@code 0x47534C54}, the format version,
+	 * the vertex count, the label count and the lengths of the SLT and reverse SLT.</li>
+	 * <li>The synopsis of paths of length 1, one integer for each label.</li>
+	 * <li>The SLT exactly as it is laid out in memory.</li>
+	 * <li>The reverse SLT exactly as it is laid out in memory.</li>
+	 * </ol>
+	 * @param file The file to write to, if the file already exists it is overwritten.
+	 * @throws IOException When an IOException occurs.
+	 * @see #read(Path)
+	 * @see #slt
+	 * @see #reverseSlt
+	 */
+	public void write(Path file) throws IOException{
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+			writeArray(channel, new int[]{MAGIC, FORMAT_VERSION, vertexCount, syn1.length, slt.length, reverseSlt.length});
+			writeArray(channel, syn1);
+			writeArray(channel, slt);
+			writeArray(channel, reverseSlt);
+		}
+	}
+	
+	/**
+	 * Reads a database graph from the given binary SLT file. The SLT data in the file
+	 * is memory mapped and copied directly into memory in bulk, without any parsing
+	 * or reconstruction of the SLT. Note that the mapped file is not used as the backing
+	 * storage of the returned graph, all data is copied fully into heap arrays. As a result
+	 * the returned graph uses as much memory as a graph constructed from its edges, is
+	 * still limited to SLTs with at most {@link Integer#MAX_VALUE} entries and does not
+	 * share memory with other processes reading the same file.
+	 * @param file The binary SLT file to read.
+	 * @return The database graph stored in the given file.
+	 * @throws IOException When an IOException occurs or when the given
+	 *         file is not a valid binary SLT file.
+	 * @see #write(Path)
+	 */
+	public static DatabaseGraph read(Path file) throws IOException{
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			if(channel.size() < HEADER_SIZE * Integer.BYTES){
+				throw new IOException("The given file is not a binary SLT file.");
+			}
+			
+			int[] header = readArray(channel, 0L, HEADER_SIZE);
+			if(header[0] != MAGIC){
+				throw new IOException("The given file is not a binary SLT file.");
+			}else if(header[1] != FORMAT_VERSION){
+				throw new IOException("Unsupported binary SLT file version: " + header[1]);
+			}
+			
+			final int vertexCount = header[2];
+			if(vertexCount < 0 || header[3] < 0 || header[4] < vertexCount + 1 || header[5] < vertexCount + 1){
+				throw new IOException("The given binary SLT file is corrupted.");
+			}
+			
+			long position = HEADER_SIZE * Integer.BYTES;
+			if(channel.size() != position + Integer.BYTES * ((long)header[3] + header[4] + header[5])){
+				throw new IOException("The given binary SLT file is corrupted.");
+			}
+			
+			int[] syn1 = readArray(channel, position, header[3]);
+			position += Integer.BYTES * (long)syn1.length;
+			int[] slt = readArray(channel, position, header[4]);
+			position += Integer.BYTES * (long)slt.length;
+			int[] reverseSlt = readArray(channel, position, header[5]);
+			
+			return new DatabaseGraph(vertexCount, syn1, slt, reverseSlt);
+		}
+	}
+	
+	/**
+	 * Gets the index of the given label in the synopsis for paths of length 2,
+	 * inverse labels are indexed after all regular labels.
+	 * @param label The label to get the index of (potentially inverted).
+	 * @return The index of the given label.
+	 * @see #syn2
+	 */
+	private int getLabelIndex(Predicate label){
+		return label.isInverse() ? syn1.length + label.getID() : label.getID();
+	}
+	
+	/**
+	 * Builds the label partitioned layout of this graph from the SLT and reverse SLT.
+	 * @return The label partitioned layout of this graph.
+	 * @see #partitions
+	 */
+	private int[][] buildLabelPartitions(){
+		final int labelCount = syn1.length;
+		int[][] layout = new int[2 * labelCount][];
+		for(int label = 0; label < labelCount; label++){
+			layout[label] = new int[2 * sourceCounts[label] + 1 + syn1[label]];
+			layout[labelCount + label] = new int[2 * targetCounts[label] + 1 + syn1[label]];
+		}
+		
+		for(int direction = 0; direction < 2; direction++){
+			final int[] data = direction == 0 ? slt : reverseSlt;
+			final int[] counts = direction == 0 ? sourceCounts : targetCounts;
+			final int offset = direction * labelCount;
+			int[] sources = new int[labelCount];
+			int[] heads = new int[labelCount];
+			for(int label = 0; label < labelCount; label++){
+				heads[label] = 2 * counts[label] + 1;
+			}
+			
+			for(int vertex = 0; vertex < vertexCount; vertex++){
+				final int start = data[vertex];
+				if(start == data[vertex + 1]){
+					continue;
+				}
+				
+				for(int label = 0; label < labelCount; label++){
+					final int from = data[start + label];
+					final int to = data[start + label + 1];
+					if(from != to){
+						final int[] partition = layout[offset + label];
+						partition[sources[label]] = vertex;
+						partition[counts[label] + sources[label]++] = heads[label];
+						System.arraycopy(data, from, partition, heads[label], to - from);
+						heads[label] += to - from;
+					}
+				}
+			}
+			
+			for(int label = 0; label < labelCount; label++){
+				layout[offset + label][2 * counts[label]] = heads[label];
+			}
+		}
+		
+		return layout;
+	}
+	
+	/**
+	 * Builds the synopsis for paths of length 2 for this graph. The distinct target
+	 * counts are not computed directly, but are derived from the distinct source
+	 * counts of the inverse paths.
+	 * @param pool The pool to count paths on in parallel, or null to count sequentially.
+	 * @return The synopsis for paths of length 2.
+	 * @see #syn2
+	 */
+	private int[] buildPathSynopsis(ForkJoinPool pool){
+		final int labels = 2 * syn1.length;
+		final long[] counts = new long[2 * labels * labels];
+		if(pool == null || getEdgeCount() < PARALLEL_THRESHOLD){
+			countPaths(counts, 0, vertexCount);
+		}else{
+			final int partitions = pool.getParallelism() * PARTITION_FACTOR;
+			List<ForkJoinTask<long[]>> tasks = new ArrayList<ForkJoinTask<long[]>>(partitions);
+			for(int i = 0; i < partitions; i++){
+				final int start = (int)(((long)vertexCount * i) / partitions);
+				final int end = (int)(((long)vertexCount * (i + 1)) / partitions);
+				tasks.add(ForkJoinTask.adapt(()->{
+					long[] local = new long[counts.length];
+					countPaths(local, start, end);
+					return local;
+				}));
+			}
+			
+			pool.invoke(ForkJoinTask.adapt(()->ForkJoinTask.invokeAll(tasks)));
+			for(ForkJoinTask<long[]> task : tasks){
+				long[] local = task.join();
+				for(int i = 0; i < counts.length; i++){
+					counts[i] += local[i];
+				}
+			}
+		}
+		
+		int[] synopsis = new int[3 * labels * labels];
+		for(int first = 0; first < labels; first++){
+			for(int second = 0; second < labels; second++){
+				final int pair = first * labels + second;
+				final int inverse = ((second + syn1.length) % labels) * labels + ((first + syn1.length) % labels);
+				synopsis[3 * pair] = (int)Math.min(Integer.MAX_VALUE, counts[2 * pair]);
+				synopsis[3 * pair + 1] = (int)Math.min(Integer.MAX_VALUE, counts[2 * pair + 1]);
+				synopsis[3 * pair + 2] = (int)Math.min(Integer.MAX_VALUE, counts[2 * inverse]);
+			}
+		}
+		
+		return synopsis;
+	}
+	
+	/**
+	 * Counts all distinct paths of length 2 that start at a source vertex in the given
+	 * range. For each pair of labels the number of distinct sources and the number of
+	 * distinct source target pairs is added to the given array, at index {@code 2 * pair}
+	 * and {@code 2 * pair + 1} respectively.
+	 * @param counts The array to add the counts to.
+	 * @param from The first source vertex to process (inclusive).
+	 * @param to The last source vertex to process (exclusive).
+	 * @see #buildPathSynopsis(ForkJoinPool)
+	 */
+	private void countPaths(long[] counts, int from, int to){
+		final int labelCount = syn1.length;
+		final int labels = 2 * labelCount;
+		final int[] seen = new int[vertexCount];
+		int stamp = 0;
+		
+		for(int source = from; source < to; source++){
+			for(int first = 0; first < labels; first++){
+				final int[] data = first < labelCount ? slt : reverseSlt;
+				final int start = data[source];
+				if(start == data[source + 1]){
+					continue;
+				}
+				
+				final int midFrom = data[start + first % labelCount];
+				final int midTo = data[start + first % labelCount + 1];
+				if(midFrom == midTo){
+					continue;
+				}
+				
+				for(int second = 0; second < labels; second++){
+					final int[] next = second < labelCount ? slt : reverseSlt;
+					final int label = second % labelCount;
+					if(++stamp == Integer.MAX_VALUE){
+						Arrays.fill(seen, 0);
+						stamp = 1;
+					}
+					
+					int distinct = 0;
+					for(int i = midFrom; i < midTo; i++){
+						final int mid = data[i];
+						final int midStart = next[mid];
+						if(midStart != next[mid + 1]){
+							for(int j = next[midStart + label]; j < next[midStart + label + 1]; j++){
+								if(seen[next[j]] != stamp){
+									seen[next[j]] = stamp;
+									distinct++;
+								}
+							}
+						}
+					}
+					
+					if(distinct != 0){
+						final int pair = first * labels + second;
+						counts[2 * pair]++;
+						counts[2 * pair + 1] += distinct;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Counts for each label the number of distinct vertices in the given SLT index
+	 * that have at least one edge with that label.
+	 * @param vertexCount The number of vertices in the graph.
+	 * @param labelCount The number of labels in the graph.
+	 * @param index The SLT index to count vertices in.
+	 * @return The number of distinct vertices with an edge for each label.
+	 * @see #slt
+	 */
+	private static int[] countVertices(int vertexCount, int labelCount, int[] index){
+		int[] counts = new int[labelCount];
+		for(int vertex = 0; vertex < vertexCount; vertex++){
+			final int start = index[vertex];
+			if(start != index[vertex + 1]){
+				for(int label = 0; label < labelCount; label++){
+					if(index[start + label] != index[start + label + 1]){
+						counts[label]++;
+					}
+				}
+			}
+		}
+		
+		return counts;
+	}
+	
+	/**
+	 * Constructs an SLT index from the given edge columns. The edges are first
+	 * distributed over their source vertices using a counting sort. Next, the
+	 * edges of each source vertex are distributed over their labels using a
+	 * counting sort, after which the targets for each label are sorted and
+	 * duplicates are removed. This step is independent for each source vertex
+	 * and is executed in parallel for ranges of source vertices if a pool is
+	 * given. Finally, the deduplicated edges are written to the SLT.
+	 * @param vertexCount The number of vertices in the graph.
+	 * @param labelCount The number of labels in the graph.
+	 * @param edgeCount The number of edges in the given columns.
+	 * @param sources The source vertex of each edge, this is the vertex the index is built for.
+	 * @param targets The target vertex of each edge.
+	 * @param labels The label of each edge.
+	 * @param syn1 The array to record the number of distinct edges with each label
+	 *        in, or null if these counts are not required.
+	 * @param pool The pool to deduplicate edges on in parallel, or null to
+	 *        construct the index sequentially.
+	 * @return The constructed SLT index.
+	 * @see #slt
+	 */
+	private static int[] buildIndex(int vertexCount, int labelCount, int edgeCount, int[] sources, int[] targets, int[] labels, int[] syn1, ForkJoinPool pool){
+		int[] offsets = new int[vertexCount + 1];
+		for(int i = 0; i < edgeCount; i++){
+			offsets[sources[i] + 1]++;
+		}
+		
+		for(int vertex = 0; vertex < vertexCount; vertex++){
+			offsets[vertex + 1] += offsets[vertex];
+		}
+		
+		//distribute edges over their source vertex
+		final int[] bucketTargets = new int[edgeCount];
+		final int[] bucketLabels = new int[edgeCount];
+		int[] fill = Arrays.copyOf(offsets, vertexCount);
+		for(int i = 0; i < edgeCount; i++){
+			final int pos = fill[sources[i]]++;
+			bucketTargets[pos] = targets[i];
+			bucketLabels[pos] = labels[i];
+		}
+		
+		//sort and deduplicate the edges of each source vertex
+		final int[] distinct = new int[vertexCount];
+		if(pool == null || edgeCount < PARALLEL_THRESHOLD){
+			deduplicate(labelCount, offsets, bucketTargets, bucketLabels, distinct, 0, vertexCount);
+		}else{
+			final int partitions = pool.getParallelism() * PARTITION_FACTOR;
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(partitions);
+			int from = 0;
+			for(int i = 1; i <= partitions && from < vertexCount; i++){
+				final int start = from;
+				final int end = i == partitions ? vertexCount : Math.max(start + 1, partitionEnd(offsets, (int)(((long)edgeCount * i) / partitions)));
+				tasks.add(ForkJoinTask.adapt(()->deduplicate(labelCount, offsets, bucketTargets, bucketLabels, distinct, start, end)));
+				from = end;
+			}
+			
+			pool.invoke(ForkJoinTask.adapt(()->ForkJoinTask.invokeAll(tasks)));
+		}
+		
+		int nonEmpty = 0;
+		for(int vertex = 0; vertex < vertexCount; vertex++){
+			if(offsets[vertex] != offsets[vertex + 1]){
+				nonEmpty++;
+			}
+		}
+		
+		//write the deduplicated edges to the index
+		int[] data = new int[vertexCount + 1 + edgeCount + nonEmpty * (labelCount + 1)];
+		int idx = vertexCount + 1;
+		data[0] = idx;
+		for(int source = 0; source < vertexCount; source++){
+			final int from = offsets[source];
+			if(from != offsets[source + 1]){
+				final int labIdx = idx;
+				final int end = from + distinct[source];
+				idx += labelCount + 1;
+				System.arraycopy(bucketTargets, from, data, idx, distinct[source]);
+				
+				int i = from;
+				for(int label = 0; label < labelCount; label++){
+					data[labIdx + label] = idx;
+					while(i < end && bucketLabels[i] == label){
+						i++;
+						idx++;
+					}
+				}
+				
+				data[labIdx + labelCount] = idx;
+				if(syn1 != null){
+					for(int label = 0; label < labelCount; label++){
+						syn1[label] += data[labIdx + label + 1] - data[labIdx + label];
+					}
+				}
+			}
+			
+			data[source + 1] = idx;
+		}
+		
+		return data;
+	}
+	
+	/**
+	 * Sorts and deduplicates the edges of all source vertices in the given range. The
+	 * edges of each source vertex are first distributed over their labels using a
+	 * counting sort, after which the targets for each label are sorted. The distinct
+	 * edges are then written back to the start of the range of the source vertex.
+	 * @param labelCount The number of labels in the graph.
+	 * @param offsets For each source vertex the start of its edges in the bucket arrays.
+	 * @param bucketTargets The target vertex of each edge grouped by source vertex.
+	 * @param bucketLabels The label of each edge grouped by source vertex.
+	 * @param distinct The array to record the number of distinct edges of each source vertex in.
+	 * @param from The first source vertex to process (inclusive).
+	 * @param to The last source vertex to process (exclusive).
+	 */
+	private static void deduplicate(int labelCount, int[] offsets, int[] bucketTargets, int[] bucketLabels, int[] distinct, int from, int to){
+		int[] labelOffsets = new int[labelCount + 1];
+		int[] labelFill = new int[labelCount];
+		int[] scratch = new int[16];
+		
+		for(int source = from; source < to; source++){
+			final int start = offsets[source];
+			final int end = offsets[source + 1];
+			if(start == end){
+				continue;
+			}
+			
+			//distribute the edges of this source over their label
+			Arrays.fill(labelOffsets, 0);
+			for(int i = start; i < end; i++){
+				labelOffsets[bucketLabels[i] + 1]++;
+			}
+			
+			for(int label = 0; label < labelCount; label++){
+				labelOffsets[label + 1] += labelOffsets[label];
+			}
+			
+			if(scratch.length < end - start){
+				scratch = new int[Math.max(end - start, scratch.length * 2)];
+			}
+			
+			System.arraycopy(labelOffsets, 0, labelFill, 0, labelCount);
+			for(int i = start; i < end; i++){
+				scratch[labelFill[bucketLabels[i]]++] = bucketTargets[i];
+			}
+			
+			//sort the targets for each label and compact them without duplicates
+			int idx = start;
+			for(int label = 0; label < labelCount; label++){
+				final int labelEnd = labelOffsets[label + 1];
+				int i = labelOffsets[label];
+				Arrays.sort(scratch, i, labelEnd);
+				
+				int lastTarget = -1;
+				for(; i < labelEnd; i++){
+					if(scratch[i] != lastTarget){
+						lastTarget = scratch[i];
+						bucketTargets[idx] = lastTarget;
+						bucketLabels[idx++] = label;
+					}
+				}
+			}
+			
+			distinct[source] = idx - start;
+		}
+	}
+	
+	/**
+	 * Finds the first source vertex whose edges start at or after the given edge index.
+	 * @param offsets For each source vertex the start of its edges.
+	 * @param edge The edge index to find the partition end for.
+	 * @return The first source vertex whose edges start at or after the given edge.
+	 */
+	private static int partitionEnd(int[] offsets, int edge){
+		int low = 0;
+		int high = offsets.length - 1;
+		while(low < high){
+			final int mid = (low + high) >>> 1;
+			if(offsets[mid] < edge){
+				low = mid + 1;
+			}else{
+				high = mid;
+			}
+		}
+		
+		return low;
+	}
+	
+	/**
+	 * Writes the given array of integers to the given channel in little endian byte order.
+	 * @param channel The channel to write to.
+	 * @param data The data to write.
+	 * @throws IOException When an IOException occurs.
+	 */
+	private static void writeArray(FileChannel channel, int[] data) throws IOException{
+		ByteBuffer buffer = ByteBuffer.allocateDirect(Integer.BYTES * Math.min(CHUNK_SIZE, data.length)).order(ByteOrder.LITTLE_ENDIAN);
+		for(int offset = 0; offset < data.length; offset += CHUNK_SIZE){
+			final int length = Math.min(CHUNK_SIZE, data.length - offset);
+			buffer.clear();
+			buffer.asIntBuffer().put(data, offset, length);
+			buffer.limit(length * Integer.BYTES);
+			
+			while(buffer.hasRemaining()){
+				channel.write(buffer);
+			}
+		}
+	}
+	
+	/**
+	 * Reads an array of little endian integers from the given channel by
+	 * memory mapping the file region containing the array.
+	 * @param channel The channel to read from.
+	 * @param position The byte offset in the file at which the array starts.
+	 * @param length The number of integers to read.
+	 * @return The read array of integers.
+	 * @throws IOException When an IOException occurs.
+	 */
+	private static int[] readArray(FileChannel channel, long position, int length) throws IOException{
+		int[] data = new int[length];
+		for(int offset = 0; offset < length; offset += CHUNK_SIZE){
+			final int size = Math.min(CHUNK_SIZE, length - offset);
+			IntBuffer buffer = channel.map(MapMode.READ_ONLY, position + Integer.BYTES * (long)offset, Integer.BYTES * (long)size).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			buffer.get(data, offset, size);
+		}
+		
+		return data;
+	}
+	
 	/**
 	 * Gets the underlying SLT data for this database graph.
 	 * @return The raw SLT data for this database graph.
@@ -0,0 +1,202 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import dev.roanh.gmark.data.TargetLabelPair;
+import dev.roanh.gmark.util.graph.generic.IntGraph;
+
+/**
+ * Builder for database graphs that stores edges in growable primitive arrays, with
+ * one array each for the source vertex, target vertex and label of the edges. Unlike
+ * {@link IntGraph} no objects are allocated for individual edges. When the database
+ * graph is built the SLT is constructed from these edge columns using counting sorts,
+ * optionally deduplicating the edges of different source vertices in parallel.
+ * @author Roan
+ * @see DatabaseGraph
+ * @see IntGraph
+ */
+public class DatabaseGraphBuilder{
+	/**
+	 * The default initial capacity of the edge arrays.
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+	/**
+	 * The number of vertices in the graph.
+	 */
+	private final int vertexCount;
+	/**
+	 * The number of labels in the graph.
+	 */
+	private final int labelCount;
+	/**
+	 * The source vertex of each edge.
+	 */
+	private int[] sources;
+	/**
+	 * The target vertex of each edge.
+	 */
+	private int[] targets;
+	/**
+	 * The label of each edge.
+	 */
+	private int[] labels;
+	/**
+	 * The number of edges added so far.
+	 */
+	private int edgeCount = 0;
+	
+	/**
+	 * Constructs a new database graph builder for a graph of the given size.
+	 * @param vertexCount The number of vertices in the graph.
+	 * @param labelCount The number of labels in the graph.
+	 */
+	public DatabaseGraphBuilder(int vertexCount, int labelCount){
+		this(vertexCount, labelCount, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Constructs a new database graph builder for a graph of the given size.
+	 * @param vertexCount The number of vertices in the graph.
+	 * @param labelCount The number of labels in the graph.
+	 * @param capacity The number of edges to allocate space for initially,
+	 *        the builder will still grow as required.
+	 */
+	public DatabaseGraphBuilder(int vertexCount, int labelCount, int capacity){
+		this.vertexCount = vertexCount;
+		this.labelCount = labelCount;
+		sources = new int[capacity];
+		targets = new int[capacity];
+		labels = new int[capacity];
+	}
+	
+	/**
+	 * Adds a new edge to the graph.
+	 * @param source The source vertex for the edge.
+	 * @param target The target vertex for the edge.
+	 * @param label The edge label of the edge.
+	 * @throws IllegalArgumentException When the source, target or label is out of bounds.
+	 */
+	public void addEdge(int source, int target, int label) throws IllegalArgumentException{
+		if(source < 0 || target < 0 || label < 0 || source >= vertexCount || target >= vertexCount || label >= labelCount){
+			throw new IllegalArgumentException("Edge data out of bounds: (source=%d, target=%d, label=%d)".formatted(source, target, label));
+		}
+		
+		if(edgeCount == sources.length){
+			final int capacity = Math.max(DEFAULT_CAPACITY, sources.length * 2);
+			sources = Arrays.copyOf(sources, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			labels = Arrays.copyOf(labels, capacity);
+		}
+		
+		sources[edgeCount] = source;
+		targets[edgeCount] = target;
+		labels[edgeCount++] = label;
+	}
+	
+	/**
+	 * Gets the number of vertices in the graph.
+	 * @return The number of vertices in the graph.
+	 */
+	public int getVertexCount(){
+		return vertexCount;
+	}
+	
+	/**
+	 * Gets the number of labels in the graph.
+	 * @return The number of labels in the graph.
+	 */
+	public int getLabelCount(){
+		return labelCount;
+	}
+	
+	/**
+	 * Gets the number of edges added to this builder so far, including duplicate edges.
+	 * @return The number of edges added so far.
+	 */
+	public int getEdgeCount(){
+		return edgeCount;
+	}
+	
+	/**
+	 * Gets the source vertex column of the edges, only the first
+	 * {@link #getEdgeCount()} entries of this array are valid.
+	 * @return The source vertex of each edge.
+	 */
+	protected int[] getSources(){
+		return sources;
+	}
+	
+	/**
+	 * Gets the target vertex column of the edges, only the first
+	 * {@link #getEdgeCount()} entries of this array are valid.
+	 * @return The target vertex of each edge.
+	 */
+	protected int[] getTargets(){
+		return targets;
+	}
+	
+	/**
+	 * Gets the label column of the edges, only the first
+	 * {@link #getEdgeCount()} entries of this array are valid.
+	 * @return The label of each edge.
+	 */
+	protected int[] getLabels(){
+		return labels;
+	}
+	
+	/**
+	 * Builds a database graph containing all the edges added to this builder.
+	 * Duplicate edges are filtered out by this process.
+	 * @return The constructed database graph.
+	 */
+	public DatabaseGraph build(){
+		return new DatabaseGraph(this, null);
+	}
+	
+	/**
+	 * Builds a database graph containing all the edges added to this builder.
+	 * Duplicate edges are filtered out by this process, with the edges for
+	 * different source vertices being deduplicated in parallel on the given pool.
+	 * @param pool The pool to construct the database graph on.
+	 * @return The constructed database graph.
+	 */
+	public DatabaseGraph build(ForkJoinPool pool){
+		return new DatabaseGraph(this, pool);
+	}
+	
+	/**
+	 * Creates a new database graph builder with all the edges of the given graph.
+	 * @param graph The graph to copy the edges from.
+	 * @return The new builder with the edges of the given graph.
+	 */
+	public static DatabaseGraphBuilder of(IntGraph graph){
+		final int vertexCount = graph.getVertexCount();
+		DatabaseGraphBuilder builder = new DatabaseGraphBuilder(vertexCount, graph.getLabelCount(), Math.max(DEFAULT_CAPACITY, graph.getEdgeCount()));
+		for(int source = 0; source < vertexCount; source++){
+			for(TargetLabelPair edge : graph.getOutgoingEdges(source)){
+				builder.addEdge(source, edge.target(), edge.label());
+			}
+		}
+		
+		return builder;
+	}
+}
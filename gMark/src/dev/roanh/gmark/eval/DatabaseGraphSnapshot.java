@@ -0,0 +1,689 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import dev.roanh.gmark.data.CardStat;
+import dev.roanh.gmark.type.schema.Predicate;
+import dev.roanh.gmark.util.Util;
+
+/**
+ * Immutable view of an {@link UpdatableDatabaseGraph} at a specific version. A snapshot
+ * consists of the SLT of a base database graph, which is shared and not copied, together
+ * with the net edge insertions and removals applied on top of this base graph. The delta is
+ * stored for each label and direction as a sorted array of edges, with the source vertex in
+ * the upper and the target vertex in the lower half of each entry. Edge selections merge the
+ * rows of the base SLT with the delta on the fly, rows without any changes are read directly
+ * from the base SLT.
+ * <p>
+ * Evaluators that access the raw SLT data directly receive the data of a compacted database
+ * graph instead, which is built the first time it is requested. The number of distinct source
+ * and target vertices of each label and the statistics for paths of length 2 are taken from the
+ * base graph, meaning they are only estimates once the snapshot contains changes. Edge counts
+ * are always exact.
+ * @author Roan
+ * @see UpdatableDatabaseGraph
+ * @see DatabaseGraph
+ */
+public class DatabaseGraphSnapshot extends DatabaseGraph{
+	/**
+	 * The base database graph the changes in this snapshot are applied to.
+	 */
+	private final DatabaseGraph base;
+	/**
+	 * The version of the updatable graph this snapshot was taken at.
+	 */
+	private final long version;
+	/**
+	 * The exact number of edges in this snapshot for each label.
+	 */
+	private final int[] edgeCounts;
+	/**
+	 * The sorted edges inserted compared to the base graph, regular labels are
+	 * indexed by their ID and inverse labels by their ID plus the label count.
+	 * @see #getDeltaIndex(int, boolean)
+	 */
+	private final long[][] inserted;
+	/**
+	 * The sorted edges removed compared to the base graph, indexed
+	 * in the same way as the inserted edges.
+	 * @see #inserted
+	 */
+	private final long[][] deleted;
+	/**
+	 * The database graph with the changes in this snapshot folded into its SLT,
+	 * null if this database graph was not built yet.
+	 * @see #compact()
+	 */
+	private volatile DatabaseGraph compacted = null;
+	
+	/**
+	 * Constructs a new snapshot by applying the given log of edge updates to the given base graph.
+	 * Updates are applied in order, an insertion of an edge that is already present and a removal
+	 * of an edge that is not present have no effect.
+	 * @param base The base database graph to apply the updates to.
+	 * @param version The version of the updatable graph the snapshot is taken at.
+	 * @param sources The source vertices of the updated edges.
+	 * @param targets The target vertices of the updated edges.
+	 * @param labels The labels of the updated edges, for removed edges
+	 *        the bitwise complement of the label is stored instead.
+	 * @param count The number of updates in the log.
+	 */
+	protected DatabaseGraphSnapshot(DatabaseGraph base, long version, int[] sources, int[] targets, int[] labels, int count){
+		super(base);
+		this.base = base;
+		this.version = version;
+		
+		final int labelCount = base.getLabelCount();
+		int[] offsets = new int[labelCount + 1];
+		for(int i = 0; i < count; i++){
+			offsets[getLabelID(labels[i]) + 1]++;
+		}
+		
+		for(int i = 0; i < labelCount; i++){
+			offsets[i + 1] += offsets[i];
+		}
+		
+		int[] next = Arrays.copyOf(offsets, labelCount);
+		int[] updates = new int[count];
+		for(int i = 0; i < count; i++){
+			updates[next[getLabelID(labels[i])]++] = i;
+		}
+		
+		edgeCounts = new int[labelCount];
+		inserted = new long[2 * labelCount][];
+		deleted = new long[2 * labelCount][];
+		
+		final int[] data = base.getData();
+		final List<Predicate> predicates = base.getLabels();
+		Set<Long> seen = new HashSet<Long>();
+		for(int label = 0; label < labelCount; label++){
+			final int size = offsets[label + 1] - offsets[label];
+			long[] ins = new long[size];
+			long[] del = new long[size];
+			int insCount = 0;
+			int delCount = 0;
+			
+			//only the last update of each edge determines its state
+			seen.clear();
+			for(int i = offsets[label + 1] - 1; i >= offsets[label]; i--){
+				final int update = updates[i];
+				final int source = sources[update];
+				final int target = targets[update];
+				if(seen.add(getKey(source, target))){
+					final boolean present = contains(data, source, label, target);
+					if(labels[update] >= 0 && !present){
+						ins[insCount++] = getKey(source, target);
+					}else if(labels[update] < 0 && present){
+						del[delCount++] = getKey(source, target);
+					}
+				}
+			}
+			
+			edgeCounts[label] = base.getEdgeCount(predicates.get(label)) + insCount - delCount;
+			inserted[label] = sortKeys(ins, insCount, false);
+			inserted[labelCount + label] = sortKeys(ins, insCount, true);
+			deleted[label] = sortKeys(del, delCount, false);
+			deleted[labelCount + label] = sortKeys(del, delCount, true);
+		}
+	}
+	
+	/**
+	 * Gets the version of the updatable graph this snapshot was taken at.
+	 * @return The version of this snapshot.
+	 * @see UpdatableDatabaseGraph#getVersion()
+	 */
+	public long getVersion(){
+		return version;
+	}
+	
+	/**
+	 * Gets the base database graph this snapshot applies its changes to.
+	 * @return The base database graph of this snapshot.
+	 */
+	public DatabaseGraph getBase(){
+		return base;
+	}
+	
+	/**
+	 * Checks if this snapshot contains any changes compared to its base graph.
+	 * @return True if this snapshot differs from its base graph.
+	 */
+	public boolean hasChanges(){
+		for(long[] edges : inserted){
+			if(edges.length != 0){
+				return true;
+			}
+		}
+		
+		for(long[] edges : deleted){
+			if(edges.length != 0){
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Gets a database graph with the same edges as this snapshot, with the changes in
+	 * this snapshot folded into its SLT. The SLT is built by merging the base SLT with
+	 * the changes vertex by vertex, the database graph is only built the first time it
+	 * is requested. If this snapshot contains no changes the base graph is returned.
+	 * @return The compacted database graph for this snapshot.
+	 */
+	public DatabaseGraph compact(){
+		DatabaseGraph graph = compacted;
+		if(graph == null){
+			synchronized(this){
+				graph = compacted;
+				if(graph == null){
+					graph = hasChanges() ? new DatabaseGraph(getVertexCount(), edgeCounts.clone(), buildIndex(false), buildIndex(true)) : base;
+					compacted = graph;
+				}
+			}
+		}
+		
+		return graph;
+	}
+	
+	@Override
+	public int getEdgeCount(){
+		int edges = 0;
+		for(int count : edgeCounts){
+			edges += count;
+		}
+		
+		return edges;
+	}
+	
+	@Override
+	public int getEdgeCount(Predicate label){
+		assert 0 <= label.getID() && label.getID() < edgeCounts.length;
+		return edgeCounts[label.getID()];
+	}
+	
+	@Override
+	public CardStat getStatistics(Predicate first, Predicate second){
+		return base.getStatistics(first, second);
+	}
+	
+	@Override
+	public boolean hasPathStatistics(){
+		return base.hasPathStatistics();
+	}
+	
+	@Override
+	public void computePathStatistics(ForkJoinPool pool){
+		base.computePathStatistics(pool);
+	}
+	
+	@Override
+	public boolean hasLabelPartitions(){
+		return base.hasLabelPartitions();
+	}
+	
+	@Override
+	public void computeLabelPartitions(){
+		base.computeLabelPartitions();
+	}
+	
+	@Override
+	public ResultGraph selectLabelPartitioned(Predicate label){
+		final int idx = getDeltaIndex(label.getID(), label.isInverse());
+		if(inserted[idx].length == 0 && deleted[idx].length == 0){
+			return base.selectLabelPartitioned(label);
+		}
+		
+		return selectLabel(label);
+	}
+	
+	@Override
+	public ResultGraph selectLabel(Predicate label){
+		assert 0 <= label.getID() && label.getID() < edgeCounts.length;
+		
+		final int idx = getDeltaIndex(label.getID(), label.isInverse());
+		final long[] ins = inserted[idx];
+		final long[] del = deleted[idx];
+		if(ins.length == 0 && del.length == 0){
+			return base.selectLabel(label);
+		}
+		
+		final int vertexCount = getVertexCount();
+		ResultGraph out = new ResultGraph(vertexCount, getEdgeCount(label), true);
+		
+		final int[] data = label.isInverse() ? super.getReverseData() : super.getData();
+		int[] row = new int[0];
+		int insStart = 0;
+		int delStart = 0;
+		for(int source = 0; source < vertexCount; source++){
+			out.setActiveSource(source);
+			
+			int insEnd = insStart;
+			while(insEnd < ins.length && (int)(ins[insEnd] >>> 32) == source){
+				insEnd++;
+			}
+			
+			int delEnd = delStart;
+			while(delEnd < del.length && (int)(del[delEnd] >>> 32) == source){
+				delEnd++;
+			}
+			
+			int from = 0;
+			int to = 0;
+			final int start = data[source];
+			if(start != data[source + 1]){
+				from = data[start + label.getID()];
+				to = data[start + label.getID() + 1];
+			}
+			
+			if(insStart == insEnd && delStart == delEnd){
+				for(int i = from; i < to; i++){
+					out.addTarget(data[i]);
+				}
+			}else{
+				if(row.length < to - from + insEnd - insStart){
+					row = new int[to - from + insEnd - insStart];
+				}
+				
+				final int size = merge(data, from, to, ins, insStart, insEnd, del, delStart, delEnd, row, 0);
+				for(int i = 0; i < size; i++){
+					out.addTarget(row[i]);
+				}
+			}
+			
+			insStart = insEnd;
+			delStart = delEnd;
+		}
+		
+		out.endFinalSource();
+		return out;
+	}
+	
+	@Override
+	public ResultGraph selectLabel(Predicate label, int target){
+		assert 0 <= label.getID() && label.getID() < edgeCounts.length;
+		assert 0 <= target && target < getVertexCount();
+		
+		if(!hasChanges(label.getID(), !label.isInverse())){
+			return super.selectLabel(label, target);
+		}
+		
+		int[] sources = getTargets(target, label.getID(), !label.isInverse());
+		return sources.length == 0 ? ResultGraph.empty(getVertexCount()) : ResultGraph.singleTarget(getVertexCount(), sources, target);
+	}
+	
+	@Override
+	public ResultGraph selectLabel(int source, Predicate label){
+		assert 0 <= label.getID() && label.getID() < edgeCounts.length;
+		assert 0 <= source && source < getVertexCount();
+		
+		if(!hasChanges(label.getID(), label.isInverse())){
+			return super.selectLabel(source, label);
+		}
+		
+		int[] targets = getTargets(source, label.getID(), label.isInverse());
+		return targets.length == 0 ? ResultGraph.empty(getVertexCount()) : ResultGraph.single(getVertexCount(), source, true, targets);
+	}
+	
+	@Override
+	public ResultGraph selectLabel(int source, Predicate label, int target){
+		assert 0 <= label.getID() && label.getID() < edgeCounts.length;
+		assert 0 <= target && target < getVertexCount();
+		assert 0 <= source && source < getVertexCount();
+		
+		final int idx = getDeltaIndex(label.getID(), label.isInverse());
+		final long key = getKey(source, target);
+		if(Arrays.binarySearch(inserted[idx], key) >= 0){
+			return ResultGraph.single(getVertexCount(), source, target);
+		}else if(Arrays.binarySearch(deleted[idx], key) >= 0){
+			return ResultGraph.empty(getVertexCount());
+		}else{
+			return super.selectLabel(source, label, target);
+		}
+	}
+	
+	@Override
+	public int[] selectTargets(int[] sources, Predicate label){
+		assert 0 <= label.getID() && label.getID() < edgeCounts.length;
+		
+		if(!hasChanges(label.getID(), label.isInverse())){
+			return super.selectTargets(sources, label);
+		}
+		
+		int[] targets = new int[sources.length];
+		int size = 0;
+		for(int source : sources){
+			int[] row = getTargets(source, label.getID(), label.isInverse());
+			if(size + row.length > targets.length){
+				targets = Arrays.copyOf(targets, Math.max(targets.length * 2, size + row.length));
+			}
+			
+			System.arraycopy(row, 0, targets, size, row.length);
+			size += row.length;
+		}
+		
+		if(size == 0){
+			return new int[0];
+		}
+		
+		Arrays.sort(targets, 0, size);
+		int unique = 1;
+		for(int i = 1; i < size; i++){
+			if(targets[i] != targets[unique - 1]){
+				targets[unique++] = targets[i];
+			}
+		}
+		
+		return Arrays.copyOf(targets, unique);
+	}
+	
+	@Override
+	public int[][] selectTargetLists(int[] sources, Predicate label){
+		assert 0 <= label.getID() && label.getID() < edgeCounts.length;
+		
+		if(!hasChanges(label.getID(), label.isInverse())){
+			return super.selectTargetLists(sources, label);
+		}
+		
+		int[][] targets = new int[sources.length][];
+		for(int i = 0; i < sources.length; i++){
+			targets[i] = getTargets(sources[i], label.getID(), label.isInverse());
+		}
+		
+		return targets;
+	}
+	
+	/**
+	 * Writes the compacted database graph of this snapshot to the given file in binary SLT format.
+	 * @param file The file to write to, if the file already exists it is overwritten.
+	 * @throws IOException When an IOException occurs.
+	 * @see #compact()
+	 * @see DatabaseGraph#write(Path)
+	 */
+	@Override
+	public void write(Path file) throws IOException{
+		compact().write(file);
+	}
+	
+	/**
+	 * Gets the SLT data of the compacted database graph of this snapshot.
+	 * @return The raw SLT data for this snapshot.
+	 * @see #compact()
+	 */
+	@Override
+	protected int[] getData(){
+		return compact().getData();
+	}
+	
+	/**
+	 * Gets the reverse SLT data of the compacted database graph of this snapshot.
+	 * @return The raw reverse SLT data for this snapshot.
+	 * @see #compact()
+	 */
+	@Override
+	protected int[] getReverseData(){
+		return compact().getReverseData();
+	}
+	
+	/**
+	 * Gets the vertices reached from the given vertex over edges with the given label in this snapshot.
+	 * @param vertex The vertex to start at.
+	 * @param label The ID of the label to follow.
+	 * @param inverse True to follow edges with the given label in reverse.
+	 * @return The sorted IDs of the vertices reached from the given vertex.
+	 */
+	private int[] getTargets(int vertex, int label, boolean inverse){
+		final int[] data = inverse ? super.getReverseData() : super.getData();
+		final long[] ins = inserted[getDeltaIndex(label, inverse)];
+		final long[] del = deleted[getDeltaIndex(label, inverse)];
+		
+		int from = 0;
+		int to = 0;
+		final int start = data[vertex];
+		if(start != data[vertex + 1]){
+			from = data[start + label];
+			to = data[start + label + 1];
+		}
+		
+		final int insStart = lowerBound(ins, vertex);
+		final int insEnd = lowerBound(ins, vertex + 1);
+		int[] targets = new int[to - from + insEnd - insStart];
+		final int size = merge(data, from, to, ins, insStart, insEnd, del, lowerBound(del, vertex), lowerBound(del, vertex + 1), targets, 0);
+		return size == targets.length ? targets : Arrays.copyOf(targets, size);
+	}
+	
+	/**
+	 * Checks if this snapshot has any changes for edges with the given label and direction.
+	 * @param label The ID of the label to check.
+	 * @param inverse True to check the inverse of the label.
+	 * @return True if edges with the given label and direction differ from the base graph.
+	 */
+	private boolean hasChanges(int label, boolean inverse){
+		final int idx = getDeltaIndex(label, inverse);
+		return inserted[idx].length != 0 || deleted[idx].length != 0;
+	}
+	
+	/**
+	 * Gets the index of the changes for the given label and direction.
+	 * @param label The ID of the label.
+	 * @param inverse True for the inverse of the label.
+	 * @return The index of the changes for the given label.
+	 * @see #inserted
+	 * @see #deleted
+	 */
+	private int getDeltaIndex(int label, boolean inverse){
+		return inverse ? edgeCounts.length + label : label;
+	}
+	
+	/**
+	 * Builds a new SLT, or reverse SLT, for the edges in this snapshot. The SLT is
+	 * laid out exactly like the SLT of the base graph and vertices without any
+	 * edges are not assigned a block of data.
+	 * @param inverse True to build the reverse SLT.
+	 * @return The newly built SLT data.
+	 */
+	private int[] buildIndex(boolean inverse){
+		final int vertexCount = getVertexCount();
+		final int labelCount = edgeCounts.length;
+		final int[] data = inverse ? super.getReverseData() : super.getData();
+		
+		int insertions = 0;
+		for(int label = 0; label < labelCount; label++){
+			insertions += inserted[getDeltaIndex(label, inverse)].length;
+		}
+		
+		int[] insStart = new int[labelCount];
+		int[] insEnd = new int[labelCount];
+		int[] delStart = new int[labelCount];
+		int[] delEnd = new int[labelCount];
+		
+		int[] out = new int[data.length + insertions];
+		int idx = vertexCount + 1;
+		for(int vertex = 0; vertex < vertexCount; vertex++){
+			out[vertex] = idx;
+			
+			final int start = data[vertex];
+			final boolean present = start != data[vertex + 1];
+			int size = labelCount + 1 + (present ? data[vertex + 1] - start - labelCount - 1 : 0);
+			for(int label = 0; label < labelCount; label++){
+				final long[] ins = inserted[getDeltaIndex(label, inverse)];
+				while(insEnd[label] < ins.length && (int)(ins[insEnd[label]] >>> 32) == vertex){
+					insEnd[label]++;
+				}
+				
+				final long[] del = deleted[getDeltaIndex(label, inverse)];
+				while(delEnd[label] < del.length && (int)(del[delEnd[label]] >>> 32) == vertex){
+					delEnd[label]++;
+				}
+				
+				size += insEnd[label] - insStart[label];
+			}
+			
+			if(idx + size > out.length){
+				out = Arrays.copyOf(out, Math.max(out.length * 2, idx + size));
+			}
+			
+			int offset = idx + labelCount + 1;
+			for(int label = 0; label < labelCount; label++){
+				out[idx + label] = offset;
+				offset = merge(
+					data,
+					present ? data[start + label] : 0,
+					present ? data[start + label + 1] : 0,
+					inserted[getDeltaIndex(label, inverse)],
+					insStart[label],
+					insEnd[label],
+					deleted[getDeltaIndex(label, inverse)],
+					delStart[label],
+					delEnd[label],
+					out,
+					offset
+				);
+				
+				insStart[label] = insEnd[label];
+				delStart[label] = delEnd[label];
+			}
+			
+			out[idx + labelCount] = offset;
+			if(offset != idx + labelCount + 1){
+				idx = offset;
+			}
+		}
+		
+		out[vertexCount] = idx;
+		return idx == out.length ? out : Arrays.copyOf(out, idx);
+	}
+	
+	/**
+	 * Merges a sorted range of targets from the base SLT with the given ranges of inserted
+	 * and removed edges of the same vertex. Inserted edges are never present in the base
+	 * SLT and removed edges are always present in the base SLT.
+	 * @param data The base SLT data.
+	 * @param from The start index of the targets in the base SLT (inclusive).
+	 * @param to The end index of the targets in the base SLT (exclusive).
+	 * @param ins The sorted inserted edges.
+	 * @param insFrom The start index of the inserted edges (inclusive).
+	 * @param insTo The end index of the inserted edges (exclusive).
+	 * @param del The sorted removed edges.
+	 * @param delFrom The start index of the removed edges (inclusive).
+	 * @param delTo The end index of the removed edges (exclusive).
+	 * @param out The array to write the merged targets to.
+	 * @param offset The index in the output array to start writing at.
+	 * @return The index in the output array after the last written target.
+	 */
+	private static int merge(int[] data, int from, int to, long[] ins, int insFrom, int insTo, long[] del, int delFrom, int delTo, int[] out, int offset){
+		int idx = offset;
+		while(from < to || insFrom < insTo){
+			if(insFrom == insTo || (from < to && data[from] < (int)ins[insFrom])){
+				final int target = data[from++];
+				while(delFrom < delTo && (int)del[delFrom] < target){
+					delFrom++;
+				}
+				
+				if(delFrom < delTo && (int)del[delFrom] == target){
+					delFrom++;
+				}else{
+					out[idx++] = target;
+				}
+			}else{
+				out[idx++] = (int)ins[insFrom++];
+			}
+		}
+		
+		return idx;
+	}
+	
+	/**
+	 * Checks if the given SLT contains the given edge.
+	 * @param data The SLT data.
+	 * @param source The source vertex of the edge.
+	 * @param label The ID of the label of the edge.
+	 * @param target The target vertex of the edge.
+	 * @return True if the edge is present in the given SLT.
+	 */
+	private static boolean contains(int[] data, int source, int label, int target){
+		final int start = data[source];
+		if(start == data[source + 1]){
+			return false;
+		}
+		
+		final int to = data[start + label + 1];
+		final int idx = Util.gallop(data, data[start + label], to, target);
+		return idx != to && data[idx] == target;
+	}
+	
+	/**
+	 * Sorts the first entries of the given array of edges into a new array.
+	 * @param edges The edges to sort, encoded as computed by {@link #getKey(int, int)}.
+	 * @param size The number of edges in the given array.
+	 * @param inverse True to swap the source and target vertex of each edge.
+	 * @return A new array with the sorted edges.
+	 */
+	private static long[] sortKeys(long[] edges, int size, boolean inverse){
+		long[] keys = Arrays.copyOf(edges, size);
+		if(inverse){
+			for(int i = 0; i < size; i++){
+				keys[i] = (keys[i] >>> 32) | (keys[i] << 32);
+			}
+		}
+		
+		Arrays.sort(keys);
+		return keys;
+	}
+	
+	/**
+	 * Finds the index of the first edge in the given sorted array of edges that
+	 * starts at a vertex with an ID that is at least the given vertex ID.
+	 * @param edges The sorted edges to search.
+	 * @param vertex The vertex ID to search for.
+	 * @return The index of the first edge starting at or after the given vertex.
+	 */
+	private static int lowerBound(long[] edges, int vertex){
+		final int idx = Arrays.binarySearch(edges, ((long)vertex) << 32);
+		return idx < 0 ? -idx - 1 : idx;
+	}
+	
+	/**
+	 * Encodes the given edge as a single long, with the source vertex
+	 * in the upper half and the target vertex in the lower half.
+	 * @param source The source vertex of the edge.
+	 * @param target The target vertex of the edge.
+	 * @return The encoded edge.
+	 */
+	private static long getKey(int source, int target){
+		return (((long)source) << 32) | target;
+	}
+	
+	/**
+	 * Decodes the label ID of an edge update.
+	 * @param label The encoded label, the bitwise complement of the label for removals.
+	 * @return The ID of the label of the update.
+	 */
+	private static int getLabelID(int label){
+		return label < 0 ? ~label : label;
+	}
+}
@@ -0,0 +1,303 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import dev.roanh.gmark.util.Util;
+import dev.roanh.gmark.util.graph.generic.IntGraph;
+
+/**
+ * Reader that loads edge list graph files directly into a {@link DatabaseGraph}. Unlike
+ * {@link Util#readGraph(Path)} no intermediate {@link IntGraph} is constructed and no
+ * objects are allocated for individual edges. Instead, the file is memory mapped and
+ * split into chunks of complete lines that are parsed in parallel directly into
+ * primitive edge columns. The SLT of the database graph is then constructed from
+ * these columns using a counting sort on the same pool. Reading happens in two
+ * passes over the file, the first pass counts the edges in each chunk so that the
+ * second pass can write the parsed edges of all chunks directly into their final
+ * position.
+ * <p>
+ * The expected file format is the same as for {@link Util#readGraph(Path)}, with
+ * the exception that empty lines are allowed and ignored anywhere in the file.
+ * @author Roan
+ * @see Util#readGraph(Path)
+ * @see DatabaseGraph
+ */
+public final class EdgeListReader{
+	/**
+	 * The minimum size in bytes of a chunk of the file to parse in parallel.
+	 */
+	private static final long MIN_CHUNK_SIZE = 1 << 20;
+	/**
+	 * The maximum size in bytes of a chunk of the file to parse in parallel,
+	 * chunks can exceed this size by at most the length of a single line.
+	 */
+	private static final long MAX_CHUNK_SIZE = 1 << 30;
+	/**
+	 * The number of chunks to create for each thread of the pool reading the file.
+	 */
+	private static final int CHUNK_FACTOR = 4;
+	
+	/**
+	 * Prevent instantiation.
+	 */
+	private EdgeListReader(){
+	}
+	
+	/**
+	 * Reads a database graph from the given edge list file using the common pool.
+	 * @param file The edge list file to read.
+	 * @return The read database graph.
+	 * @throws IOException When an IOException occurs or the file header is invalid.
+	 * @throws IllegalArgumentException When the file contains a malformed edge
+	 *         or an edge with a vertex or label that is out of bounds.
+	 * @see #read(Path, ForkJoinPool)
+	 */
+	public static DatabaseGraph read(Path file) throws IOException, IllegalArgumentException{
+		return read(file, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Reads a database graph from the given edge list file.
+	 * @param file The edge list file to read.
+	 * @param pool The pool to parse the file on in parallel.
+	 * @return The read database graph.
+	 * @throws IOException When an IOException occurs or the file header is invalid.
+	 * @throws IllegalArgumentException When the file contains a malformed edge
+	 *         or an edge with a vertex or label that is out of bounds.
+	 */
+	public static DatabaseGraph read(Path file, ForkJoinPool pool) throws IOException, IllegalArgumentException{
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			final long size = channel.size();
+			final long dataStart = nextLine(channel, 0L);
+			int[] header = parseHeader(channel, dataStart);
+			final int vertexCount = header[0];
+			final int labelCount = header[1];
+			
+			long chunkCount = Math.max(1L, Math.min(pool.getParallelism() * (long)CHUNK_FACTOR, (size - dataStart) / MIN_CHUNK_SIZE));
+			chunkCount = Math.max(chunkCount, (size - dataStart + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+			
+			List<Chunk> chunks = new ArrayList<Chunk>();
+			long start = dataStart;
+			for(long i = 1; i <= chunkCount; i++){
+				long end = i == chunkCount ? size : nextLine(channel, Math.max(start, dataStart + ((size - dataStart) * i) / chunkCount));
+				if(start != end){
+					chunks.add(new Chunk(channel.map(MapMode.READ_ONLY, start, end - start)));
+				}
+				
+				start = end;
+			}
+			
+			pool.invoke(ForkJoinTask.adapt(()->ForkJoinTask.invokeAll(chunks.stream().map(chunk->ForkJoinTask.adapt(chunk::countEdges)).toList())));
+			
+			int edgeCount = 0;
+			for(Chunk chunk : chunks){
+				chunk.offset = edgeCount;
+				if(edgeCount + (long)chunk.edges > Integer.MAX_VALUE){
+					throw new IllegalArgumentException("The given edge list contains too many edges.");
+				}
+				
+				edgeCount += chunk.edges;
+			}
+			
+			final int[] sources = new int[edgeCount];
+			final int[] targets = new int[edgeCount];
+			final int[] labels = new int[edgeCount];
+			pool.invoke(ForkJoinTask.adapt(()->ForkJoinTask.invokeAll(chunks.stream().map(chunk->ForkJoinTask.adapt(()->{
+				chunk.parseEdges(vertexCount, labelCount, sources, targets, labels);
+			})).toList())));
+			
+			return new DatabaseGraph(vertexCount, labelCount, edgeCount, sources, targets, labels, pool);
+		}
+	}
+	
+	/**
+	 * Parses the header line of an edge list file, which contains the vertex count,
+	 * edge count and label count of the graph separated by a single space.
+	 * @param channel The channel to read the header from.
+	 * @param end The end of the header line in the file.
+	 * @return The vertex count and label count of the graph in that order.
+	 * @throws IOException When an IOException occurs or the header is invalid.
+	 */
+	private static int[] parseHeader(FileChannel channel, long end) throws IOException{
+		if(end == 0L || end > Integer.MAX_VALUE){
+			throw new IOException("The given edge list is missing a valid header.");
+		}
+		
+		ByteBuffer buffer = ByteBuffer.allocate((int)end);
+		while(buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0);
+		
+		String[] metadata = new String(buffer.array(), StandardCharsets.UTF_8).trim().split(" ");
+		try{
+			if(metadata.length == 3){
+				return new int[]{Integer.parseInt(metadata[0]), Integer.parseInt(metadata[2])};
+			}
+		}catch(NumberFormatException ignore){
+			//handled below
+		}
+		
+		throw new IOException("The given edge list is missing a valid header.");
+	}
+	
+	/**
+	 * Finds the start of the first line starting after the given position.
+	 * @param channel The channel to search.
+	 * @param position The position in the file to start searching at.
+	 * @return The position directly after the first line break at or after
+	 *         the given position, or the size of the file if there is none.
+	 * @throws IOException When an IOException occurs.
+	 */
+	private static long nextLine(FileChannel channel, long position) throws IOException{
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		while(true){
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if(read <= 0){
+				return channel.size();
+			}
+			
+			for(int i = 0; i < read; i++){
+				if(buffer.get(i) == '\n'){
+					return position + i + 1;
+				}
+			}
+			
+			position += read;
+		}
+	}
+	
+	/**
+	 * A chunk of an edge list file that consists of only complete lines.
+	 * @author Roan
+	 */
+	private static final class Chunk{
+		/**
+		 * The memory mapped data for this chunk.
+		 */
+		private final MappedByteBuffer data;
+		/**
+		 * The number of edges in this chunk.
+		 */
+		private int edges;
+		/**
+		 * The index of the first edge of this chunk in the edge columns.
+		 */
+		private int offset;
+		
+		/**
+		 * Constructs a new chunk for the given data.
+		 * @param data The memory mapped data for this chunk.
+		 */
+		private Chunk(MappedByteBuffer data){
+			this.data = data;
+		}
+		
+		/**
+		 * Counts the number of edges in this chunk, this is the
+		 * number of lines that contain at least one digit.
+		 */
+		private void countEdges(){
+			boolean empty = true;
+			final int size = data.limit();
+			for(int i = 0; i < size; i++){
+				final byte b = data.get(i);
+				if(b == '\n'){
+					if(!empty){
+						edges++;
+						empty = true;
+					}
+				}else if('0' <= b && b <= '9'){
+					empty = false;
+				}
+			}
+			
+			if(!empty){
+				edges++;
+			}
+		}
+		
+		/**
+		 * Parses all the edges in this chunk into the given edge columns starting
+		 * at the offset for this chunk.
+		 * @param vertexCount The number of vertices in the graph.
+		 * @param labelCount The number of labels in the graph.
+		 * @param sources The column to write the source vertex of each edge to.
+		 * @param targets The column to write the target vertex of each edge to.
+		 * @param labels The column to write the label of each edge to.
+		 * @throws IllegalArgumentException When a malformed edge or an edge that
+		 *         is out of bounds is encountered.
+		 */
+		private void parseEdges(int vertexCount, int labelCount, int[] sources, int[] targets, int[] labels) throws IllegalArgumentException{
+			int[] fields = new int[3];
+			int field = 0;
+			long value = 0L;
+			boolean digits = false;
+			int idx = offset;
+			
+			final int size = data.limit();
+			for(int i = 0; i <= size; i++){
+				final byte b = i == size ? (byte)'\n' : data.get(i);
+				if('0' <= b && b <= '9'){
+					value = value * 10 + (b - '0');
+					digits = true;
+					if(value > Integer.MAX_VALUE){
+						throw new IllegalArgumentException("Edge data out of bounds in the given edge list.");
+					}
+				}else if(b == ' ' || b == '\n' || b == '\r'){
+					if(digits){
+						if(field == 3){
+							throw new IllegalArgumentException("Malformed edge definition in the given edge list.");
+						}
+						
+						fields[field++] = (int)value;
+						value = 0L;
+						digits = false;
+					}
+					
+					if(b == '\n' && field != 0){
+						if(field != 3){
+							throw new IllegalArgumentException("Malformed edge definition in the given edge list.");
+						}else if(fields[0] >= vertexCount || fields[1] >= vertexCount || fields[2] >= labelCount){
+							throw new IllegalArgumentException("Edge data out of bounds: (source=%d, target=%d, label=%d)".formatted(fields[0], fields[1], fields[2]));
+						}
+						
+						sources[idx] = fields[0];
+						targets[idx] = fields[1];
+						labels[idx++] = fields[2];
+						field = 0;
+					}
+				}else{
+					throw new IllegalArgumentException("Malformed edge definition in the given edge list.");
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.util.Arrays;
+
+import dev.roanh.gmark.util.RangeBitSet;
+
+/**
+ * Pool of reusable scratch buffers for the evaluation of result graph operations.
+ * Operations such as joins and transitive closures need a number of buffers with
+ * one entry per vertex in the graph, such as visited sets, search stacks and
+ * frontiers. Passing the same context to every operation lets these buffers be
+ * allocated once and then reused, as is the buffer operations write their output
+ * to. Once an operation completes its output is copied to an exactly sized array
+ * and the output buffer is returned to the context. As a result repeatedly evaluating
+ * queries with the same context allocates little more than the result graphs themselves.
+ * <p>
+ * Scratch buffers are identified by a slot, an operation that needs multiple buffers
+ * at the same time has to request them from different slots. Buffers returned from
+ * the same slot by subsequent requests may be the same array.
+ * <p>
+ * Note that a context is not thread safe, each thread evaluating operations should
+ * use its own context. Scratch buffers are sized by the number of vertices in the graph,
+ * while the output buffer is only retained up to a fixed maximum size.
+ * @author Roan
+ * @see ResultGraph
+ * @see ReachabilityQueryEvaluator
+ */
+public class EvaluationContext{
+	/**
+	 * The number of slots for each type of scratch buffer.
+	 */
+	private static final int SLOT_COUNT = 8;
+	/**
+	 * The maximum size of the output buffer retained by a context between operations,
+	 * larger buffers are left to the garbage collector once the operation completes.
+	 * This prevents a single query with a large intermediate result from keeping that
+	 * much memory allocated for as long as the context is used.
+	 */
+	protected static final int MAX_RETAINED_BUFFER_SIZE = 1 << 22;
+	/**
+	 * The pooled visited sets by slot.
+	 */
+	private final RangeBitSet[] visited = new RangeBitSet[SLOT_COUNT];
+	/**
+	 * The pooled integer buffers by slot.
+	 */
+	private final int[][] ints = new int[SLOT_COUNT][];
+	/**
+	 * The pooled machine word buffers by slot.
+	 */
+	private final long[][] words = new long[SLOT_COUNT][];
+	/**
+	 * The pooled output buffer, null if the buffer is currently
+	 * in use by an operation or if it was never allocated.
+	 */
+	private int[] buffer = null;
+
+	/**
+	 * Gets the visited set in the given slot. The returned set is empty and
+	 * only supports {@link RangeBitSet#rangeSet(int) range tracked} writes.
+	 * @param slot The slot of the visited set.
+	 * @param vertexCount The number of vertices the set should be able to hold.
+	 * @return The empty visited set in the given slot.
+	 */
+	protected RangeBitSet getVisited(int slot, int vertexCount){
+		RangeBitSet set = visited[slot];
+		if(set == null){
+			set = new RangeBitSet(vertexCount);
+			visited[slot] = set;
+		}else{
+			set.rangeClear();
+		}
+
+		return set;
+	}
+
+	/**
+	 * Gets the integer buffer in the given slot. The
+	 * contents of the returned buffer are undefined.
+	 * @param slot The slot of the buffer.
+	 * @param size The minimum size of the buffer.
+	 * @return An integer buffer of at least the requested size.
+	 */
+	protected int[] getInts(int slot, int size){
+		int[] data = ints[slot];
+		if(data == null || data.length < size){
+			data = new int[size];
+			ints[slot] = data;
+		}
+
+		return data;
+	}
+
+	/**
+	 * Gets the machine word buffer in the given slot. The first
+	 * words of the buffer, up to the requested size, are zero.
+	 * @param slot The slot of the buffer.
+	 * @param size The minimum size of the buffer.
+	 * @return A machine word buffer of at least the requested size.
+	 */
+	protected long[] getWords(int slot, int size){
+		long[] data = words[slot];
+		if(data == null || data.length < size){
+			data = new long[size];
+			words[slot] = data;
+		}else{
+			Arrays.fill(data, 0, size, 0L);
+		}
+
+		return data;
+	}
+
+	/**
+	 * Takes the output buffer from this context. The contents of the returned
+	 * buffer are undefined and the buffer should be given back to this context
+	 * once the operation writing to it completes.
+	 * @param size The minimum size of the buffer.
+	 * @return An output buffer of at least the requested size.
+	 * @see #releaseBuffer(int[])
+	 */
+	protected int[] takeBuffer(int size){
+		int[] data = buffer;
+		buffer = null;
+		return data == null || data.length < size ? new int[size] : data;
+	}
+
+	/**
+	 * Returns an output buffer to this context. If this context already has an output
+	 * buffer, the largest buffer is kept. Buffers larger than {@value #MAX_RETAINED_BUFFER_SIZE}
+	 * integers are never kept.
+	 * @param data The output buffer to return.
+	 * @see #takeBuffer(int)
+	 */
+	protected void releaseBuffer(int[] data){
+		if(data.length <= MAX_RETAINED_BUFFER_SIZE && (buffer == null || buffer.length < data.length)){
+			buffer = data;
+		}
+	}
+}
@@ -0,0 +1,594 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.roanh.gmark.ast.OperationType;
+import dev.roanh.gmark.ast.QueryTree;
+import dev.roanh.gmark.lang.cpq.CPQ;
+import dev.roanh.gmark.lang.cpq.QueryGraphCPQ;
+import dev.roanh.gmark.lang.cpq.QueryGraphCPQ.Edge;
+import dev.roanh.gmark.lang.cpq.QueryGraphCPQ.Vertex;
+import dev.roanh.gmark.util.Util;
+
+/**
+ * Query evaluator for conjunctive path queries (CPQs) that evaluates the query graph
+ * of a query using a worst-case optimal join (Generic Join). Instead of materialising
+ * the result of each operand of an intersection and then intersecting these results,
+ * the vertices of the query graph are bound one at a time. The candidate values for a
+ * query graph vertex are found by a leapfrog intersection of the sorted target ranges
+ * in the SLT of the database graph for all query graph edges that connect the vertex
+ * to vertices that were bound before. This makes the evaluator particularly suited
+ * for query graphs that contain cycles, such as the triangle {@code (a◦b)∩c⁻}, for
+ * which any plan that joins two operands at a time can produce intermediate results
+ * that are asymptotically larger than the final result.
+ * <p>
+ * Only the source and target vertex of a query graph are part of the result. Once
+ * both have been bound, the remaining query graph vertices are only checked for the
+ * existence of a valid binding, instead of enumerating all possible bindings.
+ * @author Roan
+ * @see ReachabilityQueryEvaluator
+ * @see QueryGraphCPQ
+ * @see <a href="https://doi.org/10.5441/002/icdt.2014.13">Todd L. Veldhuizen, "Leapfrog Triejoin:
+ *      A Simple, Worst-Case Optimal Join Algorithm", in Proc. 17th International Conference
+ *      on Database Theory (ICDT), 2014</a>
+ */
+public class LeapfrogQueryEvaluator{
+	/**
+	 * Constant used to indicate an unbound (free) query source and/or target vertex.
+	 */
+	private static final int UNBOUND = -1;
+	/**
+	 * The main database graph.
+	 */
+	private final DatabaseGraph graph;
+	
+	/**
+	 * Constructs a new leapfrog join based query evaluator for the given database graph.
+	 * @param graph The database graph to evaluate queries on.
+	 */
+	public LeapfrogQueryEvaluator(DatabaseGraph graph){
+		this.graph = graph;
+	}
+	
+	/**
+	 * Evaluates the given conjunctive path query on the database graph for
+	 * this evaluator and returns the result graph.
+	 * @param query The path query to evaluate.
+	 * @return The query answer result graph containing the matched paths,
+	 *         by construction this result graph will be sorted.
+	 * @throws IllegalArgumentException When the given query is not supported
+	 *         by this evaluator.
+	 * @see #isSupported(QueryTree)
+	 * @see PathQuery
+	 */
+	public ResultGraph evaluate(PathQuery query) throws IllegalArgumentException{
+		return evaluate(
+			query.source().orElse(UNBOUND),
+			query.query().toAbstractSyntaxTree(),
+			query.target().orElse(UNBOUND)
+		);
+	}
+	
+	/**
+	 * Evaluates the given query tree (AST) by joining the edges of its query graph.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The path query tree (AST) to evaluate.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return The result of evaluating the given query tree, by construction
+	 *         this result graph will be sorted.
+	 * @throws IllegalArgumentException When the given query is not supported
+	 *         by this evaluator.
+	 * @see #isSupported(QueryTree)
+	 */
+	protected ResultGraph evaluate(int source, QueryTree path, int target) throws IllegalArgumentException{
+		if(!isSupported(path)){
+			throw new IllegalArgumentException("This evaluator only supports conjunctive path queries.");
+		}
+		
+		return evaluate(source, CPQ.parse(path).toQueryGraph(), target);
+	}
+	
+	/**
+	 * Evaluates the given CPQ query graph by joining its edges.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param query The CPQ query graph to evaluate.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return The result of evaluating the given query graph, by construction
+	 *         this result graph will be sorted.
+	 */
+	protected ResultGraph evaluate(int source, QueryGraphCPQ query, int target){
+		final int vertexCount = graph.getVertexCount();
+		if(query.isLoop() && source != UNBOUND && target != UNBOUND && source != target){
+			return ResultGraph.empty(vertexCount);
+		}
+		
+		if(source == UNBOUND && target != UNBOUND){
+			Join join = new Join(query, query.getTargetVertex(), target, query.getSourceVertex(), UNBOUND);
+			return ResultGraph.singleTarget(vertexCount, join.run(target), target);
+		}
+		
+		Join join = new Join(query, query.getSourceVertex(), source, query.getTargetVertex(), target);
+		if(source != UNBOUND){
+			int[] targets = join.run(source);
+			return targets.length == 0 ? ResultGraph.empty(vertexCount) : ResultGraph.single(vertexCount, source, true, targets);
+		}
+		
+		ResultGraph out = new ResultGraph(vertexCount, vertexCount, true);
+		for(int vertex = 0; vertex < vertexCount; vertex++){
+			out.setActiveSource(vertex);
+			for(int reached : join.run(vertex)){
+				out.addTarget(reached);
+			}
+		}
+		
+		out.endFinalSource();
+		return out;
+	}
+	
+	/**
+	 * Checks if the given query tree can be evaluated by this evaluator, this is
+	 * the case if it only contains operations that are part of the CPQ language.
+	 * @param path The query tree (AST) to check.
+	 * @return True if the given query tree is supported by this evaluator.
+	 */
+	public static boolean isSupported(QueryTree path){
+		return path.stream().map(QueryTree::getOperation).allMatch(op->op == OperationType.EDGE || op == OperationType.IDENTITY || op == OperationType.CONCATENATION || op == OperationType.INTERSECTION);
+	}
+	
+	/**
+	 * Checks if the query graph of the given query tree contains a cycle of at least
+	 * three distinct vertices, ignoring the direction of edges. These are the queries
+	 * for which the join order of a bottom up evaluation cannot avoid intermediate results
+	 * that are larger than the final result. Self loops and parallel edges between the
+	 * same two vertices are not considered cycles, as these reduce to selections and
+	 * intersections of edge sets that are evaluated efficiently bottom up.
+	 * @param path The query tree (AST) to check, this query tree has to be
+	 *        {@link #isSupported(QueryTree) supported} by this evaluator.
+	 * @return True if the query graph of the given query tree contains a cycle.
+	 * @see QueryGraphCPQ
+	 */
+	public static boolean isCyclic(QueryTree path){
+		QueryGraphCPQ query = CPQ.parse(path).toQueryGraph();
+		
+		Map<Vertex, Vertex> parent = new HashMap<Vertex, Vertex>();
+		for(Vertex vertex : query.getVertices()){
+			parent.put(vertex, vertex);
+		}
+		
+		List<List<Vertex>> pairs = new ArrayList<List<Vertex>>();
+		for(Edge edge : query.getEdges()){
+			if(edge.getSource() != edge.getTarget()){
+				List<Vertex> pair = List.of(edge.getSource(), edge.getTarget());
+				if(!pairs.contains(pair) && !pairs.contains(pair.reversed())){
+					pairs.add(pair);
+				}
+			}
+		}
+		
+		for(List<Vertex> pair : pairs){
+			Vertex a = find(parent, pair.get(0));
+			Vertex b = find(parent, pair.get(1));
+			if(a == b){
+				return true;
+			}
+			
+			parent.put(a, b);
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Finds the representative of the set the given vertex belongs to in the given union find forest.
+	 * @param parent The parent of each vertex in the union find forest.
+	 * @param vertex The vertex to find the representative for.
+	 * @return The representative of the set of the given vertex.
+	 */
+	private static Vertex find(Map<Vertex, Vertex> parent, Vertex vertex){
+		while(parent.get(vertex) != vertex){
+			vertex = parent.get(vertex);
+		}
+		
+		return vertex;
+	}
+	
+	/**
+	 * Computes the intersection of the given sorted ranges using a leapfrog join.
+	 * The ranges are visited in a round robin fashion, where each range is advanced
+	 * to the first value that is at least the largest value seen in any range so far.
+	 * @param data For each range the array that contains the range.
+	 * @param from For each range the start index in its array (inclusive), these
+	 *        are used as the positions of the ranges and are modified.
+	 * @param to For each range the end index in its array (exclusive).
+	 * @param count The number of ranges to intersect, at least 1.
+	 * @param out The array to write the sorted values contained in all the given
+	 *        ranges to, this array has to be at least as large as the smallest range.
+	 * @return The number of values written to the output array.
+	 */
+	private static int leapfrog(int[][] data, int[] from, int[] to, int count, int[] out){
+		if(count == 1){
+			System.arraycopy(data[0], from[0], out, 0, to[0] - from[0]);
+			return to[0] - from[0];
+		}
+		
+		int size = 0;
+		int max = data[0][from[0]];
+		for(int i = 1; i < count; i++){
+			max = Math.max(max, data[i][from[i]]);
+		}
+		
+		int matched = 0;
+		int i = 0;
+		while(true){
+			from[i] = Util.gallop(data[i], from[i], to[i], max);
+			if(from[i] == to[i]){
+				return size;
+			}
+			
+			final int value = data[i][from[i]];
+			if(value != max){
+				max = value;
+				matched = 1;
+			}else if(++matched == count){
+				out[size++] = max;
+				if(++from[i] == to[i]){
+					return size;
+				}
+				
+				max = data[i][from[i]];
+				matched = 1;
+			}
+			
+			i = (i + 1) % count;
+		}
+	}
+	
+	/**
+	 * A join over all the edges of a query graph, with the query graph vertices
+	 * bound in a fixed order. The order starts at a given projected vertex and then
+	 * repeatedly continues with the vertex that is connected to the most vertices
+	 * bound so far, such that candidate values are always found by intersection.
+	 * All buffers used by the join are reused between runs, making it efficient
+	 * to run the join for a large number of values of the first vertex.
+	 * @author Roan
+	 */
+	private final class Join{
+		/**
+		 * The number of query graph vertices.
+		 */
+		private final int size;
+		/**
+		 * For each position in the binding order the value the vertex at that
+		 * position is fixed to, or -1 if the value of the vertex is free.
+		 */
+		private final int[] fixed;
+		/**
+		 * For each position in the binding order the edges that connect the vertex
+		 * at that position to a vertex bound earlier. Each edge is stored as three
+		 * integers: the position of the other vertex, the label of the edge and 1
+		 * if the edge has to be followed in reverse or 0 otherwise.
+		 */
+		private final int[][] probes;
+		/**
+		 * The edges incident to the first vertex in the binding order that are not
+		 * self loops. Each edge is stored as two integers: the label of the edge and 1
+		 * if the edge starts at the first vertex or 0 otherwise. Values of the first
+		 * vertex without an edge for each of these are skipped.
+		 */
+		private final int[] domain;
+		/**
+		 * For each position in the binding order the labels of the self loops of the vertex.
+		 */
+		private final int[][] loops;
+		/**
+		 * The position in the binding order of the second projected vertex,
+		 * this is 0 if the query graph is a loop.
+		 */
+		private final int projected;
+		/**
+		 * The current value bound to the vertex at each position in the binding order.
+		 */
+		private final int[] values;
+		/**
+		 * For each position in the binding order the candidate values for the vertex.
+		 */
+		private final int[][] candidates;
+		/**
+		 * For each position in the binding order the arrays containing the ranges
+		 * to intersect to find candidate values, one for each probe.
+		 */
+		private final int[][][] rangeData;
+		/**
+		 * For each position in the binding order the start of the ranges
+		 * to intersect to find candidate values, one for each probe.
+		 */
+		private final int[][] rangeFrom;
+		/**
+		 * For each position in the binding order the end of the ranges
+		 * to intersect to find candidate values, one for each probe.
+		 */
+		private final int[][] rangeTo;
+		/**
+		 * For each database graph vertex the run in which it was last recorded as
+		 * a value of the second projected vertex, used to filter duplicates.
+		 */
+		private final int[] seen;
+		/**
+		 * The current run, incremented for each value of the first projected vertex.
+		 */
+		private int stamp = 0;
+		/**
+		 * The values recorded for the second projected vertex in the current run.
+		 */
+		private int[] results;
+		/**
+		 * The number of values in {@link #results}.
+		 */
+		private int resultCount;
+		
+		/**
+		 * Constructs a new join for the given query graph.
+		 * @param query The query graph to join the edges of.
+		 * @param first The projected query graph vertex to bind first.
+		 * @param firstValue The value the first projected vertex is bound to, or -1 if free.
+		 * @param second The other projected query graph vertex, potentially equal to the first.
+		 * @param secondValue The value the second projected vertex is bound to, or -1 if free.
+		 */
+		private Join(QueryGraphCPQ query, Vertex first, int firstValue, Vertex second, int secondValue){
+			List<Vertex> order = new ArrayList<Vertex>();
+			List<Vertex> remaining = new ArrayList<Vertex>(query.getVertices());
+			order.add(first);
+			remaining.remove(first);
+			while(!remaining.isEmpty()){
+				Vertex best = null;
+				int bestLinks = -1;
+				for(Vertex vertex : remaining){
+					int links = 0;
+					for(Edge edge : query.getEdges()){
+						if((edge.getSource() == vertex && order.contains(edge.getTarget())) || (edge.getTarget() == vertex && order.contains(edge.getSource()))){
+							links++;
+						}
+					}
+					
+					if(links > bestLinks || (links == bestLinks && vertex == second)){
+						best = vertex;
+						bestLinks = links;
+					}
+				}
+				
+				order.add(best);
+				remaining.remove(best);
+			}
+			
+			size = order.size();
+			projected = order.indexOf(second);
+			fixed = new int[size];
+			Arrays.fill(fixed, UNBOUND);
+			fixed[0] = firstValue;
+			if(secondValue != UNBOUND){
+				fixed[projected] = secondValue;
+			}
+			
+			probes = new int[size][];
+			loops = new int[size][];
+			List<Integer> incident = new ArrayList<Integer>();
+			for(int i = 0; i < size; i++){
+				final Vertex vertex = order.get(i);
+				List<Integer> edges = new ArrayList<Integer>();
+				List<Integer> selfLoops = new ArrayList<Integer>();
+				for(Edge edge : query.getEdges()){
+					if(edge.getSource() == vertex && edge.getTarget() == vertex){
+						selfLoops.add(edge.getLabel().getID());
+					}else if(edge.getTarget() == vertex && order.indexOf(edge.getSource()) < i){
+						edges.addAll(List.of(order.indexOf(edge.getSource()), edge.getLabel().getID(), 0));
+					}else if(edge.getSource() == vertex && order.indexOf(edge.getTarget()) < i){
+						edges.addAll(List.of(order.indexOf(edge.getTarget()), edge.getLabel().getID(), 1));
+					}else if(i == 0 && (edge.getSource() == vertex || edge.getTarget() == vertex)){
+						incident.addAll(List.of(edge.getLabel().getID(), edge.getSource() == vertex ? 1 : 0));
+					}
+				}
+				
+				probes[i] = edges.stream().mapToInt(Integer::intValue).toArray();
+				loops[i] = selfLoops.stream().mapToInt(Integer::intValue).toArray();
+			}
+			
+			domain = incident.stream().mapToInt(Integer::intValue).toArray();
+			values = new int[size];
+			candidates = new int[size][16];
+			rangeData = new int[size][][];
+			rangeFrom = new int[size][];
+			rangeTo = new int[size][];
+			for(int i = 0; i < size; i++){
+				rangeData[i] = new int[probes[i].length / 3][];
+				rangeFrom[i] = new int[probes[i].length / 3];
+				rangeTo[i] = new int[probes[i].length / 3];
+			}
+			
+			seen = new int[graph.getVertexCount()];
+			results = new int[16];
+		}
+		
+		/**
+		 * Runs the join for the given value of the first projected vertex.
+		 * @param value The value to bind the first projected vertex to.
+		 * @return The sorted distinct values of the second projected vertex
+		 *         for which a binding of all query graph vertices exists.
+		 */
+		private int[] run(int value){
+			resultCount = 0;
+			if((fixed[0] == UNBOUND || fixed[0] == value) && inDomain(value) && hasLoops(0, value)){
+				stamp++;
+				values[0] = value;
+				search(1);
+			}
+			
+			int[] out = Arrays.copyOf(results, resultCount);
+			Arrays.sort(out);
+			return out;
+		}
+		
+		/**
+		 * Checks if the given database graph vertex has an edge for each of the
+		 * edges incident to the first vertex in the binding order.
+		 * @param vertex The database graph vertex to check.
+		 * @return True if the vertex is a possible value for the first vertex.
+		 */
+		private boolean inDomain(int vertex){
+			for(int i = 0; i < domain.length; i += 2){
+				final int[] data = domain[i + 1] == 1 ? graph.getData() : graph.getReverseData();
+				final int start = data[vertex];
+				if(start == data[vertex + 1] || data[start + domain[i]] == data[start + domain[i] + 1]){
+					return false;
+				}
+			}
+			
+			return true;
+		}
+		
+		/**
+		 * Binds the query graph vertex at the given position in the binding order and all
+		 * vertices after it, recording the value of the second projected vertex for each
+		 * complete binding. Once both projected vertices are bound, the search stops at
+		 * the first complete binding.
+		 * @param depth The position in the binding order of the vertex to bind.
+		 * @return True if at least one complete binding was found.
+		 */
+		private boolean search(int depth){
+			if(depth == size){
+				if(seen[values[projected]] != stamp){
+					seen[values[projected]] = stamp;
+					if(resultCount == results.length){
+						results = Arrays.copyOf(results, results.length * 2);
+					}
+					
+					results[resultCount++] = values[projected];
+				}
+				
+				return true;
+			}
+			
+			boolean found = false;
+			final int count = computeCandidates(depth);
+			final int[] options = candidates[depth];
+			for(int i = 0; i < count; i++){
+				final int value = options[i];
+				if(depth == projected && seen[value] == stamp){
+					continue;
+				}
+				
+				values[depth] = value;
+				if(search(depth + 1)){
+					found = true;
+					if(depth > projected){
+						return true;
+					}
+				}
+			}
+			
+			return found;
+		}
+		
+		/**
+		 * Computes the candidate values for the query graph vertex at the given position
+		 * in the binding order, given the values of all vertices bound before it. The
+		 * candidates are written to the candidate buffer for the position.
+		 * @param depth The position in the binding order of the vertex.
+		 * @return The number of candidate values for the vertex.
+		 * @see #candidates
+		 */
+		private int computeCandidates(int depth){
+			final int[] probe = probes[depth];
+			final int[][] data = rangeData[depth];
+			final int[] from = rangeFrom[depth];
+			final int[] to = rangeTo[depth];
+			int capacity = Integer.MAX_VALUE;
+			for(int i = 0; i < data.length; i++){
+				data[i] = probe[3 * i + 2] == 0 ? graph.getData() : graph.getReverseData();
+				final int vertex = values[probe[3 * i]];
+				final int start = data[i][vertex];
+				if(start == data[i][vertex + 1]){
+					return 0;
+				}
+				
+				from[i] = data[i][start + probe[3 * i + 1]];
+				to[i] = data[i][start + probe[3 * i + 1] + 1];
+				if(from[i] == to[i]){
+					return 0;
+				}
+				
+				capacity = Math.min(capacity, to[i] - from[i]);
+			}
+			
+			if(fixed[depth] != UNBOUND){
+				for(int i = 0; i < data.length; i++){
+					if(Arrays.binarySearch(data[i], from[i], to[i], fixed[depth]) < 0){
+						return 0;
+					}
+				}
+				
+				candidates[depth][0] = fixed[depth];
+				return hasLoops(depth, fixed[depth]) ? 1 : 0;
+			}
+			
+			if(candidates[depth].length < capacity){
+				candidates[depth] = new int[Math.max(capacity, 2 * candidates[depth].length)];
+			}
+			
+			final int[] options = candidates[depth];
+			final int count = leapfrog(data, from, to, data.length, options);
+			if(loops[depth].length == 0){
+				return count;
+			}
+			
+			int size = 0;
+			for(int i = 0; i < count; i++){
+				if(hasLoops(depth, options[i])){
+					options[size++] = options[i];
+				}
+			}
+			
+			return size;
+		}
+		
+		/**
+		 * Checks if the given database graph vertex has all the self loops required
+		 * for the query graph vertex at the given position in the binding order.
+		 * @param depth The position in the binding order of the query graph vertex.
+		 * @param vertex The database graph vertex to check.
+		 * @return True if the database graph vertex has all required self loops.
+		 */
+		private boolean hasLoops(int depth, int vertex){
+			final int[] slt = graph.getData();
+			for(int label : loops[depth]){
+				final int start = slt[vertex];
+				if(start == slt[vertex + 1] || Arrays.binarySearch(slt, slt[start + label], slt[start + label + 1], vertex) < 0){
+					return false;
+				}
+			}
+			
+			return true;
+		}
+	}
+}
@@ -0,0 +1,253 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import dev.roanh.gmark.ast.OperationType;
+import dev.roanh.gmark.ast.QueryTree;
+import dev.roanh.gmark.type.schema.Predicate;
+
+/**
+ * Size bounded cache for the results of evaluating (sub) queries. Results
+ * are stored under the canonical form of the query tree they were computed
+ * for together with the bound source and target vertex. In the canonical form
+ * the operands of commutative operations are ordered, so for example the
+ * sub queries <code>a ∩ b</code> and <code>b ∩ a</code> share a cache entry.
+ * <p>
+ * The cache is bounded by the total memory weight of the cached result graphs
+ * and evicts the least recently used results first when this bound is exceeded.
+ * Cached result graphs are shared between all queries that use them, as such
+ * they are always sorted before they are cached and should never be modified.
+ * <p>
+ * Note that the cache does not track the database graph results were computed
+ * for, a cache should therefore only ever be used for a single database graph.
+ * All methods of this class are thread safe.
+ * @author Roan
+ * @see ReachabilityQueryEvaluator#setCache(QueryCache)
+ */
+public class QueryCache{
+	/**
+	 * The fixed memory weight in bytes of a single cache entry, excluding the result graph data.
+	 */
+	private static final long ENTRY_WEIGHT = 64L;
+	/**
+	 * The cached results in least recently used order.
+	 */
+	private final LinkedHashMap<Key, ResultGraph> cache = new LinkedHashMap<Key, ResultGraph>(16, 0.75F, true);
+	/**
+	 * The maximum total memory weight in bytes of all cached results.
+	 */
+	private final long capacity;
+	/**
+	 * The current total memory weight in bytes of all cached results.
+	 */
+	private long weight = 0L;
+	/**
+	 * The number of lookups that found a cached result.
+	 */
+	private long hits = 0L;
+	/**
+	 * The number of lookups that did not find a cached result.
+	 */
+	private long misses = 0L;
+	
+	/**
+	 * Constructs a new query cache with the given capacity.
+	 * @param capacity The maximum total memory weight in bytes of all cached results.
+	 * @throws IllegalArgumentException When the given capacity is negative.
+	 */
+	public QueryCache(long capacity) throws IllegalArgumentException{
+		if(capacity < 0L){
+			throw new IllegalArgumentException("Cache capacity cannot be negative.");
+		}
+		
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Looks up the cached result for the given query tree and bound vertices.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The query tree (AST) to look up.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return The cached result graph or null if there is no cached result.
+	 * @see #put(int, QueryTree, int, ResultGraph)
+	 */
+	public synchronized ResultGraph get(int source, QueryTree path, int target){
+		ResultGraph result = cache.get(new Key(source, toCanonicalForm(path), target));
+		if(result == null){
+			misses++;
+		}else{
+			hits++;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Adds the result for the given query tree and bound vertices to this cache.
+	 * The given result graph is sorted if it is not sorted yet. Results with a
+	 * memory weight exceeding the capacity of this cache are never cached.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The query tree (AST) the result was computed for.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @param result The result graph for the given query tree.
+	 * @see #get(int, QueryTree, int)
+	 */
+	public synchronized void put(int source, QueryTree path, int target, ResultGraph result){
+		final long size = getWeight(result);
+		if(size > capacity){
+			return;
+		}
+		
+		result.sort();
+		ResultGraph old = cache.put(new Key(source, toCanonicalForm(path), target), result);
+		weight += size;
+		if(old != null){
+			weight -= getWeight(old);
+		}
+		
+		Iterator<Entry<Key, ResultGraph>> iter = cache.entrySet().iterator();
+		while(weight > capacity && iter.hasNext()){
+			weight -= getWeight(iter.next().getValue());
+			iter.remove();
+		}
+	}
+	
+	/**
+	 * Removes all cached results from this cache and resets the hit and miss counters.
+	 */
+	public synchronized void clear(){
+		cache.clear();
+		weight = 0L;
+		hits = 0L;
+		misses = 0L;
+	}
+	
+	/**
+	 * Gets the number of lookups that found a cached result.
+	 * @return The number of cache hits.
+	 */
+	public synchronized long getHitCount(){
+		return hits;
+	}
+	
+	/**
+	 * Gets the number of lookups that did not find a cached result.
+	 * @return The number of cache misses.
+	 */
+	public synchronized long getMissCount(){
+		return misses;
+	}
+	
+	/**
+	 * Gets the number of results currently in this cache.
+	 * @return The number of cached results.
+	 */
+	public synchronized int getSize(){
+		return cache.size();
+	}
+	
+	/**
+	 * Gets the current total memory weight of all cached results.
+	 * @return The total memory weight in bytes of all cached results.
+	 */
+	public synchronized long getWeight(){
+		return weight;
+	}
+	
+	/**
+	 * Gets the maximum total memory weight of all cached results.
+	 * @return The capacity of this cache in bytes.
+	 */
+	public long getCapacity(){
+		return capacity;
+	}
+	
+	/**
+	 * Computes the memory weight of the given result graph, this is an
+	 * estimate of the number of bytes required to store the result graph.
+	 * @param result The result graph to compute the weight of.
+	 * @return The memory weight of the given result graph in bytes.
+	 */
+	private static long getWeight(ResultGraph result){
+		return ENTRY_WEIGHT + Integer.BYTES * (result.getVertexCount() + 1L + result.getEdgeCount());
+	}
+	
+	/**
+	 * Computes the canonical form of the given query tree. Two query trees that
+	 * are equal up to the order of the operands of commutative operations have
+	 * the same canonical form.
+	 * @param path The query tree (AST) to compute the canonical form of.
+	 * @return The canonical form of the given query tree.
+	 * @see OperationType#INTERSECTION
+	 * @see OperationType#DISJUNCTION
+	 */
+	protected static String toCanonicalForm(QueryTree path){
+		switch(path.getOperation()){
+		case EDGE:
+			Predicate label = path.getEdgeAtom().getLabel();
+			return label.isInverse() ? (label.getID() + "⁻") : String.valueOf(label.getID());
+		case IDENTITY:
+			return "id";
+		case CONCATENATION:
+		case KLEENE:
+		case JOIN:
+			return toCanonicalForm(path, false);
+		case DISJUNCTION:
+		case INTERSECTION:
+			return toCanonicalForm(path, true);
+		}
+		
+		throw new IllegalStateException("Unknown database operation.");
+	}
+	
+	/**
+	 * Computes the canonical form of the given query tree with an operation that has
+	 * one or more operands.
+	 * @param path The query tree (AST) to compute the canonical form of.
+	 * @param commutative True if the operation is commutative and its operands should be sorted.
+	 * @return The canonical form of the given query tree.
+	 */
+	private static String toCanonicalForm(QueryTree path, boolean commutative){
+		String[] operands = new String[path.getArity()];
+		for(int i = 0; i < operands.length; i++){
+			operands[i] = toCanonicalForm(path.getOperand(i));
+		}
+		
+		if(commutative){
+			Arrays.sort(operands);
+		}
+		
+		return path.getOperation().name() + "(" + String.join(",", operands) + ")";
+	}
+	
+	/**
+	 * Key for a cached query result.
+	 * @author Roan
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The canonical form of the query tree.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 */
+	private static record Key(int source, String path, int target){
+	}
+}
@@ -0,0 +1,372 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import dev.roanh.gmark.ast.OperationType;
+import dev.roanh.gmark.ast.QueryTree;
+import dev.roanh.gmark.data.CardStat;
+import dev.roanh.gmark.type.schema.Predicate;
+
+/**
+ * Cost based planner that decides the evaluation order of concatenations and
+ * intersections in a query. The planner estimates the size of intermediate
+ * results using label statistics from the database graph, notably the number
+ * of edges with each label and the number of distinct source and target vertices
+ * of these edges. Chains of concatenations are joined in the order that minimises
+ * the estimated total join work, which is computed using dynamic programming over
+ * all possible join orders. Intersections are evaluated starting with the operand
+ * with the smallest estimated result.
+ * <p>
+ * The size of a join is estimated under the assumption that the vertices in the
+ * middle of the join are uniformly distributed, that is, the number of paths in
+ * the join of <i>A</i> and <i>B</i> is estimated to be {@code |A| * |B| / max(T(A), S(B))},
+ * where <i>T(A)</i> is the number of distinct targets of <i>A</i> and <i>S(B)</i> the
+ * number of distinct sources of <i>B</i>. If the database graph has statistics for
+ * paths of length 2 available, then these are used instead for the concatenation of
+ * two labels. By default these statistics are only used if they were computed before,
+ * but the planner can also be configured to compute them when first needed. These estimates are only used to compare alternative plans and can be
+ * far from the actual result size.
+ * @author Roan
+ * @see DatabaseGraph#getEdgeCount(Predicate)
+ * @see DatabaseGraph#getSourceCount(Predicate)
+ * @see DatabaseGraph#getTargetCount(Predicate)
+ * @see DatabaseGraph#getStatistics(Predicate, Predicate)
+ */
+public class QueryPlanner{
+	/**
+	 * Value used to indicate that a source or target vertex is not bound.
+	 */
+	private static final int UNBOUND = -1;
+	/**
+	 * The database graph to plan queries for.
+	 */
+	private final DatabaseGraph graph;
+	/**
+	 * True if the statistics for paths of length 2 are computed the first time
+	 * they are needed, false if they are only used if they were computed before.
+	 */
+	private boolean pathStatistics = false;
+	
+	/**
+	 * Constructs a new query planner for the given database graph.
+	 * @param graph The database graph to plan queries for.
+	 */
+	public QueryPlanner(DatabaseGraph graph){
+		this.graph = graph;
+	}
+	
+	/**
+	 * Sets whether the statistics for paths of length 2 of the database graph should be
+	 * computed the first time the concatenation of two labels is planned. When disabled,
+	 * these statistics are only used if they were computed before. Computing the statistics
+	 * requires a pass over all paths of length 2 in the graph, which can be expensive for
+	 * graphs with high degree vertices, as such this is disabled by default.
+	 * @param enabled True to compute the statistics for paths of length 2 when needed.
+	 * @see DatabaseGraph#computePathStatistics(java.util.concurrent.ForkJoinPool)
+	 */
+	public void setPathStatistics(boolean enabled){
+		pathStatistics = enabled;
+	}
+	
+	/**
+	 * Estimates the size of the result of evaluating the given query tree.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The query tree (AST) to estimate the result size of.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return The estimated result size.
+	 */
+	public Estimate estimate(int source, QueryTree path, int target){
+		switch(path.getOperation()){
+		case CONCATENATION:
+			return planJoinOrder(source, flatten(path, OperationType.CONCATENATION), target).estimate();
+		case DISJUNCTION:
+			return union(estimate(source, path.getOperand(0), target), estimate(source, path.getOperand(1), target));
+		case EDGE:
+			Predicate label = path.getEdgeAtom().getLabel();
+			return bind(source, new Estimate(graph.getSourceCount(label), graph.getEdgeCount(label), graph.getTargetCount(label)), target);
+		case IDENTITY:
+			return selectIdentity(source, target);
+		case INTERSECTION:
+			Estimate result = null;
+			boolean identity = false;
+			for(QueryTree operand : flatten(path, OperationType.INTERSECTION)){
+				if(operand.getOperation() == OperationType.IDENTITY){
+					identity = true;
+				}else{
+					Estimate estimate = estimate(source, operand, target);
+					result = result == null ? estimate : intersection(result, estimate);
+				}
+			}
+			
+			if(result == null){
+				return selectIdentity(source, target);
+			}
+			
+			return identity ? identity(result) : result;
+		case KLEENE:
+			return bind(source, closure(estimate(UNBOUND, path.getOperand(0), UNBOUND)), target);
+		case JOIN:
+			throw new IllegalArgumentException("This planner only supports reachability queries.");
+		}
+		
+		throw new IllegalStateException("Unknown database operation.");
+	}
+	
+	/**
+	 * Computes the join order for the given chain of concatenated query trees that
+	 * minimises the estimated total join work. The source vertex is only bound for
+	 * the first query tree in the chain and the target vertex only for the last.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param chain The chain of query trees to concatenate, in order.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return The planned join order for the chain.
+	 * @see #flatten(QueryTree, OperationType)
+	 */
+	public JoinOrder planJoinOrder(int source, List<QueryTree> chain, int target){
+		final int n = chain.size();
+		Estimate[][] estimates = new Estimate[n][n];
+		double[][] costs = new double[n][n];
+		int[][] splits = new int[n][n];
+		
+		for(int i = 0; i < n; i++){
+			estimates[i][i] = estimate(i == 0 ? source : UNBOUND, chain.get(i), i == n - 1 ? target : UNBOUND);
+			costs[i][i] = estimates[i][i].paths();
+		}
+		
+		for(int length = 2; length <= n; length++){
+			for(int i = 0; i + length <= n; i++){
+				final int j = i + length - 1;
+				costs[i][j] = Double.POSITIVE_INFINITY;
+				for(int k = i; k < j; k++){
+					double cost = costs[i][k] + costs[k + 1][j] + joinWork(estimates[i][k], estimates[k + 1][j]);
+					if(cost < costs[i][j]){
+						costs[i][j] = cost;
+						splits[i][j] = k;
+					}
+				}
+				
+				if(length == 2 && (pathStatistics || graph.hasPathStatistics()) && chain.get(i).getOperation() == OperationType.EDGE && chain.get(j).getOperation() == OperationType.EDGE){
+					CardStat stats = graph.getStatistics(chain.get(i).getEdgeAtom().getLabel(), chain.get(j).getEdgeAtom().getLabel());
+					estimates[i][j] = bind(i == 0 ? source : UNBOUND, new Estimate(stats.sources(), stats.paths(), stats.targets()), j == n - 1 ? target : UNBOUND);
+				}else{
+					estimates[i][j] = join(estimates[i][splits[i][j]], estimates[splits[i][j] + 1][j]);
+				}
+			}
+		}
+		
+		return new JoinOrder(chain, splits, estimates[0][n - 1]);
+	}
+	
+	/**
+	 * Orders the given operands of an intersection by their estimated result size,
+	 * starting with the operand with the smallest estimated result.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param operands The operands of the intersection.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return The operands in the order they should be intersected.
+	 */
+	public List<QueryTree> planIntersectionOrder(int source, List<QueryTree> operands, int target){
+		List<Estimate> estimates = new ArrayList<Estimate>(operands.size());
+		List<Integer> order = new ArrayList<Integer>(operands.size());
+		for(int i = 0; i < operands.size(); i++){
+			estimates.add(estimate(source, operands.get(i), target));
+			order.add(i);
+		}
+		
+		order.sort(Comparator.comparingDouble(i->estimates.get(i).paths()));
+		return order.stream().map(operands::get).toList();
+	}
+	
+	/**
+	 * Flattens nested operations of the given type into a single list of operands.
+	 * For example, for concatenation the query tree {@code (a ◦ b) ◦ (c ◦ d)} is
+	 * flattened to the list {@code [a, b, c, d]}. This is only valid for associative
+	 * operations.
+	 * @param path The query tree (AST) to flatten.
+	 * @param type The associative operation to flatten.
+	 * @return The operands of the flattened operation in order.
+	 */
+	public static List<QueryTree> flatten(QueryTree path, OperationType type){
+		List<QueryTree> operands = new ArrayList<QueryTree>();
+		flatten(path, type, operands);
+		return operands;
+	}
+	
+	/**
+	 * Flattens nested operations of the given type into the given list of operands.
+	 * @param path The query tree (AST) to flatten.
+	 * @param type The associative operation to flatten.
+	 * @param operands The list to add the operands to in order.
+	 */
+	private static void flatten(QueryTree path, OperationType type, List<QueryTree> operands){
+		if(path.getOperation() == type){
+			for(int i = 0; i < path.getArity(); i++){
+				flatten(path.getOperand(i), type, operands);
+			}
+		}else{
+			operands.add(path);
+		}
+	}
+	
+	/**
+	 * Estimates the result size of selecting the identity relation.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return The estimate for the identity relation.
+	 */
+	private Estimate selectIdentity(int source, int target){
+		final int vertexCount = graph.getVertexCount();
+		return bind(source, new Estimate(vertexCount, vertexCount, vertexCount), target);
+	}
+	
+	/**
+	 * Restricts the given estimate to paths starting at the given bound
+	 * source and/or ending at the given bound target vertex.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param estimate The estimate for the unbound query.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return The estimate for the bound query.
+	 */
+	private static Estimate bind(int source, Estimate estimate, int target){
+		double sources = estimate.sources();
+		double paths = estimate.paths();
+		double targets = estimate.targets();
+		if(source != UNBOUND){
+			paths /= Math.max(1.0D, sources);
+			sources = Math.min(1.0D, sources);
+			targets = Math.min(targets, paths);
+		}
+		
+		if(target != UNBOUND){
+			paths /= Math.max(1.0D, targets);
+			targets = Math.min(1.0D, targets);
+			sources = Math.min(sources, paths);
+		}
+		
+		return new Estimate(sources, paths, targets);
+	}
+	
+	/**
+	 * Estimates the work required to join the given left and right input, this
+	 * is the number of paths produced by the join before duplicates are removed.
+	 * @param left The estimate for the left input.
+	 * @param right The estimate for the right input.
+	 * @return The estimated join work.
+	 */
+	private static double joinWork(Estimate left, Estimate right){
+		return (left.paths() * right.paths()) / Math.max(1.0D, Math.max(left.targets(), right.sources()));
+	}
+	
+	/**
+	 * Estimates the result size of the join of the given left and right input.
+	 * @param left The estimate for the left input.
+	 * @param right The estimate for the right input.
+	 * @return The estimate for the join result.
+	 */
+	private static Estimate join(Estimate left, Estimate right){
+		double paths = Math.min(joinWork(left, right), left.sources() * right.targets());
+		return new Estimate(Math.min(left.sources(), paths), paths, Math.min(right.targets(), paths));
+	}
+	
+	/**
+	 * Estimates the result size of the intersection of the given inputs.
+	 * @param left The estimate for the left input.
+	 * @param right The estimate for the right input.
+	 * @return The estimate for the intersection result.
+	 */
+	private static Estimate intersection(Estimate left, Estimate right){
+		double space = Math.max(1.0D, Math.max(left.sources(), right.sources()) * Math.max(left.targets(), right.targets()));
+		double paths = Math.min(Math.min(left.paths(), right.paths()), (left.paths() * right.paths()) / space);
+		return new Estimate(Math.min(paths, Math.min(left.sources(), right.sources())), paths, Math.min(paths, Math.min(left.targets(), right.targets())));
+	}
+	
+	/**
+	 * Estimates the result size of the union of the given inputs.
+	 * @param left The estimate for the left input.
+	 * @param right The estimate for the right input.
+	 * @return The estimate for the union result.
+	 */
+	private Estimate union(Estimate left, Estimate right){
+		final double vertexCount = graph.getVertexCount();
+		return new Estimate(
+			Math.min(vertexCount, left.sources() + right.sources()),
+			left.paths() + right.paths(),
+			Math.min(vertexCount, left.targets() + right.targets())
+		);
+	}
+	
+	/**
+	 * Estimates the result size of the intersection of the given input with identity,
+	 * this assumes that the target of a path equals its source with a probability
+	 * inversely proportional to the number of distinct targets.
+	 * @param estimate The estimate for the input.
+	 * @return The estimate for the paths in the input that are loops.
+	 */
+	private static Estimate identity(Estimate estimate){
+		double paths = Math.min(Math.min(estimate.sources(), estimate.targets()), estimate.paths() / Math.max(1.0D, estimate.targets()));
+		return new Estimate(paths, paths, paths);
+	}
+	
+	/**
+	 * Estimates the result size of the transitive closure of the given input,
+	 * this assumes that every source of the input can reach every target.
+	 * @param estimate The estimate for the input.
+	 * @return The estimate for the transitive closure.
+	 */
+	private static Estimate closure(Estimate estimate){
+		return new Estimate(estimate.sources(), Math.max(estimate.paths(), estimate.sources() * estimate.targets()), estimate.targets());
+	}
+	
+	/**
+	 * Estimate of the size of a query result.
+	 * @author Roan
+	 * @param sources The estimated number of distinct source vertices.
+	 * @param paths The estimated number of paths (source target pairs).
+	 * @param targets The estimated number of distinct target vertices.
+	 */
+	public static record Estimate(double sources, double paths, double targets){
+	}
+	
+	/**
+	 * Join order for a chain of concatenated query trees.
+	 * @author Roan
+	 * @param chain The chain of query trees to concatenate.
+	 * @param splits The split table for the chain, the sub chain from index <code>i</code>
+	 *        to <code>j</code> (inclusive) is evaluated as the join of the sub chain
+	 *        from <code>i</code> to {@code splits[i][j]} and the sub chain from
+	 *        {@code splits[i][j] + 1} to <code>j</code>.
+	 * @param estimate The estimated result size of the complete chain.
+	 */
+	public static record JoinOrder(List<QueryTree> chain, int[][] splits, Estimate estimate){
+		
+		/**
+		 * Gets the index at which the sub chain between the given indices is split.
+		 * @param from The index of the first query tree in the sub chain.
+		 * @param to The index of the last query tree in the sub chain.
+		 * @return The index of the last query tree in the left part of the split.
+		 */
+		public int getSplit(int from, int to){
+			return splits[from][to];
+		}
+	}
+}
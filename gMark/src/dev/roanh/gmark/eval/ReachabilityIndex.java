@@ -0,0 +1,427 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.util.Arrays;
+
+import dev.roanh.gmark.util.RangeBitSet;
+
+/**
+ * Reachability index for a result graph based on the condensation of the graph into
+ * its strongly connected components (SCCs). All vertices in the same strongly connected
+ * component can reach exactly the same set of vertices, meaning reachability only has
+ * to be computed once for each component. Components are identified using an iterative
+ * version of Tarjan's algorithm, which also yields the components in reverse topological
+ * order. Reachability is then computed on the resulting directed acyclic graph (DAG),
+ * with the reachability label of each component being shared by all its vertices.
+ * <p>
+ * Once constructed the index can be reused to answer any number of reachability
+ * questions on the indexed graph, including computing the complete transitive closure.
+ * Note that reachability labels are only computed once they are first required.
+ * @author Roan
+ * @see ResultGraph#transitiveClosure()
+ * @see <a href="https://en.wikipedia.org/wiki/Tarjan%27s_strongly_connected_components_algorithm">Tarjan's strongly connected components algorithm</a>
+ */
+public class ReachabilityIndex{
+	/**
+	 * Marker used for vertices that were not yet visited by Tarjan's algorithm.
+	 */
+	private static final int UNVISITED = -1;
+	/**
+	 * The number of vertices in the indexed graph.
+	 */
+	private final int vertexCount;
+	/**
+	 * The number of strongly connected components in the indexed graph.
+	 */
+	private final int componentCount;
+	/**
+	 * The component each vertex belongs to, components are numbered in reverse
+	 * topological order, meaning that all components that are reachable from
+	 * some component have a lower ID than that component.
+	 */
+	private final int[] component;
+	/**
+	 * True for all components that contain a cycle, i.e., components with
+	 * more than one vertex or with a vertex with a self loop. Vertices in these
+	 * components can reach themselves.
+	 */
+	private final boolean[] cyclic;
+	/**
+	 * CSR style offsets into {@link #members} for each component.
+	 */
+	private final int[] memberIndex;
+	/**
+	 * The vertices in each component, the vertices for component <code>c</code> are
+	 * stored between index {@code memberIndex[c]} (inclusive) and {@code memberIndex[c + 1]}
+	 * (exclusive). The vertices for each component are sorted in ascending order.
+	 */
+	private final int[] members;
+	/**
+	 * CSR style offsets into {@link #successors} for each component.
+	 */
+	private final int[] successorIndex;
+	/**
+	 * The edges of the condensed graph, the distinct components directly reachable
+	 * from component <code>c</code> are stored between index {@code successorIndex[c]}
+	 * (inclusive) and {@code successorIndex[c + 1]} (exclusive) in ascending order.
+	 */
+	private final int[] successors;
+	/**
+	 * CSR style offsets into {@link #reach} for each component, null if the
+	 * reachability labels have not been computed yet.
+	 */
+	private int[] reachIndex = null;
+	/**
+	 * The reachability labels for each component, the components reachable from component
+	 * <code>c</code> using at least one edge are stored between index {@code reachIndex[c]}
+	 * (inclusive) and {@code reachIndex[c + 1]} (exclusive) in ascending order.
+	 */
+	private int[] reach = null;
+	
+	/**
+	 * Constructs a new reachability index for the given result graph. This
+	 * will compute the condensation of the given graph, but not yet the
+	 * reachability labels for the condensed graph.
+	 * @param graph The graph to index.
+	 */
+	public ReachabilityIndex(ResultGraph graph){
+		final int[] csr = graph.getData();
+		vertexCount = graph.getVertexCount();
+		component = new int[vertexCount];
+		Arrays.fill(component, UNVISITED);
+		
+		//iterative Tarjan
+		int[] order = new int[vertexCount];
+		int[] low = new int[vertexCount];
+		int[] stack = new int[vertexCount];
+		int[] callStack = new int[vertexCount];
+		int[] edgeStack = new int[vertexCount];
+		boolean[] selfLoop = new boolean[vertexCount];
+		Arrays.fill(order, UNVISITED);
+		
+		int counter = 0;
+		int components = 0;
+		int stackSize = 0;
+		for(int root = 0; root < vertexCount; root++){
+			if(order[root] != UNVISITED){
+				continue;
+			}
+			
+			int depth = 0;
+			order[root] = counter;
+			low[root] = counter++;
+			stack[stackSize++] = root;
+			callStack[depth] = root;
+			edgeStack[depth++] = csr[root];
+			
+			while(depth != 0){
+				final int vertex = callStack[depth - 1];
+				final int edge = edgeStack[depth - 1];
+				if(edge < csr[vertex + 1]){
+					edgeStack[depth - 1]++;
+					final int target = csr[edge];
+					if(order[target] == UNVISITED){
+						order[target] = counter;
+						low[target] = counter++;
+						stack[stackSize++] = target;
+						callStack[depth] = target;
+						edgeStack[depth++] = csr[target];
+					}else if(component[target] == UNVISITED){
+						//still on the stack
+						low[vertex] = Math.min(low[vertex], order[target]);
+						selfLoop[vertex] |= target == vertex;
+					}
+				}else{
+					depth--;
+					if(low[vertex] == order[vertex]){
+						int member;
+						do{
+							member = stack[--stackSize];
+							component[member] = components;
+						}while(member != vertex);
+						
+						components++;
+					}
+					
+					if(depth != 0){
+						final int parent = callStack[depth - 1];
+						low[parent] = Math.min(low[parent], low[vertex]);
+					}
+				}
+			}
+		}
+		
+		componentCount = components;
+		
+		//component members, sorted by construction
+		memberIndex = new int[componentCount + 1];
+		for(int vertex = 0; vertex < vertexCount; vertex++){
+			memberIndex[component[vertex] + 1]++;
+		}
+		
+		for(int c = 0; c < componentCount; c++){
+			memberIndex[c + 1] += memberIndex[c];
+		}
+		
+		members = new int[vertexCount];
+		int[] fill = Arrays.copyOf(memberIndex, componentCount);
+		for(int vertex = 0; vertex < vertexCount; vertex++){
+			members[fill[component[vertex]]++] = vertex;
+		}
+		
+		cyclic = new boolean[componentCount];
+		for(int c = 0; c < componentCount; c++){
+			cyclic[c] = memberIndex[c + 1] - memberIndex[c] > 1 || selfLoop[members[memberIndex[c]]];
+		}
+		
+		//condensed graph edges
+		RangeBitSet seen = new RangeBitSet(componentCount);
+		successorIndex = new int[componentCount + 1];
+		int[] buffer = new int[Math.max(1, graph.getEdgeCount())];
+		int size = 0;
+		for(int c = 0; c < componentCount; c++){
+			successorIndex[c] = size;
+			seen.rangeClear();
+			
+			for(int mi = memberIndex[c]; mi < memberIndex[c + 1]; mi++){
+				final int vertex = members[mi];
+				for(int ti = csr[vertex]; ti < csr[vertex + 1]; ti++){
+					final int target = component[csr[ti]];
+					if(target != c && !seen.get(target)){
+						seen.rangeSet(target);
+						buffer[size++] = target;
+					}
+				}
+			}
+			
+			Arrays.sort(buffer, successorIndex[c], size);
+		}
+		
+		successorIndex[componentCount] = size;
+		successors = Arrays.copyOf(buffer, size);
+	}
+	
+	/**
+	 * Gets the number of vertices in the indexed graph.
+	 * @return The number of vertices in the indexed graph.
+	 */
+	public int getVertexCount(){
+		return vertexCount;
+	}
+	
+	/**
+	 * Gets the number of strongly connected components in the indexed graph.
+	 * @return The number of strongly connected components.
+	 */
+	public int getComponentCount(){
+		return componentCount;
+	}
+	
+	/**
+	 * Gets the number of edges in the condensed graph, this is the number of
+	 * distinct pairs of components connected by at least one edge.
+	 * @return The number of edges in the condensed graph.
+	 */
+	public int getCondensedEdgeCount(){
+		return successors.length;
+	}
+	
+	/**
+	 * Checks if there is a path of at least one edge from the given source
+	 * vertex to the given target vertex in the indexed graph.
+	 * @param source The source vertex.
+	 * @param target The target vertex.
+	 * @return True if the target vertex is reachable from the source vertex.
+	 */
+	public boolean isReachable(int source, int target){
+		assert 0 <= source && source < vertexCount;
+		assert 0 <= target && target < vertexCount;
+		
+		computeLabels();
+		final int c = component[source];
+		return Arrays.binarySearch(reach, reachIndex[c], reachIndex[c + 1], component[target]) >= 0;
+	}
+	
+	/**
+	 * Computes the transitive closure of the indexed graph.
+	 * @return A new graph representing the transitive closure of the indexed graph,
+	 *         by construction this result graph will be sorted.
+	 * @see ResultGraph#transitiveClosure()
+	 */
+	public ResultGraph getTransitiveClosure(){
+		computeLabels();
+		
+		int[][] rows = new int[componentCount][];
+		ResultGraph out = new ResultGraph(vertexCount, successors.length + vertexCount, true);
+		for(int vertex = 0; vertex < vertexCount; vertex++){
+			out.setActiveSource(vertex);
+			
+			final int c = component[vertex];
+			int[] row = rows[c];
+			if(row == null){
+				row = expand(c);
+				if(memberIndex[c + 1] - memberIndex[c] > 1){
+					//shared by all vertices in the component
+					rows[c] = row;
+				}
+			}
+			
+			for(int target : row){
+				out.addTarget(target);
+			}
+		}
+		
+		out.endFinalSource();
+		return out;
+	}
+	
+	/**
+	 * Computes the transitive closure of the indexed graph, with all paths
+	 * starting at the given source vertex.
+	 * @param source The bound source vertex all returned paths have to start at.
+	 * @return A new graph representing the transitive closure of the indexed graph,
+	 *         where all paths start at the given source vertex.
+	 * @see ResultGraph#transitiveClosureFrom(int)
+	 */
+	public ResultGraph getTransitiveClosureFrom(int source){
+		assert 0 <= source && source < vertexCount;
+		
+		computeLabels();
+		return ResultGraph.single(vertexCount, source, true, expand(component[source]));
+	}
+	
+	/**
+	 * Computes the transitive closure of the indexed graph, with all paths
+	 * ending at the given target vertex.
+	 * @param target The bound target vertex all returned paths have to end at.
+	 * @return A new graph representing the transitive closure of the indexed graph,
+	 *         where all paths end at the given target vertex.
+	 * @see ResultGraph#transitiveClosureTo(int)
+	 */
+	public ResultGraph getTransitiveClosureTo(int target){
+		assert 0 <= target && target < vertexCount;
+		
+		computeLabels();
+		final int targetComponent = component[target];
+		boolean[] reaches = new boolean[componentCount];
+		for(int c = targetComponent; c < componentCount; c++){
+			reaches[c] = Arrays.binarySearch(reach, reachIndex[c], reachIndex[c + 1], targetComponent) >= 0;
+		}
+		
+		ResultGraph out = new ResultGraph(vertexCount, vertexCount, true);
+		for(int vertex = 0; vertex < vertexCount; vertex++){
+			out.setActiveSource(vertex);
+			if(reaches[component[vertex]]){
+				out.addTarget(target);
+			}
+		}
+		
+		out.endFinalSource();
+		return out;
+	}
+	
+	/**
+	 * Computes the sorted list of all vertices reachable from the given component.
+	 * @param c The component to expand.
+	 * @return The vertices reachable from any vertex in the given component.
+	 */
+	private int[] expand(int c){
+		int size = 0;
+		for(int ri = reachIndex[c]; ri < reachIndex[c + 1]; ri++){
+			final int d = reach[ri];
+			size += memberIndex[d + 1] - memberIndex[d];
+		}
+		
+		int[] row = new int[size];
+		int idx = 0;
+		for(int ri = reachIndex[c]; ri < reachIndex[c + 1]; ri++){
+			final int d = reach[ri];
+			final int count = memberIndex[d + 1] - memberIndex[d];
+			System.arraycopy(members, memberIndex[d], row, idx, count);
+			idx += count;
+		}
+		
+		Arrays.sort(row);
+		return row;
+	}
+	
+	/**
+	 * Computes the reachability labels for all components if they were not yet
+	 * computed. Components are processed in reverse topological order such that
+	 * the labels of all successors of a component are available when its own
+	 * label is computed. Successors are visited closest first, which means that
+	 * any successor that was already found through another successor also has
+	 * all of its own reachable components marked and can be skipped entirely.
+	 */
+	private synchronized void computeLabels(){
+		if(reach != null){
+			return;
+		}
+		
+		int[] index = new int[componentCount + 1];
+		int[] labels = new int[Math.max(1, successors.length + componentCount)];
+		RangeBitSet seen = new RangeBitSet(componentCount);
+		int size = 0;
+		for(int c = 0; c < componentCount; c++){
+			index[c] = size;
+			seen.rangeClear();
+			
+			if(cyclic[c]){
+				seen.rangeSet(c);
+				labels = ensureCapacity(labels, size + 1);
+				labels[size++] = c;
+			}
+			
+			for(int si = successorIndex[c + 1] - 1; si >= successorIndex[c]; si--){
+				final int d = successors[si];
+				if(!seen.get(d)){
+					seen.rangeSet(d);
+					labels = ensureCapacity(labels, size + 1 + index[d + 1] - index[d]);
+					labels[size++] = d;
+					
+					for(int ri = index[d]; ri < index[d + 1]; ri++){
+						final int r = labels[ri];
+						if(!seen.get(r)){
+							seen.rangeSet(r);
+							labels[size++] = r;
+						}
+					}
+				}
+			}
+			
+			Arrays.sort(labels, index[c], size);
+		}
+		
+		index[componentCount] = size;
+		reachIndex = index;
+		reach = labels;
+	}
+	
+	/**
+	 * Ensures the given array has at least the given capacity.
+	 * @param data The array to check.
+	 * @param capacity The required capacity.
+	 * @return The given array if it was large enough, else a
+	 *         larger copy of the given array.
+	 */
+	private static int[] ensureCapacity(int[] data, int capacity){
+		return capacity <= data.length ? data : Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+	}
+}
@@ -18,17 +18,30 @@
  */
 package dev.roanh.gmark.eval;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
 
 import dev.roanh.gmark.ast.OperationType;
 import dev.roanh.gmark.ast.QueryTree;
+import dev.roanh.gmark.data.SourceTargetPair;
+import dev.roanh.gmark.eval.QueryPlanner.JoinOrder;
 import dev.roanh.gmark.type.schema.Predicate;
+import dev.roanh.gmark.util.Util;
 import dev.roanh.gmark.util.graph.generic.IntGraph;
 
 /**
  * Implementation of a simple reachability query evaluator. Note that for simplicity
  * and performance vertex, edge and label information is abstracted away and instead
- * associated with an integer.
+ * associated with an integer. Scratch space for database operations is reused
+ * between queries and kept separately for each thread, as such a single evaluator
+ * can be used to evaluate queries from multiple threads concurrently. The evaluator
+ * should not be reconfigured while queries are being evaluated.
  * @author Roan
  * @see <a href="https://research.roanh.dev/Graph%20Database%20&%20Query%20Evaluation%20Terminology%20v1.3.pdf">
  *      Graph Database &amp; Query Evaluation Terminology</a>
@@ -42,6 +55,10 @@ public class ReachabilityQueryEvaluator{
 	 * Constant used to indicate an unbound (free) query source and/or target vertex.
 	 */
 	private static final int UNBOUND = -1;
+	/**
+	 * Constant used to indicate that all paths matched by a query should be returned.
+	 */
+	private static final int UNLIMITED = Integer.MAX_VALUE;
 	/**
 	 * First input operand/argument for an operation.
 	 */
@@ -50,10 +67,108 @@ public class ReachabilityQueryEvaluator{
 	 * Second input operand/argument for an operation.
 	 */
 	private static final int SECOND = 1;
+	/**
+	 * The default minimum combined edge count of the input graphs of
+	 * an operation before it is evaluated in parallel.
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+	/**
+	 * The minimum number of edges in the input graph of an unbound transitive
+	 * closure operation before the multi-source closure algorithm is used.
+	 * @see ResultGraph#transitiveClosureMultiSource()
+	 * @see ReachabilityIndex
+	 */
+	private static final int MULTI_SOURCE_CLOSURE_THRESHOLD = 1 << 12;
+	/**
+	 * The maximum fraction of the edges of the input graph of a transitive closure operation
+	 * that can remain after condensing strongly connected components for the closure to be
+	 * computed on the condensed graph instead, expressed as a numerator over 4.
+	 * @see ReachabilityIndex
+	 */
+	private static final int CONDENSATION_THRESHOLD = 3;
+	/**
+	 * The minimum number of edges in the input graph of a transitive closure
+	 * operation with both a bound source and target before a bidirectional
+	 * search is used to find a path between the source and target.
+	 * @see ResultGraph#transitiveClosureBidirectional(int, int)
+	 */
+	private static final int BIDIRECTIONAL_CLOSURE_THRESHOLD = 1 << 12;
+	/**
+	 * The number of source vertices for which the result paths are
+	 * computed at once when query results are iterated lazily.
+	 * @see #iterate(PathQuery)
+	 */
+	private static final int PIPELINE_BATCH_SIZE = 256;
 	/**
 	 * The main database graph.
 	 */
 	private final DatabaseGraph graph;
+	/**
+	 * Evaluator used for regular path queries that are better evaluated
+	 * using a search over the product of the database graph and an automaton.
+	 * @see #isAutomatonQuery(int, QueryTree, int)
+	 */
+	private final AutomatonQueryEvaluator automaton;
+	/**
+	 * Evaluator used for conjunctive path queries with a cyclic query graph,
+	 * which are better evaluated using a worst-case optimal join.
+	 * @see LeapfrogQueryEvaluator#isCyclic(QueryTree)
+	 */
+	private final LeapfrogQueryEvaluator leapfrog;
+	/**
+	 * The planner used to decide the evaluation order of
+	 * chains of concatenations and of intersections.
+	 */
+	private final QueryPlanner planner;
+	/**
+	 * True if the evaluation order of concatenations and intersections
+	 * is decided by the cost based query planner, false if queries are
+	 * evaluated exactly as they were parsed.
+	 */
+	private boolean planning = true;
+	/**
+	 * True if concatenations with a bound source and/or target are evaluated
+	 * by traversing the database graph from the bound vertices, such that the
+	 * vertices reached by each operand restrict the evaluation of the next
+	 * operand (sideways information passing).
+	 */
+	private boolean sideways = true;
+	/**
+	 * True if intersections with a cyclic query graph are evaluated using
+	 * a worst-case optimal join instead of bottom up.
+	 */
+	private boolean leapfrogJoins = true;
+	/**
+	 * True if scans of all edges with a label read from the label
+	 * partitioned layout of the database graph instead of the SLT.
+	 */
+	private boolean labelPartitioning = false;
+	/**
+	 * The pool to evaluate operations on in parallel, or null if
+	 * all operations should be evaluated sequentially.
+	 */
+	private ForkJoinPool pool = null;
+	/**
+	 * The minimum combined edge count of the input graphs of an operation
+	 * before it is evaluated in parallel. Operations on smaller inputs
+	 * are always evaluated sequentially.
+	 */
+	private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+	/**
+	 * The cache for the results of evaluated sub queries, or null if
+	 * results should never be cached.
+	 */
+	private QueryCache cache = null;
+	/**
+	 * The contexts with reusable scratch space for database operations,
+	 * one for each thread that evaluates queries with this evaluator.
+	 */
+	private final ThreadLocal<EvaluationContext> contexts = ThreadLocal.withInitial(EvaluationContext::new);
+	/**
+	 * The number of bytes allocated by the last evaluated query, or -1 if unknown.
+	 * @see #getLastAllocatedBytes()
+	 */
+	private volatile long allocated = -1L;
 	
 	/**
 	 * Constructs a new query evaluator for the given database graph.
@@ -69,8 +184,136 @@ public class ReachabilityQueryEvaluator{
 	 */
 	public ReachabilityQueryEvaluator(DatabaseGraph graph){
 		this.graph = graph;
+		automaton = new AutomatonQueryEvaluator(graph);
+		leapfrog = new LeapfrogQueryEvaluator(graph);
+		planner = new QueryPlanner(graph);
 	}
-
+	
+	/**
+	 * Enables parallel evaluation of join, union and intersection operations
+	 * on the given pool. Only operations with inputs that have a combined edge
+	 * count of at least {@link #DEFAULT_PARALLEL_THRESHOLD} are evaluated
+	 * in parallel.
+	 * @param pool The pool to evaluate operations on.
+	 * @see #setParallelEvaluation(ForkJoinPool, int)
+	 */
+	public void setParallelEvaluation(ForkJoinPool pool){
+		setParallelEvaluation(pool, DEFAULT_PARALLEL_THRESHOLD);
+	}
+	
+	/**
+	 * Enables parallel evaluation of join, union and intersection operations
+	 * on the given pool. Operations on small inputs are still evaluated
+	 * sequentially, as the overhead of parallel evaluation outweighs the gains.
+	 * @param pool The pool to evaluate operations on or null to disable
+	 *        parallel evaluation completely.
+	 * @param threshold The minimum combined edge count of the input graphs
+	 *        of an operation before it is evaluated in parallel.
+	 * @throws IllegalArgumentException When the given threshold is negative.
+	 */
+	public void setParallelEvaluation(ForkJoinPool pool, int threshold) throws IllegalArgumentException{
+		if(threshold < 0){
+			throw new IllegalArgumentException("Parallel evaluation threshold cannot be negative.");
+		}
+		
+		this.pool = pool;
+		parallelThreshold = threshold;
+	}
+	
+	/**
+	 * Sets whether the evaluation order of chains of concatenations and of
+	 * intersections should be decided by the cost based query planner. When
+	 * disabled queries are evaluated exactly as they were parsed. Planning
+	 * is enabled by default.
+	 * @param planning True to enable query planning, false to disable it.
+	 * @see QueryPlanner
+	 */
+	public void setQueryPlanning(boolean planning){
+		this.planning = planning;
+	}
+	
+	/**
+	 * Sets whether the query planner should use the exact statistics for paths of length 2
+	 * when planning the concatenation of two labels. When enabled these statistics are
+	 * computed on the common pool the first time they are needed, which requires a pass
+	 * over all paths of length 2 in the database graph. When disabled, the statistics are
+	 * only used if they were already computed for the database graph, for example with
+	 * {@link DatabaseGraph#computePathStatistics(ForkJoinPool)}. This setting is disabled
+	 * by default and has no effect if query planning is disabled.
+	 * @param enabled True to compute and use the statistics for paths of length 2.
+	 * @see QueryPlanner#setPathStatistics(boolean)
+	 * @see DatabaseGraph#getStatistics(Predicate, Predicate)
+	 */
+	public void setPathStatistics(boolean enabled){
+		planner.setPathStatistics(enabled);
+	}
+	
+	/**
+	 * Sets whether concatenations with a bound source and/or target should be evaluated
+	 * by traversal from the bound vertices (sideways information passing). In this mode
+	 * only the vertices reached by an operand are used as the starting points for the
+	 * next operand, such that the cost of evaluating a chain depends on the number of
+	 * vertices reachable from the bound vertex instead of the size of the database graph.
+	 * When disabled all operands other than the one adjacent to the bound vertex are
+	 * evaluated in full. Sideways information passing is enabled by default.
+	 * @param enabled True to enable sideways information passing, false to disable it.
+	 */
+	public void setSidewaysInformationPassing(boolean enabled){
+		sideways = enabled;
+	}
+	
+	/**
+	 * Sets whether intersections whose query graph contains a cycle should be evaluated
+	 * using a worst-case optimal join. In this mode the complete intersection is evaluated
+	 * at once by binding the vertices of its query graph one at a time, instead of first
+	 * materialising the results of all the operands of the intersection. Worst-case
+	 * optimal joins are enabled by default.
+	 * @param enabled True to enable worst-case optimal joins, false to disable them.
+	 * @see LeapfrogQueryEvaluator
+	 */
+	public void setLeapfrogJoins(boolean enabled){
+		leapfrogJoins = enabled;
+	}
+	
+	/**
+	 * Sets whether selections of all edges with a label, without a bound source or target,
+	 * should read from the label partitioned layout of the database graph. This layout is
+	 * built the first time such a selection is made and stores the edges of each label
+	 * contiguously, such that the selection reads only the data of the selected label.
+	 * Selections with a bound source and/or target always use the SLT. Label partitioning
+	 * is disabled by default, as the layout requires about as much memory as the SLT.
+	 * This setting only affects this evaluator, other evaluators for the same database
+	 * graph keep reading from the SLT unless they enable label partitioning as well.
+	 * @param enabled True to enable label partitioning, false to disable it.
+	 * @see DatabaseGraph#selectLabelPartitioned(Predicate)
+	 */
+	public void setLabelPartitioning(boolean enabled){
+		labelPartitioning = enabled;
+	}
+	
+	/**
+	 * Sets the cache to use for the results of evaluated sub queries. When a
+	 * cache is set, the results of all sub queries that are not a single label
+	 * or identity are looked up in the cache before they are evaluated and
+	 * added to the cache after they were evaluated. The same cache can be
+	 * shared by multiple evaluators, as long as they all evaluate queries
+	 * on the same database graph.
+	 * @param cache The cache to use or null to disable caching.
+	 * @see QueryCache
+	 */
+	public void setCache(QueryCache cache){
+		this.cache = cache;
+	}
+	
+	/**
+	 * Gets the cache used for the results of evaluated sub queries.
+	 * @return The cache used by this evaluator or null if caching is disabled.
+	 * @see #setCache(QueryCache)
+	 */
+	public QueryCache getCache(){
+		return cache;
+	}
+	
 	/**
 	 * Evaluates the given reachability path query on the database graph for
 	 * this evaluator and returns the result graph.
@@ -78,29 +321,211 @@ public class ReachabilityQueryEvaluator{
 	 * @return The query answer result graph containing the matched paths.
 	 * @see PathQuery
 	 * @see ResultGraph
+	 * @see AutomatonQueryEvaluator
+	 * @see #evaluate(PathQuery, int)
 	 */
 	public ResultGraph evaluate(PathQuery query){
-		return evaluate(
-			query.source().orElse(UNBOUND),
-			query.query().toAbstractSyntaxTree(),
-			query.target().orElse(UNBOUND)
-		);
+		return evaluate(query, UNLIMITED);
 	}
-
+	
+	/**
+	 * Evaluates the given reachability path query on the database graph for this
+	 * evaluator and returns a result graph with at most the given number of paths.
+	 * The limit is propagated to the operations at the top of the query tree, such
+	 * that joins and transitive closures stop early once enough paths are found. The
+	 * paths that are returned when the query matches more paths than the limit are
+	 * an arbitrary subset of all the matched paths.
+	 * @param query The path query to evaluate.
+	 * @param limit The maximum number of paths to return.
+	 * @return The query answer result graph containing at most the given number of
+	 *         matched paths, this graph contains all matched paths if there are
+	 *         fewer matched paths than the given limit.
+	 * @throws IllegalArgumentException When the given limit is not positive.
+	 * @see #evaluate(PathQuery)
+	 * @see #exists(PathQuery)
+	 */
+	public ResultGraph evaluate(PathQuery query, int limit) throws IllegalArgumentException{
+		if(limit <= 0){
+			throw new IllegalArgumentException("Result limit has to be positive.");
+		}
+		
+		final long start = getAllocatedBytes();
+		final int source = query.source().orElse(UNBOUND);
+		final int target = query.target().orElse(UNBOUND);
+		QueryTree path = query.query().toAbstractSyntaxTree();
+		
+		ResultGraph result;
+		if(isAutomatonQuery(source, path, target)){
+			result = cache == null ? null : cache.get(source, path, target);
+			if(result == null){
+				result = automaton.evaluate(source, path, target);
+				if(cache != null){
+					cache.put(source, path, target, result);
+				}
+			}
+		}else{
+			result = evaluate(source, path, target, limit);
+		}
+		
+		result = result.limit(limit);
+		allocated = start == -1L ? -1L : getAllocatedBytes() - start;
+		return result;
+	}
+	
+	/**
+	 * Checks if the given reachability path query matches at least one
+	 * path in the database graph for this evaluator. Evaluation stops
+	 * as soon as the first matched path is found.
+	 * @param query The path query to evaluate.
+	 * @return True if the query matches at least one path.
+	 * @see #evaluate(PathQuery, int)
+	 */
+	public boolean exists(PathQuery query){
+		return evaluate(query, 1).getEdgeCount() != 0;
+	}
+	
+	/**
+	 * Evaluates the given reachability path query on the database graph for this evaluator
+	 * in a pipelined fashion. Rather than materialising the complete result graph, the returned
+	 * iterator computes the result paths for a small batch of source vertices at a time, only
+	 * once all the paths for the previous batch have been consumed. Each batch is evaluated
+	 * by traversal from its source vertices, such that operators only ever produce the target
+	 * vertices for the source vertices they are asked about. As a result, the memory required
+	 * for evaluation is bounded by the size of a batch and the part of the database graph
+	 * reachable from it, instead of by the size of the largest intermediate result. Paths are
+	 * returned ordered by source vertex and then by target vertex.
+	 * <p>
+	 * Note that the returned iterator itself is not thread safe and that the result cache of
+	 * this evaluator is not used.
+	 * @param query The path query to evaluate.
+	 * @return An iterator over all the paths matched by the given query.
+	 * @throws IllegalArgumentException When the query contains a join operation.
+	 * @see #evaluate(PathQuery)
+	 * @see #selectTargetLists(int[], QueryTree, boolean)
+	 */
+	public Iterator<SourceTargetPair> iterate(PathQuery query) throws IllegalArgumentException{
+		QueryTree path = query.query().toAbstractSyntaxTree();
+		if(path.stream().anyMatch(node->node.getOperation() == OperationType.JOIN)){
+			throw new IllegalArgumentException("This evaluator only supports reachability queries.");
+		}
+		
+		return new PathIterator(query.source().orElse(UNBOUND), path, query.target().orElse(UNBOUND));
+	}
+	
+	/**
+	 * Gets the number of bytes allocated on the heap by the evaluation of the last
+	 * query evaluated by this evaluator. Only allocations by the thread that called
+	 * {@link #evaluate(PathQuery)} are included, allocations made by the threads of
+	 * the pool used for parallel evaluation are not. When queries are evaluated from
+	 * multiple threads, this is the value for the query that completed last.
+	 * @return The number of bytes allocated for the last evaluated query, or -1 if
+	 *         no query was evaluated yet or if the JVM does not support measuring
+	 *         allocations per thread.
+	 * @see #evaluate(PathQuery)
+	 */
+	public long getLastAllocatedBytes(){
+		return allocated;
+	}
+	
+	/**
+	 * Gets the total number of bytes allocated on the heap by the current thread.
+	 * @return The number of bytes allocated by the current thread, or -1 if the
+	 *         JVM does not support measuring allocations per thread.
+	 */
+	private static long getAllocatedBytes(){
+		if(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemoryEnabled()){
+			return bean.getCurrentThreadAllocatedBytes();
+		}else{
+			return -1L;
+		}
+	}
+	
+	/**
+	 * Checks if the given query should be evaluated with the automaton based evaluator
+	 * instead of bottom up. This is the case for regular path queries with a bound source
+	 * and/or target that contain a transitive closure, as for these queries a search from
+	 * the bound vertex avoids materialising the intermediate results for the complete
+	 * database graph. Queries with neither end bound are always evaluated bottom up, as
+	 * the automaton would have to be evaluated from every vertex in the database graph.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The path query tree (AST) to evaluate.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return True if the query should be evaluated with the automaton based evaluator.
+	 * @see AutomatonQueryEvaluator
+	 */
+	private static boolean isAutomatonQuery(int source, QueryTree path, int target){
+		if(source == UNBOUND && target == UNBOUND){
+			return false;
+		}
+		
+		return AutomatonQueryEvaluator.isSupported(path) && path.stream().anyMatch(node->node.getOperation() == OperationType.KLEENE);
+	}
+	
 	/**
-	 * Evaluates the given query tree (AST) bottom up.
+	 * Evaluates the given query tree (AST) bottom up. If caching is enabled, then
+	 * the result is first looked up in the cache, unless the query tree is a leaf.
 	 * @param source The ID of the bound source vertex, or -1 if unbound.
 	 * @param path The path query tree (AST) to evaluate.
 	 * @param target The ID of the bound target vertex, or -1 if unbound.
 	 * @return The result of evaluating the given query tree.
 	 * @see QueryTree
+	 * @see QueryCache
 	 */
 	private ResultGraph evaluate(int source, QueryTree path, int target){
+		return evaluate(source, path, target, UNLIMITED);
+	}
+	
+	/**
+	 * Evaluates the given query tree (AST) bottom up, stopping early once at least the
+	 * given number of paths has been found where possible. If caching is enabled, then
+	 * the result is first looked up in the cache, unless the query tree is a leaf. Results
+	 * are only added to the cache when they are known to be complete, which is the case
+	 * when they have fewer paths than the given limit.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The path query tree (AST) to evaluate.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @param limit The number of paths after which evaluation can stop.
+	 * @return The result of evaluating the given query tree, this result
+	 *         is complete if it has fewer paths than the given limit.
+	 * @see QueryTree
+	 * @see QueryCache
+	 */
+	private ResultGraph evaluate(int source, QueryTree path, int target, int limit){
+		if(cache == null || path.isLeaf()){
+			return evaluateOperation(source, path, target, limit);
+		}
+		
+		ResultGraph result = cache.get(source, path, target);
+		if(result == null){
+			result = evaluateOperation(source, path, target, limit);
+			if(limit == UNLIMITED || result.getEdgeCount() < limit){
+				cache.put(source, path, target, result);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Evaluates the operation at the root of the given query tree (AST). Only
+	 * concatenations, disjunctions and transitive closures stop early once the
+	 * given number of paths has been found, all other operations are always
+	 * evaluated completely.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The path query tree (AST) to evaluate.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @param limit The number of paths after which evaluation can stop.
+	 * @return The result of evaluating the given query tree, this result
+	 *         is complete if it has fewer paths than the given limit.
+	 * @see #evaluate(int, QueryTree, int, int)
+	 */
+	private ResultGraph evaluateOperation(int source, QueryTree path, int target, int limit){
 		switch(path.getOperation()){
 		case CONCATENATION:
-			return evaluate(source, path.getOperand(FIRST), UNBOUND).join(evaluate(UNBOUND, path.getOperand(SECOND), target));
+			return planConcatenation(source, path, target, limit);
 		case DISJUNCTION:
-			return evaluate(source, path.getOperand(FIRST), target).union(evaluate(source, path.getOperand(SECOND), target));
+			ResultGraph left = evaluate(source, path.getOperand(FIRST), target, limit);
+			return left.getEdgeCount() >= limit ? left : union(left, evaluate(source, path.getOperand(SECOND), target, limit));
 		case EDGE:
 			return selectEdge(source, path.getEdgeAtom().getLabel(), target);
 		case IDENTITY:
@@ -108,7 +533,7 @@ public class ReachabilityQueryEvaluator{
 		case INTERSECTION:
 			return planIntersection(source, path, target);
 		case KLEENE:
-			return planTransitiveClosure(source, path, target);
+			return planTransitiveClosure(source, path, target, limit);
 		case JOIN:
 			throw new IllegalArgumentException("This evaluator only supports reachability queries.");
 		}
@@ -116,11 +541,102 @@ public class ReachabilityQueryEvaluator{
 		throw new IllegalStateException("Unknown database operation.");
 	}
 	
+	/**
+	 * Plans the evaluation of a concatenation operation. If sideways information passing
+	 * is enabled and the source and/or target is bound, then the concatenation is evaluated
+	 * by traversal from the bound vertices if possible. Otherwise, if query planning is enabled,
+	 * then nested concatenations are first flattened into a single chain, after which
+	 * the chain is joined in the order with the lowest estimated cost.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The path query tree (AST) to evaluate.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @param limit The number of paths after which the final join can stop.
+	 * @return The result of evaluating the given query tree, this result
+	 *         is complete if it has fewer paths than the given limit.
+	 * @see OperationType#CONCATENATION
+	 * @see QueryPlanner#planJoinOrder(int, List, int)
+	 * @see #traverseConcatenation(int, QueryTree, int)
+	 */
+	private ResultGraph planConcatenation(int source, QueryTree path, int target, int limit){
+		if(sideways && (source != UNBOUND || target != UNBOUND) && isTraversable(path)){
+			return traverseConcatenation(source, path, target);
+		}
+		
+		if(planning){
+			List<QueryTree> chain = QueryPlanner.flatten(path, OperationType.CONCATENATION);
+			if(chain.size() > 2){
+				return evaluateChain(source, planner.planJoinOrder(source, chain, target), 0, chain.size() - 1, target, limit);
+			}
+		}
+		
+		return join(evaluate(source, path.getOperand(FIRST), UNBOUND), evaluate(UNBOUND, path.getOperand(SECOND), target), limit);
+	}
+	
+	/**
+	 * Evaluates a concatenation operation with a bound source and/or target by
+	 * exploring the database graph from the bound vertices, instead of materialising
+	 * the results of the operands. Each operand is only evaluated for the vertices
+	 * reached by the previous operand. If both the source and the target are bound,
+	 * then the traversal starts from the end with the lowest estimated number of
+	 * paths, after which the result is checked to contain the other end.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The concatenation query tree (AST) to evaluate.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return The result of evaluating the given query tree.
+	 * @see #isTraversable(QueryTree)
+	 * @see #selectTargets(int[], QueryTree, boolean)
+	 */
+	private ResultGraph traverseConcatenation(int source, QueryTree path, int target){
+		final int vertexCount = graph.getVertexCount();
+		if(target == UNBOUND){
+			int[] targets = selectTargets(new int[]{source}, path, false);
+			return targets.length == 0 ? ResultGraph.empty(vertexCount) : ResultGraph.single(vertexCount, source, true, targets);
+		}else if(source == UNBOUND){
+			return ResultGraph.singleTarget(vertexCount, selectTargets(new int[]{target}, path, true), target);
+		}
+		
+		boolean found;
+		if(planner.estimate(source, path, UNBOUND).paths() <= planner.estimate(UNBOUND, path, target).paths()){
+			found = Arrays.binarySearch(selectTargets(new int[]{source}, path, false), target) >= 0;
+		}else{
+			found = Arrays.binarySearch(selectTargets(new int[]{target}, path, true), source) >= 0;
+		}
+		
+		return found ? ResultGraph.single(vertexCount, source, target) : ResultGraph.empty(vertexCount);
+	}
+	
+	/**
+	 * Evaluates the sub chain between the given indices of a chain of concatenated
+	 * query trees in the given join order.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param order The join order for the chain.
+	 * @param from The index of the first query tree in the sub chain to evaluate.
+	 * @param to The index of the last query tree in the sub chain to evaluate.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @param limit The number of paths after which evaluation of the sub chain can stop.
+	 * @return The result of evaluating the concatenation of the sub chain, this
+	 *         result is complete if it has fewer paths than the given limit.
+	 */
+	private ResultGraph evaluateChain(int source, JoinOrder order, int from, int to, int target, int limit){
+		if(from == to){
+			return evaluate(source, order.chain().get(from), target, limit);
+		}
+		
+		final int split = order.getSplit(from, to);
+		return join(evaluateChain(source, order, from, split, UNBOUND, UNLIMITED), evaluateChain(UNBOUND, order, split + 1, to, target, UNLIMITED), limit);
+	}
+	
 	/**
 	 * Plans the evaluation of an intersection operation. Notably triggers
 	 * special handling for intersection with identity, where evaluation of
 	 * the intersection operation is skipped and instead all vertices with
-	 * self loops are selected from the input graph.
+	 * self loops are selected from the input graph. If query planning is
+	 * enabled, then nested intersections are first flattened into a single
+	 * list of operands that is evaluated starting with the operand with the
+	 * smallest estimated result size. Evaluation stops early when the
+	 * intersection of the operands evaluated so far is empty. Intersections that
+	 * form a cycle in the query graph of a conjunctive path query are instead
+	 * evaluated completely using a worst-case optimal join, if enabled.
 	 * @param source The ID of the bound source vertex, or -1 if unbound.
 	 * @param path The path query tree (AST) to evaluate.
 	 * @param target The ID of the bound target vertex, or -1 if unbound.
@@ -129,36 +645,477 @@ public class ReachabilityQueryEvaluator{
 	 * @see OperationType#INTERSECTION
 	 * @see ResultGraph#selectIdentity()
 	 * @see ResultGraph#intersection(ResultGraph)
+	 * @see QueryPlanner#planIntersectionOrder(int, List, int)
+	 * @see LeapfrogQueryEvaluator
 	 */
 	private ResultGraph planIntersection(int source, QueryTree path, int target){
-		if(path.getOperand(FIRST).getOperation() == OperationType.IDENTITY){
-			return evaluate(source, path.getOperand(SECOND), target).selectIdentity();
-		}else if(path.getOperand(SECOND).getOperation() == OperationType.IDENTITY){
-			return evaluate(source, path.getOperand(FIRST), target).selectIdentity();
-		}else{
-			return evaluate(source, path.getOperand(FIRST), target).intersection(evaluate(source, path.getOperand(SECOND), target));
+		if(leapfrogJoins && LeapfrogQueryEvaluator.isSupported(path) && LeapfrogQueryEvaluator.isCyclic(path)){
+			return leapfrog.evaluate(source, path, target);
+		}
+		
+		List<QueryTree> operands = planning ? QueryPlanner.flatten(path, OperationType.INTERSECTION) : new ArrayList<QueryTree>(List.of(path.getOperand(FIRST), path.getOperand(SECOND)));
+		boolean identity = operands.removeIf(operand->operand.getOperation() == OperationType.IDENTITY);
+		if(operands.isEmpty()){
+			return selectIdentity(source, target);
+		}else if(planning && operands.size() > 1){
+			operands = planner.planIntersectionOrder(source, operands, target);
 		}
+		
+		ResultGraph result = evaluate(source, operands.get(0), target);
+		if(identity){
+			result = result.selectIdentity(contexts.get());
+		}
+		
+		for(int i = 1; i < operands.size() && result.getEdgeCount() != 0; i++){
+			result = intersection(result, evaluate(source, operands.get(i), target));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Computes the join of the given left and right result graph,
+	 * in parallel if the inputs are large enough.
+	 * @param left The left input graph.
+	 * @param right The right input graph.
+	 * @return The join of the given input graphs.
+	 * @see ResultGraph#join(ResultGraph)
+	 */
+	private ResultGraph join(ResultGraph left, ResultGraph right){
+		return join(left, right, UNLIMITED);
+	}
+	
+	/**
+	 * Computes the join of the given left and right result graph, in parallel
+	 * if the inputs are large enough. When evaluated sequentially the join stops
+	 * early once at least the given number of paths has been found.
+	 * @param left The left input graph.
+	 * @param right The right input graph.
+	 * @param limit The number of paths after which the join can stop.
+	 * @return The join of the given input graphs, this result is
+	 *         complete if it has fewer paths than the given limit.
+	 * @see ResultGraph#join(ResultGraph, EvaluationContext, int)
+	 */
+	private ResultGraph join(ResultGraph left, ResultGraph right, int limit){
+		return isParallel(left, right) ? left.join(right, pool) : left.join(right, contexts.get(), limit);
+	}
+	
+	/**
+	 * Computes the union of the given left and right result graph,
+	 * in parallel if the inputs are large enough.
+	 * @param left The left input graph.
+	 * @param right The right input graph.
+	 * @return The union of the given input graphs.
+	 * @see ResultGraph#union(ResultGraph)
+	 */
+	private ResultGraph union(ResultGraph left, ResultGraph right){
+		return isParallel(left, right) ? left.union(right, pool) : left.union(right, contexts.get());
+	}
+	
+	/**
+	 * Computes the intersection of the given left and right result graph,
+	 * in parallel if the inputs are large enough.
+	 * @param left The left input graph.
+	 * @param right The right input graph.
+	 * @return The intersection of the given input graphs.
+	 * @see ResultGraph#intersection(ResultGraph)
+	 */
+	private ResultGraph intersection(ResultGraph left, ResultGraph right){
+		return isParallel(left, right) ? left.intersection(right, pool) : left.intersection(right, contexts.get());
+	}
+	
+	/**
+	 * Checks if an operation on the given input graphs should be evaluated in parallel.
+	 * @param left The left input graph.
+	 * @param right The right input graph.
+	 * @return True if parallel evaluation is enabled and the inputs are large enough.
+	 */
+	private boolean isParallel(ResultGraph left, ResultGraph right){
+		return pool != null && (long)left.getEdgeCount() + right.getEdgeCount() >= parallelThreshold;
 	}
 	
 	/**
 	 * Plans the evaluation of a transitive closure operation. This planner
 	 * selected an appropriate transitive closure implementation depending
-	 * on whether the source and/or target vertices are bound or not.
+	 * on whether the source and/or target vertices are bound or not. If
+	 * neither is bound then for sufficiently large input graphs the strongly
+	 * connected components of the input graph are condensed first. If this
+	 * significantly reduces the size of the graph, the closure is computed
+	 * on the condensed graph, otherwise the multi-source closure algorithm
+	 * is used on the input graph. If the source and/or target is bound and the
+	 * input query can be evaluated by traversal, then the input graph is never
+	 * materialised and instead only explored from the bound vertices. Otherwise,
+	 * if both the source and target are bound, then for sufficiently large input
+	 * graphs a bidirectional search is used.
 	 * @param source The ID of the bound source vertex, or -1 if unbound.
 	 * @param path The path query tree (AST) to evaluate.
 	 * @param target The ID of the bound target vertex, or -1 if unbound.
-	 * @return The result of evaluating the given query tree.
+	 * @param limit The number of paths after which the closure can stop.
+	 * @return The result of evaluating the given query tree, this result
+	 *         is complete if it has fewer paths than the given limit.
 	 * @see OperationType#KLEENE
 	 * @see ResultGraph#transitiveClosure()
+	 * @see ResultGraph#transitiveClosureMultiSource()
+	 * @see ResultGraph#transitiveClosureBidirectional(int, int)
+	 * @see ReachabilityIndex
+	 * @see #traverseTransitiveClosure(int, QueryTree, int)
 	 */
-	private ResultGraph planTransitiveClosure(int source, QueryTree path, int target){
+	private ResultGraph planTransitiveClosure(int source, QueryTree path, int target, int limit){
+		if((source != UNBOUND || target != UNBOUND) && isTraversable(path.getOperand(FIRST))){
+			return traverseTransitiveClosure(source, path.getOperand(FIRST), target);
+		}
+		
 		ResultGraph base = evaluate(UNBOUND, path.getOperand(FIRST), UNBOUND);
+		EvaluationContext context = contexts.get();
 		
 		if(source == UNBOUND){
-			return target == UNBOUND ? base.transitiveClosure() : base.transitiveClosureTo(target);
+			if(target == UNBOUND){
+				if(base.getEdgeCount() < MULTI_SOURCE_CLOSURE_THRESHOLD){
+					return base.transitiveClosure(context, limit);
+				}
+				
+				ReachabilityIndex index = new ReachabilityIndex(base);
+				if(index.getCondensedEdgeCount() <= ((long)base.getEdgeCount() * CONDENSATION_THRESHOLD) / 4){
+					return index.getTransitiveClosure();
+				}else{
+					return base.transitiveClosureMultiSource(context, limit);
+				}
+			}else{
+				return base.transitiveClosureTo(target, context, limit);
+			}
 		}else{
-			return target == UNBOUND ? base.transitiveClosureFrom(source) : base.transitiveClosure(source, target);
+			if(target == UNBOUND){
+				return base.transitiveClosureFrom(source, context, limit);
+			}else if(base.getEdgeCount() < BIDIRECTIONAL_CLOSURE_THRESHOLD){
+				return base.transitiveClosure(source, target, context);
+			}else{
+				return base.transitiveClosureBidirectional(source, target, context);
+			}
+		}
+	}
+	
+	/**
+	 * Evaluates a transitive closure operation with a bound source and/or target
+	 * by exploring the database graph from the bound vertices, instead of first
+	 * materialising the complete input graph of the closure. Each step of the
+	 * exploration evaluates the input query only for the vertices in the current
+	 * frontier. If both the source and the target are bound, then a bidirectional
+	 * search is performed where the smallest of the two frontiers is expanded in
+	 * each step, until the two searches meet.
+	 * @param source The ID of the bound source vertex, or -1 if unbound.
+	 * @param path The input query tree (AST) for the transitive closure.
+	 * @param target The ID of the bound target vertex, or -1 if unbound.
+	 * @return The result of evaluating the transitive closure of the given query tree.
+	 * @see #isTraversable(QueryTree)
+	 * @see #selectTargets(int[], QueryTree, boolean)
+	 */
+	private ResultGraph traverseTransitiveClosure(int source, QueryTree path, int target){
+		final int vertexCount = graph.getVertexCount();
+		if(target == UNBOUND){
+			int[] targets = reachable(new int[]{source}, path, false);
+			return targets.length == 0 ? ResultGraph.empty(vertexCount) : ResultGraph.single(vertexCount, source, true, targets);
+		}else if(source == UNBOUND){
+			return ResultGraph.singleTarget(vertexCount, reachable(new int[]{target}, path, true), target);
+		}
+		
+		BitSet forward = new BitSet(vertexCount);
+		BitSet backward = new BitSet(vertexCount);
+		int[] forwardFrontier = new int[]{source};
+		int[] backwardFrontier = new int[]{target};
+		while(forwardFrontier.length != 0 && backwardFrontier.length != 0){
+			if(forwardFrontier.length <= backwardFrontier.length){
+				int[] next = selectTargets(forwardFrontier, path, false);
+				for(int vertex : next){
+					if(vertex == target || backward.get(vertex)){
+						return ResultGraph.single(vertexCount, source, target);
+					}
+				}
+				
+				forwardFrontier = unseen(next, forward);
+			}else{
+				int[] next = selectTargets(backwardFrontier, path, true);
+				for(int vertex : next){
+					if(vertex == source || forward.get(vertex)){
+						return ResultGraph.single(vertexCount, source, target);
+					}
+				}
+				
+				backwardFrontier = unseen(next, backward);
+			}
+		}
+		
+		return ResultGraph.empty(vertexCount);
+	}
+	
+	/**
+	 * Computes all the vertices that can be reached from any of the given source
+	 * vertices by following one or more paths matched by the given query tree.
+	 * The database graph is explored breadth first, with the given query only
+	 * being evaluated for the vertices in the frontier of the search.
+	 * @param sources The sorted IDs of the vertices to start from.
+	 * @param path The query tree (AST) paths have to match.
+	 * @param inverse True to follow paths in reverse, from target to source.
+	 * @return The sorted IDs of all reachable vertices.
+	 * @see #selectTargets(int[], QueryTree, boolean)
+	 */
+	private int[] reachable(int[] sources, QueryTree path, boolean inverse){
+		BitSet seen = new BitSet(graph.getVertexCount());
+		
+		int[] frontier = sources;
+		while(frontier.length != 0){
+			frontier = unseen(selectTargets(frontier, path, inverse), seen);
+		}
+		
+		return seen.stream().toArray();
+	}
+	
+	/**
+	 * Selects all vertices that can be reached from any of the given source vertices
+	 * by following a single path matched by the given query tree. Only query trees
+	 * that are {@link #isTraversable(QueryTree) traversable} can be evaluated this way.
+	 * @param sources The sorted IDs of the vertices to start from.
+	 * @param path The query tree (AST) paths have to match.
+	 * @param inverse True to follow paths in reverse, from target to source.
+	 * @return The sorted IDs of all vertices reached, without duplicates.
+	 * @throws IllegalArgumentException When the query tree contains an operation
+	 *         that cannot be evaluated by traversal.
+	 * @see #isTraversable(QueryTree)
+	 * @see DatabaseGraph#selectTargets(int[], Predicate)
+	 */
+	private int[] selectTargets(int[] sources, QueryTree path, boolean inverse) throws IllegalArgumentException{
+		switch(path.getOperation()){
+		case CONCATENATION:
+			int[] mid = selectTargets(sources, path.getOperand(inverse ? SECOND : FIRST), inverse);
+			return mid.length == 0 ? mid : selectTargets(mid, path.getOperand(inverse ? FIRST : SECOND), inverse);
+		case DISJUNCTION:
+			return merge(selectTargets(sources, path.getOperand(FIRST), inverse), selectTargets(sources, path.getOperand(SECOND), inverse));
+		case EDGE:
+			Predicate label = path.getEdgeAtom().getLabel();
+			return graph.selectTargets(sources, inverse ? label.getInverse() : label);
+		case IDENTITY:
+			return sources;
+		case KLEENE:
+			return reachable(sources, path.getOperand(FIRST), inverse);
+		case INTERSECTION:
+			return union(selectTargetLists(sources, path, inverse));
+		case JOIN:
+			throw new IllegalArgumentException("Join cannot be evaluated by traversal.");
 		}
+		
+		throw new IllegalStateException("Unknown database operation.");
+	}
+	
+	/**
+	 * Selects for each of the given source vertices separately all vertices that can be
+	 * reached from that source vertex by following a single path matched by the given
+	 * query tree. Unlike {@link #selectTargets(int[], QueryTree, boolean)}, this keeps
+	 * track of which source vertex each vertex was reached from, which is required to
+	 * evaluate intersections by traversal. Operands of an intersection are only evaluated
+	 * for the source vertices that still have targets left after the previous operands.
+	 * @param sources The sorted IDs of the vertices to start from.
+	 * @param path The query tree (AST) paths have to match.
+	 * @param inverse True to follow paths in reverse, from target to source.
+	 * @return For each given source vertex, at the same index, the sorted IDs of
+	 *         all vertices reached from that source vertex, without duplicates.
+	 * @throws IllegalArgumentException When the query tree contains a join operation.
+	 * @see #isTraversable(QueryTree)
+	 * @see DatabaseGraph#selectTargetLists(int[], Predicate)
+	 */
+	private int[][] selectTargetLists(int[] sources, QueryTree path, boolean inverse) throws IllegalArgumentException{
+		int[][] rows = new int[sources.length][];
+		switch(path.getOperation()){
+		case CONCATENATION:
+			int[][] left = selectTargetLists(sources, path.getOperand(inverse ? SECOND : FIRST), inverse);
+			int[] mid = union(left);
+			int[][] right = selectTargetLists(mid, path.getOperand(inverse ? FIRST : SECOND), inverse);
+			for(int i = 0; i < sources.length; i++){
+				int[][] reached = new int[left[i].length][];
+				for(int j = 0; j < reached.length; j++){
+					reached[j] = right[Arrays.binarySearch(mid, left[i][j])];
+				}
+				
+				rows[i] = reached.length == 1 ? reached[0] : union(reached);
+			}
+			
+			return rows;
+		case DISJUNCTION:
+			int[][] first = selectTargetLists(sources, path.getOperand(FIRST), inverse);
+			int[][] second = selectTargetLists(sources, path.getOperand(SECOND), inverse);
+			for(int i = 0; i < sources.length; i++){
+				rows[i] = merge(first[i], second[i]);
+			}
+			
+			return rows;
+		case EDGE:
+			Predicate label = path.getEdgeAtom().getLabel();
+			return graph.selectTargetLists(sources, inverse ? label.getInverse() : label);
+		case IDENTITY:
+			for(int i = 0; i < sources.length; i++){
+				rows[i] = new int[]{sources[i]};
+			}
+			
+			return rows;
+		case KLEENE:
+			for(int i = 0; i < sources.length; i++){
+				rows[i] = reachable(new int[]{sources[i]}, path.getOperand(FIRST), inverse);
+			}
+			
+			return rows;
+		case INTERSECTION:
+			List<QueryTree> operands = QueryPlanner.flatten(path, OperationType.INTERSECTION);
+			boolean identity = operands.removeIf(operand->operand.getOperation() == OperationType.IDENTITY);
+			if(operands.isEmpty()){
+				for(int i = 0; i < sources.length; i++){
+					rows[i] = new int[]{sources[i]};
+				}
+				
+				return rows;
+			}
+			
+			rows = selectTargetLists(sources, operands.get(0), inverse);
+			if(identity){
+				for(int i = 0; i < sources.length; i++){
+					rows[i] = Arrays.binarySearch(rows[i], sources[i]) >= 0 ? new int[]{sources[i]} : new int[0];
+				}
+			}
+			
+			for(int op = 1; op < operands.size(); op++){
+				int[] active = new int[sources.length];
+				int size = 0;
+				for(int i = 0; i < sources.length; i++){
+					if(rows[i].length != 0){
+						active[size++] = i;
+					}
+				}
+				
+				if(size == 0){
+					break;
+				}
+				
+				int[] activeSources = new int[size];
+				for(int i = 0; i < size; i++){
+					activeSources[i] = sources[active[i]];
+				}
+				
+				int[][] other = selectTargetLists(activeSources, operands.get(op), inverse);
+				for(int i = 0; i < size; i++){
+					rows[active[i]] = intersect(rows[active[i]], other[i]);
+				}
+			}
+			
+			return rows;
+		case JOIN:
+			throw new IllegalArgumentException("Join cannot be evaluated by traversal.");
+		}
+		
+		throw new IllegalStateException("Unknown database operation.");
+	}
+	
+	/**
+	 * Checks if the given query tree can be evaluated by traversal from a set
+	 * of vertices, this is the case if it does not contain any join operations.
+	 * Intersections can only be evaluated by traversal if sideways information
+	 * passing is enabled.
+	 * @param path The query tree (AST) to check.
+	 * @return True if the given query tree can be evaluated by traversal.
+	 * @see #selectTargets(int[], QueryTree, boolean)
+	 * @see #setSidewaysInformationPassing(boolean)
+	 */
+	private boolean isTraversable(QueryTree path){
+		return path.stream().map(QueryTree::getOperation).noneMatch(op->op == OperationType.JOIN || (op == OperationType.INTERSECTION && !sideways));
+	}
+	
+	/**
+	 * Filters the given vertices to only the vertices that were not seen before and
+	 * then marks all the returned vertices as seen.
+	 * @param vertices The vertices to filter.
+	 * @param seen The set of vertices seen so far, updated with the given vertices.
+	 * @return The vertices from the given list that were not seen before.
+	 */
+	private static int[] unseen(int[] vertices, BitSet seen){
+		int[] next = new int[vertices.length];
+		int size = 0;
+		for(int vertex : vertices){
+			if(!seen.get(vertex)){
+				seen.set(vertex);
+				next[size++] = vertex;
+			}
+		}
+		
+		return Arrays.copyOf(next, size);
+	}
+	
+	/**
+	 * Computes the union of the given lists of vertices.
+	 * @param lists The lists of vertices to combine.
+	 * @return The sorted union of all the given lists without duplicates.
+	 */
+	private static int[] union(int[][] lists){
+		int total = 0;
+		for(int[] list : lists){
+			total += list.length;
+		}
+		
+		int[] all = new int[total];
+		int offset = 0;
+		for(int[] list : lists){
+			System.arraycopy(list, 0, all, offset, list.length);
+			offset += list.length;
+		}
+		
+		Arrays.sort(all);
+		int unique = 0;
+		for(int i = 0; i < total; i++){
+			if(unique == 0 || all[unique - 1] != all[i]){
+				all[unique++] = all[i];
+			}
+		}
+		
+		return Arrays.copyOf(all, unique);
+	}
+	
+	/**
+	 * Intersects the given two sorted lists of vertices.
+	 * @param left The first sorted list of vertices without duplicates.
+	 * @param right The second sorted list of vertices without duplicates.
+	 * @return The sorted intersection of the given two lists.
+	 */
+	private static int[] intersect(int[] left, int[] right){
+		int[] out = new int[Math.min(left.length, right.length)];
+		return Arrays.copyOf(out, Util.intersect(left, 0, left.length, right, 0, right.length, out, 0));
+	}
+	
+	/**
+	 * Merges the given two sorted lists of vertices into a single sorted list.
+	 * @param left The first sorted list of vertices without duplicates.
+	 * @param right The second sorted list of vertices without duplicates.
+	 * @return The sorted union of the given two lists without duplicates.
+	 */
+	private static int[] merge(int[] left, int[] right){
+		int[] out = new int[left.length + right.length];
+		int li = 0;
+		int ri = 0;
+		int size = 0;
+		while(li < left.length && ri < right.length){
+			if(left[li] < right[ri]){
+				out[size++] = left[li++];
+			}else if(left[li] > right[ri]){
+				out[size++] = right[ri++];
+			}else{
+				out[size++] = left[li++];
+				ri++;
+			}
+		}
+		
+		while(li < left.length){
+			out[size++] = left[li++];
+		}
+		
+		while(ri < right.length){
+			out[size++] = right[ri++];
+		}
+		
+		return Arrays.copyOf(out, size);
 	}
 	
 	/**
@@ -183,16 +1140,23 @@ public class ReachabilityQueryEvaluator{
 	
 	/**
 	 * Selects all edges with the given predicate from the database graph (i.e., length one paths).
+	 * If label partitioning is enabled for this evaluator, selections without a bound source and
+	 * target read from the label partitioned layout, which is built on the first such selection.
 	 * @param source The ID of the bound source vertex, or -1 if unbound.
 	 * @param label The label of the edges to selected (predicate).
 	 * @param target The ID of the bound target vertex, or -1 if unbound.
 	 * @return The result of selecting all edge with the requested label from the database graph.
 	 * @see OperationType#EDGE
 	 * @see DatabaseGraph#selectLabel(Predicate)
+	 * @see #setLabelPartitioning(boolean)
 	 */
 	private ResultGraph selectEdge(int source, Predicate label, int target){
 		if(source == UNBOUND){
-			return target == UNBOUND ? graph.selectLabel(label) : graph.selectLabel(label, target);
+			if(target == UNBOUND){
+				return labelPartitioning ? graph.selectLabelPartitioned(label) : graph.selectLabel(label);
+			}else{
+				return graph.selectLabel(label, target);
+			}
 		}else{
 			return target == UNBOUND ? graph.selectLabel(source, label) : graph.selectLabel(source, label, target);
 		}
@@ -205,4 +1169,98 @@ public class ReachabilityQueryEvaluator{
 	public List<Predicate> getLabels(){
 		return graph.getLabels();
 	}
+	
+	/**
+	 * Iterator that lazily evaluates a query tree (AST) for batches of source vertices.
+	 * @author Roan
+	 * @see ReachabilityQueryEvaluator#iterate(PathQuery)
+	 */
+	private final class PathIterator implements Iterator<SourceTargetPair>{
+		/**
+		 * The query tree (AST) being evaluated.
+		 */
+		private final QueryTree path;
+		/**
+		 * The next source vertex to evaluate the query tree for
+		 * once all paths in the current batch have been returned.
+		 */
+		private int nextSource;
+		/**
+		 * The sorted source vertices in the current batch.
+		 */
+		private int[] sources = new int[0];
+		/**
+		 * For each source vertex in the current batch, at the
+		 * same index, the sorted targets reached from that vertex.
+		 */
+		private int[][] rows = new int[0][];
+		/**
+		 * The index of the current source vertex in the current batch.
+		 */
+		private int row = 0;
+		/**
+		 * The index of the next target to return in the current row.
+		 */
+		private int index = 0;
+		
+		/**
+		 * Constructs a new iterator for the given query tree. If the source and/or
+		 * target is bound, then the only batch is evaluated immediately.
+		 * @param source The ID of the bound source vertex, or -1 if unbound.
+		 * @param path The query tree (AST) to evaluate.
+		 * @param target The ID of the bound target vertex, or -1 if unbound.
+		 */
+		private PathIterator(int source, QueryTree path, int target){
+			this.path = path;
+			if(source != UNBOUND){
+				nextSource = graph.getVertexCount();
+				sources = new int[]{source};
+				rows = selectTargetLists(sources, path, false);
+				if(target != UNBOUND){
+					rows[0] = Arrays.binarySearch(rows[0], target) >= 0 ? new int[]{target} : new int[0];
+				}
+			}else if(target != UNBOUND){
+				nextSource = graph.getVertexCount();
+				sources = selectTargets(new int[]{target}, path, true);
+				rows = new int[sources.length][];
+				Arrays.fill(rows, new int[]{target});
+			}else{
+				nextSource = 0;
+			}
+		}
+		
+		@Override
+		public boolean hasNext(){
+			while(true){
+				if(row < sources.length){
+					if(index < rows[row].length){
+						return true;
+					}
+					
+					row++;
+					index = 0;
+				}else if(nextSource < graph.getVertexCount()){
+					final int end = Math.min(graph.getVertexCount(), nextSource + PIPELINE_BATCH_SIZE);
+					sources = new int[end - nextSource];
+					for(int i = 0; i < sources.length; i++){
+						sources[i] = nextSource++;
+					}
+					
+					rows = selectTargetLists(sources, path, false);
+					row = 0;
+				}else{
+					return false;
+				}
+			}
+		}
+		
+		@Override
+		public SourceTargetPair next() throws NoSuchElementException{
+			if(!hasNext()){
+				throw new NoSuchElementException();
+			}
+			
+			return new SourceTargetPair(sources[row], rows[row][index++]);
+		}
+	}
 }
@@ -18,17 +18,17 @@
  */
 package dev.roanh.gmark.eval;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.BitSet;
-import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.IntStream;
 
 import dev.roanh.gmark.data.CardStat;
 import dev.roanh.gmark.data.SourceTargetPair;
 import dev.roanh.gmark.util.RangeBitSet;
+import dev.roanh.gmark.util.Util;
 
 /**
  * Result graph describing the result of a database operation
@@ -40,6 +40,13 @@ import dev.roanh.gmark.util.RangeBitSet;
  * <p>
  * The concrete implementation in this class is based on a compressed sparse row matrix (CSR).
  * In addition a result graph may be sorted (meaning its target vertex ranges are sorted).
+ * Source vertices with a large number of targets relative to the number of vertices in the
+ * graph are instead stored as a bitmap with one bit per vertex, these dense rows are selected
+ * automatically when a row is written and allow the union, intersection and join operations
+ * to combine them a machine word at a time. Result graphs with only a few source vertices,
+ * such as the results of queries with a bound source or target, instead only store an index
+ * entry for their non-empty source vertices, such that operations on these graphs take time
+ * proportional to the size of the result rather than the number of vertices in the graph.
  * <p>
  * Finally, note that this graph does not perform any input validations for performance reasons
  * (unless assertions are enabled in the JVM). Notably, operations on this class are only well
@@ -54,6 +61,18 @@ public class ResultGraph{
 	 * Factor used to allocate more space for the CSR if there is insufficient capacity.
 	 */
 	private static final int RESIZE_FACTOR = 3;
+	/**
+	 * The number of partitions created per available thread when evaluating
+	 * an operation in parallel.
+	 * @see #partitioned(ForkJoinPool, int, boolean, PartitionOperation)
+	 */
+	private static final int PARTITION_FACTOR = 4;
+	/**
+	 * The minimum number of targets a source vertex needs to have before
+	 * its targets are considered for storage as a dense bitmap row.
+	 * @see #compress(int, int)
+	 */
+	private static final int DENSE_ROW_THRESHOLD = 64;
 	/**
 	 * The number of vertices in this result graph.
 	 */
@@ -71,6 +90,48 @@ public class ResultGraph{
 	 * next write operation will start at this index.
 	 */
 	private int head;
+	/**
+	 * The dense rows of this graph, if a source vertex has a dense row then the
+	 * bit for each of its target vertices is set in the bitmap at the index of the
+	 * source vertex and its CSR target range is empty. This array is only allocated
+	 * when the first dense row is written and is null otherwise.
+	 * @see #setDenseRow(int, long[], int)
+	 */
+	private long[][] dense = null;
+	/**
+	 * The total number of targets stored in {@link #dense} rows.
+	 */
+	private long denseEdges = 0L;
+	/**
+	 * If this graph only stores an index entry for its non-empty source vertices, the
+	 * sorted list of these source vertices, otherwise null and {@link #csr} starts with
+	 * an index entry for every vertex. If not null, then the targets of the source vertex
+	 * at index <code>i</code> are stored in the CSR between {@code offsets[i]} (inclusive)
+	 * and {@code offsets[i + 1]} (exclusive). Graphs with a source list have no dense rows.
+	 * @see #offsets
+	 * @see #sourceCount
+	 */
+	private int[] sources = null;
+	/**
+	 * The start offsets in the CSR of the target ranges for each vertex in {@link #sources}.
+	 */
+	private int[] offsets = null;
+	/**
+	 * The number of valid source vertices in {@link #sources}.
+	 */
+	private int sourceCount = 0;
+	/**
+	 * The reverse of this graph, computed when it is first required.
+	 * @see #getReverse()
+	 */
+	private ResultGraph reverse = null;
+	/**
+	 * The context the CSR of this graph was taken from while the graph is
+	 * being written, the CSR is returned to this context and replaced by an
+	 * exactly sized copy once the final source vertex has been written.
+	 * @see #endFinalSource()
+	 */
+	private EvaluationContext context = null;
 	
 	/**
 	 * Constructs a new result graph with the given properties.
@@ -91,21 +152,61 @@ public class ResultGraph{
 	}
 	
 	/**
-	 * Constructs a new result graph that is a copy of the given result graph.
-	 * @param base The result graph to copy.
+	 * Constructs a new result graph that writes its data to the output buffer of
+	 * the given context. Once the final source vertex has been written, the data
+	 * is copied to an exactly sized CSR and the buffer is returned to the context.
+	 * @param vertexCount The number of vertices for the result graph.
 	 * @param sizeEstimate The estimated number of edges for the result graph,
-	 *        this will allocated at least enough space for the requested number
-	 *        of edges, but the graph will still grow as required. If the given
-	 *        based graph is larger than the given estimate, the estimate is ignored.
+	 *        the graph will still grow as required.
 	 * @param sorted True if the data that will be stored in this graph is
 	 *        guaranteed to result in a sorted result graph, i.e., this is
 	 *        a promise to this result graph that will make it assume sorted data.
+	 * @param context The context to take the output buffer from.
+	 * @see #endFinalSource()
+	 */
+	private ResultGraph(int vertexCount, int sizeEstimate, boolean sorted, EvaluationContext context){
+		assert vertexCount >= 0;
+		this.vertexCount = vertexCount;
+		this.sorted = sorted;
+		this.context = context;
+		csr = context.takeBuffer(vertexCount + 1 + sizeEstimate);
+		head = vertexCount + 1;
+	}
+	
+	/**
+	 * Constructs a new result graph without a source index. This is only
+	 * used for partial result graphs that maintain their own source index.
+	 * @param vertexCount The number of vertices for the result graph.
+	 * @param sorted True if the data that will be stored in this graph is
+	 *        guaranteed to result in a sorted result graph.
+	 * @param capacity The initial number of targets to allocate space for, at least 1.
+	 * @see Partition
 	 */
-	private ResultGraph(ResultGraph base, int sizeEstimate, boolean sorted){
+	private ResultGraph(int vertexCount, boolean sorted, int capacity){
+		assert vertexCount >= 0 && capacity > 0;
+		this.vertexCount = vertexCount;
 		this.sorted = sorted;
-		vertexCount = base.vertexCount;
-		head = base.head;
-		csr = Arrays.copyOf(base.csr, Math.max(base.csr.length, sizeEstimate));
+		csr = new int[capacity];
+		head = 0;
+	}
+	
+	/**
+	 * Constructs a new result graph that only stores an index entry for
+	 * the source vertices that are written to it.
+	 * @param vertexCount The number of vertices for the result graph.
+	 * @param sourceEstimate The estimated number of source vertices with
+	 *        targets, the graph will still grow as required.
+	 * @param sizeEstimate The estimated number of edges for the result graph,
+	 *        the graph will still grow as required.
+	 * @param sorted True if the data that will be stored in this graph is
+	 *        guaranteed to result in a sorted result graph.
+	 * @see #addSource(int)
+	 * @see #endSources()
+	 */
+	private ResultGraph(int vertexCount, int sourceEstimate, int sizeEstimate, boolean sorted){
+		this(vertexCount, sorted, Math.max(1, sizeEstimate));
+		sources = new int[Math.max(1, sourceEstimate)];
+		offsets = new int[sources.length + 1];
 	}
 	
 	/**
@@ -113,12 +214,7 @@ public class ResultGraph{
 	 * @param vertexCount The vertex count for the result graph.
 	 */
 	private ResultGraph(int vertexCount){
-		assert vertexCount >= 0;
-		this.vertexCount = vertexCount;
-		sorted = true;
-		csr = new int[vertexCount + 1];
-		Arrays.fill(csr, csr.length);
-		head = csr.length;
+		this(vertexCount, 0, 0, true);
 	}
 	
 	/**
@@ -134,18 +230,18 @@ public class ResultGraph{
 	 *        range specified by the from and to parameters.
 	 */
 	private ResultGraph(int vertexCount, int source, boolean sorted, int from, int to, int... targets){
-		assert vertexCount >= 0;
+		this(vertexCount, 1, to - from, sorted);
 		assert 0 <= source && source < vertexCount;
 		assert Arrays.stream(targets, from, to).allMatch(v->0 <= v && v < vertexCount);
 		assert !sorted || IntStream.range(from, to - 1).allMatch(i -> targets[i] <= targets[i + 1]);
 		
-		this.vertexCount = vertexCount;
-		this.sorted = sorted;
-		csr = new int[vertexCount + 1 + to - from];
-		Arrays.fill(csr, 0, source + 1, vertexCount + 1);
-		Arrays.fill(csr, source + 1, vertexCount + 1, csr.length);
-		System.arraycopy(targets, from, csr, vertexCount + 1, to - from);
-		head = csr.length;
+		System.arraycopy(targets, from, csr, 0, to - from);
+		head = to - from;
+		if(head != 0){
+			sources[0] = source;
+			offsets[1] = head;
+			sourceCount = 1;
+		}
 	}
 	
 	/**
@@ -153,7 +249,16 @@ public class ResultGraph{
 	 * @return The number of edges in this result graph.
 	 */
 	public int getEdgeCount(){
-		return csr[vertexCount] - csr[0];
+		return (int)Math.min(Integer.MAX_VALUE, getListEdgeCount() + denseEdges);
+	}
+	
+	/**
+	 * Gets the number of edges in this result graph that are stored in the CSR.
+	 * @return The number of edges in this graph not stored in a dense row.
+	 * @see #getEdgeCount()
+	 */
+	private int getListEdgeCount(){
+		return sources == null ? csr[vertexCount] - csr[0] : offsets[sourceCount];
 	}
 	
 	/**
@@ -176,6 +281,10 @@ public class ResultGraph{
 	 */
 	public void setActiveSource(int source){
 		assert source == 0 || (vertexCount < csr[source - 1] && csr[source - 1] <= head);
+		if(source != 0 && head - csr[source - 1] >= DENSE_ROW_THRESHOLD){
+			compress(source - 1, csr[source - 1]);
+		}
+		
 		csr[source] = head;
 	}
 	
@@ -193,13 +302,240 @@ public class ResultGraph{
 		csr[head++] = target;
 	}
 	
+	/**
+	 * Starts writing targets for the given source vertex in a graph with a source list.
+	 * If no targets were written for the previous source vertex, then that vertex is
+	 * removed from the source list again.
+	 * <p>
+	 * Note: source vertices have to be added in ascending order.
+	 * @param source The new active source vertex.
+	 * @see #sources
+	 * @see #endSources()
+	 */
+	private void addSource(int source){
+		assert sourceCount == 0 || sources[sourceCount - 1] < source;
+		if(sourceCount != 0 && offsets[sourceCount - 1] == head){
+			sourceCount--;
+		}
+		
+		if(sourceCount == sources.length){
+			sources = Arrays.copyOf(sources, RESIZE_FACTOR * sources.length);
+			offsets = Arrays.copyOf(offsets, sources.length + 1);
+		}
+		
+		sources[sourceCount] = source;
+		offsets[sourceCount++] = head;
+	}
+	
+	/**
+	 * Ends target writing for the last source vertex in a graph with a source list.
+	 * @see #addSource(int)
+	 */
+	private void endSources(){
+		if(sourceCount != 0 && offsets[sourceCount - 1] == head){
+			sourceCount--;
+		}
+		
+		offsets[sourceCount] = head;
+	}
+	
+	/**
+	 * Finds the index of the given source vertex in the source list of this graph.
+	 * @param source The source vertex to find.
+	 * @param from The index in the source list to start searching at, all source
+	 *        vertices before this index are assumed to be smaller than the given vertex.
+	 * @return The index of the first source vertex in the source list that is at
+	 *         least the given source vertex, this is the index of the given vertex
+	 *         if it has targets in this graph.
+	 * @see #sources
+	 */
+	private int findSource(int source, int from){
+		return Util.gallop(sources, from, sourceCount, source);
+	}
+	
+	/**
+	 * Adds the union of the two given sorted target ranges as targets to the
+	 * active source vertex. The union is computed by a branch free merge.
+	 * @param left The array containing the first target range.
+	 * @param li The start index of the first target range (inclusive).
+	 * @param le The end index of the first target range (exclusive).
+	 * @param right The array containing the second target range.
+	 * @param ri The start index of the second target range (inclusive).
+	 * @param re The end index of the second target range (exclusive).
+	 * @see #union(ResultGraph, ResultGraph, int, int)
+	 * @see Util#union(int[], int, int, int[], int, int, int[], int)
+	 */
+	private void addUnion(int[] left, int li, int le, int[] right, int ri, int re){
+		ensureCapacity((le - li) + (re - ri));
+		head += Util.union(left, li, le, right, ri, re, csr, head);
+	}
+	
+	/**
+	 * Adds the intersection of the two given sorted target ranges as targets to
+	 * the active source vertex. Depending on the relative size of the two ranges
+	 * the intersection is computed by either a branch free merge or by galloping
+	 * through the larger range.
+	 * @param left The array containing the first target range.
+	 * @param li The start index of the first target range (inclusive).
+	 * @param le The end index of the first target range (exclusive).
+	 * @param right The array containing the second target range.
+	 * @param ri The start index of the second target range (inclusive).
+	 * @param re The end index of the second target range (exclusive).
+	 * @see #intersection(ResultGraph, ResultGraph, int, int)
+	 * @see Util#intersect(int[], int, int, int[], int, int, int[], int)
+	 */
+	private void addIntersection(int[] left, int li, int le, int[] right, int ri, int re){
+		ensureCapacity(Math.min(le - li, re - ri));
+		head += Util.intersect(left, li, le, right, ri, re, csr, head);
+	}
+	
+	/**
+	 * Adds all the targets in the given range as targets to the active source vertex.
+	 * @param data The array containing the targets to add.
+	 * @param from The start index of the targets to add (inclusive).
+	 * @param to The end index of the targets to add (exclusive).
+	 */
+	private void addRange(int[] data, int from, int to){
+		ensureCapacity(to - from);
+		System.arraycopy(data, from, csr, head, to - from);
+		head += to - from;
+	}
+	
+	/**
+	 * Ensures that the CSR has space for at least the given number of additional targets.
+	 * @param count The number of targets that will be written.
+	 */
+	private void ensureCapacity(int count){
+		if(head + count > csr.length){
+			csr = Arrays.copyOf(csr, Math.max(RESIZE_FACTOR * csr.length, head + count));
+		}
+	}
+	
 	/**
 	 * Ends target writing for the final source vertex in the result graph.
 	 * After this method was called no more calls to {@link #setActiveSource(int)}
 	 * and {@link #addTarget(int)} are possible.
 	 */
 	public void endFinalSource(){
+		if(vertexCount != 0){
+			compress(vertexCount - 1, csr[vertexCount - 1]);
+		}
+		
 		csr[vertexCount] = head;
+		if(context != null){
+			final int[] buffer = csr;
+			csr = Arrays.copyOf(buffer, head);
+			context.releaseBuffer(buffer);
+			context = null;
+		}
+	}
+	
+	/**
+	 * Checks if the targets written for the given source vertex are dense enough to
+	 * be stored more compactly as a bitmap and if so moves them from the CSR to a
+	 * dense row. A row is dense if it has at least {@value #DENSE_ROW_THRESHOLD} targets
+	 * and storing it as a bitmap with one bit per vertex takes no more space than
+	 * storing it as a list of targets.
+	 * @param source The source vertex whose targets were just written.
+	 * @param start The index in the CSR where the targets of the source vertex start,
+	 *        the targets end at the current write {@link #head}.
+	 */
+	private void compress(int source, int start){
+		final int count = head - start;
+		if(count >= DENSE_ROW_THRESHOLD && (long)count * Integer.SIZE >= vertexCount){
+			long[] row = new long[getWordCount(vertexCount)];
+			for(int i = start; i < head; i++){
+				row[csr[i] >>> 6] |= 1L << csr[i];
+			}
+			
+			head = start;
+			setDenseRow(source, row, cardinality(row));
+		}
+	}
+	
+	/**
+	 * Sets the targets for the active source vertex to the vertices in the given bitmap.
+	 * If the bitmap is dense enough it is stored directly as a dense row, otherwise
+	 * its targets are written to the CSR in ascending order.
+	 * @param source The active source vertex.
+	 * @param row The bitmap with the targets for the source vertex, no other targets
+	 *        should have been written for the source vertex yet.
+	 * @return True if the given bitmap was stored as a dense row and should thus no
+	 *         longer be modified, false if it can be reused by the caller.
+	 * @see #compress(int, int)
+	 */
+	private boolean addTargets(int source, long[] row){
+		final int count = cardinality(row);
+		if(count >= DENSE_ROW_THRESHOLD && (long)count * Integer.SIZE >= vertexCount){
+			setDenseRow(source, row, count);
+			return true;
+		}
+		
+		for(int i = 0; i < row.length; i++){
+			long bits = row[i];
+			while(bits != 0L){
+				addTarget((i << 6) + Long.numberOfTrailingZeros(bits));
+				bits &= bits - 1;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Stores the given bitmap as the dense row with the targets of the given source vertex.
+	 * @param source The source vertex the row belongs to, this vertex should have no
+	 *        targets in the CSR.
+	 * @param row The bitmap with the targets of the source vertex.
+	 * @param count The number of targets in the given bitmap.
+	 */
+	protected void setDenseRow(int source, long[] row, int count){
+		if(dense == null){
+			dense = new long[vertexCount][];
+		}
+		
+		dense[source] = row;
+		denseEdges += count;
+	}
+	
+	/**
+	 * Gets the dense row for the given source vertex.
+	 * @param source The source vertex to get the dense row for.
+	 * @return The bitmap with the targets of the given source vertex,
+	 *         or null if the source vertex does not have a dense row.
+	 */
+	private long[] getDenseRow(int source){
+		return dense == null ? null : dense[source];
+	}
+	
+	/**
+	 * Constructs a copy of this graph that has an index entry for every vertex
+	 * and stores all its targets in the CSR, including those in dense rows.
+	 * @return A copy of this graph without dense rows or a source list.
+	 */
+	private ResultGraph toPlainCSR(){
+		ResultGraph out = new ResultGraph(vertexCount, getEdgeCount(), sorted);
+		int idx = 0;
+		for(int source = 0; source < vertexCount; source++){
+			out.csr[source] = out.head;
+			
+			final long[] row = getDenseRow(source);
+			if(sources != null){
+				if(idx < sourceCount && sources[idx] == source){
+					out.addRange(csr, offsets[idx], offsets[idx + 1]);
+					idx++;
+				}
+			}else if(row == null){
+				final int size = csr[source + 1] - csr[source];
+				System.arraycopy(csr, csr[source], out.csr, out.head, size);
+				out.head += size;
+			}else{
+				out.head += decode(row, out.csr, out.head);
+			}
+		}
+		
+		out.csr[vertexCount] = out.head;
+		return out;
 	}
 	
 	/**
@@ -208,8 +544,14 @@ public class ResultGraph{
 	 */
 	public void sort(){
 		if(!sorted){
-			for(int source = 0; source < vertexCount; source++){
-				Arrays.sort(csr, csr[source], csr[source + 1]);
+			if(sources == null){
+				for(int source = 0; source < vertexCount; source++){
+					Arrays.sort(csr, csr[source], csr[source + 1]);
+				}
+			}else{
+				for(int i = 0; i < sourceCount; i++){
+					Arrays.sort(csr, offsets[i], offsets[i + 1]);
+				}
 			}
 			
 			sorted = true;
@@ -225,6 +567,58 @@ public class ResultGraph{
 		return sorted;
 	}
 	
+	/**
+	 * Constructs a result graph with at most the given number of paths from this
+	 * result graph. Paths are retained in order of their source vertex and then in
+	 * the order of the target range of each source vertex.
+	 * @param limit The maximum number of paths to retain.
+	 * @return This graph if it has at most the given number of paths, otherwise
+	 *         a new graph with exactly the given number of paths from this graph.
+	 */
+	public ResultGraph limit(int limit){
+		assert limit >= 0;
+		if(getEdgeCount() <= limit){
+			return this;
+		}else if(dense != null){
+			return toPlainCSR().limit(limit);
+		}
+		
+		if(sources != null){
+			ResultGraph out = new ResultGraph(vertexCount, sourceCount, limit, sorted);
+			for(int i = 0; out.head < limit; i++){
+				out.addSource(sources[i]);
+				out.addRange(csr, offsets[i], Math.min(offsets[i + 1], offsets[i] + limit - out.head));
+			}
+			
+			out.endSources();
+			return out;
+		}
+		
+		ResultGraph out = new ResultGraph(vertexCount, limit, sorted);
+		int remaining = limit;
+		for(int source = 0; source < vertexCount; source++){
+			out.csr[source] = out.head;
+			
+			final int size = Math.min(remaining, csr[source + 1] - csr[source]);
+			System.arraycopy(csr, csr[source], out.csr, out.head, size);
+			out.head += size;
+			remaining -= size;
+		}
+		
+		out.csr[vertexCount] = out.head;
+		return out;
+	}
+	
+	/**
+	 * Gets the number of edges written to this result graph so far. Only
+	 * valid while writing a result graph that has a source index.
+	 * @return The number of edges written to this result graph so far.
+	 * @see #setActiveSource(int)
+	 */
+	private long getWrittenEdgeCount(){
+		return head - (vertexCount + 1) + denseEdges;
+	}
+	
 	/**
 	 * Computes the disjunction (or union) of this graph and the given input graph.
 	 * This operation simply added all the paths in both input graphs to the result
@@ -234,50 +628,138 @@ public class ResultGraph{
 	 * Note: behaviour is undefined if the other result graph has a different vertex count.
 	 * @param other The other input graph to compute the union with.
 	 * @return The result graph representing the union of this graph and the input graph.
+	 * @see #union(ResultGraph, EvaluationContext)
 	 */
 	public ResultGraph union(ResultGraph other){
+		return union(other, new EvaluationContext());
+	}
+	
+	/**
+	 * Computes the disjunction (or union) of this graph and the given input graph
+	 * using the given context for scratch space.
+	 * <p>
+	 * Note: behaviour is undefined if the other result graph has a different vertex count.
+	 * @param other The other input graph to compute the union with.
+	 * @param context The context to use for scratch space.
+	 * @return The result graph representing the union of this graph and the input graph.
+	 * @see #union(ResultGraph)
+	 */
+	public ResultGraph union(ResultGraph other, EvaluationContext context){
 		assert vertexCount == other.vertexCount;
 		
+		if(sources != null || other.sources != null){
+			return unionSources(other);
+		}
+		
 		sort();
 		other.sort();
-		ResultGraph out = new ResultGraph(vertexCount, getEdgeCount() + other.getEdgeCount(), true);
+		ResultGraph out = new ResultGraph(vertexCount, getListEdgeCount() + other.getListEdgeCount(), true, context);
+		union(other, out, 0, vertexCount);
+		out.endFinalSource();
+		return out;
+	}
+	
+	/**
+	 * Computes the disjunction (or union) of this graph and the given input graph
+	 * in parallel using the given pool. The source vertex range is split into
+	 * partitions that are each evaluated independently, after which the partial
+	 * results are combined into a single result graph.
+	 * <p>
+	 * Note: behaviour is undefined if the other result graph has a different vertex count.
+	 * @param other The other input graph to compute the union with.
+	 * @param pool The pool to use to evaluate the partitions on.
+	 * @return The result graph representing the union of this graph and the input graph.
+	 * @see #union(ResultGraph)
+	 */
+	public ResultGraph union(ResultGraph other, ForkJoinPool pool){
+		assert vertexCount == other.vertexCount;
+		
+		if(sources != null || other.sources != null){
+			return unionSources(other);
+		}
 		
-		for(int source = 0; source < out.vertexCount; source++){
+		sort();
+		other.sort();
+		return partitioned(pool, getListEdgeCount() + other.getListEdgeCount(), true, (out, from, to)->union(other, out, from, to));
+	}
+	
+	/**
+	 * Computes the disjunction (or union) of this graph and the given input
+	 * graph for all source vertices in the given range. Both this graph and
+	 * the other input graph are required to be sorted. Source vertices with
+	 * a dense row in either input graph are combined into a dense output row.
+	 * @param other The other input graph to compute the union with.
+	 * @param out The result graph to write the union to.
+	 * @param from The first source vertex to compute the union for (inclusive).
+	 * @param to The last source vertex to compute the union for (exclusive).
+	 */
+	private void union(ResultGraph other, ResultGraph out, int from, int to){
+		for(int source = from; source < to; source++){
 			out.setActiveSource(source);
 			
-			int li = csr[source];
+			final int ls = csr[source];
 			final int le = csr[source + 1];
 			
-			int ri = other.csr[source];
+			final int rs = other.csr[source];
 			final int re = other.csr[source + 1];
 			
-			while(li < le && ri < re){
-				final int l = csr[li];
-				final int r = other.csr[ri];
-				
-				if(l == r){
-					out.addTarget(l);
-					li++;
-					ri++;
-				}else if(l < r){
-					out.addTarget(l);
-					li++;
+			final long[] lr = getDenseRow(source);
+			final long[] rr = other.getDenseRow(source);
+			if(lr != null || rr != null){
+				long[] row;
+				if(lr != null && rr != null){
+					row = lr.clone();
+					for(int i = 0; i < row.length; i++){
+						row[i] |= rr[i];
+					}
+				}else if(lr != null){
+					row = lr.clone();
+					set(row, other.csr, rs, re);
 				}else{
-					out.addTarget(r);
-					ri++;
+					row = rr.clone();
+					set(row, csr, ls, le);
 				}
+				
+				out.addTargets(source, row);
+				continue;
 			}
 			
-			while(li < le){
-				out.addTarget(csr[li++]);
-			}
-			
-			while(ri < re){
-				out.addTarget(other.csr[ri++]);
-			}
+			out.addUnion(csr, ls, le, other.csr, rs, re);
+		}
+	}
+	
+	/**
+	 * Computes the disjunction (or union) of this graph and the given input graph
+	 * when at least one of them has a source list. If both graphs have a source
+	 * list, then the result also has a source list and is computed by merging the
+	 * two source lists. Otherwise the result has an index entry for every vertex
+	 * regardless, so the input with a source list is first converted.
+	 * @param other The other input graph to compute the union with.
+	 * @return The result graph representing the union of this graph and the input graph.
+	 * @see #sources
+	 */
+	private ResultGraph unionSources(ResultGraph other){
+		if(sources == null){
+			return union(other.toPlainCSR());
+		}else if(other.sources == null){
+			return toPlainCSR().union(other);
 		}
 		
-		out.endFinalSource();
+		sort();
+		other.sort();
+		ResultGraph out = new ResultGraph(vertexCount, sourceCount + other.sourceCount, getListEdgeCount() + other.getListEdgeCount(), true);
+		int li = 0;
+		int ri = 0;
+		while(li < sourceCount || ri < other.sourceCount){
+			final int l = li < sourceCount ? sources[li] : Integer.MAX_VALUE;
+			final int r = ri < other.sourceCount ? other.sources[ri] : Integer.MAX_VALUE;
+			out.addSource(Math.min(l, r));
+			out.addUnion(csr, offsets[li], l <= r ? offsets[li + 1] : offsets[li], other.csr, other.offsets[ri], r <= l ? other.offsets[ri + 1] : other.offsets[ri]);
+			li += l <= r ? 1 : 0;
+			ri += r <= l ? 1 : 0;
+		}
+		
+		out.endSources();
 		return out;
 	}
 	
@@ -291,87 +773,426 @@ public class ResultGraph{
 	 * Note: behaviour is undefined if the other result graph has a different vertex count.
 	 * @param other The other input graph to compute the intersection with.
 	 * @return The result graph representing the intersection of this graph and the input graph.
+	 * @see #intersection(ResultGraph, EvaluationContext)
 	 */
 	public ResultGraph intersection(ResultGraph other){
+		return intersection(other, new EvaluationContext());
+	}
+	
+	/**
+	 * Computes the intersection of this graph and the given input graph
+	 * using the given context for scratch space.
+	 * <p>
+	 * Note: behaviour is undefined if the other result graph has a different vertex count.
+	 * @param other The other input graph to compute the intersection with.
+	 * @param context The context to use for scratch space.
+	 * @return The result graph representing the intersection of this graph and the input graph.
+	 * @see #intersection(ResultGraph)
+	 */
+	public ResultGraph intersection(ResultGraph other, EvaluationContext context){
 		assert vertexCount == other.vertexCount;
 		
-		sort();
-		other.sort();
-		ResultGraph out = new ResultGraph(vertexCount, Math.min(getEdgeCount(), other.getEdgeCount()), true);
-		
-		for(int source = 0; source < out.vertexCount; source++){
-			out.setActiveSource(source);
-
-			final int ls = csr[source];
-			final int le = csr[source + 1];
-			final int rs = other.csr[source];
-			final int re = other.csr[source + 1];
-			
-			//relatively straight forward sort-merge-intersection
-			if(ls != le && rs != re){
-				int li = ls;
-				int ri = rs;
-				while(li < le && ri < re){
-					final int l = csr[li];
-					final int r = other.csr[ri];
-					
-					if(l == r){
-						out.addTarget(l);
-						li++;
-						ri++;
-					}else if(l < r){
-						li++;
-					}else{
-						ri++;
-					}
-				}
-			}
+		if(sources != null || other.sources != null){
+			return sources != null ? intersectionSources(other) : other.intersectionSources(this);
 		}
 		
+		sort();
+		other.sort();
+		ResultGraph out = new ResultGraph(vertexCount, Math.min(getListEdgeCount(), other.getListEdgeCount()), true, context);
+		intersection(other, out, 0, vertexCount);
 		out.endFinalSource();
 		return out;
 	}
 	
 	/**
-	 * Computes the join of this graph and the given input graph.
-	 * This operation extends the paths in this result graph with
-	 * paths in the given graph if the target vertex of a path in
-	 * this graph is equal to the source vertex of a path in the
-	 * given graph to join with. The implementation prevents
-	 * duplicate paths from ending up in the output, but does not
-	 * guarantee that target lists remain sorted.
+	 * Computes the intersection of this graph and the given input graph in
+	 * parallel using the given pool. The source vertex range is split into
+	 * partitions that are each evaluated independently, after which the partial
+	 * results are combined into a single result graph.
 	 * <p>
 	 * Note: behaviour is undefined if the other result graph has a different vertex count.
-	 * @param right The other input graph to compute the join with.
-	 * @return The result graph representing the join of this graph and the given graph.
+	 * @param other The other input graph to compute the intersection with.
+	 * @param pool The pool to use to evaluate the partitions on.
+	 * @return The result graph representing the intersection of this graph and the input graph.
+	 * @see #intersection(ResultGraph)
 	 */
-	public ResultGraph join(ResultGraph right){
-		assert vertexCount == right.vertexCount;
+	public ResultGraph intersection(ResultGraph other, ForkJoinPool pool){
+		assert vertexCount == other.vertexCount;
 		
-		ResultGraph out = new ResultGraph(vertexCount, getEdgeCount() + right.getEdgeCount(), false);
-		RangeBitSet seen = new RangeBitSet(out.vertexCount);
+		if(sources != null || other.sources != null){
+			return intersection(other);
+		}
 		
-		for(int source = 0; source < vertexCount; source++){
+		sort();
+		other.sort();
+		return partitioned(pool, Math.min(getListEdgeCount(), other.getListEdgeCount()), true, (out, from, to)->intersection(other, out, from, to));
+	}
+	
+	/**
+	 * Computes the intersection of this graph and the given input graph for
+	 * all source vertices in the given range. Both this graph and the other
+	 * input graph are required to be sorted. Source vertices with a dense row
+	 * in both input graphs are intersected a word at a time, while sparse rows
+	 * are probed against dense rows directly.
+	 * @param other The other input graph to compute the intersection with.
+	 * @param out The result graph to write the intersection to.
+	 * @param from The first source vertex to compute the intersection for (inclusive).
+	 * @param to The last source vertex to compute the intersection for (exclusive).
+	 */
+	private void intersection(ResultGraph other, ResultGraph out, int from, int to){
+		for(int source = from; source < to; source++){
 			out.setActiveSource(source);
 			
 			final int ls = csr[source];
 			final int le = csr[source + 1];
-			if(ls != le){
-				seen.rangeClear();
-
-				for(int li = ls; li < le; li++){
-					final int mid = csr[li];
-					final int rs = right.csr[mid];
-					for(int ri = rs; ri < right.csr[mid + 1]; ri++){
-						final int target = right.csr[ri];
-						if(!seen.get(target)){
-							seen.rangeSet(target);
-							out.addTarget(target);
+			final int rs = other.csr[source];
+			final int re = other.csr[source + 1];
+			
+			final long[] lr = getDenseRow(source);
+			final long[] rr = other.getDenseRow(source);
+			if(lr != null && rr != null){
+				long[] row = new long[lr.length];
+				for(int i = 0; i < row.length; i++){
+					row[i] = lr[i] & rr[i];
+				}
+				
+				out.addTargets(source, row);
+			}else if(lr != null){
+				for(int ri = rs; ri < re; ri++){
+					final int target = other.csr[ri];
+					if(get(lr, target)){
+						out.addTarget(target);
+					}
+				}
+			}else if(rr != null){
+				for(int li = ls; li < le; li++){
+					final int target = csr[li];
+					if(get(rr, target)){
+						out.addTarget(target);
+					}
+				}
+			}else if(ls != le && rs != re){
+				out.addIntersection(csr, ls, le, other.csr, rs, re);
+			}
+		}
+	}
+	
+	/**
+	 * Computes the intersection of this graph, which is required to have a source list,
+	 * and the given input graph. Only the source vertices in the source list of this graph
+	 * are visited and the result also has a source list. If the other input graph does not
+	 * have a source list and is not sorted, then only the visited target ranges of that
+	 * graph are sorted.
+	 * @param other The other input graph to compute the intersection with.
+	 * @return The result graph representing the intersection of this graph and the input graph.
+	 * @see #sources
+	 */
+	private ResultGraph intersectionSources(ResultGraph other){
+		sort();
+		if(other.sources != null){
+			other.sort();
+		}
+		
+		ResultGraph out = new ResultGraph(vertexCount, sourceCount, getListEdgeCount(), true);
+		int ri = 0;
+		for(int i = 0; i < sourceCount; i++){
+			final int source = sources[i];
+			final int ls = offsets[i];
+			final int le = offsets[i + 1];
+			out.addSource(source);
+			
+			if(other.sources != null){
+				ri = other.findSource(source, ri);
+				if(ri < other.sourceCount && other.sources[ri] == source){
+					out.addIntersection(csr, ls, le, other.csr, other.offsets[ri], other.offsets[ri + 1]);
+				}
+			}else if(other.getDenseRow(source) != null){
+				final long[] row = other.getDenseRow(source);
+				for(int li = ls; li < le; li++){
+					if(get(row, csr[li])){
+						out.addTarget(csr[li]);
+					}
+				}
+			}else if(other.sorted){
+				out.addIntersection(csr, ls, le, other.csr, other.csr[source], other.csr[source + 1]);
+			}else{
+				final int[] row = Arrays.copyOfRange(other.csr, other.csr[source], other.csr[source + 1]);
+				Arrays.sort(row);
+				out.addIntersection(csr, ls, le, row, 0, row.length);
+			}
+		}
+		
+		out.endSources();
+		return out;
+	}
+	
+	/**
+	 * Computes the join of this graph and the given input graph.
+	 * This operation extends the paths in this result graph with
+	 * paths in the given graph if the target vertex of a path in
+	 * this graph is equal to the source vertex of a path in the
+	 * given graph to join with. The implementation prevents
+	 * duplicate paths from ending up in the output, but does not
+	 * guarantee that target lists remain sorted.
+	 * <p>
+	 * Note: behaviour is undefined if the other result graph has a different vertex count.
+	 * @param right The other input graph to compute the join with.
+	 * @return The result graph representing the join of this graph and the given graph.
+	 * @see #join(ResultGraph, EvaluationContext)
+	 */
+	public ResultGraph join(ResultGraph right){
+		return join(right, new EvaluationContext());
+	}
+	
+	/**
+	 * Computes the join of this graph and the given input graph
+	 * using the given context for scratch space.
+	 * <p>
+	 * Note: behaviour is undefined if the other result graph has a different vertex count.
+	 * @param right The other input graph to compute the join with.
+	 * @param context The context to use for scratch space.
+	 * @return The result graph representing the join of this graph and the given graph.
+	 * @see #join(ResultGraph)
+	 * @see #join(ResultGraph, EvaluationContext, int)
+	 */
+	public ResultGraph join(ResultGraph right, EvaluationContext context){
+		return join(right, context, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Computes the join of this graph and the given input graph using the given
+	 * context for scratch space, stopping early once at least the given number
+	 * of paths has been found. Source vertices are joined in ascending order and
+	 * the targets for a source vertex are always computed completely, as such the
+	 * result may contain more paths than the given limit.
+	 * <p>
+	 * Note: behaviour is undefined if the other result graph has a different vertex count.
+	 * @param right The other input graph to compute the join with.
+	 * @param context The context to use for scratch space.
+	 * @param limit The number of paths after which the join can stop.
+	 * @return The result graph representing the join of this graph and the given graph,
+	 *         this graph is complete if it has fewer paths than the given limit.
+	 * @see #join(ResultGraph, EvaluationContext)
+	 * @see #limit(int)
+	 */
+	public ResultGraph join(ResultGraph right, EvaluationContext context, int limit){
+		assert vertexCount == right.vertexCount;
+		
+		if(sources != null){
+			return joinSources(right, limit);
+		}else if(right.sources != null){
+			return join(right.toPlainCSR(), context, limit);
+		}
+		
+		ResultGraph out = new ResultGraph(vertexCount, getListEdgeCount() + right.getListEdgeCount(), false, context);
+		join(right, out, 0, vertexCount, context, limit);
+		out.endFinalSource();
+		return out;
+	}
+	
+	/**
+	 * Computes the join of this graph and the given input graph in parallel
+	 * using the given pool. The source vertex range is split into partitions
+	 * that are each evaluated independently, after which the partial results
+	 * are combined into a single result graph.
+	 * <p>
+	 * Note: behaviour is undefined if the other result graph has a different vertex count.
+	 * @param right The other input graph to compute the join with.
+	 * @param pool The pool to use to evaluate the partitions on.
+	 * @return The result graph representing the join of this graph and the given graph.
+	 * @see #join(ResultGraph)
+	 */
+	public ResultGraph join(ResultGraph right, ForkJoinPool pool){
+		assert vertexCount == right.vertexCount;
+		
+		if(sources != null || right.sources != null){
+			return join(right);
+		}
+		
+		return partitioned(pool, getListEdgeCount() + right.getListEdgeCount(), false, (out, from, to)->join(right, out, from, to, new EvaluationContext(), Integer.MAX_VALUE));
+	}
+	
+	/**
+	 * Computes the join of this graph and the given input graph
+	 * for all source vertices in the given range. If any of the
+	 * intermediate vertices reached from a source vertex has a
+	 * dense row in the right input graph, then the targets for
+	 * the source vertex are collected in a bitmap such that dense
+	 * rows can be merged a word at a time.
+	 * @param right The other input graph to compute the join with.
+	 * @param out The result graph to write the join to.
+	 * @param from The first source vertex to compute the join for (inclusive).
+	 * @param to The last source vertex to compute the join for (exclusive).
+	 * @param context The context to use for scratch space.
+	 * @param limit The number of paths after which no more targets are computed for
+	 *        the remaining source vertices, only supported when the output graph is not
+	 *        a partition and {@link Integer#MAX_VALUE} otherwise.
+	 */
+	private void join(ResultGraph right, ResultGraph out, int from, int to, EvaluationContext context, int limit){
+		RangeBitSet seen = context.getVisited(0, vertexCount);
+		int[] mids = null;
+		long[] targets = null;
+		
+		for(int source = from; source < to; source++){
+			out.setActiveSource(source);
+			if(out.getWrittenEdgeCount() >= limit){
+				continue;
+			}
+			
+			int[] left = csr;
+			int ls = csr[source];
+			int le = csr[source + 1];
+			
+			final long[] lr = getDenseRow(source);
+			if(lr != null){
+				if(mids == null){
+					mids = context.getInts(0, vertexCount);
+				}
+				
+				left = mids;
+				ls = 0;
+				le = decode(lr, mids, 0);
+			}
+			
+			if(ls != le){
+				if(right.hasDenseRow(left, ls, le)){
+					if(targets == null){
+						targets = new long[getWordCount(vertexCount)];
+					}
+					
+					for(int li = ls; li < le; li++){
+						final int mid = left[li];
+						final long[] rr = right.dense[mid];
+						if(rr != null){
+							for(int i = 0; i < rr.length; i++){
+								targets[i] |= rr[i];
+							}
+						}else{
+							set(targets, right.csr, right.csr[mid], right.csr[mid + 1]);
+						}
+					}
+					
+					if(out.addTargets(source, targets)){
+						targets = null;
+					}else{
+						Arrays.fill(targets, 0L);
+					}
+				}else{
+					seen.rangeClear();
+					
+					for(int li = ls; li < le; li++){
+						final int mid = left[li];
+						final int rs = right.csr[mid];
+						for(int ri = rs; ri < right.csr[mid + 1]; ri++){
+							final int target = right.csr[ri];
+							if(!seen.get(target)){
+								seen.rangeSet(target);
+								out.addTarget(target);
+							}
 						}
 					}
 				}
 			}
 		}
+	}
+	
+	/**
+	 * Computes the join of this graph, which is required to have a source list, and
+	 * the given input graph. Only the source vertices in the source list of this graph
+	 * are visited and the result also has a source list. The targets for each source
+	 * vertex are collected by concatenating the target ranges of all intermediate vertices
+	 * in the right input graph, after which duplicates are removed by sorting, this avoids
+	 * any work proportional to the number of vertices in the graph.
+	 * @param right The other input graph to compute the join with.
+	 * @param limit The number of paths after which no more source vertices are joined.
+	 * @return The result graph representing the join of this graph and the given graph,
+	 *         by construction this result graph will be sorted.
+	 * @see #sources
+	 */
+	private ResultGraph joinSources(ResultGraph right, int limit){
+		ResultGraph out = new ResultGraph(vertexCount, sourceCount, getListEdgeCount() + right.getListEdgeCount(), true);
+		for(int i = 0; i < sourceCount && out.head < limit; i++){
+			out.addSource(sources[i]);
+			final int start = out.head;
+			
+			for(int li = offsets[i]; li < offsets[i + 1]; li++){
+				final int mid = csr[li];
+				if(right.sources != null){
+					final int ri = right.findSource(mid, 0);
+					if(ri < right.sourceCount && right.sources[ri] == mid){
+						out.addRange(right.csr, right.offsets[ri], right.offsets[ri + 1]);
+					}
+				}else if(right.getDenseRow(mid) != null){
+					final long[] row = right.getDenseRow(mid);
+					out.ensureCapacity(cardinality(row));
+					out.head += decode(row, out.csr, out.head);
+				}else{
+					out.addRange(right.csr, right.csr[mid], right.csr[mid + 1]);
+				}
+			}
+			
+			out.head = start + unique(out.csr, start, out.head);
+		}
+		
+		out.endSources();
+		return out;
+	}
+	
+	/**
+	 * Checks if any of the given source vertices has a dense row in this graph.
+	 * @param sources The array containing the source vertices to check.
+	 * @param from The start index in the sources array (inclusive).
+	 * @param to The end index in the sources array (exclusive).
+	 * @return True if at least one of the source vertices has a dense row.
+	 */
+	private boolean hasDenseRow(int[] sources, int from, int to){
+		if(dense != null){
+			for(int i = from; i < to; i++){
+				if(dense[sources[i]] != null){
+					return true;
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Evaluates a database operation in parallel by splitting the source vertex range
+	 * into a number of partitions. Each partition is evaluated independently by the
+	 * given pool, after which the partial results are stitched together into a single
+	 * result graph. The number of partitions is a small multiple of the parallelism of
+	 * the given pool to even out work for skewed graphs.
+	 * @param pool The pool to evaluate the partitions on.
+	 * @param sizeEstimate The estimated number of edges in the result graph.
+	 * @param sorted True if the operation is guaranteed to produce sorted target ranges.
+	 * @param operation The operation to evaluate for each partition.
+	 * @return The result graph containing the combined output of all partitions.
+	 */
+	private ResultGraph partitioned(ForkJoinPool pool, int sizeEstimate, boolean sorted, PartitionOperation operation){
+		final int count = Math.max(1, Math.min(vertexCount, pool.getParallelism() * PARTITION_FACTOR));
+		Partition[] partitions = new Partition[count];
+		ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[count];
+		for(int i = 0; i < count; i++){
+			Partition partition = new Partition(vertexCount, (int)(((long)vertexCount * i) / count), (int)(((long)vertexCount * (i + 1)) / count), sizeEstimate / count, sorted);
+			partitions[i] = partition;
+			tasks[i] = ForkJoinTask.adapt(()->{
+				operation.evaluate(partition, partition.from, partition.to);
+				partition.endLastSource();
+			});
+		}
+		
+		pool.invoke(ForkJoinTask.adapt(()->ForkJoinTask.invokeAll(tasks)));
+		
+		int size = 0;
+		for(Partition partition : partitions){
+			size += partition.getTargetCount();
+		}
+		
+		ResultGraph out = new ResultGraph(vertexCount, size, sorted);
+		for(Partition partition : partitions){
+			partition.writeTo(out);
+		}
 		
 		out.endFinalSource();
 		return out;
@@ -381,21 +1202,54 @@ public class ResultGraph{
 	 * Computes the transitive closure of this graph. Note that the transitive closure
 	 * is the smallest graph that contains the entire input graph and is also transitive.
 	 * @return A new graph representing the transitive closure of this result graph.
+	 * @see #transitiveClosure(EvaluationContext)
 	 */
 	public ResultGraph transitiveClosure(){
-		ResultGraph out = new ResultGraph(this, vertexCount * 2, false);
-		Deque<Integer> stack = new ArrayDeque<Integer>(vertexCount);
-		RangeBitSet seen = new RangeBitSet(vertexCount);
+		return transitiveClosure(new EvaluationContext());
+	}
+	
+	/**
+	 * Computes the transitive closure of this graph using the given context for
+	 * scratch space. Note that the transitive closure is the smallest graph that
+	 * contains the entire input graph and is also transitive.
+	 * @param context The context to use for scratch space.
+	 * @return A new graph representing the transitive closure of this result graph.
+	 * @see #transitiveClosure()
+	 * @see #transitiveClosure(EvaluationContext, int)
+	 */
+	public ResultGraph transitiveClosure(EvaluationContext context){
+		return transitiveClosure(context, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Computes the transitive closure of this graph using the given context for
+	 * scratch space, stopping early once the given number of paths has been found.
+	 * @param context The context to use for scratch space.
+	 * @param limit The number of paths after which the closure can stop.
+	 * @return A new graph representing the transitive closure of this result graph,
+	 *         this graph is complete if it has fewer paths than the given limit.
+	 * @see #transitiveClosure(EvaluationContext)
+	 * @see #limit(int)
+	 */
+	public ResultGraph transitiveClosure(EvaluationContext context, int limit){
+		if(dense != null || sources != null){
+			return toPlainCSR().transitiveClosure(context, limit);
+		}
+		
+		ResultGraph out = new ResultGraph(vertexCount, Math.max(vertexCount, getEdgeCount()), false, context);
+		final int[] stack = context.getInts(0, vertexCount + 1);
+		RangeBitSet seen = context.getVisited(0, vertexCount);
 		
 		for(int source = 0; source < vertexCount; source++){
 			out.setActiveSource(source);
 			
-			if(csr[source] != csr[source + 1]){
-				stack.push(source);
+			if(csr[source] != csr[source + 1] && out.getWrittenEdgeCount() < limit){
+				int size = 0;
+				stack[size++] = source;
 				seen.rangeClear();
 				
-				while(!stack.isEmpty()){
-					int vertex = stack.pop();
+				while(size != 0 && out.getWrittenEdgeCount() < limit){
+					int vertex = stack[--size];
 					
 					final int from = csr[vertex];
 					final int to = csr[vertex + 1];
@@ -404,13 +1258,180 @@ public class ResultGraph{
 						if(!seen.get(target)){
 							out.addTarget(target);
 							seen.rangeSet(target);
-							stack.push(target);
+							stack[size++] = target;
+						}
+					}
+				}
+			}
+		}
+		
+		out.endFinalSource();
+		return out;
+	}
+	
+	/**
+	 * Computes the transitive closure of this graph using a multi-source breadth first
+	 * search (MS-BFS). Rather than running an independent search from each source vertex,
+	 * source vertices are processed in batches of 64 where each source in a batch is assigned
+	 * a single bit in a machine word. A single traversal of the graph then advances the search
+	 * for all sources in the batch at once using bitwise operations. For dense graphs this
+	 * means that the graph is traversed far fewer times than by {@link #transitiveClosure()}.
+	 * Note that the transitive closure is the smallest graph that contains the entire input
+	 * graph and is also transitive.
+	 * @return A new graph representing the transitive closure of this result graph,
+	 *         by construction this result graph will be sorted.
+	 * @see #transitiveClosure()
+	 * @see <a href="https://doi.org/10.14778/2735496.2735507">The More the Merrier: Efficient Multi-Source Graph Traversal</a>
+	 * @see #transitiveClosureMultiSource(EvaluationContext)
+	 */
+	public ResultGraph transitiveClosureMultiSource(){
+		return transitiveClosureMultiSource(new EvaluationContext());
+	}
+	
+	/**
+	 * Computes the transitive closure of this graph using a multi-source breadth first
+	 * search (MS-BFS) using the given context for scratch space.
+	 * @param context The context to use for scratch space.
+	 * @return A new graph representing the transitive closure of this result graph,
+	 *         by construction this result graph will be sorted.
+	 * @see #transitiveClosureMultiSource()
+	 * @see #transitiveClosureMultiSource(EvaluationContext, int)
+	 */
+	public ResultGraph transitiveClosureMultiSource(EvaluationContext context){
+		return transitiveClosureMultiSource(context, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Computes the transitive closure of this graph using a multi-source breadth first
+	 * search (MS-BFS) using the given context for scratch space. No new batches of source
+	 * vertices are started once at least the given number of paths has been found.
+	 * @param context The context to use for scratch space.
+	 * @param limit The number of paths after which the closure can stop.
+	 * @return A new graph representing the transitive closure of this result graph,
+	 *         by construction this result graph will be sorted. This graph is complete
+	 *         if it has fewer paths than the given limit.
+	 * @see #transitiveClosureMultiSource(EvaluationContext)
+	 * @see #limit(int)
+	 */
+	public ResultGraph transitiveClosureMultiSource(EvaluationContext context, int limit){
+		if(dense != null || sources != null){
+			return toPlainCSR().transitiveClosureMultiSource(context, limit);
+		}
+		
+		ResultGraph out = new ResultGraph(vertexCount, getEdgeCount() + vertexCount, true, context);
+		final long[] seen = context.getWords(0, vertexCount);
+		long[] visit = context.getWords(1, vertexCount);
+		long[] visitNext = context.getWords(2, vertexCount);
+		int[] frontier = context.getInts(0, vertexCount);
+		int[] frontierNext = context.getInts(1, vertexCount);
+		final int[] touched = context.getInts(2, vertexCount);
+		final int[] batch = new int[Long.SIZE];
+		final int[] offsets = new int[Long.SIZE + 1];
+		int[] targets = context.getInts(3, vertexCount);
+		
+		int source = 0;
+		while(source < vertexCount && out.getWrittenEdgeCount() < limit){
+			//collect the next batch of sources with outgoing edges
+			final int first = source;
+			int batchSize = 0;
+			int frontierSize = 0;
+			while(source < vertexCount && batchSize < Long.SIZE){
+				if(csr[source] != csr[source + 1]){
+					visit[source] = 1L << batchSize;
+					batch[batchSize++] = source;
+					frontier[frontierSize++] = source;
+				}
+				
+				source++;
+			}
+			
+			//advance the search for all sources in the batch simultaneously
+			int touchedSize = 0;
+			while(frontierSize != 0){
+				int nextSize = 0;
+				for(int i = 0; i < frontierSize; i++){
+					final int vertex = frontier[i];
+					final long bits = visit[vertex];
+					visit[vertex] = 0L;
+					
+					final int from = csr[vertex];
+					final int to = csr[vertex + 1];
+					for(int ti = from; ti < to; ti++){
+						final int target = csr[ti];
+						final long found = bits & ~seen[target];
+						if(found != 0L){
+							if(seen[target] == 0L){
+								touched[touchedSize++] = target;
+							}
+							
+							if(visitNext[target] == 0L){
+								frontierNext[nextSize++] = target;
+							}
+							
+							seen[target] |= found;
+							visitNext[target] |= found;
 						}
 					}
 				}
+				
+				long[] visitSwap = visit;
+				visit = visitNext;
+				visitNext = visitSwap;
+				
+				int[] frontierSwap = frontier;
+				frontier = frontierNext;
+				frontierNext = frontierSwap;
+				frontierSize = nextSize;
+			}
+			
+			//distribute the reached vertices over the sources in the batch
+			Arrays.sort(touched, 0, touchedSize);
+			Arrays.fill(offsets, 0);
+			for(int i = 0; i < touchedSize; i++){
+				long bits = seen[touched[i]];
+				while(bits != 0L){
+					offsets[Long.numberOfTrailingZeros(bits) + 1]++;
+					bits &= bits - 1;
+				}
+			}
+			
+			for(int i = 0; i < batchSize; i++){
+				offsets[i + 1] += offsets[i];
+			}
+			
+			if(targets.length < offsets[batchSize]){
+				targets = context.getInts(3, offsets[batchSize]);
+			}
+			
+			for(int i = 0; i < touchedSize; i++){
+				final int vertex = touched[i];
+				long bits = seen[vertex];
+				seen[vertex] = 0L;
+				while(bits != 0L){
+					targets[offsets[Long.numberOfTrailingZeros(bits)]++] = vertex;
+					bits &= bits - 1;
+				}
+			}
+			
+			//write the rows for all sources up to the end of the batch
+			int start = 0;
+			int bit = 0;
+			for(int vertex = first; vertex < source; vertex++){
+				out.setActiveSource(vertex);
+				if(bit < batchSize && batch[bit] == vertex){
+					for(int i = start; i < offsets[bit]; i++){
+						out.addTarget(targets[i]);
+					}
+					
+					start = offsets[bit++];
+				}
 			}
 		}
 		
+		while(source < vertexCount){
+			out.setActiveSource(source++);
+		}
+		
 		out.endFinalSource();
 		return out;
 	}
@@ -425,39 +1446,69 @@ public class ResultGraph{
 	 * @param boundSource The bound source node all returned paths have to start at.
 	 * @return A new graph representing the transitive closure of this result graph,
 	 *         where all paths start at the given source node.
+	 * @see #transitiveClosureFrom(int, EvaluationContext)
 	 */
 	public ResultGraph transitiveClosureFrom(int boundSource){
+		return transitiveClosureFrom(boundSource, new EvaluationContext());
+	}
+	
+	/**
+	 * Computes the transitive closure of this graph, with all paths starting from
+	 * the given source node, using the given context for scratch space.
+	 * @param boundSource The bound source node all returned paths have to start at.
+	 * @param context The context to use for scratch space.
+	 * @return A new graph representing the transitive closure of this result graph,
+	 *         where all paths start at the given source node.
+	 * @see #transitiveClosureFrom(int)
+	 * @see #transitiveClosureFrom(int, EvaluationContext, int)
+	 */
+	public ResultGraph transitiveClosureFrom(int boundSource, EvaluationContext context){
+		return transitiveClosureFrom(boundSource, context, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Computes the transitive closure of this graph, with all paths starting from the
+	 * given source node, using the given context for scratch space. The search stops
+	 * early once the given number of paths has been found.
+	 * @param boundSource The bound source node all returned paths have to start at.
+	 * @param context The context to use for scratch space.
+	 * @param limit The number of paths after which the closure can stop.
+	 * @return A new graph representing the transitive closure of this result graph,
+	 *         where all paths start at the given source node. This graph is complete
+	 *         if it has fewer paths than the given limit.
+	 * @see #transitiveClosureFrom(int, EvaluationContext)
+	 * @see #limit(int)
+	 */
+	public ResultGraph transitiveClosureFrom(int boundSource, EvaluationContext context, int limit){
 		assert 0 <= boundSource && boundSource < vertexCount;
 		
-		ResultGraph out = new ResultGraph(this, vertexCount, false);
-		Deque<Integer> stack = new ArrayDeque<Integer>(vertexCount);
-		BitSet seen = new BitSet(vertexCount);
+		if(dense != null || sources != null){
+			return toPlainCSR().transitiveClosureFrom(boundSource, context, limit);
+		}
 		
-		for(int source = 0; source < vertexCount; source++){
-			out.setActiveSource(source);
+		final int[] targets = context.getInts(1, vertexCount);
+		final int[] stack = context.getInts(0, vertexCount + 1);
+		RangeBitSet seen = context.getVisited(0, vertexCount);
+		
+		int size = 0;
+		int stackSize = 0;
+		stack[stackSize++] = boundSource;
+		while(stackSize != 0 && size < limit){
+			int vertex = stack[--stackSize];
 			
-			if(source == boundSource && csr[source] != csr[source + 1]){
-				stack.push(source);
-				
-				while(!stack.isEmpty()){
-					int vertex = stack.pop();
-					
-					final int from = csr[vertex];
-					final int to = csr[vertex + 1];
-					for(int i = from; i < to; i++){
-						int target = csr[i];
-						if(!seen.get(target)){
-							out.addTarget(target);
-							seen.set(target);
-							stack.push(target);
-						}
-					}
+			final int from = csr[vertex];
+			final int to = csr[vertex + 1];
+			for(int i = from; i < to; i++){
+				int target = csr[i];
+				if(!seen.get(target)){
+					targets[size++] = target;
+					seen.rangeSet(target);
+					stack[stackSize++] = target;
 				}
 			}
 		}
 		
-		out.endFinalSource();
-		return out;
+		return single(vertexCount, boundSource, false, 0, size, targets);
 	}
 	
 	/**
@@ -470,24 +1521,60 @@ public class ResultGraph{
 	 * @param boundTarget The bound target node all returned paths have to end at.
 	 * @return A new graph representing the transitive closure of this result graph,
 	 *         where all paths end at the given target node.
+	 * @see #transitiveClosureTo(int, EvaluationContext)
 	 */
 	public ResultGraph transitiveClosureTo(int boundTarget){
+		return transitiveClosureTo(boundTarget, new EvaluationContext());
+	}
+	
+	/**
+	 * Computes the transitive closure of this graph, with all paths ending at
+	 * the given target node, using the given context for scratch space.
+	 * @param boundTarget The bound target node all returned paths have to end at.
+	 * @param context The context to use for scratch space.
+	 * @return A new graph representing the transitive closure of this result graph,
+	 *         where all paths end at the given target node.
+	 * @see #transitiveClosureTo(int)
+	 * @see #transitiveClosureTo(int, EvaluationContext, int)
+	 */
+	public ResultGraph transitiveClosureTo(int boundTarget, EvaluationContext context){
+		return transitiveClosureTo(boundTarget, context, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Computes the transitive closure of this graph, with all paths ending at the
+	 * given target node, using the given context for scratch space. No further
+	 * source nodes are searched once the given number of paths has been found.
+	 * @param boundTarget The bound target node all returned paths have to end at.
+	 * @param context The context to use for scratch space.
+	 * @param limit The number of paths after which the closure can stop.
+	 * @return A new graph representing the transitive closure of this result graph,
+	 *         where all paths end at the given target node. This graph is complete
+	 *         if it has fewer paths than the given limit.
+	 * @see #transitiveClosureTo(int, EvaluationContext)
+	 * @see #limit(int)
+	 */
+	public ResultGraph transitiveClosureTo(int boundTarget, EvaluationContext context, int limit){
 		assert 0 <= boundTarget && boundTarget < vertexCount;
 		
-		ResultGraph out = new ResultGraph(this, vertexCount, false);
-		Deque<Integer> stack = new ArrayDeque<Integer>(vertexCount);
-		RangeBitSet seen = new RangeBitSet(vertexCount);
+		if(dense != null || sources != null){
+			return toPlainCSR().transitiveClosureTo(boundTarget, context, limit);
+		}
+		
+		ResultGraph out = new ResultGraph(vertexCount, vertexCount, false, context);
+		final int[] stack = context.getInts(0, vertexCount + 1);
+		RangeBitSet seen = context.getVisited(0, vertexCount);
 		
 		sourceLoop: for(int source = 0; source < vertexCount; source++){
 			out.setActiveSource(source);
 			
-			if(csr[source] != csr[source + 1]){
-				stack.clear();
-				stack.push(source);
+			if(csr[source] != csr[source + 1] && out.getWrittenEdgeCount() < limit){
+				int size = 0;
+				stack[size++] = source;
 				seen.rangeClear();
 				
-				while(!stack.isEmpty()){
-					int vertex = stack.pop();
+				while(size != 0){
+					int vertex = stack[--size];
 					
 					final int from = csr[vertex];
 					final int to = csr[vertex + 1];
@@ -500,7 +1587,7 @@ public class ResultGraph{
 							}
 							
 							seen.rangeSet(target);
-							stack.push(target);
+							stack[size++] = target;
 						}
 					}
 				}
@@ -524,20 +1611,42 @@ public class ResultGraph{
 	 * @return A new graph representing the transitive closure of this result graph,
 	 *         where the only path, if present, starts and ends at the given bound
 	 *         source and target nodes.
+	 * @see #transitiveClosure(int, int, EvaluationContext)
 	 */
 	public ResultGraph transitiveClosure(int boundSource, int boundTarget){
+		return transitiveClosure(boundSource, boundTarget, new EvaluationContext());
+	}
+	
+	/**
+	 * Computes the transitive closure of this graph, with all paths starting and
+	 * ending at the given bound source and target nodes, using the given context
+	 * for scratch space.
+	 * @param boundSource The bound source node the returned path has to start at.
+	 * @param boundTarget The bound target node the returned path has to end at.
+	 * @param context The context to use for scratch space.
+	 * @return A new graph representing the transitive closure of this result graph,
+	 *         where the only path, if present, starts and ends at the given bound
+	 *         source and target nodes.
+	 * @see #transitiveClosure(int, int)
+	 */
+	public ResultGraph transitiveClosure(int boundSource, int boundTarget, EvaluationContext context){
 		assert 0 <= boundSource && boundSource < vertexCount;
 		assert 0 <= boundTarget && boundTarget < vertexCount;
 		
-		Deque<Integer> stack = new ArrayDeque<Integer>(vertexCount);
-		BitSet seen = new BitSet(vertexCount);
-
+		if(dense != null || sources != null){
+			return toPlainCSR().transitiveClosure(boundSource, boundTarget, context);
+		}
+		
+		final int[] stack = context.getInts(0, vertexCount + 1);
+		RangeBitSet seen = context.getVisited(0, vertexCount);
+		
 		if(csr[boundSource] != csr[boundSource + 1]){
-			stack.push(boundSource);
-
-			while(!stack.isEmpty()){
-				int vertex = stack.pop();
-
+			int size = 0;
+			stack[size++] = boundSource;
+			
+			while(size != 0){
+				int vertex = stack[--size];
+				
 				final int from = csr[vertex];
 				final int to = csr[vertex + 1];
 				for(int i = from; i < to; i++){
@@ -546,28 +1655,184 @@ public class ResultGraph{
 						if(target == boundTarget){
 							return single(vertexCount, boundSource, boundTarget);
 						}
-
-						seen.set(target);
-						stack.push(target);
+						
+						seen.rangeSet(target);
+						stack[size++] = target;
 					}
 				}
 			}
 		}
-
+		
 		return empty(vertexCount);
 	}
-
+	
+	/**
+	 * Computes the transitive closure of this graph, with all paths starting and
+	 * ending at the given bound source and target nodes. This method performs
+	 * the same operation as {@link #transitiveClosure(int, int)}, but instead
+	 * of only searching forward from the source node, a breadth first search
+	 * is performed both forward from the source node and backward from the
+	 * target node on the {@link #getReverse() reverse} of this graph. At each
+	 * step the smallest of the two frontiers is expanded and the search
+	 * terminates as soon as the two searches meet.
+	 * @param boundSource The bound source node the returned path has to start at.
+	 * @param boundTarget The bound target node the returned path has to end at.
+	 * @return A new graph representing the transitive closure of this result graph,
+	 *         where the only path, if present, starts and ends at the given bound
+	 *         source and target nodes.
+	 * @see #transitiveClosure(int, int)
+	 * @see #getReverse()
+	 * @see #transitiveClosureBidirectional(int, int, EvaluationContext)
+	 */
+	public ResultGraph transitiveClosureBidirectional(int boundSource, int boundTarget){
+		return transitiveClosureBidirectional(boundSource, boundTarget, new EvaluationContext());
+	}
+	
+	/**
+	 * Computes the transitive closure of this graph, with all paths starting and
+	 * ending at the given bound source and target nodes, using a bidirectional
+	 * breadth first search and the given context for scratch space.
+	 * @param boundSource The bound source node the returned path has to start at.
+	 * @param boundTarget The bound target node the returned path has to end at.
+	 * @param context The context to use for scratch space.
+	 * @return A new graph representing the transitive closure of this result graph,
+	 *         where the only path, if present, starts and ends at the given bound
+	 *         source and target nodes.
+	 * @see #transitiveClosureBidirectional(int, int)
+	 */
+	public ResultGraph transitiveClosureBidirectional(int boundSource, int boundTarget, EvaluationContext context){
+		assert 0 <= boundSource && boundSource < vertexCount;
+		assert 0 <= boundTarget && boundTarget < vertexCount;
+		
+		if(dense != null || sources != null){
+			return toPlainCSR().transitiveClosureBidirectional(boundSource, boundTarget, context);
+		}
+		
+		if(csr[boundSource] == csr[boundSource + 1]){
+			return empty(vertexCount);
+		}
+		
+		final int[] rev = getReverse().csr;
+		if(rev[boundTarget] == rev[boundTarget + 1]){
+			return empty(vertexCount);
+		}
+		
+		//vertices reachable from the source and vertices that can reach the target
+		RangeBitSet forward = context.getVisited(0, vertexCount);
+		RangeBitSet backward = context.getVisited(1, vertexCount);
+		int[] forwardFrontier = context.getInts(0, vertexCount);
+		int[] forwardNext = context.getInts(1, vertexCount);
+		int[] backwardFrontier = context.getInts(2, vertexCount);
+		int[] backwardNext = context.getInts(3, vertexCount);
+		forwardFrontier[0] = boundSource;
+		backwardFrontier[0] = boundTarget;
+		int forwardSize = 1;
+		int backwardSize = 1;
+		
+		while(forwardSize != 0 && backwardSize != 0){
+			if(frontierDegree(csr, forwardFrontier, forwardSize) <= frontierDegree(rev, backwardFrontier, backwardSize)){
+				int[] next = forwardNext;
+				int nextSize = 0;
+				for(int i = 0; i < forwardSize; i++){
+					final int vertex = forwardFrontier[i];
+					for(int ti = csr[vertex]; ti < csr[vertex + 1]; ti++){
+						final int target = csr[ti];
+						if(target == boundTarget || backward.get(target)){
+							return single(vertexCount, boundSource, boundTarget);
+						}
+						
+						if(!forward.get(target)){
+							forward.rangeSet(target);
+							next[nextSize++] = target;
+						}
+					}
+				}
+				
+				forwardNext = forwardFrontier;
+				forwardFrontier = next;
+				forwardSize = nextSize;
+			}else{
+				int[] next = backwardNext;
+				int nextSize = 0;
+				for(int i = 0; i < backwardSize; i++){
+					final int vertex = backwardFrontier[i];
+					for(int si = rev[vertex]; si < rev[vertex + 1]; si++){
+						final int source = rev[si];
+						if(source == boundSource || forward.get(source)){
+							return single(vertexCount, boundSource, boundTarget);
+						}
+						
+						if(!backward.get(source)){
+							backward.rangeSet(source);
+							next[nextSize++] = source;
+						}
+					}
+				}
+				
+				backwardNext = backwardFrontier;
+				backwardFrontier = next;
+				backwardSize = nextSize;
+			}
+		}
+		
+		return empty(vertexCount);
+	}
+	
+	/**
+	 * Computes the total number of edges leaving the vertices in the given frontier.
+	 * @param data The CSR data of the graph the frontier is in.
+	 * @param frontier The vertices in the frontier.
+	 * @param size The number of vertices in the frontier.
+	 * @return The total out degree of all vertices in the frontier.
+	 */
+	private static long frontierDegree(int[] data, int[] frontier, int size){
+		long degree = 0;
+		for(int i = 0; i < size; i++){
+			degree += data[frontier[i] + 1] - data[frontier[i]];
+		}
+		
+		return degree;
+	}
+	
 	/**
 	 * Selects all the edges from this graph that start and end at the same node, i.e., all zero length identity paths.
 	 * @return A copy of this graph containing only the edges that started and ended at the same vertex.
+	 * @see #selectIdentity(EvaluationContext)
 	 */
 	public ResultGraph selectIdentity(){
-		ResultGraph out = new ResultGraph(vertexCount, vertexCount, true);
-
+		return selectIdentity(new EvaluationContext());
+	}
+	
+	/**
+	 * Selects all the edges from this graph that start and end at the same
+	 * node using the given context for scratch space.
+	 * @param context The context to use for scratch space.
+	 * @return A copy of this graph containing only the edges that started and ended at the same vertex.
+	 * @see #selectIdentity()
+	 */
+	public ResultGraph selectIdentity(EvaluationContext context){
+		if(sources != null){
+			ResultGraph out = new ResultGraph(vertexCount, sourceCount, sourceCount, true);
+			for(int i = 0; i < sourceCount; i++){
+				final int source = sources[i];
+				if(hasTarget(offsets[i], offsets[i + 1], source)){
+					out.addSource(source);
+					out.addTarget(source);
+				}
+			}
+			
+			out.endSources();
+			return out;
+		}
+		
+		ResultGraph out = new ResultGraph(vertexCount, vertexCount, true, context);
+		
 		if(sorted){
 			for(int source = 0; source < vertexCount; source++){
 				out.setActiveSource(source);
-				if(Arrays.binarySearch(csr, csr[source], csr[source + 1], source) >= 0){
+				
+				final long[] row = getDenseRow(source);
+				if(row != null ? get(row, source) : Arrays.binarySearch(csr, csr[source], csr[source + 1], source) >= 0){
 					out.addTarget(source);
 				}
 			}
@@ -575,6 +1840,15 @@ public class ResultGraph{
 			for(int source = 0; source < vertexCount; source++){
 				out.setActiveSource(source);
 				
+				final long[] row = getDenseRow(source);
+				if(row != null){
+					if(get(row, source)){
+						out.addTarget(source);
+					}
+					
+					continue;
+				}
+				
 				final int from = csr[source];
 				final int to = csr[source + 1];
 				for(int i = from; i < to; i++){
@@ -597,22 +1871,20 @@ public class ResultGraph{
 	 */
 	public ResultGraph selectSource(int source){
 		assert 0 <= source && source < vertexCount;
-		ResultGraph out = new ResultGraph(vertexCount, vertexCount, sorted);
 		
-		for(int i = 0; i < vertexCount; i++){
-			out.setActiveSource(i);
-			
-			if(i == source){
-				final int from = csr[source];
-				final int to = csr[source + 1];
-				for(int idx = from; idx < to; idx++){
-					out.addTarget(csr[idx]);
-				}
-			}
+		if(sources != null){
+			final int idx = findSource(source, 0);
+			return idx < sourceCount && sources[idx] == source ? single(vertexCount, source, sorted, offsets[idx], offsets[idx + 1], csr) : empty(vertexCount);
 		}
 		
-		out.endFinalSource();
-		return out;
+		final long[] row = getDenseRow(source);
+		if(row != null){
+			int[] targets = new int[cardinality(row)];
+			decode(row, targets, 0);
+			return single(vertexCount, source, true, targets);
+		}
+		
+		return single(vertexCount, source, sorted, csr[source], csr[source + 1], csr);
 	}
 	
 	/**
@@ -622,11 +1894,34 @@ public class ResultGraph{
 	 */
 	public ResultGraph selectTarget(int target){
 		assert 0 <= target && target < vertexCount;
+		
+		if(sources != null){
+			ResultGraph out = new ResultGraph(vertexCount, sourceCount, sourceCount, true);
+			for(int i = 0; i < sourceCount; i++){
+				if(hasTarget(offsets[i], offsets[i + 1], target)){
+					out.addSource(sources[i]);
+					out.addTarget(target);
+				}
+			}
+			
+			out.endSources();
+			return out;
+		}
+		
 		ResultGraph out = new ResultGraph(vertexCount, vertexCount, true);
 		
 		for(int source = 0; source < vertexCount; source++){
 			out.setActiveSource(source);
 			
+			final long[] row = getDenseRow(source);
+			if(row != null){
+				if(get(row, target)){
+					out.addTarget(target);
+				}
+				
+				continue;
+			}
+			
 			final int from = csr[source];
 			final int to = csr[source + 1];
 			for(int i = from; i < to; i++){
@@ -641,27 +1936,94 @@ public class ResultGraph{
 		return out;
 	}
 	
+	/**
+	 * Checks if the given target range in the CSR contains the given target vertex.
+	 * @param from The start index of the target range (inclusive).
+	 * @param to The end index of the target range (exclusive).
+	 * @param target The target vertex to find.
+	 * @return True if the given target range contains the given target vertex.
+	 */
+	private boolean hasTarget(int from, int to, int target){
+		if(sorted){
+			return Arrays.binarySearch(csr, from, to, target) >= 0;
+		}
+		
+		for(int i = from; i < to; i++){
+			if(csr[i] == target){
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Gets the reverse of this graph, this is the graph that contains all the paths
+	 * in this graph, but with their source and target vertex swapped. The reverse
+	 * graph is computed once when it is first requested and then reused for
+	 * subsequent calls, therefore this method should not be called before this
+	 * graph has been completely written. By construction the reverse graph is sorted.
+	 * @return The reverse of this graph.
+	 */
+	public synchronized ResultGraph getReverse(){
+		if(reverse == null){
+			final int[] csr = getData();
+			ResultGraph out = new ResultGraph(vertexCount, getEdgeCount(), true);
+			
+			//count the incoming edges for each vertex
+			for(int i = csr[0]; i < csr[vertexCount]; i++){
+				out.csr[csr[i] + 1]++;
+			}
+			
+			out.csr[0] = vertexCount + 1;
+			for(int target = 0; target < vertexCount; target++){
+				out.csr[target + 1] += out.csr[target];
+			}
+			
+			//iterating sources in order guarantees sorted target ranges
+			int[] fill = Arrays.copyOf(out.csr, vertexCount);
+			for(int source = 0; source < vertexCount; source++){
+				for(int i = csr[source]; i < csr[source + 1]; i++){
+					out.csr[fill[csr[i]]++] = source;
+				}
+			}
+			
+			out.head = out.csr[vertexCount];
+			reverse = out;
+		}
+		
+		return reverse;
+	}
+	
 	/**
 	 * Computes cardinality statistics for the result contained in this graph.
 	 * @return Cardinality statistics for this result graph.
 	 * @see CardStat
 	 */
 	public CardStat computeCardinality(){
+		if(sources != null){
+			int[] targets = Arrays.copyOfRange(csr, 0, getListEdgeCount());
+			return new CardStat(sourceCount, getEdgeCount(), unique(targets, 0, targets.length));
+		}
+		
 		int out = 0;
+		long[] in = new long[getWordCount(vertexCount)];
 		for(int source = 0; source < vertexCount; source++){
-			if(csr[source] != csr[source + 1]){
+			final long[] row = getDenseRow(source);
+			if(row != null){
+				out++;
+				for(int i = 0; i < row.length; i++){
+					in[i] |= row[i];
+				}
+			}else if(csr[source] != csr[source + 1]){
 				out++;
+				set(in, csr, csr[source], csr[source + 1]);
 			}
 		}
 		
-		BitSet in = new BitSet(vertexCount);
-		for(int i = csr[0]; i < head; i++){
-			in.set(csr[i]);
-		}
-		
-		return new CardStat(out, getEdgeCount(), in.cardinality());
+		return new CardStat(out, getEdgeCount(), cardinality(in));
 	}
-
+	
 	/**
 	 * Gets the source target pairs in this result graph. This is the
 	 * actual database operation or query evaluation result output.
@@ -671,11 +2033,32 @@ public class ResultGraph{
 	public List<SourceTargetPair> getSourceTargetPairs(){
 		List<SourceTargetPair> edges = new ArrayList<SourceTargetPair>();
 		
+		if(sources != null){
+			for(int i = 0; i < sourceCount; i++){
+				for(int idx = offsets[i]; idx < offsets[i + 1]; idx++){
+					edges.add(new SourceTargetPair(sources[i], csr[idx]));
+				}
+			}
+			
+			return edges;
+		}
+		
 		for(int source = 0; source < vertexCount; source++){
-			final int from = csr[source];
-			final int to = csr[source + 1];
-			for(int i = from; i < to; i++){
-				edges.add(new SourceTargetPair(source, csr[i]));
+			final long[] row = getDenseRow(source);
+			if(row != null){
+				for(int i = 0; i < row.length; i++){
+					long bits = row[i];
+					while(bits != 0L){
+						edges.add(new SourceTargetPair(source, (i << 6) + Long.numberOfTrailingZeros(bits)));
+						bits &= bits - 1;
+					}
+				}
+			}else{
+				final int from = csr[source];
+				final int to = csr[source + 1];
+				for(int i = from; i < to; i++){
+					edges.add(new SourceTargetPair(source, csr[i]));
+				}
 			}
 		}
 		
@@ -684,11 +2067,104 @@ public class ResultGraph{
 	
 	/**
 	 * Gets the raw source data for the CSR representing this result graph.
+	 * If this graph has dense rows or a source list, then the returned data is for
+	 * a copy of this graph with an index entry for every vertex that stores all its
+	 * targets in the CSR instead.
 	 * @return The raw CSR data.
 	 * @see #csr
 	 */
 	protected int[] getData(){
-		return csr;
+		return dense == null && sources == null ? csr : toPlainCSR().csr;
+	}
+	
+	/**
+	 * Gets the number of machine words required for a bitmap with one bit per vertex.
+	 * @param vertexCount The number of vertices.
+	 * @return The number of words in a bitmap for the given number of vertices.
+	 */
+	private static int getWordCount(int vertexCount){
+		return (vertexCount + Long.SIZE - 1) >>> 6;
+	}
+	
+	/**
+	 * Counts the number of bits that are set in the given bitmap.
+	 * @param bitmap The bitmap to count the set bits of.
+	 * @return The number of set bits in the given bitmap.
+	 */
+	private static int cardinality(long[] bitmap){
+		int count = 0;
+		for(long word : bitmap){
+			count += Long.bitCount(word);
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Checks if the bit for the given vertex is set in the given bitmap.
+	 * @param bitmap The bitmap to check.
+	 * @param vertex The vertex to check the bit of.
+	 * @return True if the bit for the given vertex is set.
+	 */
+	private static boolean get(long[] bitmap, int vertex){
+		return (bitmap[vertex >>> 6] & (1L << vertex)) != 0L;
+	}
+	
+	/**
+	 * Sets the bits for all the vertices in the given range of the given array in the given bitmap.
+	 * @param bitmap The bitmap to set the bits in.
+	 * @param data The array containing the vertices to set.
+	 * @param from The start index in the data array (inclusive).
+	 * @param to The end index in the data array (exclusive).
+	 */
+	private static void set(long[] bitmap, int[] data, int from, int to){
+		for(int i = from; i < to; i++){
+			bitmap[data[i] >>> 6] |= 1L << data[i];
+		}
+	}
+	
+	/**
+	 * Sorts the given range of the given array and then removes all duplicate values from it.
+	 * @param data The array containing the range.
+	 * @param from The start index of the range (inclusive).
+	 * @param to The end index of the range (exclusive).
+	 * @return The number of distinct values in the range, these are stored in
+	 *         ascending order starting at the start of the range.
+	 */
+	private static int unique(int[] data, int from, int to){
+		if(from == to){
+			return 0;
+		}
+		
+		Arrays.sort(data, from, to);
+		int last = from;
+		for(int i = from + 1; i < to; i++){
+			if(data[i] != data[last]){
+				data[++last] = data[i];
+			}
+		}
+		
+		return last - from + 1;
+	}
+	
+	/**
+	 * Writes the vertices of all set bits in the given bitmap in ascending order to the given array.
+	 * @param bitmap The bitmap to decode.
+	 * @param out The array to write the vertices to.
+	 * @param offset The index in the output array to write the first vertex to.
+	 * @return The number of vertices written to the output array.
+	 */
+	private static int decode(long[] bitmap, int[] out, int offset){
+		int idx = offset;
+		for(int i = 0; i < bitmap.length; i++){
+			long bits = bitmap[i];
+			while(bits != 0L){
+				out[idx++] = (i << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+			}
+		}
+		
+		return idx - offset;
 	}
 	
 	/**
@@ -748,4 +2224,206 @@ public class ResultGraph{
 	public static final ResultGraph single(int vertexCount, int source, int target){
 		return new ResultGraph(vertexCount, source, true, 0, 1, target);
 	}
+	
+	/**
+	 * Creates a new result graph with a number of result paths that
+	 * all start at one of the given sources and end at the given target vertex.
+	 * @param vertexCount The vertex count for the result graph.
+	 * @param sources The sorted source vertices for the paths.
+	 * @param target The target vertex for the result paths.
+	 * @return The newly constructed result graph, by construction this
+	 *         result graph will be sorted.
+	 */
+	public static final ResultGraph singleTarget(int vertexCount, int[] sources, int target){
+		ResultGraph out = new ResultGraph(vertexCount, sources.length, sources.length, true);
+		for(int source : sources){
+			out.addSource(source);
+			out.addTarget(target);
+		}
+		
+		out.endSources();
+		return out;
+	}
+	
+	/**
+	 * Creates a new result graph from a sorted list of source vertices with a
+	 * sorted range of targets for each source vertex. The first entries of the
+	 * given data array are the source vertices, followed by one more offset than
+	 * there are source vertices. The targets of the source vertex at index
+	 * <code>i</code> are stored in the same array from the offset at index
+	 * <code>count + i</code> (inclusive) to the offset at index <code>count
+	 * + i + 1</code> (exclusive).
+	 * @param vertexCount The vertex count for the result graph.
+	 * @param data The source vertices, offsets and targets for the result graph.
+	 * @param count The number of source vertices in the given data array.
+	 * @return The newly constructed result graph, by construction this
+	 *         result graph will be sorted.
+	 */
+	protected static final ResultGraph ofSourceList(int vertexCount, int[] data, int count){
+		ResultGraph out = new ResultGraph(vertexCount, count, data[2 * count] - data[count], true);
+		for(int i = 0; i < count; i++){
+			out.addSource(data[i]);
+			out.addRange(data, data[count + i], data[count + i + 1]);
+		}
+		
+		out.endSources();
+		return out;
+	}
+	
+	/**
+	 * Creates a new result graph with the given paths. Each path is encoded
+	 * as a single long, with the source vertex in the upper half and the
+	 * target vertex in the lower half.
+	 * @param vertexCount The vertex count for the result graph.
+	 * @param paths The encoded paths, sorted and without duplicates.
+	 * @param size The number of paths in the given array.
+	 * @return The newly constructed result graph, by construction this
+	 *         result graph will be sorted.
+	 */
+	protected static final ResultGraph ofPaths(int vertexCount, long[] paths, int size){
+		ResultGraph out = new ResultGraph(vertexCount, size, size, true);
+		int last = -1;
+		for(int i = 0; i < size; i++){
+			final int source = (int)(paths[i] >>> 32);
+			if(source != last){
+				out.addSource(source);
+				last = source;
+			}
+			
+			out.addTarget((int)paths[i]);
+		}
+		
+		out.endSources();
+		return out;
+	}
+	
+	/**
+	 * Operation that can be evaluated independently for a range of source vertices.
+	 * @author Roan
+	 * @see ResultGraph#partitioned(ForkJoinPool, int, boolean, PartitionOperation)
+	 */
+	@FunctionalInterface
+	private static abstract interface PartitionOperation{
+		
+		/**
+		 * Evaluates this operation for all source vertices in the given range.
+		 * @param out The result graph to write the output to.
+		 * @param from The first source vertex to evaluate (inclusive).
+		 * @param to The last source vertex to evaluate (exclusive).
+		 */
+		public abstract void evaluate(ResultGraph out, int from, int to);
+	}
+	
+	/**
+	 * Partial result graph that only stores the output for a consecutive range
+	 * of source vertices. Instead of a source index for all vertices, partitions
+	 * only record the offsets for the source vertices in their own range and all
+	 * target vertices are stored starting at the start of the CSR.
+	 * @author Roan
+	 * @see ResultGraph#partitioned(ForkJoinPool, int, boolean, PartitionOperation)
+	 */
+	private static final class Partition extends ResultGraph{
+		/**
+		 * The first source vertex in this partition (inclusive).
+		 */
+		private final int from;
+		/**
+		 * The last source vertex in this partition (exclusive).
+		 */
+		private final int to;
+		/**
+		 * The start offset of the targets for each source vertex in this partition.
+		 */
+		private final int[] index;
+		/**
+		 * The dense rows for the source vertices in this partition, null if this
+		 * partition does not have any dense rows.
+		 * @see ResultGraph#dense
+		 */
+		private long[][] rows = null;
+		
+		/**
+		 * Constructs a new partition for the given range of source vertices.
+		 * @param vertexCount The number of vertices in the complete result graph.
+		 * @param from The first source vertex in this partition (inclusive).
+		 * @param to The last source vertex in this partition (exclusive).
+		 * @param sizeEstimate The estimated number of edges for this partition.
+		 * @param sorted True if the data stored in this partition will be sorted.
+		 */
+		private Partition(int vertexCount, int from, int to, int sizeEstimate, boolean sorted){
+			super(vertexCount, sorted, Math.max(1, sizeEstimate));
+			this.from = from;
+			this.to = to;
+			index = new int[to - from];
+		}
+		
+		@Override
+		public void setActiveSource(int source){
+			assert from <= source && source < to;
+			if(source != from && getTargetCount() - index[source - 1 - from] >= DENSE_ROW_THRESHOLD){
+				super.compress(source - 1, index[source - 1 - from]);
+			}
+			
+			index[source - from] = getTargetCount();
+		}
+		
+		@Override
+		public void endFinalSource(){
+			throw new UnsupportedOperationException("Partitions do not have a final source.");
+		}
+		
+		/**
+		 * Ends target writing for the last source vertex in this partition.
+		 * After this method was called no more targets can be written.
+		 */
+		private void endLastSource(){
+			if(from != to){
+				super.compress(to - 1, index[to - 1 - from]);
+			}
+		}
+		
+		@Override
+		protected void setDenseRow(int source, long[] row, int count){
+			if(rows == null){
+				rows = new long[to - from][];
+			}
+			
+			rows[source - from] = row;
+			super.denseEdges += count;
+		}
+		
+		/**
+		 * Gets the total number of targets stored in this partition.
+		 * @return The number of targets in this partition.
+		 */
+		private int getTargetCount(){
+			return super.head;
+		}
+		
+		/**
+		 * Appends the data stored in this partition to the given
+		 * result graph, which is assumed to have been written up
+		 * to the first source vertex of this partition.
+		 * @param out The result graph to write to.
+		 */
+		private void writeTo(ResultGraph out){
+			final int offset = out.head;
+			for(int source = from; source < to; source++){
+				out.csr[source] = offset + index[source - from];
+			}
+			
+			final int size = getTargetCount();
+			System.arraycopy(super.csr, 0, out.csr, offset, size);
+			out.head += size;
+			
+			if(rows != null){
+				if(out.dense == null){
+					out.dense = new long[out.vertexCount][];
+				}
+				
+				System.arraycopy(rows, 0, out.dense, from, rows.length);
+				out.denseEdges += super.denseEdges;
+			}
+		}
+	}
 }
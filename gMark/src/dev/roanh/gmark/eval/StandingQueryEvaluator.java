@@ -0,0 +1,469 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dev.roanh.gmark.ast.OperationType;
+import dev.roanh.gmark.ast.QueryTree;
+import dev.roanh.gmark.type.schema.Predicate;
+
+/**
+ * Evaluator that maintains the answers to a set of registered standing path queries
+ * while edges are inserted into an {@link UpdatableDatabaseGraph}. For every node in the
+ * query tree (AST) of a standing query the result graph is kept, such that a batch of
+ * inserted edges can be propagated through the query tree as a delta of new paths:
+ * <ul>
+ * <li>The delta of an edge label consists of the inserted edges with that label.</li>
+ * <li>The delta of a concatenation {@code A ◦ B} is {@code ΔA ◦ B' ∪ A ◦ ΔB}.</li>
+ * <li>The delta of an intersection {@code A ∩ B} is {@code ΔA ∩ B' ∪ A' ∩ ΔB}.</li>
+ * <li>The delta of a disjunction {@code A ∪ B} is {@code ΔA ∪ ΔB}.</li>
+ * <li>The delta of a transitive closure {@code A+} is {@code (id ∪ A+) ◦ N+} with
+ * {@code N = ΔA ◦ (id ∪ A+)}, since every new path in the closure consists of a prefix
+ * in the old closure followed by a number of new edges each followed by a path in the
+ * old closure. Only the closure of the new edges {@code N} has to be computed.</li>
+ * </ul>
+ * Here {@code A} and {@code B} are the results of the operands before the insertions and
+ * {@code A'} and {@code B'} after. Joins, intersections and closures are thus only computed
+ * for the delta, after which the delta is merged into the stored result of each node.
+ * <p>
+ * Since deltas only add paths, edge removals cannot be propagated. Updates made to the graph
+ * other than through {@link #addEdges(DatabaseGraphBuilder)}, including removals, are picked
+ * up by re-evaluating all standing queries from scratch, either explicitly with {@link #refresh()}
+ * or automatically before the next batch of insertions is applied.
+ * @author Roan
+ * @see UpdatableDatabaseGraph
+ * @see ReachabilityQueryEvaluator
+ */
+public class StandingQueryEvaluator{
+	/**
+	 * Index of the first operand of a binary operation.
+	 */
+	private static final int FIRST = 0;
+	/**
+	 * Index of the second operand of a binary operation.
+	 */
+	private static final int SECOND = 1;
+	/**
+	 * The graph the standing queries are evaluated on.
+	 */
+	private final UpdatableDatabaseGraph graph;
+	/**
+	 * The context providing scratch space for result graph operations.
+	 */
+	private final EvaluationContext context = new EvaluationContext();
+	/**
+	 * The registered standing queries.
+	 */
+	private final List<StandingQuery> queries = new ArrayList<StandingQuery>();
+	/**
+	 * The snapshot of the graph the answers of all standing queries are up to date with.
+	 */
+	private DatabaseGraphSnapshot snapshot;
+	
+	/**
+	 * Constructs a new standing query evaluator for the given graph.
+	 * @param graph The graph to evaluate standing queries on.
+	 */
+	public StandingQueryEvaluator(UpdatableDatabaseGraph graph){
+		this.graph = graph;
+		snapshot = graph.getSnapshot();
+	}
+	
+	/**
+	 * Registers a new standing query, the answer to the query is evaluated immediately.
+	 * @param query The path query to register.
+	 * @return The registered standing query.
+	 * @throws IllegalArgumentException When the given query is not a reachability query.
+	 */
+	public synchronized StandingQuery register(PathQuery query) throws IllegalArgumentException{
+		StandingQuery standing = new StandingQuery(query);
+		queries.add(standing);
+		return standing;
+	}
+	
+	/**
+	 * Removes a standing query, its answer is no longer maintained.
+	 * @param query The standing query to remove.
+	 */
+	public synchronized void unregister(StandingQuery query){
+		queries.remove(query);
+	}
+	
+	/**
+	 * Gets all the registered standing queries.
+	 * @return The registered standing queries.
+	 */
+	public synchronized List<StandingQuery> getQueries(){
+		return List.copyOf(queries);
+	}
+	
+	/**
+	 * Gets the version of the graph the answers of all standing queries are up to date with.
+	 * @return The version of the graph of the standing query answers.
+	 * @see UpdatableDatabaseGraph#getVersion()
+	 */
+	public synchronized long getVersion(){
+		return snapshot.getVersion();
+	}
+	
+	/**
+	 * Inserts the edges in the given batch into the graph and incrementally updates
+	 * the answers of all standing queries. Edges that are already present in the graph
+	 * do not contribute to the delta. If the graph was updated by other means since the
+	 * last update of the standing queries, then all queries are re-evaluated instead.
+	 * @param batch The batch of edges to insert.
+	 * @throws IllegalArgumentException When the vertex or label count of the given
+	 *         batch does not match the vertex or label count of the graph.
+	 * @see #refresh()
+	 */
+	public synchronized void addEdges(DatabaseGraphBuilder batch) throws IllegalArgumentException{
+		if(batch.getVertexCount() != graph.getVertexCount() || batch.getLabelCount() != graph.getLabelCount()){
+			throw new IllegalArgumentException("The vertex and label count of the batch have to match the graph.");
+		}
+		
+		if(graph.getVersion() != snapshot.getVersion()){
+			refresh();
+		}
+		
+		final int labelCount = graph.getLabelCount();
+		final int[] sources = batch.getSources();
+		final int[] targets = batch.getTargets();
+		final int[] labels = batch.getLabels();
+		final List<Predicate> predicates = snapshot.getLabels();
+		
+		//collect the new edges grouped by label
+		int[] offsets = new int[labelCount + 1];
+		for(int i = 0; i < batch.getEdgeCount(); i++){
+			offsets[labels[i] + 1]++;
+		}
+		
+		for(int i = 0; i < labelCount; i++){
+			offsets[i + 1] += offsets[i];
+		}
+		
+		int[] next = Arrays.copyOf(offsets, labelCount);
+		long[] paths = new long[batch.getEdgeCount()];
+		for(int i = 0; i < batch.getEdgeCount(); i++){
+			if(snapshot.selectLabel(sources[i], predicates.get(labels[i]), targets[i]).getEdgeCount() == 0){
+				paths[next[labels[i]]++] = (((long)sources[i]) << 32) | targets[i];
+			}
+			
+			graph.addEdge(sources[i], targets[i], labels[i]);
+		}
+		
+		ResultGraph[] edges = new ResultGraph[2 * labelCount];
+		for(int label = 0; label < labelCount; label++){
+			Arrays.sort(paths, offsets[label], next[label]);
+			int size = 0;
+			for(int i = offsets[label]; i < next[label]; i++){
+				if(size == 0 || paths[offsets[label] + size - 1] != paths[i]){
+					paths[offsets[label] + size++] = paths[i];
+				}
+			}
+			
+			if(size == 0){
+				edges[label] = ResultGraph.empty(graph.getVertexCount());
+				edges[labelCount + label] = edges[label];
+			}else{
+				edges[label] = ResultGraph.ofPaths(graph.getVertexCount(), Arrays.copyOfRange(paths, offsets[label], offsets[label] + size), size);
+				edges[labelCount + label] = edges[label].getReverse();
+			}
+		}
+		
+		final long expected = snapshot.getVersion() + batch.getEdgeCount();
+		snapshot = graph.getSnapshot();
+		if(snapshot.getVersion() != expected){
+			refresh();
+			return;
+		}
+		
+		for(StandingQuery query : queries){
+			query.update(edges);
+		}
+	}
+	
+	/**
+	 * Re-evaluates all standing queries from scratch on the current version of the graph.
+	 */
+	public synchronized void refresh(){
+		snapshot = graph.getSnapshot();
+		for(StandingQuery query : queries){
+			query.refresh();
+		}
+	}
+	
+	/**
+	 * Computes the union of the given result graphs.
+	 * @param left The left input graph.
+	 * @param right The right input graph.
+	 * @return The union of the given input graphs.
+	 */
+	private ResultGraph union(ResultGraph left, ResultGraph right){
+		if(left.getEdgeCount() == 0){
+			return right;
+		}else if(right.getEdgeCount() == 0){
+			return left;
+		}else{
+			return left.union(right, context);
+		}
+	}
+	
+	/**
+	 * Computes the join of the given result graphs.
+	 * @param left The left input graph.
+	 * @param right The right input graph.
+	 * @return The join of the given input graphs.
+	 */
+	private ResultGraph join(ResultGraph left, ResultGraph right){
+		if(left.getEdgeCount() == 0 || right.getEdgeCount() == 0){
+			return ResultGraph.empty(left.getVertexCount());
+		}else{
+			return left.join(right, context);
+		}
+	}
+	
+	/**
+	 * Computes the intersection of the given result graphs.
+	 * @param left The left input graph.
+	 * @param right The right input graph.
+	 * @return The intersection of the given input graphs.
+	 */
+	private ResultGraph intersection(ResultGraph left, ResultGraph right){
+		if(left.getEdgeCount() == 0 || right.getEdgeCount() == 0){
+			return ResultGraph.empty(left.getVertexCount());
+		}else{
+			return left.intersection(right, context);
+		}
+	}
+	
+	/**
+	 * A registered standing query together with its maintained answer.
+	 * @author Roan
+	 * @see StandingQueryEvaluator#register(PathQuery)
+	 */
+	public final class StandingQuery{
+		/**
+		 * The registered path query.
+		 */
+		private final PathQuery query;
+		/**
+		 * The maintained results for the query tree of the query.
+		 */
+		private final View root;
+		/**
+		 * The current answer to the query.
+		 */
+		private ResultGraph result;
+		
+		/**
+		 * Constructs and evaluates a new standing query.
+		 * @param query The path query to maintain the answer of.
+		 * @throws IllegalArgumentException When the given query is not a reachability query.
+		 */
+		private StandingQuery(PathQuery query) throws IllegalArgumentException{
+			this.query = query;
+			root = new View(query.query().toAbstractSyntaxTree());
+			result = restrict(root.result);
+		}
+		
+		/**
+		 * Gets the path query of this standing query.
+		 * @return The path query of this standing query.
+		 */
+		public PathQuery getQuery(){
+			return query;
+		}
+		
+		/**
+		 * Gets the current answer to this standing query.
+		 * @return The result graph containing the paths matched by this query.
+		 * @see StandingQueryEvaluator#getVersion()
+		 */
+		public ResultGraph getResult(){
+			synchronized(StandingQueryEvaluator.this){
+				return result;
+			}
+		}
+		
+		/**
+		 * Updates the answer to this query with the given inserted edges.
+		 * @param edges The inserted edges for each label, regular labels are indexed
+		 *        by their ID and inverse labels by their ID plus the label count.
+		 */
+		private void update(ResultGraph[] edges){
+			result = union(result, restrict(root.update(edges)));
+		}
+		
+		/**
+		 * Re-evaluates this standing query from scratch.
+		 */
+		private void refresh(){
+			root.refresh();
+			result = restrict(root.result);
+		}
+		
+		/**
+		 * Restricts the given result graph to the bound source and target of the query.
+		 * @param paths The result graph to restrict.
+		 * @return The paths in the given graph that start at the bound source and end at the bound target.
+		 */
+		private ResultGraph restrict(ResultGraph paths){
+			if(query.source().isPresent()){
+				paths = paths.selectSource(query.source().get());
+			}
+			
+			if(query.target().isPresent()){
+				paths = paths.selectTarget(query.target().get());
+			}
+			
+			return paths;
+		}
+	}
+	
+	/**
+	 * Materialised result of a node in the query tree (AST) of a standing query.
+	 * @author Roan
+	 */
+	private final class View{
+		/**
+		 * The query tree (AST) of this view.
+		 */
+		private final QueryTree path;
+		/**
+		 * The view of the first operand, null if the operation has no operands.
+		 */
+		private final View first;
+		/**
+		 * The view of the second operand, null if the operation is not binary.
+		 */
+		private final View second;
+		/**
+		 * The current result of the query tree of this view.
+		 */
+		private ResultGraph result;
+		
+		/**
+		 * Constructs and evaluates a new view for the given query tree.
+		 * @param path The query tree to maintain the result of.
+		 * @throws IllegalArgumentException When the given query tree is not a reachability query.
+		 */
+		private View(QueryTree path) throws IllegalArgumentException{
+			if(path.getOperation() == OperationType.JOIN){
+				throw new IllegalArgumentException("This evaluator only supports reachability queries.");
+			}
+			
+			this.path = path;
+			first = path.isLeaf() ? null : new View(path.getOperand(FIRST));
+			second = path.isBinary() ? new View(path.getOperand(SECOND)) : null;
+			result = evaluate();
+		}
+		
+		/**
+		 * Re-evaluates this view and the views of its operands from scratch.
+		 */
+		private void refresh(){
+			if(first != null){
+				first.refresh();
+			}
+			
+			if(second != null){
+				second.refresh();
+			}
+			
+			result = evaluate();
+		}
+		
+		/**
+		 * Evaluates the operation of this view from the results of its operands.
+		 * @return The result of the query tree of this view.
+		 */
+		private ResultGraph evaluate(){
+			switch(path.getOperation()){
+			case CONCATENATION:
+				return join(first.result, second.result);
+			case DISJUNCTION:
+				return union(first.result, second.result);
+			case EDGE:
+				return snapshot.selectLabel(path.getEdgeAtom().getLabel());
+			case IDENTITY:
+				return snapshot.selectIdentity();
+			case INTERSECTION:
+				return intersection(first.result, second.result);
+			case KLEENE:
+				return first.result.transitiveClosure(context);
+			case JOIN:
+				throw new IllegalArgumentException("This evaluator only supports reachability queries.");
+			}
+			
+			throw new IllegalStateException("Unknown database operation.");
+		}
+		
+		/**
+		 * Updates this view and the views of its operands with the given inserted edges.
+		 * @param edges The inserted edges for each label, regular labels are indexed
+		 *        by their ID and inverse labels by their ID plus the label count.
+		 * @return The delta of this view, containing at least all paths that are new in the
+		 *         result of this view. The delta may also contain paths that were present before.
+		 */
+		private ResultGraph update(ResultGraph[] edges){
+			final ResultGraph old = result;
+			ResultGraph delta;
+			switch(path.getOperation()){
+			case CONCATENATION:
+				final ResultGraph left = first.result;
+				final ResultGraph leftDelta = first.update(edges);
+				final ResultGraph rightDelta = second.update(edges);
+				delta = union(join(leftDelta, second.result), join(left, rightDelta));
+				break;
+			case DISJUNCTION:
+				delta = union(first.update(edges), second.update(edges));
+				break;
+			case EDGE:
+				final Predicate label = path.getEdgeAtom().getLabel();
+				delta = edges[label.isInverse() ? graph.getLabelCount() + label.getID() : label.getID()];
+				break;
+			case IDENTITY:
+				delta = ResultGraph.empty(old.getVertexCount());
+				break;
+			case INTERSECTION:
+				final ResultGraph firstDelta = first.update(edges);
+				final ResultGraph secondDelta = second.update(edges);
+				delta = union(intersection(firstDelta, second.result), intersection(first.result, secondDelta));
+				break;
+			case KLEENE:
+				final ResultGraph edgeDelta = first.update(edges);
+				if(edgeDelta.getEdgeCount() == 0){
+					delta = edgeDelta;
+				}else{
+					final ResultGraph closure = union(edgeDelta, join(edgeDelta, old)).transitiveClosure(context);
+					delta = union(closure, join(old, closure));
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unknown database operation.");
+			}
+			
+			result = union(old, delta);
+			return delta;
+		}
+	}
+}
@@ -0,0 +1,272 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Database graph that supports inserting and removing edges after construction. Since
+ * the SLT of a database graph is immutable, updates are appended to a log in growable
+ * primitive arrays instead, with one array each for the source vertex, target vertex
+ * and label of the updated edges. Queries are evaluated against a {@link DatabaseGraphSnapshot}
+ * of the graph, which applies the updates in the log to the base SLT on the fly. Snapshots
+ * are immutable and remain consistent while updates continue, each update increments the
+ * version of the graph and a snapshot always reflects exactly the updates up to its version.
+ * <p>
+ * As the log grows snapshots become more expensive to take and to query, compaction folds the
+ * log into a new base SLT. Compaction can be triggered manually or automatically in the background
+ * once the log reaches a configured size. The new base SLT is built without blocking updates or
+ * queries, updates made while compaction is running are retained in the log.
+ * <p>
+ * The vertex and label count of the graph are fixed at construction.
+ * @author Roan
+ * @see DatabaseGraphSnapshot
+ * @see DatabaseGraph
+ */
+public class UpdatableDatabaseGraph{
+	/**
+	 * The default initial capacity of the update log.
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+	/**
+	 * The number of vertices in the graph.
+	 */
+	private final int vertexCount;
+	/**
+	 * The number of labels in the graph.
+	 */
+	private final int labelCount;
+	/**
+	 * The current base database graph that updates are applied to.
+	 */
+	private DatabaseGraph base;
+	/**
+	 * The source vertices of the updated edges in the log.
+	 */
+	private int[] sources = new int[DEFAULT_CAPACITY];
+	/**
+	 * The target vertices of the updated edges in the log.
+	 */
+	private int[] targets = new int[DEFAULT_CAPACITY];
+	/**
+	 * The labels of the updated edges in the log, for
+	 * removed edges the bitwise complement of the label.
+	 */
+	private int[] labels = new int[DEFAULT_CAPACITY];
+	/**
+	 * The number of updates in the log.
+	 */
+	private int updateCount = 0;
+	/**
+	 * The current version of the graph, incremented for every update.
+	 */
+	private long version = 0L;
+	/**
+	 * The snapshot of the current version of the graph, null if no
+	 * snapshot was taken since the last update or compaction.
+	 */
+	private DatabaseGraphSnapshot snapshot = null;
+	/**
+	 * The pool to run background compaction on, null if background compaction is disabled.
+	 */
+	private ForkJoinPool pool = null;
+	/**
+	 * The number of updates in the log at which background compaction is started.
+	 */
+	private int compactionThreshold = Integer.MAX_VALUE;
+	/**
+	 * The running background compaction task, null if no compaction was started.
+	 */
+	private ForkJoinTask<?> compaction = null;
+	
+	/**
+	 * Constructs a new updatable database graph with the given initial graph.
+	 * @param graph The initial database graph, the vertex and label
+	 *        count of this graph cannot be changed with updates.
+	 */
+	public UpdatableDatabaseGraph(DatabaseGraph graph){
+		base = graph instanceof DatabaseGraphSnapshot view ? view.compact() : graph;
+		vertexCount = graph.getVertexCount();
+		labelCount = graph.getLabelCount();
+	}
+	
+	/**
+	 * Gets the total vertex count for this database graph.
+	 * @return The vertex count for this database graph.
+	 */
+	public int getVertexCount(){
+		return vertexCount;
+	}
+	
+	/**
+	 * Gets the number of labels in this graph.
+	 * @return The number of labels in this graph.
+	 */
+	public int getLabelCount(){
+		return labelCount;
+	}
+	
+	/**
+	 * Gets the current version of this database graph, the version
+	 * is incremented for every insertion and removal of an edge.
+	 * @return The current version of this database graph.
+	 */
+	public synchronized long getVersion(){
+		return version;
+	}
+	
+	/**
+	 * Gets the number of updates in the log that were not yet compacted into the base SLT.
+	 * @return The number of pending updates.
+	 */
+	public synchronized int getPendingUpdateCount(){
+		return updateCount;
+	}
+	
+	/**
+	 * Adds a new edge to the graph. Adding an edge that is already present has no effect.
+	 * @param source The source vertex for the edge.
+	 * @param target The target vertex for the edge.
+	 * @param label The edge label of the edge.
+	 * @throws IllegalArgumentException When the source, target or label is out of bounds.
+	 */
+	public void addEdge(int source, int target, int label) throws IllegalArgumentException{
+		checkBounds(source, target, label);
+		appendUpdate(source, target, label);
+	}
+	
+	/**
+	 * Removes an edge from the graph. Removing an edge that is not present has no effect.
+	 * @param source The source vertex for the edge.
+	 * @param target The target vertex for the edge.
+	 * @param label The edge label of the edge.
+	 * @throws IllegalArgumentException When the source, target or label is out of bounds.
+	 */
+	public void removeEdge(int source, int target, int label) throws IllegalArgumentException{
+		checkBounds(source, target, label);
+		appendUpdate(source, target, ~label);
+	}
+	
+	/**
+	 * Gets a snapshot of the current version of this database graph. The returned
+	 * snapshot is not affected by any later updates. Repeated calls without
+	 * updates in between return the same snapshot.
+	 * @return A snapshot of the current version of this database graph.
+	 */
+	public synchronized DatabaseGraphSnapshot getSnapshot(){
+		if(snapshot == null){
+			snapshot = new DatabaseGraphSnapshot(base, version, sources, targets, labels, updateCount);
+		}
+		
+		return snapshot;
+	}
+	
+	/**
+	 * Compacts the updates currently in the log into a new base SLT. The new base SLT is
+	 * built without holding any locks, meaning updates and snapshots are not blocked while
+	 * compaction runs. Updates made during compaction remain in the log afterwards. If
+	 * another compaction completes first, the result of this compaction is discarded.
+	 * @see DatabaseGraphSnapshot#compact()
+	 */
+	public void compact(){
+		final DatabaseGraphSnapshot current;
+		final int count;
+		synchronized(this){
+			if(updateCount == 0){
+				return;
+			}
+			
+			current = getSnapshot();
+			count = updateCount;
+		}
+		
+		final DatabaseGraph graph = current.compact();
+		
+		synchronized(this){
+			if(base == current.getBase()){
+				base = graph;
+				updateCount -= count;
+				sources = Arrays.copyOfRange(sources, count, count + Math.max(DEFAULT_CAPACITY, updateCount));
+				targets = Arrays.copyOfRange(targets, count, count + Math.max(DEFAULT_CAPACITY, updateCount));
+				labels = Arrays.copyOfRange(labels, count, count + Math.max(DEFAULT_CAPACITY, updateCount));
+				snapshot = null;
+			}
+		}
+	}
+	
+	/**
+	 * Configures background compaction of the update log. When enabled a compaction is started
+	 * on the given pool whenever the log reaches the given number of updates and no other
+	 * background compaction is running.
+	 * @param pool The pool to run compaction on, or null to disable background compaction.
+	 * @param threshold The number of updates in the log at which compaction is started.
+	 * @throws IllegalArgumentException When the given threshold is not positive.
+	 * @see #compact()
+	 */
+	public synchronized void setBackgroundCompaction(ForkJoinPool pool, int threshold) throws IllegalArgumentException{
+		if(threshold <= 0){
+			throw new IllegalArgumentException("The compaction threshold has to be positive.");
+		}
+		
+		this.pool = pool;
+		compactionThreshold = threshold;
+	}
+	
+	/**
+	 * Appends a new update to the log and starts background
+	 * compaction if the log reached the compaction threshold.
+	 * @param source The source vertex of the updated edge.
+	 * @param target The target vertex of the updated edge.
+	 * @param label The encoded label of the updated edge.
+	 * @see #labels
+	 */
+	private synchronized void appendUpdate(int source, int target, int label){
+		if(updateCount == sources.length){
+			final int capacity = Math.max(DEFAULT_CAPACITY, sources.length * 2);
+			sources = Arrays.copyOf(sources, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			labels = Arrays.copyOf(labels, capacity);
+		}
+		
+		sources[updateCount] = source;
+		targets[updateCount] = target;
+		labels[updateCount++] = label;
+		version++;
+		snapshot = null;
+		
+		if(pool != null && updateCount >= compactionThreshold && (compaction == null || compaction.isDone())){
+			compaction = pool.submit(this::compact);
+		}
+	}
+	
+	/**
+	 * Checks that the given edge data is in bounds for this graph.
+	 * @param source The source vertex for the edge.
+	 * @param target The target vertex for the edge.
+	 * @param label The edge label of the edge.
+	 * @throws IllegalArgumentException When the source, target or label is out of bounds.
+	 */
+	private void checkBounds(int source, int target, int label) throws IllegalArgumentException{
+		if(source < 0 || target < 0 || label < 0 || source >= vertexCount || target >= vertexCount || label >= labelCount){
+			throw new IllegalArgumentException("Edge data out of bounds: (source=%d, target=%d, label=%d)".formatted(source, target, label));
+		}
+	}
+}
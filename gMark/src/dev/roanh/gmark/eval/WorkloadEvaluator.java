@@ -0,0 +1,158 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Evaluator for complete workloads of reachability path queries. Queries in a workload
+ * can be evaluated concurrently on multiple threads, in which case all threads share
+ * the same query evaluator and with it the same database graph and result cache. The
+ * results of the queries are always reported in the order of the queries in the workload.
+ * @author Roan
+ * @see ReachabilityQueryEvaluator
+ */
+public class WorkloadEvaluator{
+	/**
+	 * The maximum number of queries per evaluation thread that can be evaluated
+	 * or waiting to be reported at the same time when evaluating in parallel.
+	 */
+	private static final int PENDING_FACTOR = 4;
+	/**
+	 * The evaluator to evaluate workload queries with.
+	 */
+	private final ReachabilityQueryEvaluator evaluator;
+	/**
+	 * The number of threads to evaluate workload queries on concurrently.
+	 */
+	private final int threads;
+	
+	/**
+	 * Constructs a new workload evaluator.
+	 * @param evaluator The evaluator to evaluate workload queries with.
+	 * @param threads The number of threads to evaluate workload queries on concurrently.
+	 * @throws IllegalArgumentException When the given thread count is not positive.
+	 */
+	public WorkloadEvaluator(ReachabilityQueryEvaluator evaluator, int threads) throws IllegalArgumentException{
+		if(threads <= 0){
+			throw new IllegalArgumentException("The number of threads has to be positive.");
+		}
+		
+		this.evaluator = evaluator;
+		this.threads = threads;
+	}
+	
+	/**
+	 * Evaluates all the given queries and passes the result of each query to the given
+	 * consumer, in the order of the given queries. When more than one thread is used, at
+	 * most {@value #PENDING_FACTOR} queries per thread are evaluated or waiting to be
+	 * reported at the same time, such that the memory used by results is bounded. The
+	 * consumer is always invoked from the thread that called this method.
+	 * @param queries The queries to evaluate.
+	 * @param limit The maximum number of result paths to find for each query.
+	 * @param consumer The consumer to pass query results to.
+	 * @throws IllegalArgumentException When the given limit is not positive.
+	 * @throws InterruptedException When the calling thread was interrupted while
+	 *         waiting for a query to be evaluated.
+	 * @see ReachabilityQueryEvaluator#evaluate(PathQuery, int)
+	 */
+	public void evaluate(List<PathQuery> queries, int limit, Consumer<QueryResult> consumer) throws IllegalArgumentException, InterruptedException{
+		if(limit <= 0){
+			throw new IllegalArgumentException("Result limit has to be positive.");
+		}
+		
+		if(threads == 1){
+			for(PathQuery query : queries){
+				consumer.accept(evaluate(query, limit));
+			}
+			
+			return;
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try{
+			Deque<Future<QueryResult>> pending = new ArrayDeque<Future<QueryResult>>();
+			Iterator<PathQuery> iter = queries.iterator();
+			while(iter.hasNext() || !pending.isEmpty()){
+				while(iter.hasNext() && pending.size() < threads * PENDING_FACTOR){
+					final PathQuery query = iter.next();
+					pending.add(executor.submit(()->evaluate(query, limit)));
+				}
+				
+				consumer.accept(pending.removeFirst().get());
+			}
+		}catch(ExecutionException e){
+			if(e.getCause() instanceof RuntimeException ex){
+				throw ex;
+			}else if(e.getCause() instanceof Error err){
+				throw err;
+			}else{
+				throw new IllegalStateException(e.getCause());
+			}
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Gets the evaluator used to evaluate workload queries.
+	 * @return The evaluator for workload queries.
+	 */
+	public ReachabilityQueryEvaluator getEvaluator(){
+		return evaluator;
+	}
+	
+	/**
+	 * Gets the number of threads workload queries are evaluated on.
+	 * @return The number of evaluation threads.
+	 */
+	public int getThreadCount(){
+		return threads;
+	}
+	
+	/**
+	 * Evaluates the given query and records the time this took.
+	 * @param query The query to evaluate.
+	 * @param limit The maximum number of result paths to find.
+	 * @return The result of evaluating the query.
+	 */
+	private QueryResult evaluate(PathQuery query, int limit){
+		long start = System.nanoTime();
+		ResultGraph result = evaluator.evaluate(query, limit);
+		return new QueryResult(query, result, System.nanoTime() - start);
+	}
+	
+	/**
+	 * The result of evaluating a single workload query.
+	 * @author Roan
+	 * @param query The query that was evaluated.
+	 * @param result The result of evaluating the query.
+	 * @param timeNs The time in nanoseconds it took to evaluate the query.
+	 */
+	public static record QueryResult(PathQuery query, ResultGraph result, long timeNs){
+	}
+}
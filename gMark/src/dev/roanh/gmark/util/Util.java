@@ -72,6 +72,12 @@ public final class Util{
 	 * Random instances for each thread.
 	 */
 	private static final ThreadLocal<Random> random = ThreadLocal.withInitial(Random::new);
+	/**
+	 * Size ratio between two sorted ranges above which searching the larger range
+	 * for each element of the smaller range is faster than merging both ranges.
+	 * @see #intersect(int[], int, int, int[], int, int, int[], int)
+	 */
+	private static final int GALLOP_RATIO = 8;
 
 	/**
 	 * Prevent instantiation.
@@ -787,4 +793,140 @@ public final class Util{
 	public static <V extends IDable, M> List<SimpleVertex<V, M>> computeArticulationPoints(SimpleGraph<V, M> graph) throws IllegalArgumentException{
 		return new SpanningTreeDFS<V, M>(graph).getArticulationPoints();
 	}
+	
+	/**
+	 * Finds the index of the first value in the given sorted range that is at least
+	 * the given value, using an exponential (galloping) search from the start of the
+	 * range followed by a binary search. The cost of this search is logarithmic in
+	 * the distance between the start of the range and the returned index, making it
+	 * efficient to repeatedly seek forward through a range.
+	 * @param data The array containing the range.
+	 * @param from The start index of the range (inclusive).
+	 * @param to The end index of the range (exclusive).
+	 * @param value The value to seek to.
+	 * @return The index of the first value at least the given value, or
+	 *         the end of the range if no such value exists.
+	 */
+	public static int gallop(int[] data, int from, int to, int value){
+		int step = 1;
+		int low = from;
+		int high = from;
+		while(high < to && data[high] < value){
+			low = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		
+		high = Math.min(high, to);
+		while(low < high){
+			final int mid = (low + high) >>> 1;
+			if(data[mid] < value){
+				low = mid + 1;
+			}else{
+				high = mid;
+			}
+		}
+		
+		return low;
+	}
+	
+	/**
+	 * Merges two sorted ranges of distinct values and writes the values present in
+	 * either range to the given output array. The merge loop is branch free, each step
+	 * writes the smallest of the two current values and advances all ranges whose current
+	 * value was written. Once either range is exhausted the rest of the other range is copied.
+	 * @param left The array containing the first range.
+	 * @param lf The start index of the first range (inclusive).
+	 * @param lt The end index of the first range (exclusive).
+	 * @param right The array containing the second range.
+	 * @param rf The start index of the second range (inclusive).
+	 * @param rt The end index of the second range (exclusive).
+	 * @param out The array to write the union to, this array needs to have space
+	 *        for at least as many values as there are in the two ranges combined.
+	 * @param offset The index in the output array to write the first value to.
+	 * @return The number of values written to the output array, written values are sorted.
+	 */
+	public static int union(int[] left, int lf, int lt, int[] right, int rf, int rt, int[] out, int offset){
+		int idx = offset;
+		while(lf < lt && rf < rt){
+			final int l = left[lf];
+			final int r = right[rf];
+			out[idx++] = Math.min(l, r);
+			lf += l <= r ? 1 : 0;
+			rf += r <= l ? 1 : 0;
+		}
+		
+		System.arraycopy(left, lf, out, idx, lt - lf);
+		idx += lt - lf;
+		System.arraycopy(right, rf, out, idx, rt - rf);
+		return idx + rt - rf - offset;
+	}
+	
+	/**
+	 * Intersects two sorted ranges of distinct values and writes the values present in
+	 * both ranges to the given output array. If the sizes of the two ranges are similar
+	 * a branch free linear merge is used, otherwise each value of the smaller range is
+	 * found in the larger range using a {@link #gallop(int[], int, int, int) galloping} search.
+	 * @param left The array containing the first range.
+	 * @param lf The start index of the first range (inclusive).
+	 * @param lt The end index of the first range (exclusive).
+	 * @param right The array containing the second range.
+	 * @param rf The start index of the second range (inclusive).
+	 * @param rt The end index of the second range (exclusive).
+	 * @param out The array to write the intersection to, this array needs to have space
+	 *        for at least as many values as there are in the smaller of the two ranges.
+	 * @param offset The index in the output array to write the first value to.
+	 * @return The number of values written to the output array, written values are sorted.
+	 */
+	public static int intersect(int[] left, int lf, int lt, int[] right, int rf, int rt, int[] out, int offset){
+		final long ln = lt - lf;
+		final long rn = rt - rf;
+		if(ln * GALLOP_RATIO < rn){
+			return gallopIntersect(left, lf, lt, right, rf, rt, out, offset);
+		}else if(rn * GALLOP_RATIO < ln){
+			return gallopIntersect(right, rf, rt, left, lf, lt, out, offset);
+		}
+		
+		//values are written speculatively and only kept on a match, this never writes past
+		//the space for the smaller range because a range is exhausted once all its values matched
+		int idx = offset;
+		while(lf < lt && rf < rt){
+			final int l = left[lf];
+			final int r = right[rf];
+			out[idx] = l;
+			idx += l == r ? 1 : 0;
+			lf += l <= r ? 1 : 0;
+			rf += r <= l ? 1 : 0;
+		}
+		
+		return idx - offset;
+	}
+	
+	/**
+	 * Intersects two sorted ranges of distinct values by searching the larger
+	 * range for each value in the smaller range.
+	 * @param small The array containing the smaller range.
+	 * @param sf The start index of the smaller range (inclusive).
+	 * @param st The end index of the smaller range (exclusive).
+	 * @param large The array containing the larger range.
+	 * @param lf The start index of the larger range (inclusive).
+	 * @param lt The end index of the larger range (exclusive).
+	 * @param out The array to write the intersection to.
+	 * @param offset The index in the output array to write the first value to.
+	 * @return The number of values written to the output array.
+	 * @see #intersect(int[], int, int, int[], int, int, int[], int)
+	 */
+	private static int gallopIntersect(int[] small, int sf, int st, int[] large, int lf, int lt, int[] out, int offset){
+		int idx = offset;
+		for(int i = sf; i < st && lf < lt; i++){
+			final int value = small[i];
+			lf = gallop(large, lf, lt, value);
+			if(lf < lt && large[lf] == value){
+				out[idx++] = value;
+				lf++;
+			}
+		}
+		
+		return idx - offset;
+	}
 }
@@ -0,0 +1,175 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import dev.roanh.gmark.data.CardStat;
+import dev.roanh.gmark.data.SourceTargetPair;
+import dev.roanh.gmark.lang.cpq.CPQ;
+import dev.roanh.gmark.lang.rpq.RPQ;
+import dev.roanh.gmark.type.schema.Predicate;
+import dev.roanh.gmark.util.Util;
+import dev.roanh.gmark.util.graph.generic.IntGraph;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class AutomatonQueryEvaluatorTest{
+	private static final Predicate l0 = new Predicate(0, "0");
+	private static final Predicate l1 = new Predicate(1, "1");
+	private static final Predicate l8 = new Predicate(8, "8");
+	private static final Predicate l9 = new Predicate(9, "9");
+	private AutomatonQueryEvaluator example;
+	private AutomatonQueryEvaluator syn1;
+	private AutomatonQueryEvaluator real1;
+	
+	@BeforeAll
+	public void loadData() throws IOException{
+		example = new AutomatonQueryEvaluator(getGraph());
+		syn1 = new AutomatonQueryEvaluator(new DatabaseGraph(Util.readGraph(ClassLoader.getSystemResourceAsStream("workload/syn/1/graph.edge"))));
+		real1 = new AutomatonQueryEvaluator(new DatabaseGraph(Util.readGraph(ClassLoader.getSystemResourceAsStream("workload/real/1/graph.edge"))));
+	}
+	
+	@Test
+	public void source0(){
+		ResultGraph result = example.evaluate(PathQuery.of(1, RPQ.kleene(RPQ.label(l0))));
+		
+		assertTrue(result.isSorted());
+		assertPaths(result, List.of(
+			new SourceTargetPair(1, 0),
+			new SourceTargetPair(1, 3),
+			new SourceTargetPair(1, 6),
+			new SourceTargetPair(1, 8),
+			new SourceTargetPair(1, 9),
+			new SourceTargetPair(1, 10),
+			new SourceTargetPair(1, 11),
+			new SourceTargetPair(1, 12)
+		));
+	}
+	
+	@Test
+	public void source1(){
+		ResultGraph result = example.evaluate(PathQuery.of(1, RPQ.concat(RPQ.kleene(RPQ.label(l0)), RPQ.label(l1))));
+		
+		assertPaths(result, List.of(
+			new SourceTargetPair(1, 2),
+			new SourceTargetPair(1, 13)
+		));
+	}
+	
+	@Test
+	public void target0(){
+		ResultGraph result = example.evaluate(PathQuery.of(RPQ.kleene(RPQ.label(l0)), 11));
+		
+		assertTrue(result.isSorted());
+		assertPaths(result, List.of(
+			new SourceTargetPair(1, 11),
+			new SourceTargetPair(3, 11),
+			new SourceTargetPair(4, 11),
+			new SourceTargetPair(5, 11),
+			new SourceTargetPair(6, 11),
+			new SourceTargetPair(7, 11),
+			new SourceTargetPair(8, 11),
+			new SourceTargetPair(9, 11),
+			new SourceTargetPair(10, 11),
+			new SourceTargetPair(12, 11)
+		));
+	}
+	
+	@Test
+	public void exact0(){
+		assertPaths(example.evaluate(PathQuery.of(1, RPQ.kleene(RPQ.label(l0)), 12)), List.of(new SourceTargetPair(1, 12)));
+	}
+	
+	@Test
+	public void exact1(){
+		assertPaths(example.evaluate(PathQuery.of(12, RPQ.kleene(RPQ.label(l0)), 1)), List.of());
+	}
+	
+	@Test
+	public void unsupported(){
+		assertThrows(IllegalArgumentException.class, ()->example.evaluate(PathQuery.of(CPQ.intersect(CPQ.label(l0), CPQ.id()))));
+	}
+	
+	@Test
+	public void syn1q0(){
+		assertEquals(new CardStat(6234, 37006, 4491), syn1.evaluate(PathQuery.of(RPQ.kleene(l0, l1))).computeCardinality());
+	}
+	
+	@Test
+	public void syn1q1(){
+		assertEquals(new CardStat(3841, 7067, 4000), syn1.evaluate(PathQuery.of(RPQ.kleene(RPQ.label(l0)))).computeCardinality());
+	}
+	
+	@Test
+	public void real1q0(){
+		assertEquals(new CardStat(595, 3455, 17), real1.evaluate(PathQuery.of(RPQ.concat(RPQ.label(l1), RPQ.kleene(RPQ.label(l8)), RPQ.kleene(RPQ.label(l9))))).computeCardinality());
+	}
+	
+	@Test
+	public void real1q1(){
+		assertEquals(new CardStat(1, 3, 3), real1.evaluate(PathQuery.of(227, RPQ.kleene(l1, l8))).computeCardinality());
+	}
+	
+	private void assertPaths(ResultGraph result, List<SourceTargetPair> expected){
+		assertIterableEquals(expected, result.getSourceTargetPairs().stream().sorted().toList());
+	}
+	
+	private DatabaseGraph getGraph(){
+		IntGraph graph = new IntGraph(14, 2);
+		graph.addEdge(0, 2, 1);
+		graph.addEdge(1, 0, 0);
+		graph.addEdge(1, 2, 1);
+		graph.addEdge(1, 3, 0);
+		graph.addEdge(3, 2, 1);
+		graph.addEdge(3, 6, 0);
+		graph.addEdge(3, 9, 0);
+		graph.addEdge(4, 2, 1);
+		graph.addEdge(4, 7, 0);
+		graph.addEdge(5, 4, 0);
+		graph.addEdge(5, 2, 1);
+		graph.addEdge(6, 8, 0);
+		graph.addEdge(6, 10, 0);
+		graph.addEdge(6, 2, 1);
+		graph.addEdge(7, 5, 0);
+		graph.addEdge(7, 2, 1);
+		graph.addEdge(7, 10, 0);
+		graph.addEdge(8, 12, 0);
+		graph.addEdge(8, 13, 1);
+		graph.addEdge(9, 8, 0);
+		graph.addEdge(9, 13, 1);
+		graph.addEdge(10, 2, 1);
+		graph.addEdge(10, 11, 0);
+		graph.addEdge(11, 0, 0);
+		graph.addEdge(11, 2, 1);
+		graph.addEdge(12, 11, 0);
+		graph.addEdge(12, 13, 1);
+		return new DatabaseGraph(graph);
+	}
+}
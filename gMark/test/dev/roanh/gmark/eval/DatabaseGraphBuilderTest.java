@@ -0,0 +1,112 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.gmark.type.schema.Predicate;
+
+public class DatabaseGraphBuilderTest{
+	private static final Predicate l0 = new Predicate(0, "0");
+	private static final Predicate l1 = new Predicate(1, "1");
+	
+	@Test
+	public void build(){
+		DatabaseGraphBuilder builder = new DatabaseGraphBuilder(8, 2, 1);
+		builder.addEdge(1, 4, 0);
+		builder.addEdge(4, 6, 0);
+		builder.addEdge(3, 4, 0);
+		builder.addEdge(5, 4, 1);
+		builder.addEdge(6, 7, 1);
+		builder.addEdge(2, 3, 0);
+		builder.addEdge(3, 4, 0);//duplicate
+		builder.addEdge(5, 4, 1);//duplicate
+		builder.addEdge(6, 7, 1);//duplicate
+		builder.addEdge(5, 4, 1);//duplicate
+		builder.addEdge(6, 7, 1);//duplicate
+		builder.addEdge(7, 5, 1);
+		builder.addEdge(7, 0, 0);
+		assertEquals(13, builder.getEdgeCount());
+		
+		DatabaseGraph db = builder.build();
+		assertEquals(5, db.getEdgeCount(l0));
+		assertEquals(3, db.getEdgeCount(l1));
+		assertEquals(8, db.getVertexCount());
+		assertEquals(8, db.getEdgeCount());
+		assertEquals(2, db.getLabelCount());
+		
+		assertArrayEquals(
+			new int[]{9, 9, 13, 17, 21, 25, 29, 33, 38, 12, 13, 13, 4, 16, 17, 17, 3, 20, 21, 21, 4, 24, 25, 25, 6, 28, 28, 29, 4, 32, 32, 33, 7, 36, 37, 38, 0, 5, 0, 0, 0, 0, 0},
+			db.getData()
+		);
+		
+		assertArrayEquals(
+			new int[]{9, 13, 13, 13, 17, 23, 27, 31, 35, 12, 13, 13, 7, 16, 17, 17, 2, 20, 22, 23, 1, 3, 5, 26, 26, 27, 7, 30, 31, 31, 4, 34, 34, 35, 6, 0, 0, 0, 0, 0},
+			db.getReverseData()
+		);
+	}
+	
+	@Test
+	public void empty(){
+		DatabaseGraph db = new DatabaseGraphBuilder(3, 2).build();
+		assertEquals(0, db.getEdgeCount());
+		assertEquals(0, db.getEdgeCount(l0));
+		assertEquals(0, db.getEdgeCount(l1));
+		assertArrayEquals(new int[]{4, 4, 4, 4}, db.getData());
+	}
+	
+	@Test
+	public void parallel(){
+		Random random = new Random(12345L);
+		DatabaseGraphBuilder builder = new DatabaseGraphBuilder(2000, 5);
+		for(int i = 0; i < 200000; i++){
+			builder.addEdge(random.nextInt(2000), random.nextInt(2000), random.nextInt(5));
+			if(i % 10 == 0){
+				builder.addEdge(0, random.nextInt(50), random.nextInt(5));
+			}
+		}
+		
+		DatabaseGraph sequential = builder.build();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			DatabaseGraph parallel = builder.build(pool);
+			assertEquals(sequential.getEdgeCount(), parallel.getEdgeCount());
+			assertArrayEquals(sequential.getData(), parallel.getData());
+			assertArrayEquals(sequential.getReverseData(), parallel.getReverseData());
+		}finally{
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void outOfBounds(){
+		DatabaseGraphBuilder builder = new DatabaseGraphBuilder(3, 2);
+		assertThrows(IllegalArgumentException.class, ()->builder.addEdge(3, 0, 0));
+		assertThrows(IllegalArgumentException.class, ()->builder.addEdge(0, -1, 0));
+		assertThrows(IllegalArgumentException.class, ()->builder.addEdge(0, 0, 2));
+		assertEquals(0, builder.getEdgeCount());
+	}
+}
@@ -20,12 +20,22 @@ package dev.roanh.gmark.eval;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Test;
 
+import dev.roanh.gmark.data.CardStat;
 import dev.roanh.gmark.data.SourceTargetPair;
 import dev.roanh.gmark.type.schema.Predicate;
 import dev.roanh.gmark.util.graph.generic.IntGraph;
@@ -33,7 +43,7 @@ import dev.roanh.gmark.util.graph.generic.IntGraph;
 public class DatabaseGraphTest{
 	private static final Predicate l0 = new Predicate(0, "0");
 	private static final Predicate l1 = new Predicate(1, "1");
-
+	
 	@Test
 	public void construct(){
 		IntGraph graph = createGraph();
@@ -57,6 +67,99 @@ public class DatabaseGraphTest{
 		);
 	}
 	
+	@Test
+	public void statistics(){
+		DatabaseGraph db = createDatabaseGraph();
+		assertEquals(5, db.getSourceCount(l0));
+		assertEquals(4, db.getTargetCount(l0));
+		assertEquals(3, db.getSourceCount(l1));
+		assertEquals(3, db.getTargetCount(l1));
+		assertEquals(4, db.getSourceCount(l0.getInverse()));
+		assertEquals(5, db.getTargetCount(l0.getInverse()));
+	}
+	
+	@Test
+	public void pathStatistics0(){
+		DatabaseGraph db = createDatabaseGraph();
+		assertFalse(db.hasPathStatistics());
+		assertEquals(new CardStat(5, 5, 4), db.getStatistics(l0));
+		assertEquals(new CardStat(3, 3, 2), db.getStatistics(l0, l0));
+		assertTrue(db.hasPathStatistics());
+		assertEquals(new CardStat(5, 7, 5), db.getStatistics(l0, l0.getInverse()));
+		assertEquals(new CardStat(2, 2, 2), db.getStatistics(l1, l0));
+		assertEquals(new CardStat(2, 2, 2), db.getStatistics(l0.getInverse(), l1.getInverse()));
+		assertEquals(new CardStat(1, 1, 1), db.getStatistics(l0.getInverse(), l1));
+		assertEquals(new CardStat(3, 3, 3), db.getStatistics(l1.getInverse(), l1));
+	}
+	
+	@Test
+	public void pathStatistics1(){
+		Random random = new Random(12345L);
+		DatabaseGraphBuilder builder = new DatabaseGraphBuilder(2000, 3);
+		for(int i = 0; i < 80000; i++){
+			builder.addEdge(random.nextInt(2000), random.nextInt(2000), random.nextInt(3));
+		}
+		
+		DatabaseGraph sequential = builder.build();
+		DatabaseGraph parallel = builder.build();
+		sequential.computePathStatistics(null);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			parallel.computePathStatistics(pool);
+		}finally{
+			pool.shutdown();
+		}
+		
+		for(Predicate first : List.of(l0, l1, l0.getInverse(), l1.getInverse())){
+			for(Predicate second : List.of(l0, l1, l0.getInverse(), l1.getInverse())){
+				assertEquals(sequential.getStatistics(first, second), parallel.getStatistics(first, second));
+			}
+		}
+	}
+	
+	@Test
+	public void partitions0(){
+		DatabaseGraph db = createDatabaseGraph();
+		assertFalse(db.hasLabelPartitions());
+		db.selectLabel(l0);
+		assertFalse(db.hasLabelPartitions());
+		
+		assertPaths(db.selectLabelPartitioned(l0), List.of(
+			new SourceTargetPair(1, 4),
+			new SourceTargetPair(2, 3),
+			new SourceTargetPair(3, 4),
+			new SourceTargetPair(4, 6),
+			new SourceTargetPair(7, 0)
+		));
+		assertTrue(db.hasLabelPartitions());
+		
+		assertPaths(db.selectLabelPartitioned(l1.getInverse()), List.of(
+			new SourceTargetPair(4, 5),
+			new SourceTargetPair(5, 7),
+			new SourceTargetPair(7, 6)
+		));
+	}
+	
+	@Test
+	public void partitions1(){
+		Random random = new Random(12345L);
+		DatabaseGraphBuilder builder = new DatabaseGraphBuilder(500, 6);
+		for(int i = 0; i < 3000; i++){
+			builder.addEdge(random.nextInt(500), random.nextInt(500), random.nextInt(5));
+		}
+		
+		DatabaseGraph graph = builder.build();
+		graph.computeLabelPartitions();
+		for(Predicate label : graph.getLabels()){
+			for(Predicate predicate : List.of(label, label.getInverse())){
+				ResultGraph partitioned = graph.selectLabelPartitioned(predicate);
+				assertIterableEquals(graph.selectLabel(predicate).getSourceTargetPairs(), partitioned.getSourceTargetPairs());
+				assertEquals(graph.selectLabel(predicate).computeCardinality(), partitioned.computeCardinality());
+				assertTrue(partitioned.isSorted());
+			}
+		}
+	}
+	
 	@Test
 	public void select0(){
 		ResultGraph result = createDatabaseGraph().selectLabel(l0);
@@ -105,6 +208,11 @@ public class DatabaseGraphTest{
 		assertPaths(createDatabaseGraph().selectLabel(l1, 6), List.of());
 	}
 	
+	@Test
+	public void selectTarget3(){
+		assertPaths(createDatabaseGraph().selectLabel(l0, 1), List.of());
+	}
+	
 	@Test
 	public void selectTarget4(){
 		ResultGraph result = createDatabaseGraph().selectLabel(l0.getInverse(), 4);
@@ -151,6 +259,16 @@ public class DatabaseGraphTest{
 		));
 	}
 	
+	@Test
+	public void selectSource4(){
+		assertPaths(createDatabaseGraph().selectLabel(0, l0), List.of());
+	}
+	
+	@Test
+	public void selectSource5(){
+		assertPaths(createDatabaseGraph().selectLabel(1, l0.getInverse()), List.of());
+	}
+	
 	@Test
 	public void selectExact0(){
 		ResultGraph result = createDatabaseGraph().selectLabel(4, l0, 6);
@@ -176,6 +294,11 @@ public class DatabaseGraphTest{
 		));
 	}
 	
+	@Test
+	public void selectExact3(){
+		assertPaths(createDatabaseGraph().selectLabel(0, l0, 4), List.of());
+	}
+	
 	@Test
 	public void selectInv0(){
 		ResultGraph result = createDatabaseGraph().selectLabel(l0.getInverse());
@@ -200,6 +323,38 @@ public class DatabaseGraphTest{
 		));
 	}
 	
+	@Test
+	public void selectTargets0(){
+		assertArrayEquals(new int[]{0, 3, 4}, createDatabaseGraph().selectTargets(new int[]{0, 1, 2, 3, 7}, l0));
+	}
+	
+	@Test
+	public void selectTargets1(){
+		assertArrayEquals(new int[]{5, 6}, createDatabaseGraph().selectTargets(new int[]{4, 7}, l1.getInverse()));
+	}
+	
+	@Test
+	public void selectTargets2(){
+		assertArrayEquals(new int[0], createDatabaseGraph().selectTargets(new int[]{0, 1}, l1));
+	}
+	
+	@Test
+	public void selectTargetLists0(){
+		int[][] targets = createDatabaseGraph().selectTargetLists(new int[]{0, 3, 4}, l0.getInverse());
+		assertEquals(3, targets.length);
+		assertArrayEquals(new int[]{7}, targets[0]);
+		assertArrayEquals(new int[]{2}, targets[1]);
+		assertArrayEquals(new int[]{1, 3}, targets[2]);
+	}
+	
+	@Test
+	public void selectTargetLists1(){
+		int[][] targets = createDatabaseGraph().selectTargetLists(new int[]{0, 5}, l0);
+		assertEquals(2, targets.length);
+		assertArrayEquals(new int[0], targets[0]);
+		assertArrayEquals(new int[0], targets[1]);
+	}
+	
 	@Test
 	public void id0(){
 		ResultGraph result = createDatabaseGraph().selectIdentity();
@@ -225,6 +380,41 @@ public class DatabaseGraphTest{
 		));
 	}
 	
+	@Test
+	public void binary0() throws IOException{
+		DatabaseGraph db = createDatabaseGraph();
+		Path file = Files.createTempFile(null, ".slt");
+		db.write(file);
+		
+		DatabaseGraph read = DatabaseGraph.read(file);
+		assertEquals(db.getVertexCount(), read.getVertexCount());
+		assertEquals(db.getEdgeCount(), read.getEdgeCount());
+		assertEquals(db.getLabelCount(), read.getLabelCount());
+		assertEquals(5, read.getEdgeCount(l0));
+		assertEquals(3, read.getEdgeCount(l1));
+		assertArrayEquals(db.getData(), read.getData());
+		assertArrayEquals(db.getReverseData(), read.getReverseData());
+		
+		Files.delete(file);
+	}
+	
+	@Test
+	public void binary1() throws IOException{
+		Path file = Files.createTempFile(null, ".slt");
+		Files.writeString(file, "8 13 2");
+		assertThrows(IOException.class, ()->DatabaseGraph.read(file));
+		Files.delete(file);
+	}
+	
+	@Test
+	public void binary2() throws IOException{
+		Path file = Files.createTempFile(null, ".slt");
+		createDatabaseGraph().write(file);
+		Files.write(file, Arrays.copyOf(Files.readAllBytes(file), 40));
+		assertThrows(IOException.class, ()->DatabaseGraph.read(file));
+		Files.delete(file);
+	}
+	
 	private void assertPaths(ResultGraph result, List<SourceTargetPair> expected){
 		assertIterableEquals(expected, result.getSourceTargetPairs().stream().toList());
 	}
@@ -0,0 +1,93 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.gmark.util.Util;
+
+public class EdgeListReaderTest{
+
+	@Test
+	public void syn1() throws IOException, URISyntaxException{
+		assertSameGraph("workload/syn/1/graph.edge");
+	}
+	
+	@Test
+	public void real2() throws IOException, URISyntaxException{
+		assertSameGraph("workload/real/2/graph.edge");
+	}
+	
+	@Test
+	public void blankLines() throws IOException{
+		Path file = Files.createTempFile(null, ".edge");
+		Files.writeString(file, "3 3 1\r\n0 1 0\r\n\r\n1 2 0\n\n0 1 0");
+		
+		DatabaseGraph graph = EdgeListReader.read(file);
+		assertEquals(3, graph.getVertexCount());
+		assertEquals(1, graph.getLabelCount());
+		assertEquals(2, graph.getEdgeCount());
+		Files.delete(file);
+	}
+	
+	@Test
+	public void malformed() throws IOException{
+		Path file = Files.createTempFile(null, ".edge");
+		Files.writeString(file, "3 1 1\n0 1\n");
+		assertThrows(IllegalArgumentException.class, ()->EdgeListReader.read(file));
+		Files.delete(file);
+	}
+	
+	@Test
+	public void outOfBounds() throws IOException{
+		Path file = Files.createTempFile(null, ".edge");
+		Files.writeString(file, "3 1 1\n0 5 0\n");
+		assertThrows(IllegalArgumentException.class, ()->EdgeListReader.read(file));
+		Files.delete(file);
+	}
+	
+	@Test
+	public void noHeader() throws IOException{
+		Path file = Files.createTempFile(null, ".edge");
+		assertThrows(IOException.class, ()->EdgeListReader.read(file));
+		Files.delete(file);
+	}
+	
+	private static void assertSameGraph(String resource) throws IOException, URISyntaxException{
+		Path file = Paths.get(ClassLoader.getSystemResource(resource).toURI());
+		DatabaseGraph expected = new DatabaseGraph(Util.readGraph(file));
+		DatabaseGraph graph = EdgeListReader.read(file);
+		
+		assertEquals(expected.getVertexCount(), graph.getVertexCount());
+		assertEquals(expected.getEdgeCount(), graph.getEdgeCount());
+		assertEquals(expected.getLabelCount(), graph.getLabelCount());
+		assertArrayEquals(expected.getData(), graph.getData());
+		assertArrayEquals(expected.getReverseData(), graph.getReverseData());
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.gmark.data.CardStat;
+import dev.roanh.gmark.data.SourceTargetPair;
+import dev.roanh.gmark.lang.cpq.CPQ;
+import dev.roanh.gmark.lang.rpq.RPQ;
+import dev.roanh.gmark.type.schema.Predicate;
+
+public class LeapfrogQueryEvaluatorTest{
+	private static final Predicate l0 = new Predicate(0, "0");
+	private static final Predicate l1 = new Predicate(1, "1");
+	private static final Predicate l2 = new Predicate(2, "2");
+	private final DatabaseGraph graph = createGraph();
+	private final LeapfrogQueryEvaluator evaluator = new LeapfrogQueryEvaluator(graph);
+	
+	@Test
+	public void cyclic0(){
+		assertTrue(LeapfrogQueryEvaluator.isCyclic(CPQ.intersect(CPQ.labels(l0, l1), CPQ.label(l2.getInverse())).toAbstractSyntaxTree()));
+	}
+	
+	@Test
+	public void cyclic1(){
+		assertFalse(LeapfrogQueryEvaluator.isCyclic(CPQ.intersect(CPQ.label(l0), CPQ.label(l1)).toAbstractSyntaxTree()));
+	}
+	
+	@Test
+	public void cyclic2(){
+		assertFalse(LeapfrogQueryEvaluator.isCyclic(CPQ.intersect(CPQ.labels(l0, l1), CPQ.id()).toAbstractSyntaxTree()));
+	}
+	
+	@Test
+	public void cyclic3(){
+		assertTrue(LeapfrogQueryEvaluator.isCyclic(CPQ.intersect(CPQ.labels(l0, l1, l2), CPQ.id()).toAbstractSyntaxTree()));
+	}
+	
+	@Test
+	public void triangle0(){
+		assertPaths(evaluator.evaluate(PathQuery.of(CPQ.intersect(CPQ.labels(l0, l1), CPQ.label(l2.getInverse())))), List.of(
+			new SourceTargetPair(0, 2),
+			new SourceTargetPair(3, 2)
+		));
+	}
+	
+	@Test
+	public void triangle1(){
+		assertPaths(evaluator.evaluate(PathQuery.of(3, CPQ.intersect(CPQ.labels(l0, l1), CPQ.label(l2.getInverse())))), List.of(
+			new SourceTargetPair(3, 2)
+		));
+	}
+	
+	@Test
+	public void triangle2(){
+		assertPaths(evaluator.evaluate(PathQuery.of(CPQ.intersect(CPQ.labels(l0, l1), CPQ.label(l2.getInverse())), 2)), List.of(
+			new SourceTargetPair(0, 2),
+			new SourceTargetPair(3, 2)
+		));
+	}
+	
+	@Test
+	public void triangle3(){
+		assertEquals(new CardStat(0, 0, 0), evaluator.evaluate(PathQuery.of(4, CPQ.intersect(CPQ.labels(l0, l1), CPQ.label(l2.getInverse())), 2)).computeCardinality());
+	}
+	
+	@Test
+	public void loop(){
+		assertPaths(evaluator.evaluate(PathQuery.of(CPQ.intersect(CPQ.labels(l0, l1, l2), CPQ.id()))), List.of(
+			new SourceTargetPair(0, 0),
+			new SourceTargetPair(3, 3)
+		));
+	}
+	
+	@Test
+	public void unsupported(){
+		assertThrows(IllegalArgumentException.class, ()->evaluator.evaluate(PathQuery.of(RPQ.kleene(RPQ.label(l0)))));
+	}
+	
+	@Test
+	public void evaluate(){
+		ReachabilityQueryEvaluator joined = new ReachabilityQueryEvaluator(graph);
+		ReachabilityQueryEvaluator bottomUp = new ReachabilityQueryEvaluator(graph);
+		bottomUp.setLeapfrogJoins(false);
+		
+		for(CPQ query : List.of(
+			CPQ.intersect(CPQ.labels(l0, l1), CPQ.label(l2.getInverse())),
+			CPQ.intersect(CPQ.labels(l0, l1), CPQ.labels(l0, l0.getInverse(), l0, l1)),
+			CPQ.concat(CPQ.label(l2), CPQ.intersect(CPQ.labels(l0, l1, l2), CPQ.id()), CPQ.label(l0))
+		)){
+			for(PathQuery path : List.of(PathQuery.of(query), PathQuery.of(0, query), PathQuery.of(query, 2), PathQuery.of(3, query, 2))){
+				assertIterableEquals(
+					bottomUp.evaluate(path).getSourceTargetPairs().stream().sorted().toList(),
+					joined.evaluate(path).getSourceTargetPairs().stream().sorted().toList()
+				);
+			}
+		}
+	}
+	
+	private void assertPaths(ResultGraph result, List<SourceTargetPair> expected){
+		assertIterableEquals(expected, result.getSourceTargetPairs().stream().sorted().toList());
+	}
+	
+	private static DatabaseGraph createGraph(){
+		/*
+		 * 0 --0-> 1 --1-> 2 --2-> 0
+		 * 3 --0-> 1       2 --2-> 3
+		 * 4 --0-> 5 --1-> 2
+		 */
+		
+		DatabaseGraphBuilder builder = new DatabaseGraphBuilder(6, 3);
+		builder.addEdge(0, 1, 0);
+		builder.addEdge(3, 1, 0);
+		builder.addEdge(4, 5, 0);
+		builder.addEdge(1, 2, 1);
+		builder.addEdge(5, 2, 1);
+		builder.addEdge(2, 0, 2);
+		builder.addEdge(2, 3, 2);
+		return builder.build();
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import dev.roanh.gmark.ast.QueryTree;
+import dev.roanh.gmark.data.CardStat;
+import dev.roanh.gmark.lang.cpq.CPQ;
+import dev.roanh.gmark.lang.rpq.RPQ;
+import dev.roanh.gmark.type.schema.Predicate;
+import dev.roanh.gmark.util.Util;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class QueryCacheTest{
+	private static final Predicate l0 = new Predicate(0, "0");
+	private static final Predicate l1 = new Predicate(1, "1");
+	private static final Predicate l6 = new Predicate(6, "6");
+	private static final Predicate l8 = new Predicate(8, "8");
+	private static final Predicate l12 = new Predicate(12, "12");
+	private static final Predicate l30 = new Predicate(30, "30");
+	private DatabaseGraph real1;
+	
+	@BeforeAll
+	public void loadData() throws IOException{
+		real1 = new DatabaseGraph(Util.readGraph(ClassLoader.getSystemResourceAsStream("workload/real/1/graph.edge")));
+	}
+	
+	@Test
+	public void canonical0(){
+		assertEquals(
+			QueryCache.toCanonicalForm(CPQ.intersect(CPQ.label(l0), CPQ.label(l1)).toAbstractSyntaxTree()),
+			QueryCache.toCanonicalForm(CPQ.intersect(CPQ.label(l1), CPQ.label(l0)).toAbstractSyntaxTree())
+		);
+	}
+	
+	@Test
+	public void canonical1(){
+		assertNotEquals(
+			QueryCache.toCanonicalForm(CPQ.labels(l0, l1).toAbstractSyntaxTree()),
+			QueryCache.toCanonicalForm(CPQ.labels(l1, l0).toAbstractSyntaxTree())
+		);
+	}
+	
+	@Test
+	public void canonical2(){
+		assertNotEquals(
+			QueryCache.toCanonicalForm(CPQ.label(l0).toAbstractSyntaxTree()),
+			QueryCache.toCanonicalForm(CPQ.label(l0.getInverse()).toAbstractSyntaxTree())
+		);
+	}
+	
+	@Test
+	public void canonical3(){
+		assertEquals(
+			QueryCache.toCanonicalForm(RPQ.disjunct(RPQ.kleene(RPQ.label(l0)), RPQ.label(l1)).toAbstractSyntaxTree()),
+			QueryCache.toCanonicalForm(RPQ.disjunct(RPQ.label(l1), RPQ.kleene(RPQ.label(l0))).toAbstractSyntaxTree())
+		);
+	}
+	
+	@Test
+	public void lookup(){
+		QueryCache cache = new QueryCache(1024);
+		QueryTree path = CPQ.labels(l0, l1).toAbstractSyntaxTree();
+		ResultGraph result = ResultGraph.single(4, 1, 2);
+		
+		assertNull(cache.get(-1, path, -1));
+		cache.put(-1, path, -1, result);
+		assertSame(result, cache.get(-1, path, -1));
+		assertNull(cache.get(1, path, -1));
+		assertNull(cache.get(-1, path, 2));
+		
+		assertEquals(1, cache.getHitCount());
+		assertEquals(3, cache.getMissCount());
+		assertEquals(1, cache.getSize());
+	}
+	
+	@Test
+	public void evict(){
+		QueryCache cache = new QueryCache(200);
+		QueryTree q0 = CPQ.label(l0).toAbstractSyntaxTree();
+		QueryTree q1 = CPQ.label(l1).toAbstractSyntaxTree();
+		QueryTree q2 = CPQ.label(l6).toAbstractSyntaxTree();
+		
+		cache.put(-1, q0, -1, ResultGraph.single(4, 1, 2));
+		cache.put(-1, q1, -1, ResultGraph.single(4, 1, 3));
+		assertEquals(2, cache.getSize());
+		
+		cache.get(-1, q0, -1);
+		cache.put(-1, q2, -1, ResultGraph.single(4, 2, 3));
+		assertEquals(2, cache.getSize());
+		assertTrue(cache.getWeight() <= cache.getCapacity());
+		assertNull(cache.get(-1, q1, -1));
+	}
+	
+	@Test
+	public void tooLarge(){
+		QueryCache cache = new QueryCache(16);
+		QueryTree path = CPQ.label(l0).toAbstractSyntaxTree();
+		cache.put(-1, path, -1, ResultGraph.single(4, 1, 2));
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cache.getWeight());
+	}
+	
+	@Test
+	public void negative(){
+		assertThrows(IllegalArgumentException.class, ()->new QueryCache(-1));
+	}
+	
+	@Test
+	public void evaluate(){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(real1);
+		QueryCache cache = new QueryCache(1 << 24);
+		evaluator.setCache(cache);
+		
+		assertEquals(new CardStat(646, 46395, 259), evaluator.evaluate(PathQuery.of(CPQ.labels(l1, l8, l6.getInverse()))).computeCardinality());
+		long misses = cache.getMissCount();
+		assertEquals(0, cache.getHitCount());
+		
+		assertEquals(new CardStat(646, 46395, 259), evaluator.evaluate(PathQuery.of(CPQ.labels(l1, l8, l6.getInverse()))).computeCardinality());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(misses, cache.getMissCount());
+		
+		assertEquals(new CardStat(5, 5, 5), evaluator.evaluate(PathQuery.of(CPQ.intersect(CPQ.labels(l8, l12.getInverse()), CPQ.label(l30.getInverse())))).computeCardinality());
+		assertEquals(new CardStat(5, 5, 5), evaluator.evaluate(PathQuery.of(CPQ.intersect(CPQ.label(l30.getInverse()), CPQ.labels(l8, l12.getInverse())))).computeCardinality());
+		assertEquals(2, cache.getHitCount());
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.gmark.ast.OperationType;
+import dev.roanh.gmark.ast.QueryTree;
+import dev.roanh.gmark.data.CardStat;
+import dev.roanh.gmark.lang.cpq.CPQ;
+import dev.roanh.gmark.type.schema.Predicate;
+
+public class QueryPlannerTest{
+	private static final Predicate l0 = new Predicate(0, "0");
+	private static final Predicate l1 = new Predicate(1, "1");
+	private static final Predicate l2 = new Predicate(2, "2");
+	private final DatabaseGraph graph = createGraph();
+	private final QueryPlanner planner = new QueryPlanner(graph);
+	
+	@Test
+	public void flatten(){
+		QueryTree path = CPQ.concat(CPQ.concat(CPQ.label(l0), CPQ.label(l1)), CPQ.intersect(CPQ.label(l1), CPQ.label(l2)), CPQ.label(l2)).toAbstractSyntaxTree();
+		List<QueryTree> chain = QueryPlanner.flatten(path, OperationType.CONCATENATION);
+		
+		assertEquals(4, chain.size());
+		assertEquals(OperationType.EDGE, chain.get(0).getOperation());
+		assertEquals(l0, chain.get(0).getEdgeAtom().getLabel());
+		assertEquals(l1, chain.get(1).getEdgeAtom().getLabel());
+		assertEquals(OperationType.INTERSECTION, chain.get(2).getOperation());
+		assertEquals(l2, chain.get(3).getEdgeAtom().getLabel());
+	}
+	
+	@Test
+	public void joinOrder0(){
+		List<QueryTree> chain = List.of(CPQ.label(l0).toAbstractSyntaxTree(), CPQ.label(l0.getInverse()).toAbstractSyntaxTree(), CPQ.label(l1).toAbstractSyntaxTree());
+		assertEquals(0, planner.planJoinOrder(-1, chain, -1).getSplit(0, 2));
+	}
+	
+	@Test
+	public void joinOrder1(){
+		List<QueryTree> chain = List.of(CPQ.label(l1).toAbstractSyntaxTree(), CPQ.label(l0).toAbstractSyntaxTree(), CPQ.label(l0.getInverse()).toAbstractSyntaxTree());
+		assertEquals(1, planner.planJoinOrder(-1, chain, -1).getSplit(0, 2));
+	}
+	
+	@Test
+	public void intersectionOrder(){
+		QueryTree large = CPQ.label(l0).toAbstractSyntaxTree();
+		QueryTree small = CPQ.label(l2).toAbstractSyntaxTree();
+		List<QueryTree> order = planner.planIntersectionOrder(-1, List.of(large, small), -1);
+		
+		assertSame(small, order.get(0));
+		assertSame(large, order.get(1));
+	}
+	
+	@Test
+	public void estimate(){
+		QueryPlanner.Estimate estimate = planner.estimate(-1, CPQ.label(l0).toAbstractSyntaxTree(), -1);
+		assertEquals(50.0D, estimate.sources());
+		assertEquals(2500.0D, estimate.paths());
+		assertEquals(50.0D, estimate.targets());
+		
+		estimate = planner.estimate(3, CPQ.label(l0).toAbstractSyntaxTree(), -1);
+		assertEquals(1.0D, estimate.sources());
+		assertEquals(50.0D, estimate.paths());
+	}
+	
+	@Test
+	public void estimatePathStatistics(){
+		graph.computePathStatistics(null);
+		QueryPlanner.Estimate estimate = planner.estimate(-1, CPQ.labels(l0, l1).toAbstractSyntaxTree(), -1);
+		assertEquals(50.0D, estimate.sources());
+		assertEquals(50.0D, estimate.paths());
+		assertEquals(1.0D, estimate.targets());
+	}
+	
+	@Test
+	public void estimatePathStatisticsLazy(){
+		planner.estimate(-1, CPQ.labels(l0, l1).toAbstractSyntaxTree(), -1);
+		assertFalse(graph.hasPathStatistics());
+		
+		planner.setPathStatistics(true);
+		QueryPlanner.Estimate estimate = planner.estimate(-1, CPQ.labels(l0, l1).toAbstractSyntaxTree(), -1);
+		assertTrue(graph.hasPathStatistics());
+		assertEquals(50.0D, estimate.sources());
+		assertEquals(50.0D, estimate.paths());
+		assertEquals(1.0D, estimate.targets());
+	}
+	
+	@Test
+	public void evaluatePathStatistics(){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(graph);
+		ReachabilityQueryEvaluator expected = new ReachabilityQueryEvaluator(createGraph());
+		evaluator.setPathStatistics(true);
+		
+		PathQuery query = PathQuery.of(CPQ.labels(l0, l1, l2.getInverse()));
+		assertEquals(expected.evaluate(query).computeCardinality(), evaluator.evaluate(query).computeCardinality());
+		assertTrue(graph.hasPathStatistics());
+	}
+	
+	@Test
+	public void evaluate(){
+		ReachabilityQueryEvaluator planned = new ReachabilityQueryEvaluator(graph);
+		ReachabilityQueryEvaluator unplanned = new ReachabilityQueryEvaluator(graph);
+		unplanned.setQueryPlanning(false);
+		
+		for(CPQ query : List.of(
+			CPQ.labels(l0, l0.getInverse(), l1),
+			CPQ.labels(l1, l2, l0, l0.getInverse()),
+			CPQ.intersect(CPQ.labels(l0, l1), CPQ.id(), CPQ.labels(l0, l0.getInverse())),
+			CPQ.intersect(CPQ.label(l2), CPQ.labels(l2, l2.getInverse(), l2))
+		)){
+			for(PathQuery path : List.of(PathQuery.of(query), PathQuery.of(0, query), PathQuery.of(query, 60), PathQuery.of(0, query, 60))){
+				assertIterableEquals(
+					unplanned.evaluate(path).getSourceTargetPairs().stream().sorted().toList(),
+					planned.evaluate(path).getSourceTargetPairs().stream().sorted().toList()
+				);
+			}
+		}
+		
+		assertEquals(new CardStat(1, 1, 1), planned.evaluate(PathQuery.of(CPQ.intersect(CPQ.labels(l0, l1), CPQ.id()))).computeCardinality());
+	}
+	
+	private static DatabaseGraph createGraph(){
+		DatabaseGraphBuilder builder = new DatabaseGraphBuilder(100, 3);
+		for(int source = 0; source < 50; source++){
+			for(int target = 50; target < 100; target++){
+				builder.addEdge(source, target, 0);
+			}
+			
+			if(source % 10 == 0){
+				builder.addEdge(source, source + 1, 2);
+			}
+		}
+		
+		builder.addEdge(50, 0, 1);
+		return builder.build();
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.gmark.data.CardStat;
+import dev.roanh.gmark.data.SourceTargetPair;
+
+public class ReachabilityIndexTest{
+
+	@Test
+	public void components(){
+		ReachabilityIndex index = new ReachabilityIndex(getGraph());
+		assertEquals(6, index.getVertexCount());
+		assertEquals(5, index.getComponentCount());
+		assertEquals(3, index.getCondensedEdgeCount());
+	}
+	
+	@Test
+	public void transitiveClosure(){
+		ResultGraph result = new ReachabilityIndex(getGraph()).getTransitiveClosure();
+		assertEquals(new CardStat(5, 15, 6), result.computeCardinality());
+		assertTrue(result.isSorted());
+		assertPaths(result, List.of(
+			new SourceTargetPair(0, 0),
+			new SourceTargetPair(0, 1),
+			new SourceTargetPair(0, 2),
+			new SourceTargetPair(0, 5),
+			new SourceTargetPair(1, 5),
+			new SourceTargetPair(2, 0),
+			new SourceTargetPair(2, 1),
+			new SourceTargetPair(2, 2),
+			new SourceTargetPair(2, 5),
+			new SourceTargetPair(3, 3),
+			new SourceTargetPair(4, 0),
+			new SourceTargetPair(4, 1),
+			new SourceTargetPair(4, 2),
+			new SourceTargetPair(4, 4),
+			new SourceTargetPair(4, 5)
+		));
+	}
+	
+	@Test
+	public void transitiveClosureFrom(){
+		ResultGraph result = new ReachabilityIndex(getGraph()).getTransitiveClosureFrom(2);
+		assertEquals(new CardStat(1, 4, 4), result.computeCardinality());
+		assertTrue(result.isSorted());
+		assertPaths(result, List.of(
+			new SourceTargetPair(2, 0),
+			new SourceTargetPair(2, 1),
+			new SourceTargetPair(2, 2),
+			new SourceTargetPair(2, 5)
+		));
+	}
+	
+	@Test
+	public void transitiveClosureTo(){
+		ResultGraph result = new ReachabilityIndex(getGraph()).getTransitiveClosureTo(1);
+		assertEquals(new CardStat(3, 3, 1), result.computeCardinality());
+		assertTrue(result.isSorted());
+		assertPaths(result, List.of(
+			new SourceTargetPair(0, 1),
+			new SourceTargetPair(2, 1),
+			new SourceTargetPair(4, 1)
+		));
+	}
+	
+	@Test
+	public void reachable(){
+		ReachabilityIndex index = new ReachabilityIndex(getGraph());
+		assertTrue(index.isReachable(4, 5));
+		assertTrue(index.isReachable(0, 0));
+		assertTrue(index.isReachable(3, 3));
+		assertFalse(index.isReachable(1, 1));
+		assertFalse(index.isReachable(5, 0));
+		assertFalse(index.isReachable(0, 4));
+	}
+	
+	private static ResultGraph getGraph(){
+		ResultGraph graph = new ResultGraph(6, 6, false);
+		graph.setActiveSource(0);
+		graph.addTarget(1);
+		graph.addTarget(2);
+		graph.setActiveSource(1);
+		graph.addTarget(5);
+		graph.setActiveSource(2);
+		graph.addTarget(1);
+		graph.addTarget(0);
+		graph.setActiveSource(3);
+		graph.addTarget(3);
+		graph.setActiveSource(4);
+		graph.addTarget(4);
+		graph.addTarget(2);
+		graph.setActiveSource(5);
+		graph.endFinalSource();
+		return graph;
+	}
+	
+	private static void assertPaths(ResultGraph result, List<SourceTargetPair> expected){
+		assertIterableEquals(expected, result.getSourceTargetPairs().stream().toList());
+	}
+}
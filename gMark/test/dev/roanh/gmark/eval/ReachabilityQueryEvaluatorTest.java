@@ -19,10 +19,22 @@
 package dev.roanh.gmark.eval;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -1326,6 +1338,188 @@ public class ReachabilityQueryEvaluatorTest{
 		assertEquals(new CardStat(166, 810, 6), evaluate(real5, CPQ.labels(l2, l4, l3.getInverse())));
 	}
 	
+	@Test
+	public void parallel0(){
+		assertEquals(new CardStat(7178, 185374, 5459), evaluateParallel(syn1, RPQ.kleene(l0, l1, l2)));
+	}
+	
+	@Test
+	public void parallel1(){
+		assertEquals(new CardStat(595, 3455, 17), evaluateParallel(real1, RPQ.concat(RPQ.label(l1), RPQ.kleene(RPQ.label(l8)), RPQ.kleene(RPQ.label(l9)))));
+	}
+	
+	@Test
+	public void parallel2(){
+		assertEquals(new CardStat(513, 2599, 393), evaluateParallel(real2, CPQ.intersect(CPQ.labels(l2, l1.getInverse()), CPQ.labels(l2.getInverse(), l0))));
+	}
+	
+	@Test
+	public void parallel3(){
+		assertEquals(new CardStat(1101, 19187, 244), evaluateParallel(real2, CPQ.concat(CPQ.label(l1), CPQ.intersect(l1.getInverse(), l3), CPQ.label(l3.getInverse()))));
+	}
+	
+	@Test
+	public void reuse0(){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(syn1);
+		assertEquals(-1L, evaluator.getLastAllocatedBytes());
+		
+		ResultGraph first = evaluator.evaluate(PathQuery.of(RPQ.kleene(l0, l1, l2)));
+		assertTrue(evaluator.getLastAllocatedBytes() > 0L);
+		
+		ResultGraph second = evaluator.evaluate(PathQuery.of(CPQ.concat(CPQ.label(l0), CPQ.intersect(CPQ.label(l1), CPQ.label(l2)))));
+		assertEquals(new CardStat(7178, 185374, 5459), first.computeCardinality());
+		assertEquals(evaluate(syn1, CPQ.concat(CPQ.label(l0), CPQ.intersect(CPQ.label(l1), CPQ.label(l2)))), second.computeCardinality());
+	}
+	
+	@Test
+	public void concurrent0() throws InterruptedException, ExecutionException{
+		List<PathQuery> queries = new ArrayList<PathQuery>();
+		for(int i = 0; i < 4; i++){
+			queries.add(PathQuery.of(RPQ.kleene(RPQ.label(l0))));
+			queries.add(PathQuery.of(RPQ.kleene(RPQ.label(l1))));
+			queries.add(PathQuery.of(RPQ.kleene(l0, l1, l2)));
+			queries.add(PathQuery.of(CPQ.labels(l0, l1, l2)));
+			queries.add(PathQuery.of(CPQ.intersect(CPQ.labels(l0, l1), CPQ.id())));
+			queries.add(PathQuery.of(CPQ.concat(CPQ.label(l0), CPQ.intersect(CPQ.label(l1), CPQ.label(l2)))));
+			for(int v = 0; v < 10; v++){
+				queries.add(PathQuery.of(v, CPQ.labels(l0, l1, l2.getInverse())));
+				queries.add(PathQuery.of(CPQ.labels(l0, l1), v));
+			}
+		}
+		
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(syn1);
+		List<ResultGraph> expected = queries.stream().map(evaluator::evaluate).toList();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try{
+			List<Future<ResultGraph>> results = executor.invokeAll(queries.stream().map(query->(Callable<ResultGraph>)()->evaluator.evaluate(query)).toList());
+			for(int i = 0; i < queries.size(); i++){
+				assertIterableEquals(expected.get(i).getSourceTargetPairs(), results.get(i).get().getSourceTargetPairs());
+			}
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void limit0(){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(syn1);
+		PathQuery query = PathQuery.of(RPQ.kleene(l0, l1, l2));
+		
+		List<SourceTargetPair> all = evaluator.evaluate(query).getSourceTargetPairs();
+		List<SourceTargetPair> limited = evaluator.evaluate(query, 100).getSourceTargetPairs();
+		assertEquals(100, limited.size());
+		assertTrue(all.containsAll(limited));
+	}
+	
+	@Test
+	public void limit1(){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(syn1);
+		evaluator.setCache(new QueryCache(1L << 24));
+		PathQuery query = PathQuery.of(CPQ.concat(CPQ.labels(l0, l1), CPQ.intersect(CPQ.label(l2), CPQ.label(l2))));
+		
+		assertEquals(10, evaluator.evaluate(query, 10).getEdgeCount());
+		assertEquals(evaluate(syn1, query.query()), evaluator.evaluate(query).computeCardinality());
+		assertEquals(10, evaluator.evaluate(query, 10).getEdgeCount());
+	}
+	
+	@Test
+	public void limit2(){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(getGraph());
+		assertPaths(evaluator.evaluate(PathQuery.of(1, CPQ.label(l0)), 5), List.of(
+			new SourceTargetPair(1, 0),
+			new SourceTargetPair(1, 3)
+		));
+		assertThrows(IllegalArgumentException.class, ()->evaluator.evaluate(PathQuery.of(CPQ.label(l0)), 0));
+	}
+	
+	@Test
+	public void exists0(){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(getGraph());
+		assertTrue(evaluator.exists(PathQuery.of(0, CPQ.label(l1), 2)));
+		assertTrue(evaluator.exists(PathQuery.of(1, RPQ.kleene(RPQ.label(l0)), 11)));
+		assertTrue(evaluator.exists(PathQuery.of(RPQ.kleene(RPQ.label(l0)))));
+		assertFalse(evaluator.exists(PathQuery.of(0, CPQ.label(l0))));
+		assertFalse(evaluator.exists(PathQuery.of(13, RPQ.kleene(RPQ.label(l0)))));
+	}
+	
+	@Test
+	public void iterate0(){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(syn1);
+		for(PathQuery query : List.of(
+			PathQuery.of(RPQ.kleene(l0, l1, l2)),
+			PathQuery.of(CPQ.concat(CPQ.labels(l0, l1), CPQ.intersect(CPQ.label(l2), CPQ.label(l2)))),
+			PathQuery.of(3, RPQ.concat(RPQ.kleene(l0, l1), RPQ.disjunct(l2, l0))),
+			PathQuery.of(RPQ.concat(RPQ.label(l1), RPQ.kleene(l2)), 47),
+			PathQuery.of(3, RPQ.kleene(l0, l1, l2), 47)
+		)){
+			List<SourceTargetPair> paths = new ArrayList<SourceTargetPair>();
+			evaluator.iterate(query).forEachRemaining(paths::add);
+			assertIterableEquals(evaluator.evaluate(query).getSourceTargetPairs().stream().sorted().toList(), paths);
+		}
+	}
+	
+	@Test
+	public void iterate1(){
+		Iterator<SourceTargetPair> paths = new ReachabilityQueryEvaluator(getGraph()).iterate(PathQuery.of(1, CPQ.label(l0)));
+		assertEquals(new SourceTargetPair(1, 0), paths.next());
+		assertEquals(new SourceTargetPair(1, 3), paths.next());
+		assertFalse(paths.hasNext());
+		assertThrows(NoSuchElementException.class, paths::next);
+	}
+	
+	@Test
+	public void sideways0(){
+		PathQuery query = PathQuery.of(3, CPQ.concat(CPQ.label(l1), CPQ.intersect(l1.getInverse(), l3), CPQ.label(l3.getInverse())));
+		assertEquals(new CardStat(1, 69, 69), evaluateSideways(real2, query, true));
+		assertEquals(new CardStat(1, 69, 69), evaluateSideways(real2, query, false));
+	}
+	
+	@Test
+	public void sideways1(){
+		PathQuery query = PathQuery.of(CPQ.concat(CPQ.label(l1), CPQ.intersect(l1.getInverse(), l3), CPQ.label(l3.getInverse())), 318);
+		assertEquals(new CardStat(147, 147, 1), evaluateSideways(real2, query, true));
+		assertEquals(new CardStat(147, 147, 1), evaluateSideways(real2, query, false));
+	}
+	
+	@Test
+	public void sideways2(){
+		PathQuery query = PathQuery.of(975, CPQ.concat(CPQ.label(l1), CPQ.intersect(l1.getInverse(), l3), CPQ.label(l3.getInverse())), 595);
+		assertEquals(new CardStat(1, 1, 1), evaluateSideways(real2, query, true));
+		assertEquals(new CardStat(1, 1, 1), evaluateSideways(real2, query, false));
+	}
+	
+	@Test
+	public void sideways3(){
+		PathQuery query = PathQuery.of(975, CPQ.concat(CPQ.label(l1), CPQ.intersect(l1.getInverse(), l3), CPQ.label(l3.getInverse())), 596);
+		assertEquals(new CardStat(0, 0, 0), evaluateSideways(real2, query, true));
+		assertEquals(new CardStat(0, 0, 0), evaluateSideways(real2, query, false));
+	}
+	
+	@Test
+	public void sideways4(){
+		PathQuery query = PathQuery.of(1, CPQ.intersect(CPQ.labels(l0, l1, l1.getInverse()), CPQ.id()));
+		assertEquals(evaluateSideways(example, query, false), evaluateSideways(example, query, true));
+	}
+	
+	@Test
+	public void partitions0(){
+		DatabaseGraph graph = getGraph();
+		assertEquals(evaluatePartitioned(graph, PathQuery.of(CPQ.label(l1)), false), evaluatePartitioned(graph, PathQuery.of(CPQ.label(l1)), true));
+		assertTrue(graph.hasLabelPartitions());
+		
+		PathQuery query = PathQuery.of(CPQ.intersect(CPQ.labels(l0, l1), CPQ.label(l3.getInverse())));
+		assertEquals(evaluatePartitioned(real2, query, false), evaluatePartitioned(real2, query, true));
+	}
+	
+	@Test
+	public void partitions1(){
+		DatabaseGraph graph = getGraph();
+		PathQuery query = PathQuery.of(1, CPQ.labels(l0, l1));
+		assertEquals(evaluatePartitioned(graph, query, false), evaluatePartitioned(graph, query, true));
+		assertFalse(graph.hasLabelPartitions());
+	}
+	
 	private void assertPaths(ResultGraph result, List<SourceTargetPair> expected){
 		assertIterableEquals(expected, result.getSourceTargetPairs().stream().sorted().toList());
 	}
@@ -1366,6 +1560,24 @@ public class ReachabilityQueryEvaluatorTest{
 		return new ReachabilityQueryEvaluator(graph).evaluate(query);
 	}
 	
+	private CardStat evaluateParallel(DatabaseGraph graph, ReachabilityQueryLanguageSyntax query){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(graph);
+		evaluator.setParallelEvaluation(ForkJoinPool.commonPool(), 0);
+		return evaluator.evaluate(PathQuery.of(query)).computeCardinality();
+	}
+	
+	private CardStat evaluateSideways(DatabaseGraph graph, PathQuery query, boolean enabled){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(graph);
+		evaluator.setSidewaysInformationPassing(enabled);
+		return evaluator.evaluate(query).computeCardinality();
+	}
+	
+	private CardStat evaluatePartitioned(DatabaseGraph graph, PathQuery query, boolean enabled){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(graph);
+		evaluator.setLabelPartitioning(enabled);
+		return evaluator.evaluate(query).computeCardinality();
+	}
+	
 	//see: https://research.roanh.dev/Indexing%20Conjunctive%20Path%20Queries%20for%20Accelerated%20Query%20Evaluation.pdf#subsubsection.5.2.1.1
 	private DatabaseGraph getGraph(){
 		IntGraph graph = new IntGraph(14, 2);
@@ -22,9 +22,11 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Test;
 
@@ -32,6 +34,7 @@ import dev.roanh.gmark.data.CardStat;
 import dev.roanh.gmark.data.SourceTargetPair;
 
 public class ResultGraphTest{
+	private static final ForkJoinPool pool = new ForkJoinPool(2);
 	
 	@Test
 	public void empty(){
@@ -120,6 +123,60 @@ public class ResultGraphTest{
 		));
 	}
 	
+	@Test
+	public void unionParallel(){
+		ResultGraph left = new ResultGraph(5, 5, false);
+		left.setActiveSource(0);
+		left.addTarget(1);
+		left.addTarget(2);
+		left.addTarget(0);
+		left.setActiveSource(1);
+		left.setActiveSource(2);
+		left.addTarget(1);
+		left.addTarget(0);
+		left.setActiveSource(3);
+		left.addTarget(3);
+		left.setActiveSource(4);
+		left.addTarget(4);
+		left.addTarget(2);
+		left.endFinalSource();
+		
+		ResultGraph right = new ResultGraph(5, 5, false);
+		right.setActiveSource(0);
+		right.addTarget(1);
+		right.addTarget(4);
+		right.addTarget(0);
+		right.setActiveSource(1);
+		right.addTarget(1);
+		right.addTarget(0);
+		right.setActiveSource(2);
+		right.setActiveSource(3);
+		right.addTarget(2);
+		right.setActiveSource(4);
+		right.addTarget(4);
+		right.addTarget(3);
+		right.endFinalSource();
+		
+		ResultGraph result = left.union(right, pool);
+		assertEquals(new CardStat(5, 13, 5), result.computeCardinality());
+		assertTrue(result.isSorted());
+		assertPathsUnsorted(result, List.of(
+			new SourceTargetPair(0, 0),
+			new SourceTargetPair(0, 1),
+			new SourceTargetPair(0, 2),
+			new SourceTargetPair(0, 4),
+			new SourceTargetPair(1, 0),
+			new SourceTargetPair(1, 1),
+			new SourceTargetPair(2, 0),
+			new SourceTargetPair(2, 1),
+			new SourceTargetPair(3, 2),
+			new SourceTargetPair(3, 3),
+			new SourceTargetPair(4, 2),
+			new SourceTargetPair(4, 3),
+			new SourceTargetPair(4, 4)
+		));
+	}
+	
 	@Test
 	public void intersection(){
 		ResultGraph left = new ResultGraph(5, 5, false);
@@ -164,6 +221,50 @@ public class ResultGraphTest{
 		));
 	}
 	
+	@Test
+	public void intersectionParallel(){
+		ResultGraph left = new ResultGraph(5, 5, false);
+		left.setActiveSource(0);
+		left.addTarget(1);
+		left.addTarget(2);
+		left.addTarget(0);
+		left.setActiveSource(1);
+		left.setActiveSource(2);
+		left.addTarget(1);
+		left.addTarget(0);
+		left.setActiveSource(3);
+		left.addTarget(3);
+		left.setActiveSource(4);
+		left.addTarget(4);
+		left.addTarget(2);
+		left.endFinalSource();
+		
+		ResultGraph right = new ResultGraph(5, 5, false);
+		right.setActiveSource(0);
+		right.addTarget(1);
+		right.addTarget(4);
+		right.addTarget(0);
+		right.setActiveSource(1);
+		right.addTarget(1);
+		right.addTarget(0);
+		right.setActiveSource(2);
+		right.setActiveSource(3);
+		right.addTarget(2);
+		right.setActiveSource(4);
+		right.addTarget(4);
+		right.addTarget(3);
+		right.endFinalSource();
+
+		ResultGraph result = left.intersection(right, pool);
+		assertEquals(new CardStat(2, 3, 3), result.computeCardinality());
+		assertTrue(result.isSorted());
+		assertPathsUnsorted(result, List.of(
+			new SourceTargetPair(0, 0),
+			new SourceTargetPair(0, 1),
+			new SourceTargetPair(4, 4)
+		));
+	}
+	
 	@Test
 	public void join(){
 		ResultGraph left = new ResultGraph(5, 5, false);
@@ -214,6 +315,56 @@ public class ResultGraphTest{
 		));
 	}
 	
+	@Test
+	public void joinParallel(){
+		ResultGraph left = new ResultGraph(5, 5, false);
+		left.setActiveSource(0);
+		left.addTarget(1);
+		left.addTarget(2);
+		left.addTarget(0);
+		left.setActiveSource(1);
+		left.setActiveSource(2);
+		left.addTarget(1);
+		left.addTarget(0);
+		left.setActiveSource(3);
+		left.addTarget(3);
+		left.setActiveSource(4);
+		left.addTarget(4);
+		left.addTarget(2);
+		left.endFinalSource();
+		
+		ResultGraph right = new ResultGraph(5, 5, false);
+		right.setActiveSource(0);
+		right.addTarget(1);
+		right.addTarget(4);
+		right.addTarget(0);
+		right.setActiveSource(1);
+		right.addTarget(1);
+		right.addTarget(0);
+		right.setActiveSource(2);
+		right.setActiveSource(3);
+		right.addTarget(2);
+		right.setActiveSource(4);
+		right.addTarget(4);
+		right.addTarget(3);
+		right.endFinalSource();
+		
+		ResultGraph result = left.join(right, pool);
+		assertEquals(new CardStat(4, 9, 5), result.computeCardinality());
+		assertFalse(result.isSorted());
+		assertPathsSorted(result, List.of(
+			new SourceTargetPair(0, 0),
+			new SourceTargetPair(0, 1),
+			new SourceTargetPair(0, 4),
+			new SourceTargetPair(2, 0),
+			new SourceTargetPair(2, 1),
+			new SourceTargetPair(2, 4),
+			new SourceTargetPair(3, 2),
+			new SourceTargetPair(4, 3),
+			new SourceTargetPair(4, 4)
+		));
+	}
+	
 	@Test
 	public void transitiveClosure(){
 		ResultGraph graph = new ResultGraph(6, 6, false);
@@ -256,6 +407,48 @@ public class ResultGraphTest{
 		));
 	}
 	
+	@Test
+	public void transitiveClosureMultiSource(){
+		ResultGraph graph = new ResultGraph(6, 6, false);
+		graph.setActiveSource(0);
+		graph.addTarget(1);
+		graph.addTarget(2);
+		graph.addTarget(0);
+		graph.setActiveSource(1);
+		graph.addTarget(5);
+		graph.setActiveSource(2);
+		graph.addTarget(1);
+		graph.addTarget(0);
+		graph.setActiveSource(3);
+		graph.addTarget(3);
+		graph.setActiveSource(4);
+		graph.addTarget(4);
+		graph.addTarget(2);
+		graph.setActiveSource(5);
+		graph.endFinalSource();
+		
+		ResultGraph result = graph.transitiveClosureMultiSource();
+		assertEquals(new CardStat(5, 15, 6), result.computeCardinality());
+		assertTrue(result.isSorted());
+		assertPathsUnsorted(result, List.of(
+			new SourceTargetPair(0, 0),
+			new SourceTargetPair(0, 1),
+			new SourceTargetPair(0, 2),
+			new SourceTargetPair(0, 5),
+			new SourceTargetPair(1, 5),
+			new SourceTargetPair(2, 0),
+			new SourceTargetPair(2, 1),
+			new SourceTargetPair(2, 2),
+			new SourceTargetPair(2, 5),
+			new SourceTargetPair(3, 3),
+			new SourceTargetPair(4, 0),
+			new SourceTargetPair(4, 1),
+			new SourceTargetPair(4, 2),
+			new SourceTargetPair(4, 4),
+			new SourceTargetPair(4, 5)
+		));
+	}
+	
 	@Test
 	public void transitiveClosureFrom0(){
 		ResultGraph graph = new ResultGraph(6, 6, false);
@@ -421,6 +614,147 @@ public class ResultGraphTest{
 		assertPathsUnsorted(result, List.of());
 	}
 	
+	@Test
+	public void transitiveClosureBidirectional0(){
+		ResultGraph graph = new ResultGraph(6, 6, false);
+		graph.setActiveSource(0);
+		graph.addTarget(1);
+		graph.addTarget(2);
+		graph.addTarget(0);
+		graph.setActiveSource(1);
+		graph.addTarget(5);
+		graph.setActiveSource(2);
+		graph.addTarget(1);
+		graph.addTarget(0);
+		graph.setActiveSource(3);
+		graph.addTarget(3);
+		graph.setActiveSource(4);
+		graph.addTarget(4);
+		graph.addTarget(2);
+		graph.setActiveSource(5);
+		graph.endFinalSource();
+		
+		ResultGraph result = graph.transitiveClosureBidirectional(4, 1);
+		assertEquals(new CardStat(1, 1, 1), result.computeCardinality());
+		assertTrue(result.isSorted());
+		assertPathsUnsorted(result, List.of(new SourceTargetPair(4, 1)));
+	}
+	
+	@Test
+	public void transitiveClosureBidirectional1(){
+		ResultGraph graph = new ResultGraph(6, 6, false);
+		graph.setActiveSource(0);
+		graph.addTarget(1);
+		graph.addTarget(2);
+		graph.addTarget(0);
+		graph.setActiveSource(1);
+		graph.addTarget(5);
+		graph.setActiveSource(2);
+		graph.addTarget(1);
+		graph.addTarget(0);
+		graph.setActiveSource(3);
+		graph.addTarget(3);
+		graph.setActiveSource(4);
+		graph.addTarget(4);
+		graph.addTarget(2);
+		graph.setActiveSource(5);
+		graph.endFinalSource();
+		
+		ResultGraph result = graph.transitiveClosureBidirectional(2, 4);
+		assertEquals(new CardStat(0, 0, 0), result.computeCardinality());
+		assertTrue(result.isSorted());
+		assertPathsUnsorted(result, List.of());
+	}
+	
+	@Test
+	public void transitiveClosureBidirectional2(){
+		ResultGraph graph = new ResultGraph(6, 6, false);
+		graph.setActiveSource(0);
+		graph.addTarget(1);
+		graph.addTarget(2);
+		graph.addTarget(0);
+		graph.setActiveSource(1);
+		graph.addTarget(5);
+		graph.setActiveSource(2);
+		graph.addTarget(1);
+		graph.addTarget(0);
+		graph.setActiveSource(3);
+		graph.addTarget(3);
+		graph.setActiveSource(4);
+		graph.addTarget(4);
+		graph.addTarget(2);
+		graph.setActiveSource(5);
+		graph.endFinalSource();
+		
+		ResultGraph result = graph.transitiveClosureBidirectional(0, 5);
+		assertEquals(new CardStat(1, 1, 1), result.computeCardinality());
+		assertTrue(result.isSorted());
+		assertPathsUnsorted(result, List.of(new SourceTargetPair(0, 5)));
+	}
+	
+	@Test
+	public void transitiveClosureBidirectional3(){
+		ResultGraph graph = new ResultGraph(6, 6, false);
+		graph.setActiveSource(0);
+		graph.addTarget(1);
+		graph.addTarget(2);
+		graph.addTarget(0);
+		graph.setActiveSource(1);
+		graph.addTarget(5);
+		graph.setActiveSource(2);
+		graph.addTarget(1);
+		graph.addTarget(0);
+		graph.setActiveSource(3);
+		graph.addTarget(3);
+		graph.setActiveSource(4);
+		graph.addTarget(4);
+		graph.addTarget(2);
+		graph.setActiveSource(5);
+		graph.endFinalSource();
+		
+		ResultGraph result = graph.transitiveClosureBidirectional(3, 3);
+		assertEquals(new CardStat(1, 1, 1), result.computeCardinality());
+		assertTrue(result.isSorted());
+		assertPathsUnsorted(result, List.of(new SourceTargetPair(3, 3)));
+	}
+	
+	@Test
+	public void reverse(){
+		ResultGraph graph = new ResultGraph(6, 6, false);
+		graph.setActiveSource(0);
+		graph.addTarget(1);
+		graph.addTarget(2);
+		graph.addTarget(0);
+		graph.setActiveSource(1);
+		graph.addTarget(5);
+		graph.setActiveSource(2);
+		graph.addTarget(1);
+		graph.addTarget(0);
+		graph.setActiveSource(3);
+		graph.addTarget(3);
+		graph.setActiveSource(4);
+		graph.addTarget(4);
+		graph.addTarget(2);
+		graph.setActiveSource(5);
+		graph.endFinalSource();
+		
+		ResultGraph result = graph.getReverse();
+		assertEquals(new CardStat(6, 9, 5), result.computeCardinality());
+		assertTrue(result.isSorted());
+		assertPathsSorted(result, List.of(
+			new SourceTargetPair(0, 0),
+			new SourceTargetPair(0, 2),
+			new SourceTargetPair(1, 0),
+			new SourceTargetPair(1, 2),
+			new SourceTargetPair(2, 0),
+			new SourceTargetPair(2, 4),
+			new SourceTargetPair(3, 3),
+			new SourceTargetPair(4, 4),
+			new SourceTargetPair(5, 1)
+		));
+		assertSame(result, graph.getReverse());
+	}
+	
 	@Test
 	public void selectIdentityUnsorted(){
 		ResultGraph graph = new ResultGraph(5, 5, false);
@@ -558,6 +892,274 @@ public class ResultGraphTest{
 		));
 	}
 	
+	@Test
+	public void denseRows(){
+		ResultGraph graph = createDenseGraph(128, 0, 64, 1, 2, 1, 3);
+		assertEquals(new CardStat(2, 66, 64), graph.computeCardinality());
+		assertEquals(66, graph.getEdgeCount());
+		
+		List<SourceTargetPair> paths = graph.getSourceTargetPairs();
+		assertEquals(new SourceTargetPair(0, 0), paths.get(0));
+		assertEquals(new SourceTargetPair(0, 63), paths.get(63));
+		assertEquals(new SourceTargetPair(1, 2), paths.get(64));
+		assertEquals(new SourceTargetPair(1, 3), paths.get(65));
+		
+		int[] data = graph.getData();
+		assertEquals(129, data[0]);
+		assertEquals(193, data[1]);
+		assertEquals(195, data[128]);
+	}
+	
+	@Test
+	public void denseUnion(){
+		ResultGraph left = createDenseGraph(128, 0, 64, 1, 2, 1, 3);
+		ResultGraph right = createDenseGraph(128, 32, 96, 0, 100, 0, 101);
+		
+		assertEquals(new CardStat(2, 100, 98), left.union(right).computeCardinality());
+		assertEquals(new CardStat(2, 100, 98), left.union(right, pool).computeCardinality());
+		assertEquals(new CardStat(2, 68, 66), left.union(createDenseGraph(128, 0, 0, 0, 100, 0, 101)).computeCardinality());
+	}
+	
+	@Test
+	public void denseIntersection(){
+		ResultGraph left = createDenseGraph(128, 0, 96, 1, 2, 1, 3);
+		ResultGraph right = createDenseGraph(128, 32, 128, 1, 3, 1, 4);
+		
+		assertEquals(new CardStat(2, 65, 65), left.intersection(right).computeCardinality());
+		assertEquals(new CardStat(2, 65, 65), left.intersection(right, pool).computeCardinality());
+		assertPathsUnsorted(left.intersection(createDenseGraph(128, 0, 0, 0, 3, 0, 4, 0, 100)), List.of(
+			new SourceTargetPair(0, 3),
+			new SourceTargetPair(0, 4)
+		));
+	}
+	
+	@Test
+	public void denseJoin(){
+		ResultGraph left = createDenseGraph(128, 0, 0, 0, 0, 0, 1);
+		ResultGraph right = createDenseGraph(128, 0, 100, 1, 120);
+		
+		assertEquals(new CardStat(1, 101, 101), left.join(right).computeCardinality());
+		assertEquals(new CardStat(1, 101, 101), left.join(right, pool).computeCardinality());
+		assertEquals(new CardStat(1, 101, 101), right.join(right).computeCardinality());
+		assertPathsSorted(right.join(left), List.of(
+			new SourceTargetPair(0, 0),
+			new SourceTargetPair(0, 1)
+		));
+	}
+	
+	@Test
+	public void denseClosure(){
+		ResultGraph graph = createDenseGraph(128, 0, 100, 99, 127);
+		
+		assertEquals(new CardStat(2, 102, 101), graph.transitiveClosure().computeCardinality());
+		assertEquals(new CardStat(2, 102, 101), graph.transitiveClosureMultiSource().computeCardinality());
+		assertEquals(new CardStat(1, 1, 1), graph.transitiveClosure(0, 127).computeCardinality());
+		assertEquals(new CardStat(101, 101, 2), graph.getReverse().computeCardinality());
+	}
+	
+	@Test
+	public void sourceListUnion(){
+		ResultGraph left = ResultGraph.single(1000, 5, false, 3, 1).union(ResultGraph.single(1000, 900, 2));
+		ResultGraph right = ResultGraph.singleTarget(1000, new int[]{5, 7}, 2);
+		
+		assertEquals(new CardStat(2, 3, 3), left.computeCardinality());
+		assertPathsSorted(left.union(right), List.of(
+			new SourceTargetPair(5, 1),
+			new SourceTargetPair(5, 2),
+			new SourceTargetPair(5, 3),
+			new SourceTargetPair(7, 2),
+			new SourceTargetPair(900, 2)
+		));
+		assertEquals(new CardStat(3, 5, 3), left.union(right, pool).computeCardinality());
+		assertEquals(new CardStat(3, 5, 3), left.union(right.selectTarget(2).join(ResultGraph.empty(1000)).union(right)).computeCardinality());
+	}
+	
+	@Test
+	public void sourceListIntersection(){
+		ResultGraph left = ResultGraph.single(1000, 5, true, 1, 2, 3).union(ResultGraph.single(1000, 900, 2));
+		ResultGraph right = ResultGraph.singleTarget(1000, new int[]{5, 7, 900}, 2);
+		
+		assertPathsSorted(left.intersection(right), List.of(
+			new SourceTargetPair(5, 2),
+			new SourceTargetPair(900, 2)
+		));
+		assertPathsSorted(left.intersection(createDenseGraph(1000, 0, 0, 5, 3, 5, 4)), List.of(
+			new SourceTargetPair(5, 3)
+		));
+		assertPathsSorted(createDenseGraph(1000, 0, 0, 5, 3, 5, 4).intersection(left, pool), List.of(
+			new SourceTargetPair(5, 3)
+		));
+	}
+	
+	@Test
+	public void sourceListJoin(){
+		ResultGraph left = ResultGraph.single(1000, 5, false, 3, 1, 2);
+		ResultGraph right = ResultGraph.single(1000, 1, true, 7, 8).union(ResultGraph.single(1000, 3, true, 8, 9));
+		
+		ResultGraph result = left.join(right);
+		assertTrue(result.isSorted());
+		assertPathsSorted(result, List.of(
+			new SourceTargetPair(5, 7),
+			new SourceTargetPair(5, 8),
+			new SourceTargetPair(5, 9)
+		));
+		assertEquals(new CardStat(1, 3, 3), left.join(right, pool).computeCardinality());
+		assertEquals(new CardStat(1, 2, 2), left.join(createDenseGraph(1000, 0, 0, 1, 4, 2, 4, 3, 5)).computeCardinality());
+		assertEquals(new CardStat(1, 2, 2), createDenseGraph(1000, 0, 0, 0, 1).join(right).computeCardinality());
+	}
+	
+	@Test
+	public void sourceListSelect(){
+		ResultGraph graph = ResultGraph.single(1000, 5, false, 5, 1).union(ResultGraph.singleTarget(1000, new int[]{7, 900}, 1));
+		
+		assertPathsSorted(graph.selectIdentity(), List.of(new SourceTargetPair(5, 5)));
+		assertPathsSorted(graph.selectSource(900), List.of(new SourceTargetPair(900, 1)));
+		assertEquals(0, graph.selectSource(6).getEdgeCount());
+		assertPathsSorted(graph.selectTarget(1), List.of(
+			new SourceTargetPair(5, 1),
+			new SourceTargetPair(7, 1),
+			new SourceTargetPair(900, 1)
+		));
+	}
+	
+	@Test
+	public void sourceListClosure(){
+		ResultGraph graph = ResultGraph.singleTarget(1000, new int[]{1, 2}, 3).union(ResultGraph.single(1000, 3, 1));
+		
+		assertEquals(new CardStat(3, 6, 2), graph.transitiveClosure().computeCardinality());
+		assertEquals(new CardStat(1, 2, 2), graph.transitiveClosureFrom(2).computeCardinality());
+		assertEquals(new CardStat(3, 3, 1), graph.transitiveClosureTo(3).computeCardinality());
+		assertEquals(new CardStat(2, 3, 3), graph.getReverse().computeCardinality());
+	}
+	
+	@Test
+	public void contextReuse(){
+		EvaluationContext context = new EvaluationContext();
+		ResultGraph graph = createDenseGraph(128, 0, 100, 99, 127, 127, 1);
+		
+		ResultGraph closure = graph.transitiveClosure(context);
+		ResultGraph join = graph.join(graph, context);
+		ResultGraph to = graph.transitiveClosureTo(1, context);
+		
+		assertEquals(new CardStat(3, 104, 101), closure.computeCardinality());
+		assertEquals(new CardStat(2, 102, 101), join.computeCardinality());
+		assertEquals(new CardStat(3, 3, 1), to.computeCardinality());
+		assertEquals(closure.computeCardinality(), graph.transitiveClosureMultiSource(context).computeCardinality());
+		assertPathsSorted(graph.transitiveClosureFrom(127, context), List.of(
+			new SourceTargetPair(127, 1)
+		));
+		assertEquals(1, graph.transitiveClosureBidirectional(0, 1, context).getEdgeCount());
+		assertEquals(0, graph.transitiveClosure(1, 0, context).getEdgeCount());
+	}
+	
+	@Test
+	public void contextBuffer(){
+		EvaluationContext context = new EvaluationContext();
+		int[] small = context.takeBuffer(16);
+		context.releaseBuffer(small);
+		assertSame(small, context.takeBuffer(8));
+		
+		context.releaseBuffer(new int[EvaluationContext.MAX_RETAINED_BUFFER_SIZE + 1]);
+		assertEquals(16, context.takeBuffer(16).length);
+		
+		context.releaseBuffer(small);
+		context.releaseBuffer(new int[EvaluationContext.MAX_RETAINED_BUFFER_SIZE + 1]);
+		assertSame(small, context.takeBuffer(16));
+	}
+	
+	@Test
+	public void limit(){
+		ResultGraph graph = createDenseGraph(8, 0, 0, 0, 1, 0, 2, 1, 3, 2, 4);
+		assertSame(graph, graph.limit(4));
+		assertPathsSorted(graph.limit(3), List.of(
+			new SourceTargetPair(0, 1),
+			new SourceTargetPair(0, 2),
+			new SourceTargetPair(1, 3)
+		));
+		assertEquals(0, graph.limit(0).getEdgeCount());
+	}
+	
+	@Test
+	public void limitDense(){
+		ResultGraph graph = createDenseGraph(128, 0, 100, 1, 5);
+		assertPathsSorted(graph.limit(2), List.of(
+			new SourceTargetPair(0, 0),
+			new SourceTargetPair(0, 1)
+		));
+		assertEquals(new CardStat(2, 101, 100), graph.limit(101).computeCardinality());
+	}
+	
+	@Test
+	public void limitSourceList(){
+		assertPathsSorted(ResultGraph.singleTarget(1000, new int[]{7, 8, 900}, 1).limit(2), List.of(
+			new SourceTargetPair(7, 1),
+			new SourceTargetPair(8, 1)
+		));
+		assertPathsSorted(ResultGraph.single(1000, 5, true, 1, 2, 3).limit(2), List.of(
+			new SourceTargetPair(5, 1),
+			new SourceTargetPair(5, 2)
+		));
+	}
+	
+	@Test
+	public void limitJoin(){
+		EvaluationContext context = new EvaluationContext();
+		ResultGraph graph = createDenseGraph(8, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4);
+		
+		assertPathsSorted(graph.join(graph, context, 1), List.of(
+			new SourceTargetPair(0, 2)
+		));
+		assertPathsSorted(graph.join(graph, context, 2), List.of(
+			new SourceTargetPair(0, 2),
+			new SourceTargetPair(1, 3)
+		));
+		assertEquals(3, graph.join(graph, context, 3).getEdgeCount());
+		assertEquals(1, ResultGraph.singleTarget(8, new int[]{0, 1}, 2).join(graph, context, 1).getEdgeCount());
+	}
+	
+	@Test
+	public void limitClosure(){
+		EvaluationContext context = new EvaluationContext();
+		ResultGraph graph = createDenseGraph(8, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4);
+		
+		assertPathsSorted(graph.transitiveClosure(context, 2), List.of(
+			new SourceTargetPair(0, 1),
+			new SourceTargetPair(0, 2)
+		));
+		assertPathsSorted(graph.transitiveClosureFrom(0, context, 2), List.of(
+			new SourceTargetPair(0, 1),
+			new SourceTargetPair(0, 2)
+		));
+		assertPathsSorted(graph.transitiveClosureTo(4, context, 2), List.of(
+			new SourceTargetPair(0, 4),
+			new SourceTargetPair(1, 4)
+		));
+		assertEquals(10, graph.transitiveClosureMultiSource(context, 2).getEdgeCount());
+		assertEquals(10, graph.transitiveClosure(context, 10).getEdgeCount());
+	}
+	
+	private static ResultGraph createDenseGraph(int vertexCount, int from, int to, int... edges){
+		//source 0 has all targets in the given range followed by the given source target pairs
+		ResultGraph graph = new ResultGraph(vertexCount, 4, true);
+		for(int source = 0; source < vertexCount; source++){
+			graph.setActiveSource(source);
+			if(source == 0){
+				for(int target = from; target < to; target++){
+					graph.addTarget(target);
+				}
+			}
+			
+			for(int i = 0; i < edges.length; i += 2){
+				if(edges[i] == source){
+					graph.addTarget(edges[i + 1]);
+				}
+			}
+		}
+		
+		graph.endFinalSource();
+		return graph;
+	}
+	
 	private static void assertPathsUnsorted(ResultGraph result, List<SourceTargetPair> expected){
 		assertIterableEquals(expected, result.getSourceTargetPairs().stream().toList());
 	}
@@ -0,0 +1,157 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.gmark.data.SourceTargetPair;
+import dev.roanh.gmark.eval.StandingQueryEvaluator.StandingQuery;
+import dev.roanh.gmark.lang.cpq.CPQ;
+import dev.roanh.gmark.lang.rpq.RPQ;
+import dev.roanh.gmark.type.schema.Predicate;
+
+public class StandingQueryEvaluatorTest{
+	private static final Predicate l0 = new Predicate(0, "0");
+	private static final Predicate l1 = new Predicate(1, "1");
+	private static final Predicate l2 = new Predicate(2, "2");
+	private static final List<PathQuery> queries = List.of(
+		PathQuery.of(CPQ.labels(l0, l1, l2)),
+		PathQuery.of(CPQ.intersect(CPQ.labels(l0, l1), CPQ.label(l2.getInverse()))),
+		PathQuery.of(CPQ.intersect(CPQ.labels(l0, l1, l2), CPQ.id())),
+		PathQuery.of(3, CPQ.concat(CPQ.label(l1), CPQ.label(l2.getInverse()))),
+		PathQuery.of(RPQ.kleene(RPQ.label(l0))),
+		PathQuery.of(RPQ.kleene(RPQ.disjunct(l0, l1))),
+		PathQuery.of(RPQ.concat(RPQ.label(l2), RPQ.kleene(l0, l1)), 2),
+		PathQuery.of(1, RPQ.kleene(RPQ.disjunct(RPQ.label(l2), RPQ.label(l0.getInverse()))))
+	);
+	
+	@Test
+	public void insert(){
+		UpdatableDatabaseGraph graph = new UpdatableDatabaseGraph(createGraph());
+		StandingQueryEvaluator evaluator = new StandingQueryEvaluator(graph);
+		StandingQuery closure = evaluator.register(PathQuery.of(RPQ.kleene(RPQ.label(l0))));
+		assertPaths(closure.getResult(), 0, 1, 3, 1, 4, 5);
+		
+		DatabaseGraphBuilder batch = new DatabaseGraphBuilder(6, 3);
+		batch.addEdge(1, 4, 0);
+		batch.addEdge(0, 1, 0);
+		evaluator.addEdges(batch);
+		
+		assertEquals(2L, evaluator.getVersion());
+		assertEquals(2L, graph.getVersion());
+		assertPaths(closure.getResult(), 0, 1, 0, 4, 0, 5, 1, 4, 1, 5, 3, 1, 3, 4, 3, 5, 4, 5);
+	}
+	
+	@Test
+	public void batches(){
+		Random random = new Random(12345L);
+		UpdatableDatabaseGraph graph = new UpdatableDatabaseGraph(createGraph());
+		StandingQueryEvaluator evaluator = new StandingQueryEvaluator(graph);
+		List<StandingQuery> standing = queries.stream().map(evaluator::register).toList();
+		
+		for(int round = 0; round < 10; round++){
+			DatabaseGraphBuilder batch = new DatabaseGraphBuilder(6, 3);
+			for(int i = random.nextInt(4); i >= 0; i--){
+				batch.addEdge(random.nextInt(6), random.nextInt(6), random.nextInt(3));
+			}
+			
+			evaluator.addEdges(batch);
+			assertAnswers(graph, standing);
+		}
+	}
+	
+	@Test
+	public void refresh(){
+		UpdatableDatabaseGraph graph = new UpdatableDatabaseGraph(createGraph());
+		StandingQueryEvaluator evaluator = new StandingQueryEvaluator(graph);
+		List<StandingQuery> standing = queries.stream().map(evaluator::register).toList();
+		
+		graph.removeEdge(1, 2, 1);
+		graph.addEdge(2, 2, 0);
+		evaluator.refresh();
+		assertEquals(2L, evaluator.getVersion());
+		assertAnswers(graph, standing);
+		
+		graph.removeEdge(2, 0, 2);
+		DatabaseGraphBuilder batch = new DatabaseGraphBuilder(6, 3);
+		batch.addEdge(5, 4, 0);
+		evaluator.addEdges(batch);
+		assertEquals(4L, evaluator.getVersion());
+		assertAnswers(graph, standing);
+	}
+	
+	@Test
+	public void unregister(){
+		StandingQueryEvaluator evaluator = new StandingQueryEvaluator(new UpdatableDatabaseGraph(createGraph()));
+		StandingQuery query = evaluator.register(queries.get(0));
+		assertEquals(List.of(query), evaluator.getQueries());
+		
+		evaluator.unregister(query);
+		assertEquals(List.of(), evaluator.getQueries());
+	}
+	
+	@Test
+	public void mismatch(){
+		StandingQueryEvaluator evaluator = new StandingQueryEvaluator(new UpdatableDatabaseGraph(createGraph()));
+		assertThrows(IllegalArgumentException.class, ()->evaluator.addEdges(new DatabaseGraphBuilder(7, 3)));
+	}
+	
+	private void assertAnswers(UpdatableDatabaseGraph graph, List<StandingQuery> standing){
+		ReachabilityQueryEvaluator expected = new ReachabilityQueryEvaluator(graph.getSnapshot().compact());
+		for(StandingQuery query : standing){
+			assertIterableEquals(
+				expected.evaluate(query.getQuery()).getSourceTargetPairs().stream().sorted().toList(),
+				query.getResult().getSourceTargetPairs().stream().sorted().toList()
+			);
+		}
+	}
+	
+	private void assertPaths(ResultGraph result, int... pairs){
+		List<SourceTargetPair> paths = result.getSourceTargetPairs().stream().sorted().toList();
+		assertEquals(pairs.length / 2, paths.size());
+		for(int i = 0; i < paths.size(); i++){
+			assertEquals(new SourceTargetPair(pairs[2 * i], pairs[2 * i + 1]), paths.get(i));
+		}
+	}
+	
+	private static DatabaseGraph createGraph(){
+		/*
+		 * 0 --0-> 1 --1-> 2 --2-> 0
+		 * 3 --0-> 1       2 --2-> 3
+		 * 4 --0-> 5 --1-> 2
+		 */
+		
+		DatabaseGraphBuilder builder = new DatabaseGraphBuilder(6, 3);
+		builder.addEdge(0, 1, 0);
+		builder.addEdge(3, 1, 0);
+		builder.addEdge(4, 5, 0);
+		builder.addEdge(1, 2, 1);
+		builder.addEdge(5, 2, 1);
+		builder.addEdge(2, 0, 2);
+		builder.addEdge(2, 3, 2);
+		return builder.build();
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import dev.roanh.gmark.data.SourceTargetPair;
+import dev.roanh.gmark.lang.cpq.CPQ;
+import dev.roanh.gmark.type.schema.Predicate;
+
+public class UpdatableDatabaseGraphTest{
+	private static final Predicate l0 = new Predicate(0, "0");
+	private static final Predicate l1 = new Predicate(1, "1");
+	private static final Predicate l2 = new Predicate(2, "2");
+	
+	@Test
+	public void snapshot(){
+		UpdatableDatabaseGraph graph = new UpdatableDatabaseGraph(createGraph());
+		DatabaseGraphSnapshot before = graph.getSnapshot();
+		assertFalse(before.hasChanges());
+		
+		graph.addEdge(1, 4, 1);
+		graph.removeEdge(0, 1, 0);
+		graph.addEdge(0, 1, 0);
+		graph.removeEdge(2, 3, 2);
+		graph.removeEdge(2, 4, 2);
+		graph.addEdge(1, 2, 1);
+		
+		DatabaseGraphSnapshot after = graph.getSnapshot();
+		assertSame(after, graph.getSnapshot());
+		assertEquals(0L, before.getVersion());
+		assertEquals(6L, after.getVersion());
+		assertEquals(6L, graph.getVersion());
+		assertTrue(after.hasChanges());
+		
+		assertEquals(7, before.getEdgeCount());
+		assertEquals(7, after.getEdgeCount());
+		assertEquals(3, after.getEdgeCount(l1));
+		assertEquals(1, after.getEdgeCount(l2));
+		
+		assertPaths(before.selectLabel(l2), 2, 0, 2, 3);
+		assertPaths(after.selectLabel(l2), 2, 0);
+		assertPaths(after.selectLabel(l1), 1, 2, 1, 4, 5, 2);
+		assertPaths(after.selectLabel(l1.getInverse()), 2, 1, 2, 5, 4, 1);
+		assertPaths(before.selectLabelPartitioned(l2), 2, 0, 2, 3);
+		assertPaths(after.selectLabelPartitioned(l2), 2, 0);
+		assertPaths(after.selectLabelPartitioned(l1.getInverse()), 2, 1, 2, 5, 4, 1);
+		assertPaths(after.selectLabel(1, l1), 1, 2, 1, 4);
+		assertPaths(after.selectLabel(l1, 4), 1, 4);
+		assertPaths(after.selectLabel(l2.getInverse(), 2), 0, 2);
+		assertPaths(after.selectLabel(1, l1, 4), 1, 4);
+		assertPaths(after.selectLabel(2, l2, 3));
+		assertPaths(after.selectLabel(0, l0, 1), 0, 1);
+		assertArrayEquals(new int[]{2, 4}, after.selectTargets(new int[]{1, 5}, l1));
+		assertArrayEquals(new int[][]{{2, 4}, {}}, after.selectTargetLists(new int[]{1, 3}, l1));
+	}
+	
+	@Test
+	public void compact(){
+		UpdatableDatabaseGraph graph = new UpdatableDatabaseGraph(createGraph());
+		graph.addEdge(3, 3, 2);
+		graph.removeEdge(4, 5, 0);
+		graph.removeEdge(5, 2, 1);
+		DatabaseGraphSnapshot snapshot = graph.getSnapshot();
+		
+		graph.compact();
+		assertEquals(0, graph.getPendingUpdateCount());
+		assertEquals(3L, graph.getVersion());
+		assertFalse(graph.getSnapshot().hasChanges());
+		
+		DatabaseGraph expected = createGraph(new int[][]{
+			{0, 1, 0}, {3, 1, 0}, {1, 2, 1}, {2, 0, 2}, {2, 3, 2}, {3, 3, 2}
+		});
+		assertGraphEquals(expected, snapshot);
+		assertGraphEquals(expected, graph.getSnapshot());
+		assertGraphEquals(expected, snapshot.compact());
+		assertArrayEquals(expected.getData(), snapshot.getData());
+		assertArrayEquals(expected.getReverseData(), snapshot.getReverseData());
+	}
+	
+	@Test
+	public void evaluate(){
+		UpdatableDatabaseGraph graph = new UpdatableDatabaseGraph(createGraph());
+		graph.addEdge(3, 0, 1);
+		graph.addEdge(4, 0, 2);
+		graph.removeEdge(2, 3, 2);
+		
+		DatabaseGraph expected = createGraph(new int[][]{
+			{0, 1, 0}, {3, 1, 0}, {4, 5, 0}, {1, 2, 1}, {5, 2, 1}, {3, 0, 1}, {2, 0, 2}, {4, 0, 2}
+		});
+		
+		ReachabilityQueryEvaluator snapshot = new ReachabilityQueryEvaluator(graph.getSnapshot());
+		ReachabilityQueryEvaluator rebuilt = new ReachabilityQueryEvaluator(expected);
+		for(CPQ query : List.of(
+			CPQ.labels(l0, l1, l2),
+			CPQ.intersect(CPQ.labels(l0, l1), CPQ.label(l2.getInverse())),
+			CPQ.intersect(CPQ.labels(l0, l1, l2), CPQ.id()),
+			CPQ.concat(CPQ.label(l1), CPQ.label(l2.getInverse()))
+		)){
+			for(PathQuery path : List.of(PathQuery.of(query), PathQuery.of(3, query), PathQuery.of(query, 0))){
+				assertIterableEquals(
+					rebuilt.evaluate(path).getSourceTargetPairs().stream().sorted().toList(),
+					snapshot.evaluate(path).getSourceTargetPairs().stream().sorted().toList()
+				);
+			}
+		}
+	}
+	
+	@Test
+	public void random(){
+		Random random = new Random(12345L);
+		boolean[][][] edges = new boolean[50][50][3];
+		DatabaseGraphBuilder builder = new DatabaseGraphBuilder(50, 3);
+		for(int i = 0; i < 200; i++){
+			int source = random.nextInt(50);
+			int target = random.nextInt(50);
+			int label = random.nextInt(3);
+			edges[source][target][label] = true;
+			builder.addEdge(source, target, label);
+		}
+		
+		UpdatableDatabaseGraph graph = new UpdatableDatabaseGraph(builder.build());
+		for(int round = 0; round < 3; round++){
+			for(int i = 0; i < 150; i++){
+				int source = random.nextInt(50);
+				int target = random.nextInt(50);
+				int label = random.nextInt(3);
+				boolean insert = random.nextBoolean();
+				edges[source][target][label] = insert;
+				if(insert){
+					graph.addEdge(source, target, label);
+				}else{
+					graph.removeEdge(source, target, label);
+				}
+			}
+			
+			DatabaseGraphBuilder expected = new DatabaseGraphBuilder(50, 3);
+			for(int source = 0; source < 50; source++){
+				for(int target = 0; target < 50; target++){
+					for(int label = 0; label < 3; label++){
+						if(edges[source][target][label]){
+							expected.addEdge(source, target, label);
+						}
+					}
+				}
+			}
+			
+			DatabaseGraphSnapshot snapshot = graph.getSnapshot();
+			assertGraphEquals(expected.build(), snapshot);
+			assertGraphEquals(expected.build(), snapshot.compact());
+			if(round == 1){
+				graph.compact();
+			}
+		}
+	}
+	
+	@Test
+	public void background() throws InterruptedException{
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try{
+			UpdatableDatabaseGraph graph = new UpdatableDatabaseGraph(createGraph());
+			graph.setBackgroundCompaction(pool, 4);
+			graph.addEdge(0, 0, 0);
+			graph.addEdge(1, 1, 0);
+			graph.addEdge(2, 2, 0);
+			graph.addEdge(3, 3, 0);
+			
+			assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+			graph.addEdge(4, 4, 0);
+			
+			assertEquals(1, graph.getPendingUpdateCount());
+			assertEquals(5L, graph.getVersion());
+			assertEquals(8, graph.getSnapshot().getEdgeCount(l0));
+		}finally{
+			pool.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void bounds(){
+		UpdatableDatabaseGraph graph = new UpdatableDatabaseGraph(createGraph());
+		assertThrows(IllegalArgumentException.class, ()->graph.addEdge(6, 0, 0));
+		assertThrows(IllegalArgumentException.class, ()->graph.removeEdge(0, 0, 3));
+		assertThrows(IllegalArgumentException.class, ()->graph.setBackgroundCompaction(null, 0));
+	}
+	
+	private void assertGraphEquals(DatabaseGraph expected, DatabaseGraph graph){
+		assertEquals(expected.getEdgeCount(), graph.getEdgeCount());
+		for(Predicate label : expected.getLabels()){
+			for(Predicate predicate : List.of(label, label.getInverse())){
+				assertEquals(expected.getEdgeCount(predicate), graph.getEdgeCount(predicate));
+				assertIterableEquals(expected.selectLabel(predicate).getSourceTargetPairs(), graph.selectLabel(predicate).getSourceTargetPairs());
+				for(int v = 0; v < expected.getVertexCount(); v++){
+					assertIterableEquals(expected.selectLabel(v, predicate).getSourceTargetPairs(), graph.selectLabel(v, predicate).getSourceTargetPairs());
+					assertIterableEquals(expected.selectLabel(predicate, v).getSourceTargetPairs(), graph.selectLabel(predicate, v).getSourceTargetPairs());
+				}
+			}
+		}
+	}
+	
+	private void assertPaths(ResultGraph result, int... pairs){
+		List<SourceTargetPair> paths = result.getSourceTargetPairs().stream().sorted().toList();
+		assertEquals(pairs.length / 2, paths.size());
+		for(int i = 0; i < paths.size(); i++){
+			assertEquals(new SourceTargetPair(pairs[2 * i], pairs[2 * i + 1]), paths.get(i));
+		}
+	}
+	
+	private static DatabaseGraph createGraph(){
+		/*
+		 * 0 --0-> 1 --1-> 2 --2-> 0
+		 * 3 --0-> 1       2 --2-> 3
+		 * 4 --0-> 5 --1-> 2
+		 */
+		
+		return createGraph(new int[][]{
+			{0, 1, 0}, {3, 1, 0}, {4, 5, 0}, {1, 2, 1}, {5, 2, 1}, {2, 0, 2}, {2, 3, 2}
+		});
+	}
+	
+	private static DatabaseGraph createGraph(int[][] edges){
+		DatabaseGraphBuilder builder = new DatabaseGraphBuilder(6, 3);
+		for(int[] edge : edges){
+			builder.addEdge(edge[0], edge[1], edge[2]);
+		}
+		
+		return builder.build();
+	}
+}
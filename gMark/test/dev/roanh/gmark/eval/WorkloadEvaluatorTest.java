@@ -0,0 +1,145 @@
+/*
+ * gMark: A domain- and query language-independent query workload generator and query language utility library.
+ * Copyright (C) 2021  Roan Hofland (roan@roanh.dev).  All rights reserved.
+ * GitHub Repository: https://github.com/RoanH/gMark
+ *
+ * gMark is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * gMark is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dev.roanh.gmark.eval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import dev.roanh.gmark.eval.WorkloadEvaluator.QueryResult;
+import dev.roanh.gmark.lang.cpq.CPQ;
+import dev.roanh.gmark.lang.rpq.RPQ;
+import dev.roanh.gmark.type.schema.Predicate;
+import dev.roanh.gmark.util.Util;
+
+@TestInstance(Lifecycle.PER_CLASS)
+public class WorkloadEvaluatorTest{
+	private DatabaseGraph graph;
+	private List<PathQuery> queries;
+	
+	@BeforeAll
+	public void loadData() throws IOException{
+		graph = new DatabaseGraph(Util.readGraph(ClassLoader.getSystemResourceAsStream("workload/real/2/graph.edge")));
+		List<Predicate> labels = graph.getLabels();
+		
+		queries = new ArrayList<PathQuery>();
+		queries.addAll(Util.readWorkload(ClassLoader.getSystemResourceAsStream("workload/real/2/cpq.query"), q->CPQ.parse(q, labels)));
+		queries.addAll(Util.readWorkload(ClassLoader.getSystemResourceAsStream("workload/real/2/rpq.query"), q->RPQ.parse(q, labels)));
+		queries.add(PathQuery.of(RPQ.kleene(RPQ.label(labels.get(3)))));
+		queries.add(PathQuery.of(8, RPQ.kleene(RPQ.disjunct(labels.get(0), labels.get(1)))));
+		queries.add(PathQuery.of(CPQ.intersect(CPQ.labels(labels.get(0), labels.get(1)), CPQ.id())));
+	}
+	
+	@Test
+	public void sequential() throws InterruptedException{
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(graph);
+		assertResults(evaluator, queries, Integer.MAX_VALUE, evaluate(new WorkloadEvaluator(evaluator, 1), Integer.MAX_VALUE));
+	}
+	
+	@Test
+	public void concurrent() throws InterruptedException{
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(graph);
+		for(int threads : new int[]{2, 8}){
+			assertResults(evaluator, queries, Integer.MAX_VALUE, evaluate(new WorkloadEvaluator(evaluator, threads), Integer.MAX_VALUE));
+		}
+	}
+	
+	@Test
+	public void concurrentCache() throws InterruptedException{
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(graph);
+		evaluator.setCache(new QueryCache(1L << 26));
+		
+		List<PathQuery> repeated = new ArrayList<PathQuery>(queries);
+		repeated.addAll(queries);
+		assertResults(new ReachabilityQueryEvaluator(graph), repeated, Integer.MAX_VALUE, evaluate(new WorkloadEvaluator(evaluator, 4), repeated, Integer.MAX_VALUE));
+	}
+	
+	@Test
+	public void concurrentLimit() throws InterruptedException{
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(graph);
+		List<QueryResult> results = evaluate(new WorkloadEvaluator(evaluator, 4), 10);
+		for(QueryResult result : results){
+			assertEquals(Math.min(10, evaluator.evaluate(result.query()).getEdgeCount()), result.result().getEdgeCount());
+		}
+		
+		assertEquals(queries.size(), results.size());
+	}
+	
+	@Test
+	public void invalid(){
+		ReachabilityQueryEvaluator evaluator = new ReachabilityQueryEvaluator(graph);
+		assertThrows(IllegalArgumentException.class, ()->new WorkloadEvaluator(evaluator, 0));
+		assertThrows(IllegalArgumentException.class, ()->new WorkloadEvaluator(evaluator, 2).evaluate(queries, 0, result->{}));
+	}
+	
+	@Test
+	public void failure(){
+		final PathQuery failing = queries.get(queries.size() / 2);
+		WorkloadEvaluator workload = new WorkloadEvaluator(new ReachabilityQueryEvaluator(graph){
+			
+			@Override
+			public ResultGraph evaluate(PathQuery query, int limit){
+				if(query == failing){
+					throw new IllegalStateException("failed");
+				}
+				
+				return super.evaluate(query, limit);
+			}
+		}, 4);
+		
+		List<QueryResult> results = new ArrayList<QueryResult>();
+		assertEquals("failed", assertThrows(IllegalStateException.class, ()->workload.evaluate(queries, Integer.MAX_VALUE, results::add)).getMessage());
+		assertEquals(queries.size() / 2, results.size());
+	}
+	
+	private List<QueryResult> evaluate(WorkloadEvaluator workload, int limit) throws InterruptedException{
+		return evaluate(workload, queries, limit);
+	}
+	
+	private List<QueryResult> evaluate(WorkloadEvaluator workload, List<PathQuery> workloadQueries, int limit) throws InterruptedException{
+		List<QueryResult> results = new ArrayList<QueryResult>();
+		Thread caller = Thread.currentThread();
+		workload.evaluate(workloadQueries, limit, result->{
+			assertSame(caller, Thread.currentThread());
+			results.add(result);
+		});
+		return results;
+	}
+	
+	private void assertResults(ReachabilityQueryEvaluator evaluator, List<PathQuery> expected, int limit, List<QueryResult> results){
+		assertEquals(expected.size(), results.size());
+		for(int i = 0; i < expected.size(); i++){
+			assertSame(expected.get(i), results.get(i).query());
+			assertIterableEquals(
+				evaluator.evaluate(expected.get(i), limit).getSourceTargetPairs().stream().sorted().toList(),
+				results.get(i).result().getSourceTargetPairs().stream().sorted().toList()
+			);
+		}
+	}
+}
@@ -18,6 +18,7 @@
  */
 package dev.roanh.gmark.util;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
@@ -557,6 +558,136 @@ public class UtilTest{
 		}
 	}
 	
+	@Test
+	public void gallop(){
+		int[] data = new int[]{0, 2, 4, 6, 8, 10, 12, 14, 16};
+		assertEquals(0, Util.gallop(data, 0, data.length, -1));
+		assertEquals(3, Util.gallop(data, 0, data.length, 6));
+		assertEquals(4, Util.gallop(data, 0, data.length, 7));
+		assertEquals(4, Util.gallop(data, 4, data.length, 1));
+		assertEquals(9, Util.gallop(data, 0, data.length, 17));
+		assertEquals(5, Util.gallop(data, 2, 5, 100));
+	}
+	
+	@Test
+	public void intersectMerge(){
+		int[] left = new int[]{1, 3, 4, 7, 9, 12};
+		int[] right = new int[]{0, 3, 5, 7, 8, 12, 13};
+		int[] out = new int[8];
+		
+		assertEquals(3, Util.intersect(left, 0, left.length, right, 0, right.length, out, 2));
+		assertArrayEquals(new int[]{3, 7, 12}, Arrays.copyOfRange(out, 2, 5));
+		assertEquals(1, Util.intersect(left, 1, 4, right, 2, 6, out, 0));
+		assertEquals(7, out[0]);
+	}
+	
+	@Test
+	public void intersectGallop(){
+		int[] small = new int[]{3, 500, 501, 998};
+		int[] large = new int[500];
+		for(int i = 0; i < large.length; i++){
+			large[i] = 2 * i;
+		}
+		
+		int[] out = new int[4];
+		assertEquals(2, Util.intersect(small, 0, small.length, large, 0, large.length, out, 0));
+		assertArrayEquals(new int[]{500, 998}, Arrays.copyOf(out, 2));
+		assertEquals(2, Util.intersect(large, 0, large.length, small, 0, small.length, out, 1));
+		assertArrayEquals(new int[]{500, 998}, Arrays.copyOfRange(out, 1, 3));
+		assertEquals(0, Util.intersect(small, 0, 0, large, 0, large.length, out, 0));
+	}
+	
+	@Test
+	public void intersectEmpty(){
+		int[] data = new int[]{1, 2, 3};
+		int[] out = new int[0];
+		
+		assertEquals(0, Util.intersect(data, 0, 0, data, 0, 0, out, 0));
+		assertEquals(0, Util.intersect(data, 0, 0, data, 0, data.length, out, 0));
+		assertEquals(0, Util.intersect(data, 0, data.length, data, 3, 3, out, 0));
+	}
+	
+	@Test
+	public void intersectDisjoint(){
+		int[] left = new int[]{1, 3, 5, 7};
+		int[] right = new int[]{0, 2, 4, 6, 8};
+		int[] high = new int[]{10, 11, 12};
+		int[] out = new int[4];
+		
+		assertEquals(0, Util.intersect(left, 0, left.length, right, 0, right.length, out, 0));
+		assertEquals(0, Util.intersect(right, 0, right.length, left, 0, left.length, out, 0));
+		assertEquals(0, Util.intersect(left, 0, left.length, high, 0, high.length, out, 1));
+		assertEquals(0, Util.intersect(high, 0, high.length, left, 0, left.length, out, 1));
+	}
+	
+	@Test
+	public void intersectExactCapacity(){
+		int[] small = new int[]{2, 4, 6};
+		int[] large = new int[]{1, 2, 3, 4, 5, 6, 7, 8};
+		
+		int[] out = new int[5];
+		assertEquals(3, Util.intersect(small, 0, small.length, large, 0, large.length, out, 2));
+		assertArrayEquals(new int[]{0, 0, 2, 4, 6}, out);
+		
+		out = new int[3];
+		assertEquals(3, Util.intersect(large, 0, large.length, small, 0, small.length, out, 0));
+		assertArrayEquals(small, out);
+		
+		out = new int[2];
+		assertEquals(2, Util.intersect(small, 1, small.length, large, 3, large.length, out, 0));
+		assertArrayEquals(new int[]{4, 6}, out);
+		
+		out = new int[1];
+		assertEquals(0, Util.intersect(new int[]{9}, 0, 1, large, 0, large.length, out, 0));
+	}
+	
+	@Test
+	public void unionMerge(){
+		int[] left = new int[]{1, 3, 4, 7, 9, 12};
+		int[] right = new int[]{0, 3, 5, 7, 8, 12, 13};
+		int[] out = new int[12];
+		
+		assertEquals(10, Util.union(left, 0, left.length, right, 0, right.length, out, 2));
+		assertArrayEquals(new int[]{0, 1, 3, 4, 5, 7, 8, 9, 12, 13}, Arrays.copyOfRange(out, 2, 12));
+		assertEquals(4, Util.union(left, 1, 4, right, 2, 4, out, 0));
+		assertArrayEquals(new int[]{3, 4, 5, 7}, Arrays.copyOf(out, 4));
+	}
+	
+	@Test
+	public void unionEmpty(){
+		int[] data = new int[]{1, 2, 3};
+		
+		int[] out = new int[0];
+		assertEquals(0, Util.union(data, 0, 0, data, 3, 3, out, 0));
+		
+		out = new int[3];
+		assertEquals(3, Util.union(data, 0, 0, data, 0, data.length, out, 0));
+		assertArrayEquals(data, out);
+		
+		out = new int[4];
+		assertEquals(3, Util.union(data, 0, data.length, data, 1, 1, out, 1));
+		assertArrayEquals(new int[]{0, 1, 2, 3}, out);
+	}
+	
+	@Test
+	public void unionDisjoint(){
+		int[] left = new int[]{1, 3, 5};
+		int[] right = new int[]{0, 2, 4, 6};
+		int[] high = new int[]{10, 11};
+		
+		int[] out = new int[7];
+		assertEquals(7, Util.union(left, 0, left.length, right, 0, right.length, out, 0));
+		assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6}, out);
+		
+		out = new int[5];
+		assertEquals(5, Util.union(left, 0, left.length, high, 0, high.length, out, 0));
+		assertArrayEquals(new int[]{1, 3, 5, 10, 11}, out);
+		
+		out = new int[5];
+		assertEquals(5, Util.union(high, 0, high.length, left, 0, left.length, out, 0));
+		assertArrayEquals(new int[]{1, 3, 5, 10, 11}, out);
+	}
+	
 	private static <T> int findVertex(Tree<List<T>> root, T v){
 		if(root.getData().contains(v)){
 			return 1 + root.getChildren().stream().mapToInt(t->findVertex(t, v)).sum();